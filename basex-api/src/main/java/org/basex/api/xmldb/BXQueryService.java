@@ -4,6 +4,7 @@ import static org.basex.util.Token.*;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.query.*;
 import org.xmldb.api.base.*;
@@ -126,6 +127,9 @@ final class BXQueryService implements XPathQueryService, BXXMLDBText {
       return new BXResourceSet(qp.execute(), coll);
     } catch(final QueryException ex) {
       throw new XMLDBException(ErrorCodes.VENDOR_ERROR, ex.getMessage());
+    } catch(final ProcException ex) {
+      // locks could not be acquired in time, or query was interrupted
+      throw new XMLDBException(ErrorCodes.VENDOR_ERROR, ex.getMessage());
     } finally {
       qp.close();
       coll.ctx.unregister(qp);
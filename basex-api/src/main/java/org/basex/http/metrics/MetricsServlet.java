@@ -0,0 +1,31 @@
+package org.basex.http.metrics;
+
+import org.basex.core.cmd.*;
+import org.basex.http.*;
+import org.basex.server.*;
+import org.basex.util.*;
+
+/**
+ * <p>This servlet returns server-wide metrics in the text exposition format
+ * of Prometheus.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class MetricsServlet extends BaseXServlet {
+  /** Content type of the exposition format. */
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+  @Override
+  protected void run(final HTTPContext http) throws Exception {
+    if(http.method != HTTPMethod.GET)
+      throw HTTPErr.NOT_IMPLEMENTED_X.thrw(http.req.getMethod());
+
+    // metrics are only returned to administrators
+    final LocalSession session = http.session();
+    final String metrics = session.execute(new ShowMetrics());
+    http.res.setContentType(CONTENT_TYPE);
+    http.res.setCharacterEncoding(Token.UTF8);
+    http.res.getOutputStream().write(Token.token(metrics));
+  }
+}
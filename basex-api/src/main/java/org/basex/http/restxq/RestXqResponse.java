@@ -3,6 +3,7 @@ package org.basex.http.restxq;
 import static org.basex.http.restxq.RestXqText.*;
 import static org.basex.util.Token.*;
 
+import org.basex.core.*;
 import org.basex.http.*;
 import org.basex.io.serial.*;
 import org.basex.query.*;
@@ -66,7 +67,12 @@ final class RestXqResponse {
     query.mainModule(mm);
     query.context(http, null);
 
-    query.context.register(query);
+    try {
+      query.context.register(query);
+    } catch(final ProcException ex) {
+      // locks could not be acquired in time
+      throw new BaseXException(ex);
+    }
     try {
       // compile and evaluate query
       query.compile();
@@ -1,7 +1,10 @@
 package org.basex.build;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
+import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.io.*;
 
@@ -15,6 +18,8 @@ import org.basex.io.*;
 public final class MemBuilder extends Builder {
   /** Data reference. */
   private MemData data;
+  /** Compact storage flag. */
+  private boolean compact;
 
   /**
    * Constructor.
@@ -25,6 +30,17 @@ public final class MemBuilder extends Builder {
     super(nm, parse);
   }
 
+  /**
+   * Stores the table and texts in a compact representation if {@link Prop#COMPACTMEM}
+   * or {@link Prop#OFFHEAP} is enabled. Should only be called for databases that are
+   * explicitly created in main memory, as temporary fragments will be small.
+   * @return self reference
+   */
+  public MemBuilder compact() {
+    compact = true;
+    return this;
+  }
+
   /**
    * Builds a main memory database instance.
    * @param parser parser
@@ -46,6 +62,49 @@ public final class MemBuilder extends Builder {
     return new MemBuilder(name, parser).build();
   }
 
+  /**
+   * Builds main memory database instances in parallel.
+   * @param name name of databases
+   * @param parsers parsers
+   * @return database instances, in the order of the parsers
+   * @throws IOException I/O exception
+   */
+  public static MemData[] build(final String name, final Parser[] parsers)
+      throws IOException {
+
+    final int ps = parsers.length;
+    final MemData[] data = new MemData[ps];
+    if(ps < 2) {
+      for(int p = 0; p < ps; p++) data[p] = build(name, parsers[p]);
+      return data;
+    }
+
+    final int threads = Math.min(ps, Runtime.getRuntime().availableProcessors());
+    final ExecutorService es = Executors.newFixedThreadPool(threads);
+    try {
+      final ArrayList<Future<MemData>> futures = new ArrayList<Future<MemData>>(ps);
+      for(final Parser parser : parsers) {
+        futures.add(es.submit(new Callable<MemData>() {
+          @Override
+          public MemData call() throws IOException {
+            return build(name, parser);
+          }
+        }));
+      }
+      for(int p = 0; p < ps; p++) data[p] = futures.get(p).get();
+      return data;
+    } catch(final InterruptedException ex) {
+      throw new IOException(ex.toString());
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof IOException) throw (IOException) th;
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      throw new IOException(th.toString());
+    } finally {
+      es.shutdownNow();
+    }
+  }
+
   @Override
   public MemData build() throws IOException {
     init();
@@ -63,7 +122,7 @@ public final class MemBuilder extends Builder {
    * Initializes the builder.
    */
   public void init() {
-    data = new MemData(path, ns, parser.prop);
+    data = new MemData(path, ns, parser.prop, compact);
 
     final MetaData md = data.meta;
     md.name = dbname;
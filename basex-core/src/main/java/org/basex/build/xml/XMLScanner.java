@@ -33,6 +33,23 @@ final class XMLScanner extends Proc {
   private static final byte[] QUESTION = { '?' };
   /** Ampersand entity. */
   private static final byte[] AMPER = { '&' };
+  /** ASCII characters that can be bulk-copied in text content. */
+  private static final byte[] TEXT = new byte[0x80];
+  /** ASCII characters that can be bulk-copied in attribute values. */
+  private static final byte[] ATTV = new byte[0x80];
+
+  static {
+    for(int c = ' '; c < 0x80; c++) TEXT[c] = (byte) c;
+    TEXT['\t'] = '\t';
+    TEXT['\n'] = '\n';
+    TEXT['<'] = 0;
+    TEXT['&'] = 0;
+    TEXT[']'] = 0;
+    System.arraycopy(TEXT, 0, ATTV, 0, TEXT.length);
+    ATTV['\n'] = ' ';
+    ATTV['\''] = 0;
+    ATTV['"'] = 0;
+  }
 
   /** Scanning states. */
   private enum State {
@@ -284,6 +301,8 @@ final class XMLScanner extends Proc {
       } else {
         token.add(c);
       }
+      // copy subsequent characters in bulk (parameter entities need to be resolved)
+      if(!pe) input.copy(token, ATTV);
     } while((c = consume()) != quote);
   }
 
@@ -323,6 +342,7 @@ final class XMLScanner extends Proc {
         }
         cDATA();
       }
+      input.copy(token, TEXT);
       c = consume();
       f = false;
     }
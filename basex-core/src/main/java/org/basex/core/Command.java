@@ -314,17 +314,22 @@ public abstract class Command extends Proc {
     // set updating flag
     updating = updating(ctx);
 
+    final long start = System.nanoTime();
     try {
       // register process
       ctx.register(this);
       // run command and return success flag
       return run(ctx, os);
+    } catch(final ProcException ex) {
+      // locks could not be acquired in time, or transaction was rejected
+      return error(ex.getMessage());
     } catch(final RuntimeException th) {
       Util.stack(th);
       throw th;
     } finally {
       // guarantee that process will be unregistered
       ctx.unregister(this);
+      ctx.metrics.command(this, System.nanoTime() - start);
     }
   }
 
@@ -344,9 +349,9 @@ public abstract class Command extends Proc {
     try {
       return run();
     } catch(final ProcException ex) {
-      // process was interrupted by the user or server
+      // process was interrupted by the user or server, or exceeded its memory limit
       abort();
-      return error(INTERRUPTED);
+      return error(ex.getMessage() != null ? ex.getMessage() : INTERRUPTED);
     } catch(final Throwable ex) {
       // unexpected error
       Performance.gc(2);
@@ -40,6 +40,10 @@ public final class Context {
   public final Repo repo;
   /** Databases list. */
   public final Databases databases;
+  /** Cached query results. */
+  public final ResultCache results;
+  /** Server-wide metrics. */
+  public final Metrics metrics;
 
   /** User reference. */
   public User user;
@@ -89,6 +93,8 @@ public final class Context {
     events = ctx.events;
     sessions = ctx.sessions;
     databases = ctx.databases;
+    results = ctx.results;
+    metrics = ctx.metrics;
     blocker = ctx.blocker;
     locks = ctx.locks;
     users = ctx.users;
@@ -107,6 +113,8 @@ public final class Context {
     sessions = new Sessions();
     blocker = new ClientBlocker();
     databases = new Databases(this);
+    results = new ResultCache(mp);
+    metrics = new Metrics();
     locks = mp.is(MainProp.GLOBALLOCK) || Prop.gui ?
       new ProcLocking(this) : new DBLocking(mp);
     users = new Users(this);
@@ -223,6 +231,8 @@ public final class Context {
   /**
    * Locks the specified process and starts a timeout thread.
    * @param pr process
+   * @throws ProcException if the locks could not be acquired in time
+   * (see {@link Prop#LOCKWAIT})
    */
   public void register(final Proc pr) {
     assert !pr.registered() : "Already registered:" + pr;
@@ -230,13 +240,40 @@ public final class Context {
 
     // administrators will not be affected by the timeout
     if(!user.has(Perm.ADMIN)) pr.startTimeout(mprop.num(MainProp.TIMEOUT) * 1000L);
+    pr.limitMemory(mprop.num(MainProp.MEMLIMIT) * (1L << 20));
 
     // get touched databases
     final LockResult lr = new LockResult();
     pr.databases(lr);
     final StringList read = prepareLock(lr.read, lr.readAll);
     final StringList write = prepareLock(lr.write, lr.writeAll);
-    locks.acquire(pr, read, write);
+    // only administrators may choose another queue
+    final String queue = prop.get(Prop.QUEUE);
+    pr.queue = queue.isEmpty() || !user.has(Perm.ADMIN) ? user.name : queue;
+    final long start = System.nanoTime();
+    boolean acquired = false;
+    try {
+      acquired = locks.acquire(pr, read, write, prop.num(Prop.LOCKWAIT) * 1000L);
+    } finally {
+      metrics.lock(System.nanoTime() - start);
+      if(!acquired) {
+        pr.registered(false);
+        pr.stopTimeout();
+      }
+    }
+    if(!acquired) throw new ProcException(LOCK_TIMEOUT);
+    // invalidate cached results of databases that may be updated. Users and permissions
+    // are changed with the admin lock, and such changes may affect all results
+    if(write == null || write.contains(DBLocking.ADMIN)) results.invalidate(null);
+    else if(!write.isEmpty()) results.invalidate(write);
+  }
+
+  /**
+   * Returns information on all granted and waiting locks.
+   * @return lock information
+   */
+  public Table locks() {
+    return locks.info();
   }
 
   /**
@@ -251,10 +288,11 @@ public final class Context {
 
   /**
    * Unlocks the process and stops the timeout.
+   * Ignored if the process has not been registered.
    * @param pr process
    */
   public void unregister(final Proc pr) {
-    assert pr.registered() : "Not registered:" + pr;
+    if(!pr.registered()) return;
     pr.registered(false);
     locks.release(pr);
     pr.stopTimeout();
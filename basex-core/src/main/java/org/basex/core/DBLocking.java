@@ -1,18 +1,32 @@
 package org.basex.core;
 
-import static org.basex.core.Prop.*;
+import static org.basex.core.Text.*;
 
 import java.util.*;
-import java.util.concurrent.*;
-import java.util.concurrent.locks.*;
 
+import org.basex.util.*;
 import org.basex.util.list.*;
 
 /**
  * Manage read and write locks on arbitrary strings. Maximum of {@link MainProp#PARALLEL}
  * concurrent transactions are allowed, further will be queued.
  *
- * This class prevents locking deadlocks by sorting all all strings
+ * All locks of a transaction are granted in a single atomic step, which prevents
+ * deadlocks. Global locks are treated like intention locks on all strings: a global
+ * read lock conflicts with local write locks, and a global write lock conflicts with
+ * all other locks.
+ *
+ * Waiting transactions are scheduled as specified by {@link MainProp#LOCKPOLICY}:
+ * with {@code fair} scheduling, a transaction will never overtake an earlier, conflicting
+ * transaction. With {@code readers} or {@code writers}, read-only or writing transactions
+ * may overtake conflicting transactions of the other kind.
+ *
+ * Each transaction is assigned to an admission queue (see {@link Prop#QUEUE}).
+ * Transactions are ordered by weighted fair queuing: every queue gets a share of the
+ * transaction slots that corresponds to its weight ({@link MainProp#QUEUEWEIGHTS}).
+ * The number of running transactions per queue can be limited
+ * ({@link MainProp#QUEUELIMITS}), and new transactions will be rejected if a queue
+ * exceeds its latency target ({@link MainProp#QUEUELATENCY}).
  *
  * Locks can only be released and downgraded by the same thread which acquired it.
  *
@@ -26,11 +40,8 @@ import org.basex.util.list.*;
  * @author Jens Erat
  */
 public final class DBLocking implements Locking {
-  /** Fair scheduling; prevents starvation, but reduces parallelism. */
-  private static final boolean FAIR = true;
-
   /** Prefix for internal special locks. */
-  private static final String PREFIX = "%";
+  public static final String PREFIX = "%";
   /** Special lock identifier for current document, will be substituted. */
   public static final String COLL = PREFIX + "DOC";
   /** Special lock identifier for current context, will be substituted. */
@@ -46,48 +57,14 @@ public final class DBLocking implements Locking {
   /** Prefix for user defined locks. */
   public static final String USER_PREFIX = "+";
 
-  /** Lock for running thread counters. */
-  private final Object globalLock = new Object();
-  /** Number of running local writers. Guarded by {@code globalLock}. */
-  private int localWriters;
-  /** Number of running local writers. Guarded by {@code globalLock}. */
-  private int globalReaders;
-  /**
-   * Lock for global write locking.
-   *
-   * Exclusive lock - if globally writing
-   * Shared lock    - else
-   */
-  private final ReentrantReadWriteLock writeAll = new ReentrantReadWriteLock();
-  /** Stores one lock for each object used for locking. */
-  private final Map<String, ReentrantReadWriteLock> locks =
-      new HashMap<String, ReentrantReadWriteLock>();
-  /** Stores lock usage counters for each object used for locking. */
-  private final Map<String, Integer> lockUsage =
-      new HashMap<String, Integer>();
-  /**
-   * Currently running transactions.
-   * Used as monitor for atomizing access to {@link #queue}.
-   */
-  private int transactions;
-  /**
-   * Queue for transactions waiting.
-   *
-   * Used as monitor for waiting threads in queue.
-   */
-  private final Queue<Long> queue = new LinkedList<Long>();
-  /**
-   * Stores a list of objects each transaction has write-locked.
-   * Null means lock everything, an empty array lock nothing.
-   */
-  private final ConcurrentMap<Long, StringList> writeLocked =
-      new ConcurrentHashMap<Long, StringList>();
-  /**
-   * Stores a list of objects each transaction has read-locked. Null means lock
-   * everything, an empty array lock nothing.
-   */
-  private final ConcurrentMap<Long, StringList> readLocked =
-      new ConcurrentHashMap<Long, StringList>();
+  /** Transactions holding locks, indexed by their thread ids. Guarded by {@code this}. */
+  private final LinkedHashMap<Long, Request> granted = new LinkedHashMap<Long, Request>();
+  /** Waiting transactions, ordered by their virtual start times. Guarded by {@code this}. */
+  private final LinkedList<Request> waiting = new LinkedList<Request>();
+  /** Virtual finish times of the admission queues. Guarded by {@code this}. */
+  private final HashMap<String, Double> finish = new HashMap<String, Double>();
+  /** Virtual time: start time of the last granted transaction. Guarded by {@code this}. */
+  private double vtime;
   /** BaseX database context. */
   private final MainProp mprop;
 
@@ -99,90 +76,60 @@ public final class DBLocking implements Locking {
     mprop = mp;
   }
 
-  @Override
+  /**
+   * Puts read and write locks on the specified strings, and waits until they are
+   * available.
+   * @param pr process
+   * @param read strings to put read locks on ({@code null}: global read lock)
+   * @param write strings to put write locks on ({@code null}: global write lock)
+   */
   public void acquire(final Proc pr, final StringList read, final StringList write) {
-    final Long thread = Thread.currentThread().getId();
-    if(writeLocked.containsKey(thread) || readLocked.containsKey(thread))
-      throw new IllegalMonitorStateException("Thread already holds one or more locks.");
-
-    // Wait in queue if necessary
-    synchronized(queue) { // Guard queue and transaction, monitor for waiting in queue
-      queue.add(thread);
-      while(transactions >= Math.max(mprop.num(MainProp.PARALLEL), 1)
-          || queue.peek() != thread) {
-        try {
-          queue.wait();
-        } catch(final InterruptedException e) {
-          Thread.currentThread().interrupt();
-        }
-      }
-      final int t = transactions++;
-      assert t <= Math.max(mprop.num(MainProp.PARALLEL), 1);
-      queue.remove(thread);
-    }
+    acquire(pr, read, write, 0);
+  }
 
-    // Global write lock if write StringList is not set
-    if(null == write) writeAll.writeLock().lock();
-    else writeAll.readLock().lock();
-
-    synchronized(globalLock) {
-      // local write locking
-      if(null != write && !write.isEmpty()) {
-        while(globalReaders > 0) {
-          try {
-            globalLock.wait();
-          } catch(final InterruptedException e) {
-            Thread.currentThread().interrupt();
-          }
+  @Override
+  public boolean acquire(final Proc pr, final StringList read, final StringList write,
+      final long timeout) {
+
+    final Request req = new Request(pr, read, write);
+    synchronized(this) {
+      if(granted.containsKey(req.thread))
+        throw new IllegalMonitorStateException("Thread already holds one or more locks.");
+
+      // load shedding: reject transaction if the latency target of its queue is exceeded
+      final long target = mprop.num(MainProp.QUEUELATENCY) * 1000000L;
+      if(target > 0) {
+        for(final Request w : waiting) {
+          if(w.queue.equals(req.queue) && req.time - w.time > target)
+            throw new ProcException(Util.info(QUEUE_OVERLOADED_X, req.queue));
         }
-        localWriters++;
       }
-      // global read locking
-      if(null == read) {
-        while(localWriters > 0) {
-          try {
-            globalLock.wait();
-          } catch(final InterruptedException e) {
-            Thread.currentThread().interrupt();
+      enqueue(req);
+      final long end = System.nanoTime() + timeout * 1000000;
+      while(!grantable(req)) {
+        try {
+          if(timeout <= 0) {
+            wait();
+          } else {
+            final long ms = (end - System.nanoTime()) / 1000000;
+            if(ms <= 0) {
+              // give up, and allow transactions to proceed that were blocked by this one
+              waiting.remove(req);
+              dequeue(req);
+              notifyAll();
+              return false;
+            }
+            wait(ms);
           }
+        } catch(final InterruptedException e) {
+          Thread.currentThread().interrupt();
         }
-        globalReaders++;
-      }
-    }
-
-    // Local locking
-    final StringList writeObjects;
-    if(null != write) {
-      writeObjects = write.sort(true).unique();
-      writeLocked.put(thread, writeObjects);
-    } else {
-      writeObjects = new StringList(0);
-    }
-    final StringList readObjects;
-    if(null != read) {
-      readObjects = read.sort(true).unique();
-      readLocked.put(thread, readObjects);
-    } else {
-      readObjects = new StringList(0);
-    }
-
-    // Use pattern similar to merge sort
-    int w = 0, r = 0;
-    while(r < readObjects.size() || w < writeObjects.size()) {
-      // Look what token comes earlier in alphabet, prefer writing against reading
-      if(w < writeObjects.size() && (r >= readObjects.size()
-          || writeObjects.get(w).compareTo(readObjects.get(r)) <= 0)) {
-        final String writeObject = writeObjects.get(w++);
-        setLockUsed(writeObject);
-        getOrCreateLock(writeObject).writeLock().lock();
-      } else
-      // Read lock only if not global write locking; otherwise no lock downgrading from
-      // global write lock is possible
-      if(null != write) {
-        final String readObject = readObjects.get(r++);
-        setLockUsed(readObject);
-        getOrCreateLock(readObject).readLock().lock();
       }
+      waiting.remove(req);
+      req.time = System.nanoTime();
+      granted.put(req.thread, req);
+      vtime = Math.max(vtime, req.start);
+      return true;
     }
   }
 
@@ -192,181 +139,319 @@ public final class DBLocking implements Locking {
    */
   @Override
   public void downgrade(final StringList write) {
-    final Long thread = Thread.currentThread().getId();
     if(null == write)
       throw new IllegalMonitorStateException("Cannot downgrade to global write lock.");
-    write.sort(true).unique();
-
-    // Fetch current locking status
-    final StringList writeObjects = writeLocked.remove(thread);
-    final StringList readObjects = readLocked.remove(thread);
-    final StringList newWriteObjects = new StringList();
-    StringList newReadObjects = new StringList();
-    if(null != readObjects) newReadObjects.add(readObjects);
-
-    if(null != writeObjects) {
-      if(!writeObjects.containsAll(write)) throw new IllegalMonitorStateException(
-          "Cannot downgrade write lock that has not been acquired.");
-
-      // Perform downgrades
-      for(final String object : writeObjects) {
-        if(write.contains(object)) {
-          newWriteObjects.add(object);
-        } else {
-          final ReentrantReadWriteLock lock = getOrCreateLock(object);
-          assert 1 == lock.getWriteHoldCount() : "Unexpected write lock count: "
-              + lock.getWriteHoldCount();
-          lock.readLock().lock();
-          newReadObjects.add(object);
-          lock.writeLock().unlock();
+    final StringList keep = sorted(write);
+
+    synchronized(this) {
+      final Request req = granted.get(Thread.currentThread().getId());
+      if(req == null)
+        throw new IllegalMonitorStateException("Thread does not hold any locks.");
+
+      if(req.write == null) {
+        // global write lock: keep global read lock
+        req.read = null;
+      } else {
+        if(!req.write.containsAll(keep)) throw new IllegalMonitorStateException(
+            "Cannot downgrade write lock that has not been acquired.");
+        if(req.read != null) {
+          for(final String object : req.write) {
+            if(!keep.contains(object)) req.read.add(object);
+          }
+          req.read.sort(true).unique();
         }
       }
+      req.write = keep;
+      notifyAll();
     }
+  }
 
-    // Downgrade from global write lock to global read lock
-    if(writeAll.writeLock().isHeldByCurrentThread()) {
-      for (final String object : write) {
-        getOrCreateLock(object).writeLock().lock();
-        setLockUsed(object);
-      }
-      newWriteObjects.add(write);
-      // Release all local read locks as we're fetching a global one
-      for(final String object : readObjects) {
-        getOrCreateLock(object).readLock().unlock();
-        unsetLockIfUnused(object);
-      }
-      newReadObjects = null;
-      readLocked.remove(thread);
-      writeAll.readLock().lock();
-      writeAll.writeLock().unlock();
-
-      synchronized(globalLock) {
-        if(!write.isEmpty())
-          localWriters++;
-        globalReaders++;
-        globalLock.notifyAll();
-      }
+  @Override
+  public synchronized void release(final Proc pr) {
+    if(granted.remove(Thread.currentThread().getId()) == null)
+      throw new IllegalMonitorStateException("Thread does not hold any locks.");
+    notifyAll();
+  }
+
+  @Override
+  public synchronized Table info() {
+    final Table table = new Table();
+    for(final String h : LOCKHEAD) table.header.add(h);
+
+    final long now = System.nanoTime();
+    for(final Request req : granted.values()) add(req, "granted", null, now, table);
+    for(final Request req : waiting) add(req, "waiting", blockers(req), now, table);
+    table.description = LOCKS_X;
+    return table;
+  }
+
+  /**
+   * Present current locking status. Not to be seen as a programming API but only for
+   * debugging purposes.
+   */
+  @Override
+  public String toString() {
+    return Token.string(info().finish());
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Assigns a virtual start time to the specified transaction and adds it to the
+   * waiting transactions. The start time is the virtual finish time of the previous
+   * transaction of the same queue, or the current virtual time if the queue was idle.
+   * @param req transaction
+   */
+  private void enqueue(final Request req) {
+    final Double f = finish.get(req.queue);
+    req.start = f == null ? vtime : Math.max(vtime, f);
+    req.previous = f;
+    final int weight = Math.max(1, value(MainProp.QUEUEWEIGHTS, req.queue, 1));
+    req.finish = req.start + 1d / weight;
+    finish.put(req.queue, req.finish);
+
+    // remove idle queues
+    if(finish.size() > 64) {
+      final Iterator<Double> it = finish.values().iterator();
+      while(it.hasNext()) if(it.next() <= vtime) it.remove();
     }
 
-    // Downgrade from local write lock to no write locks
-    synchronized(globalLock) {
-      if(write.isEmpty()) {
-        localWriters--;
-        globalLock.notifyAll();
+    // insert transaction after all transactions with the same or earlier start time
+    final ListIterator<Request> it = waiting.listIterator(waiting.size());
+    while(it.hasPrevious()) {
+      if(it.previous().start <= req.start) {
+        it.next();
+        break;
       }
     }
+    it.add(req);
+  }
 
-    // Write back new locking lists
-    writeLocked.put(thread, newWriteObjects);
-    if (null != newReadObjects)
-      readLocked.put(thread, newReadObjects);
+  /**
+   * Restores the virtual finish time of the queue of a transaction that has not been
+   * granted, unless later transactions of the same queue have been enqueued.
+   * @param req transaction
+   */
+  private void dequeue(final Request req) {
+    final Double f = finish.get(req.queue);
+    if(f == null || f != req.finish) return;
+    if(req.previous == null) finish.remove(req.queue);
+    else finish.put(req.queue, req.previous);
   }
 
   /**
-   * Gets or creates lock on object.
-   * @param object to fetch lock for
-   * @return lock on object
+   * Checks if the locks of the specified waiting transaction can be granted.
+   * @param req waiting transaction
+   * @return result of check
    */
-  private ReentrantReadWriteLock getOrCreateLock(final String object) {
-    ReentrantReadWriteLock lock;
-    synchronized(locks) { // Make sure each object lock is a singleton
-      lock = locks.get(object);
-      if(null == lock) { // Create lock if needed
-        lock = new ReentrantReadWriteLock(FAIR);
-        locks.put(object, lock);
-      }
+  private boolean grantable(final Request req) {
+    final int max = Math.max(mprop.num(MainProp.PARALLEL), 1);
+    if(granted.size() >= max || limited(req)) return false;
+    for(final Request g : granted.values()) if(req.conflicts(g)) return false;
+
+    // earlier transactions may not be overtaken, unless this is allowed by the policy
+    final String policy = mprop.get(MainProp.LOCKPOLICY);
+    int reserved = 0;
+    for(final Request w : waiting) {
+      if(w == req) break;
+      if(req.overtakes(w, policy)) continue;
+      if(req.conflicts(w)) return false;
+      // reserve free slots for earlier transactions that could be started as well
+      if(free(w) && !limited(w)) reserved++;
     }
-    return lock;
+    return granted.size() + reserved < max;
   }
 
-  @Override
-  public void release(final Proc pr) {
-    // Release all write locks
-    final Long thread = Thread.currentThread().getId();
-    final StringList writeObjects = writeLocked.remove(thread);
-    if(null != writeObjects) for(final String object : writeObjects) {
-      final ReentrantReadWriteLock lock = getOrCreateLock(object);
-      assert 1 == lock.getWriteHoldCount() : "Unexpected write lock count: "
-          + lock.getWriteHoldCount();
-      lock.writeLock().unlock();
-      unsetLockIfUnused(object);
-    }
+  /**
+   * Checks if the queue of the specified transaction has reached its concurrency limit.
+   * @param req transaction
+   * @return result of check
+   */
+  private boolean limited(final Request req) {
+    final int limit = value(MainProp.QUEUELIMITS, req.queue, 0);
+    if(limit <= 0) return false;
+    int running = 0;
+    for(final Request g : granted.values()) if(g.queue.equals(req.queue)) running++;
+    return running >= limit;
+  }
 
-    // Release all read locks
-    final StringList readObjects = readLocked.remove(thread);
-    if(!writeAll.isWriteLocked() && null != readObjects)
-      for(final String object : readObjects) {
-        getOrCreateLock(object).readLock().unlock();
-        unsetLockIfUnused(object);
+  /**
+   * Returns the value that has been assigned to a queue in the specified option.
+   * Values are specified as comma-separated list of {@code queue=value} pairs.
+   * @param option option
+   * @param queue queue
+   * @param def default value
+   * @return value
+   */
+  private int value(final Object[] option, final String queue, final int def) {
+    for(final String entry : mprop.get(option).split(",")) {
+      final int i = entry.indexOf('=');
+      if(i != -1 && entry.substring(0, i).trim().equals(queue)) {
+        final int v = Token.toInt(entry.substring(i + 1).trim());
+        if(v != Integer.MIN_VALUE) return v;
       }
+    }
+    return def;
+  }
 
-    // Release global locks
-    (writeAll.isWriteLocked() ? writeAll.writeLock() : writeAll.readLock()).unlock();
-    if(null != writeObjects && !writeObjects.isEmpty()) synchronized(globalLock) {
-      localWriters--;
-      globalLock.notifyAll();
+  /**
+   * Checks if the specified transaction does not conflict with any granted transaction.
+   * @param req transaction
+   * @return result of check
+   */
+  private boolean free(final Request req) {
+    for(final Request g : granted.values()) if(req.conflicts(g)) return false;
+    return true;
+  }
+
+  /**
+   * Returns the thread ids of all transactions a waiting transaction is waiting for.
+   * @param req waiting transaction
+   * @return thread ids
+   */
+  private String blockers(final Request req) {
+    final String policy = mprop.get(MainProp.LOCKPOLICY);
+    final StringList ids = new StringList();
+    for(final Request g : granted.values()) {
+      if(req.conflicts(g)) ids.add(g.thread.toString());
     }
-    if(null == readObjects) synchronized(globalLock) {
-      globalReaders--;
-      globalLock.notifyAll();
+    for(final Request w : waiting) {
+      if(w == req) break;
+      if(!req.overtakes(w, policy) && req.conflicts(w)) ids.add(w.thread.toString());
     }
+    return string(ids);
+  }
 
-    // Allow another transaction to run
-    synchronized(queue) {
-      transactions--;
-      queue.notifyAll();
-    }
+  /**
+   * Adds a table entry for the specified transaction.
+   * @param req transaction
+   * @param state state
+   * @param blockers blocking transactions
+   * @param now current time
+   * @param table table
+   */
+  private static void add(final Request req, final String state, final String blockers,
+      final long now, final Table table) {
+    final TokenList tl = new TokenList();
+    tl.add(req.thread);
+    tl.add(state);
+    tl.add(req.queue);
+    tl.add(Performance.getTime(now - req.time, 1));
+    tl.add(req.write == null ? "" : string(req.read));
+    tl.add(string(req.write));
+    tl.add(blockers == null ? "" : blockers);
+    tl.add(Token.chop(Token.token(req.proc.toString()), 100));
+    table.contents.add(tl);
   }
 
   /**
-   * Marks a lock as used.
-   * @param lock Lock to set used
+   * Returns a string representation of the specified strings.
+   * @param list strings ({@code null}: all strings)
+   * @return string
    */
-  private void setLockUsed(final String lock) {
-    synchronized(lockUsage) {
-      Integer usage = lockUsage.get(lock);
-      if(null == usage) usage = 0;
-      lockUsage.put(lock, ++usage);
+  private static String string(final StringList list) {
+    if(list == null) return "*";
+    final StringBuilder sb = new StringBuilder();
+    for(final String s : list) {
+      if(sb.length() != 0) sb.append(", ");
+      sb.append(s);
     }
+    return sb.toString();
   }
 
   /**
-   * Unsets lock if unused.
-   * @param object Object to test
+   * Returns a sorted copy of the specified strings without duplicates.
+   * @param list strings (may be {@code null})
+   * @return sorted strings, or {@code null}
    */
-  private void unsetLockIfUnused(final String object) {
-    synchronized(lockUsage) {
-      Integer usage = lockUsage.get(object);
-      assert null != usage;
-      if (0 == --usage) {
-        locks.remove(object);
-        lockUsage.remove(object);
-      } else
-        lockUsage.put(object, usage);
-    }
+  static StringList sorted(final StringList list) {
+    return list == null ? null : new StringList(list.size()).add(list).sort(true).unique();
   }
 
   /**
-   * Present current locking status. Not to be seen as a programming API but only for
-   * debugging purposes.
+   * Checks if the two sorted lists have common entries.
+   * @param list1 first list
+   * @param list2 second list
+   * @return result of check
    */
-  @Override
-  public String toString() {
-    final String ind = "| ";
-    final StringBuilder sb = new StringBuilder(NL);
-    sb.append("Locking" + NL);
-    sb.append(ind + "Transactions running: " + transactions + NL);
-    sb.append(ind + "Transaction queue: " + queue + NL);
-    sb.append(ind + "Held locks by object:" + NL);
-    for(final Object object : locks.keySet())
-      sb.append(ind + ind + object + " -> " + locks.get(object) + NL);
-    sb.append(ind + "Held write locks by transaction:" + NL);
-    for(final Long thread : writeLocked.keySet())
-      sb.append(ind + ind + thread + " -> " + writeLocked.get(thread) + NL);
-    sb.append(ind + "Held read locks by transaction:" + NL);
-    for(final Long thread : readLocked.keySet())
-      sb.append(ind + ind + thread + " -> " + readLocked.get(thread) + NL);
-    return sb.toString();
+  private static boolean intersect(final StringList list1, final StringList list2) {
+    final int s1 = list1.size(), s2 = list2.size();
+    for(int i1 = 0, i2 = 0; i1 < s1 && i2 < s2;) {
+      final int d = list1.get(i1).compareTo(list2.get(i2));
+      if(d == 0) return true;
+      if(d < 0) i1++;
+      else i2++;
+    }
+    return false;
   }
 
+  /** Lock request of a single transaction. */
+  private static final class Request {
+    /** Thread id. */
+    final Long thread = Thread.currentThread().getId();
+    /** Process. */
+    final Proc proc;
+    /** Admission queue. */
+    final String queue;
+    /** Virtual start time. */
+    double start;
+    /** Virtual finish time. */
+    double finish;
+    /** Previous virtual finish time of the queue ({@code null}: queue was idle). */
+    Double previous;
+    /** Sorted read locks ({@code null}: global lock). */
+    StringList read;
+    /** Sorted write locks ({@code null}: global lock). */
+    StringList write;
+    /** Time when the locks were requested or granted. */
+    long time = System.nanoTime();
+
+    /**
+     * Constructor.
+     * @param pr process
+     * @param rd read locks
+     * @param wr write locks
+     */
+    Request(final Proc pr, final StringList rd, final StringList wr) {
+      proc = pr;
+      queue = pr.queue == null ? "" : pr.queue;
+      read = sorted(rd);
+      write = sorted(wr);
+    }
+
+    /**
+     * Checks if this transaction only reads data.
+     * @return result of check
+     */
+    boolean readOnly() {
+      return write != null && write.isEmpty();
+    }
+
+    /**
+     * Checks if this transaction may overtake the specified waiting transaction.
+     * @param req waiting transaction
+     * @param policy lock policy
+     * @return result of check
+     */
+    boolean overtakes(final Request req, final String policy) {
+      return policy.equals("readers") ? readOnly() && !req.readOnly() :
+        policy.equals("writers") && !readOnly() && req.readOnly();
+    }
+
+    /**
+     * Checks if the locks of this and the specified transaction are incompatible.
+     * @param req other transaction
+     * @return result of check
+     */
+    boolean conflicts(final Request req) {
+      // global write locks conflict with all other locks
+      if(write == null || req.write == null) return true;
+      // global read locks conflict with local write locks
+      if(read == null && !req.write.isEmpty() || req.read == null && !write.isEmpty())
+        return true;
+      return intersect(write, req.write) ||
+          read != null && intersect(read, req.write) ||
+          req.read != null && intersect(write, req.read);
+    }
+  }
 }
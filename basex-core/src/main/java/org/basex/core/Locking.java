@@ -1,5 +1,6 @@
 package org.basex.core;
 
+import org.basex.util.*;
 import org.basex.util.list.*;
 
 /**
@@ -18,8 +19,11 @@ public interface Locking {
    *   Global locking is performed if the passed on reference is {@code null}
    * @param write names of databases to put write locks on.
    *   Global locking is performed if the passed on reference is {@code null}
+   * @param timeout maximum time to wait for the locks (milliseconds; 0: no limit)
+   * @return {@code false} if the locks could not be acquired in time
    */
-  void acquire(final Proc pr, final StringList read, final StringList write);
+  boolean acquire(final Proc pr, final StringList read, final StringList write,
+      final long timeout);
 
   /**
    * Unlock all string locked by a transaction.
@@ -32,4 +36,10 @@ public interface Locking {
    * @param pr process
    */
   void release(final Proc pr);
+
+  /**
+   * Returns information on all granted and waiting locks.
+   * @return lock information
+   */
+  Table info();
 }
@@ -3,6 +3,7 @@ package org.basex.core;
 import java.util.*;
 
 import org.basex.io.*;
+import org.basex.io.random.*;
 
 /**
  * This class assembles admin properties which are used all around the project.
@@ -32,6 +33,14 @@ public final class MainProp extends AProp {
   public static final Object[] LANGKEYS = { "LANGKEYS", false };
   /** Applied locking algorithm: local (database) vs. global (process) locking. */
   public static final Object[] GLOBALLOCK = { "GLOBALLOCK", false };
+  /** Scheduling of waiting transactions (fair, readers, writers). */
+  public static final Object[] LOCKPOLICY = { "LOCKPOLICY", "fair" };
+  /** Weights of admission queues (e.g. "api=4,batch=1"; default: 1). */
+  public static final Object[] QUEUEWEIGHTS = { "QUEUEWEIGHTS", "" };
+  /** Maximum number of running transactions per queue (e.g. "batch=2"). */
+  public static final Object[] QUEUELIMITS = { "QUEUELIMITS", "" };
+  /** Latency target of admission queues (milliseconds; 0: no load shedding). */
+  public static final Object[] QUEUELATENCY = { "QUEUELATENCY", 0 };
 
   /** Comment: written to property file. */
   public static final Object[] C_CLIENT = { "Client/Server Architecture" };
@@ -60,14 +69,22 @@ public final class MainProp extends AProp {
 
   /** Timeout (seconds) for processing client requests; deactivated if set to 0. */
   public static final Object[] TIMEOUT = { "TIMEOUT", 30 };
+  /** Memory (megabytes) that may be allocated by a process; deactivated if set to 0. */
+  public static final Object[] MEMLIMIT = { "MEMLIMIT", 0 };
   /** Keep alive time of clients; deactivated if set to 0. */
   public static final Object[] KEEPALIVE = { "KEEPALIVE", 600 };
   /** Defines the number of parallel readers. */
   public static final Object[] PARALLEL = { "PARALLEL", 8 };
+  /** Maximum size of cached query results (kilobytes); deactivated if set to 0. */
+  public static final Object[] RESULTCACHE = { "RESULTCACHE", 0 };
   /** Logging flag. */
   public static final Object[] LOG = { "LOG", true };
   /** Log message cut-off. */
   public static final Object[] LOGMSGMAXLEN = { "LOGMSGMAXLEN", 1000 };
+  /** Log format (text, json). */
+  public static final Object[] LOGFORMAT = { "LOGFORMAT", "text" };
+  /** Behavior if the log buffer is full (block, drop, sample). */
+  public static final Object[] LOGOVERFLOW = { "LOGOVERFLOW", "block" };
 
   /** Comment: written to property file. */
   public static final Object[] C_HTTP = { "HTTP Services" };
@@ -112,6 +129,7 @@ public final class MainProp extends AProp {
 
   /**
    * Returns a random temporary name for the specified database.
+   * The I/O of the temporary database will be attributed to the specified database.
    * @param db name of database
    * @return random name
    */
@@ -120,6 +138,7 @@ public final class MainProp extends AProp {
     do {
       nm = db + '_' + new Random().nextInt(0x7FFFFFFF);
     } while(dbpath(nm).exists());
+    IOCounter.alias(nm, db);
     return nm;
   }
 
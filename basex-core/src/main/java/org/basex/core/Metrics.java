@@ -0,0 +1,174 @@
+package org.basex.core;
+
+import java.util.*;
+
+import org.basex.core.cmd.*;
+import org.basex.index.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+
+/**
+ * This class records server-wide metrics on executed commands, lock waits and caches.
+ * All counters can be updated concurrently without blocking, so recording can be
+ * enabled in production. The metrics are returned in the text-based exposition
+ * format of Prometheus (version 0.0.4).
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class Metrics {
+  /** Metrics prefix. */
+  private static final String PREFIX = "basex_";
+  /** Upper bounds of the latency buckets (in seconds). */
+  private static final double[] BOUNDS = {
+    0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10
+  };
+
+  /** Start time of the server (milliseconds). */
+  private final long start = System.currentTimeMillis();
+  /** Executed queries. */
+  private final StripedCounter queries = new StripedCounter();
+  /** Other executed commands. */
+  private final StripedCounter commands = new StripedCounter();
+  /** Latency buckets (the last bucket counts all slower commands). */
+  private final StripedCounter[] buckets = new StripedCounter[BOUNDS.length + 1];
+  /** Total execution time (nanoseconds). */
+  private final StripedCounter time = new StripedCounter();
+  /** Number of lock requests. */
+  private final StripedCounter locks = new StripedCounter();
+  /** Time spent waiting for locks (nanoseconds). */
+  private final StripedCounter waits = new StripedCounter();
+
+  /**
+   * Constructor.
+   */
+  Metrics() {
+    for(int b = 0; b < buckets.length; b++) buckets[b] = new StripedCounter();
+  }
+
+  /**
+   * Records an executed command.
+   * @param cmd command
+   * @param ns execution time, including the time spent waiting for locks
+   */
+  void command(final Command cmd, final long ns) {
+    (cmd instanceof AQuery ? queries : commands).inc();
+    final double s = ns / 1e9;
+    int b = 0;
+    while(b < BOUNDS.length && s > BOUNDS[b]) b++;
+    buckets[b].inc();
+    time.add(ns);
+  }
+
+  /**
+   * Records the time spent for acquiring locks.
+   * @param ns waiting time
+   */
+  void lock(final long ns) {
+    locks.inc();
+    waits.add(ns);
+  }
+
+  /**
+   * Returns the metrics in the text exposition format.
+   * @param ctx database context
+   * @return metrics
+   */
+  public String info(final Context ctx) {
+    final StringBuilder sb = new StringBuilder();
+    header(sb, "uptime_seconds", "gauge", "Time since the start of the server.");
+    add(sb, "uptime_seconds", "", (System.currentTimeMillis() - start) / 1000d);
+
+    final String cmds = "commands_total";
+    header(sb, cmds, "counter", "Number of executed commands.");
+    add(sb, cmds, "{type=\"query\"}", queries.get());
+    add(sb, cmds, "{type=\"command\"}", commands.get());
+
+    // histogram with cumulative bucket counts
+    final String dur = "command_duration_seconds";
+    header(sb, dur, "histogram", "Execution time of commands, including lock waits.");
+    long count = 0;
+    for(int b = 0; b < buckets.length; b++) {
+      count += buckets[b].get();
+      final String le = b < BOUNDS.length ? Double.toString(BOUNDS[b]) : "+Inf";
+      add(sb, dur + "_bucket", "{le=\"" + le + "\"}", count);
+    }
+    add(sb, dur + "_sum", "", time.get() / 1e9);
+    add(sb, dur + "_count", "", count);
+
+    header(sb, "lock_requests_total", "counter", "Number of lock requests.");
+    add(sb, "lock_requests_total", "", locks.get());
+    header(sb, "lock_wait_seconds_total", "counter", "Time spent waiting for locks.");
+    add(sb, "lock_wait_seconds_total", "", waits.get() / 1e9);
+    header(sb, "sessions", "gauge", "Number of active client sessions.");
+    add(sb, "sessions", "", ctx.sessions.size());
+
+    final long[] rc = ctx.results.stats();
+    cache(sb, "result", "query result", rc[0], rc[1]);
+    cache(sb, "buffer", "disk block buffer", IOCounter.hits(), IOCounter.misses());
+    cache(sb, "index", "index", IndexCache.hits(), IndexCache.misses());
+
+    final TreeMap<String, long[]> bytes = IOCounter.bytes();
+    final String[] names = { "read_bytes_total", "written_bytes_total" };
+    final String[] helps = { "Number of bytes read from database files.",
+        "Number of bytes written to database files." };
+    for(int i = 0; i < names.length; i++) {
+      header(sb, names[i], "counter", helps[i]);
+      for(final Map.Entry<String, long[]> e : bytes.entrySet()) {
+        add(sb, names[i], label(e.getKey()), e.getValue()[i]);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Adds the hits and misses of a cache.
+   * @param sb string builder
+   * @param name name of the cache
+   * @param desc description of the cache
+   * @param hits number of hits
+   * @param misses number of misses
+   */
+  private static void cache(final StringBuilder sb, final String name, final String desc,
+      final long hits, final long misses) {
+    final String h = name + "_cache_hits_total", m = name + "_cache_misses_total";
+    header(sb, h, "counter", "Number of " + desc + " cache hits.");
+    add(sb, h, "", hits);
+    header(sb, m, "counter", "Number of " + desc + " cache misses.");
+    add(sb, m, "", misses);
+  }
+
+  /**
+   * Adds a single sample.
+   * @param sb string builder
+   * @param name name of the metric
+   * @param labels labels
+   * @param value value
+   */
+  private static void add(final StringBuilder sb, final String name, final String labels,
+      final Object value) {
+    sb.append(PREFIX).append(name).append(labels).append(' ').append(value).append('\n');
+  }
+
+  /**
+   * Adds the header of a metric.
+   * @param sb string builder
+   * @param name name of the metric
+   * @param type type of the metric
+   * @param help description
+   */
+  private static void header(final StringBuilder sb, final String name,
+      final String type, final String help) {
+    sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+  }
+
+  /**
+   * Returns a database label.
+   * @param db name of database
+   * @return label
+   */
+  private static String label(final String db) {
+    return "{db=\"" + db.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+  }
+}
@@ -13,17 +13,28 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public abstract class Proc {
+  /** Number of calls to {@link #checkStop()}, after which the memory limit is checked. */
+  private static final int CHECKS = 0xFF;
+
   /** Listener, reacting on process information. */
   public InfoListener listen;
   /** This flag indicates that a command may perform updates. */
   public boolean updating;
   /** Indicates if a process is currently registered. */
   boolean registered;
+  /** Admission queue (assigned when the process is registered). */
+  public String queue;
 
   /** Stopped flag. */
   private boolean stopped;
-  /** Timeout thread. */
-  private Thread timeout;
+  /** Deadline (nanoseconds; {@code 0}: no timeout). */
+  long deadline;
+  /** Maximum number of bytes allocated by the current thread ({@code 0}: no limit). */
+  long memory;
+  /** Memory limit (bytes). */
+  long limit;
+  /** Number of calls to {@link #checkStop()}. */
+  private int checks;
   /** Sub process. */
   private Proc sub;
 
@@ -72,6 +83,9 @@ public abstract class Proc {
     if(proc != null) {
       proc.listen = listen;
       proc.registered = registered;
+      proc.deadline = deadline;
+      proc.memory = memory;
+      proc.limit = limit;
       proc.proc(sub.sub);
       if(stopped) proc.stop();
     }
@@ -89,9 +103,26 @@ public abstract class Proc {
 
   /**
    * Checks if the process was interrupted; if yes, sends a runtime exception.
+   * The timeout and memory limit are checked cooperatively. As the memory accounting
+   * is more expensive, it is only sampled after a fixed number of calls.
    */
   public final void checkStop() {
     if(stopped) throw new ProcException();
+    if(deadline != 0 && System.nanoTime() - deadline > 0) {
+      stop();
+      throw new ProcException();
+    }
+    if(memory != 0 && (++checks & CHECKS) == 0) checkMemory();
+  }
+
+  /**
+   * Stops the process if its memory limit has been exceeded.
+   */
+  private void checkMemory() {
+    if(Performance.allocated() > memory) {
+      stop();
+      throw new ProcException(Util.info(MEMORY_EXCEEDED_X, Performance.format(limit)));
+    }
   }
 
   /**
@@ -102,30 +133,35 @@ public abstract class Proc {
   }
 
   /**
-   * Starts a timeout thread.
+   * Starts the timeout.
    * @param ms milliseconds to wait; deactivated if set to 0
    */
   public final void startTimeout(final long ms) {
-    if(ms == 0) return;
+    if(sub != null) sub.startTimeout(ms);
+    if(ms != 0) deadline = System.nanoTime() + ms * 1000000;
+  }
 
-    timeout = new Thread() {
-      @Override
-      public void run() {
-        Performance.sleep(ms);
-        Proc.this.stop();
-      }
-    };
-    timeout.start();
+  /**
+   * Limits the number of bytes that may be allocated by the current thread.
+   * The limit is ignored if memory measurement is not supported by the JVM.
+   * @param bytes number of bytes; deactivated if set to 0
+   */
+  public final void limitMemory(final long bytes) {
+    if(sub != null) sub.limitMemory(bytes);
+    final long a = Performance.allocated();
+    if(bytes != 0 && a >= 0) {
+      memory = a + bytes;
+      limit = bytes;
+    }
   }
 
   /**
-   * Stops the timeout thread.
+   * Stops the timeout and the memory limit.
    */
   public final void stopTimeout() {
-    if(timeout != null) {
-      timeout.interrupt();
-      timeout = null;
-    }
+    if(sub != null) sub.stopTimeout();
+    deadline = 0;
+    memory = 0;
   }
 
   /**
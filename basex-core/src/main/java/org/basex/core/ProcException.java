@@ -7,4 +7,16 @@ package org.basex.core;
  * @author Christian Gruen
  */
 public final class ProcException extends RuntimeException {
+  /**
+   * Default constructor.
+   */
+  public ProcException() { }
+
+  /**
+   * Constructor, specifying an error message.
+   * @param message message
+   */
+  public ProcException(final String message) {
+    super(message);
+  }
 }
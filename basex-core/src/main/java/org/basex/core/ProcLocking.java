@@ -1,5 +1,7 @@
 package org.basex.core;
 
+import static org.basex.core.Text.*;
+
 import java.util.*;
 
 import org.basex.util.*;
@@ -38,9 +40,11 @@ final class ProcLocking implements Locking {
   }
 
   @Override
-  public void acquire(final Proc pr, final StringList read, final StringList write) {
-    final Object o = new Object();
+  public boolean acquire(final Proc pr, final StringList read, final StringList write,
+      final long timeout) {
 
+    final Object o = new Object();
+    final long end = System.nanoTime() + timeout * 1000000;
     synchronized(mutex) {
       // add object to queue
       queue.add(o);
@@ -67,7 +71,17 @@ final class ProcLocking implements Locking {
         pr.checkStop();
         // wait for next process to be finalized
         try {
-          mutex.wait();
+          if(timeout <= 0) {
+            mutex.wait();
+          } else {
+            final long ms = (end - System.nanoTime()) / 1000000;
+            if(ms <= 0) {
+              queue.remove(o);
+              mutex.notifyAll();
+              return false;
+            }
+            mutex.wait(ms);
+          }
         } catch(final InterruptedException ex) {
           Util.stack(ex);
         }
@@ -75,6 +89,7 @@ final class ProcLocking implements Locking {
       // start process, remove from queue
       queue.remove(0);
     }
+    return true;
   }
 
   @Override
@@ -92,4 +107,37 @@ final class ProcLocking implements Locking {
       mutex.notifyAll();
     }
   }
+
+  @Override
+  public Table info() {
+    final Table table = new Table();
+    for(final String h : LOCKHEAD) table.header.add(h);
+    synchronized(mutex) {
+      final int running = writer ? 1 : readers;
+      final String lock = writer ? "*" : "";
+      for(int r = 0; r < running; r++) add("granted", lock, table);
+      for(int w = 0; w < queue.size(); w++) add("waiting", "", table);
+    }
+    table.description = LOCKS_X;
+    return table;
+  }
+
+  /**
+   * Adds a table entry. Process and thread details are not tracked by this class.
+   * @param state state
+   * @param write write lock
+   * @param table table
+   */
+  private static void add(final String state, final String write, final Table table) {
+    final TokenList tl = new TokenList();
+    tl.add("");
+    tl.add(state);
+    tl.add("");
+    tl.add("");
+    tl.add("*");
+    tl.add(write);
+    tl.add("");
+    tl.add("");
+    table.contents.add(tl);
+  }
 }
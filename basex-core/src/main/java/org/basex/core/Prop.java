@@ -79,8 +79,18 @@ public final class Prop extends AProp {
 
   /** Flag for creating a main memory database. */
   public static final Object[] MAINMEM = { "MAINMEM", false };
+  /** Flag for packing the texts of main memory databases into shared arenas. */
+  public static final Object[] COMPACTMEM = { "COMPACTMEM", false };
+  /** Flag for storing the table and texts of main memory databases off the heap. */
+  public static final Object[] OFFHEAP = { "OFFHEAP", false };
   /** Flag for opening a database after creating it. */
   public static final Object[] CREATEONLY = { "CREATEONLY", false };
+  /** Compression level of backups (0-9). */
+  public static final Object[] BACKUPLEVEL = { "BACKUPLEVEL", 1 };
+  /** Flag for compressing backups in the background. */
+  public static final Object[] BACKUPASYNC = { "BACKUPASYNC", false };
+  /** Flag for creating incremental backups. */
+  public static final Object[] BACKUPINCR = { "BACKUPINCR", false };
 
   // Parsing
 
@@ -153,6 +163,8 @@ public final class Prop extends AProp {
   public static final Object[] LANGUAGE = { "LANGUAGE", "en" };
   /** Path to full-text stopword list. */
   public static final Object[] STOPWORDS = { "STOPWORDS", "" };
+  /** Flag for creating an n-gram index for full-text wildcard queries. */
+  public static final Object[] FTNGRAMS = { "FTNGRAMS", false };
 
   // Query Options
 
@@ -174,6 +186,8 @@ public final class Prop extends AProp {
   public static final Object[] LSERROR = { "LSERROR", 0 };
   /** Number of query executions. */
   public static final Object[] RUNS = { "RUNS", 1 };
+  /** Collects profiling information for the evaluated expressions. */
+  public static final Object[] PROFILE = { "PROFILE", false };
 
   // Serialize
 
@@ -203,6 +217,10 @@ public final class Prop extends AProp {
   public static final Object[] WRITEBACK = { "WRITEBACK", false };
   /** Maximum number of index occurrences to print. */
   public static final Object[] MAXSTAT = { "MAXSTAT", 30 };
+  /** Maximum time to wait for locks (seconds; 0: no limit). */
+  public static final Object[] LOCKWAIT = { "LOCKWAIT", 0 };
+  /** Admission queue of transactions (admins only; default: name of the current user). */
+  public static final Object[] QUEUE = { "QUEUE", "" };
 
   // Other
 
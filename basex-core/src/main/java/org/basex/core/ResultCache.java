@@ -0,0 +1,145 @@
+package org.basex.core;
+
+import java.util.*;
+
+import org.basex.util.list.*;
+
+/**
+ * This class caches the serialized results of read-only queries.
+ * Entries are invalidated as soon as one of the databases accessed by a query is
+ * locked for writing, or if users or permissions are changed. If the maximum cache
+ * size is exceeded, the least recently used entries are evicted.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ResultCache {
+  /** Cached results, sorted by their last access. */
+  private final LinkedHashMap<String, Entry> results =
+      new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  /** Main properties. */
+  private final MainProp mprop;
+  /** Total size of the cached results. */
+  private long size;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+
+  /**
+   * Constructor.
+   * @param mp main properties
+   */
+  ResultCache(final MainProp mp) {
+    mprop = mp;
+  }
+
+  /**
+   * Returns the maximum size of the cached results.
+   * @return maximum size in bytes, or {@code 0} if the cache is disabled
+   */
+  public long max() {
+    return mprop.num(MainProp.RESULTCACHE) * 1024L;
+  }
+
+  /**
+   * Returns a cached result.
+   * @param key key
+   * @return result, or {@code null}
+   */
+  public synchronized Entry get(final String key) {
+    final Entry e = results.get(key);
+    if(e != null) hits++;
+    else misses++;
+    return e;
+  }
+
+  /**
+   * Caches a query result.
+   * @param key key
+   * @param dbs accessed databases
+   * @param result serialized result
+   * @param hits number of results
+   */
+  public synchronized void put(final String key, final StringList dbs,
+      final byte[] result, final long hits) {
+
+    final long max = max();
+    if(result.length > max) return;
+    final Entry old = results.put(key, new Entry(dbs.toArray(), result, hits));
+    if(old != null) size -= old.result.length;
+    size += result.length;
+    // evict least recently used entries
+    final Iterator<Entry> it = results.values().iterator();
+    while(size > max) {
+      size -= it.next().result.length;
+      it.remove();
+    }
+  }
+
+  /**
+   * Invalidates all results that depend on the specified databases.
+   * @param dbs databases ({@code null} to invalidate all results)
+   */
+  public synchronized void invalidate(final StringList dbs) {
+    if(results.isEmpty()) return;
+    final Iterator<Entry> it = results.values().iterator();
+    while(it.hasNext()) {
+      final Entry e = it.next();
+      if(dbs == null || e.uses(dbs)) {
+        size -= e.result.length;
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of cached results.
+   * @return number of results
+   */
+  public synchronized int size() {
+    return results.size();
+  }
+
+  /**
+   * Returns the number of cache hits and misses.
+   * @return hits and misses
+   */
+  public synchronized long[] stats() {
+    return new long[] { hits, misses };
+  }
+
+  /**
+   * Cached result.
+   */
+  public static final class Entry {
+    /** Serialized result. */
+    public final byte[] result;
+    /** Number of results. */
+    public final long hits;
+    /** Accessed databases. */
+    private final String[] dbs;
+
+    /**
+     * Constructor.
+     * @param d accessed databases
+     * @param r serialized result
+     * @param h number of results
+     */
+    Entry(final String[] d, final byte[] r, final long h) {
+      dbs = d;
+      result = r;
+      hits = h;
+    }
+
+    /**
+     * Checks if one of the specified databases was accessed.
+     * @param names database names
+     * @return result of check
+     */
+    boolean uses(final StringList names) {
+      for(final String db : dbs) if(names.contains(db)) return true;
+      return false;
+    }
+  }
+}
@@ -158,6 +158,12 @@ public interface Text {
   String UNKNOWN_HOST_X = lang("unknown_host_x");
   /** Timeout exceeded. */
   String TIMEOUT_EXCEEDED = lang("timeout_exceeded");
+  /** Memory limit exceeded. */
+  String MEMORY_EXCEEDED_X = lang("memory_exceeded_%");
+  /** Timeout exceeded while waiting for locks. */
+  String LOCK_TIMEOUT = lang("lock_timeout");
+  /** Transaction rejected by an overloaded queue. */
+  String QUEUE_OVERLOADED_X = lang("queue_overloaded_%");
   /** Connection error. */
   String CONNECTION_ERROR = lang("connection_error");
   /** Access denied. */
@@ -171,6 +177,10 @@ public interface Text {
   String LOCALHOST = "localhost";
   /** User name. */
   String[] USERHEAD = { "Username", "Read", "Write", "Create", "Admin" };
+  /** Lock table. */
+  String[] LOCKHEAD = {
+    "Thread", "State", "Queue", "Time", "Read", "Write", "Waits for", "Process"
+  };
   /** Default admin user and password. */
   String ADMIN = "admin";
 
@@ -316,7 +326,8 @@ public interface Text {
   };
   /** Command help. */
   String[] HELPOPTIMIZE = {
-    '(' + C_ALL + ')', lang("c_optimize1"), lang("c_optimize2", C_ALL)
+    "([" + C_ALL + '|' + CmdOptimize.ONLINE + "])", lang("c_optimize1"),
+    lang("c_optimize2", C_ALL) + NL + lang("c_optimize3", CmdOptimize.ONLINE)
   };
 
   /** Command help. */
@@ -362,11 +373,13 @@ public interface Text {
   };
   /** Command help. */
   String[] HELPSHOW = {
-    "[" + CmdShow.BACKUPS + '|' + CmdShow.EVENTS +
-    '|' + CmdShow.SESSIONS + '|' + CmdShow.USERS + ']',
+    "[" + CmdShow.BACKUPS + '|' + CmdShow.EVENTS + '|' + CmdShow.LOCKS + '|' +
+    CmdShow.METRICS + '|' + CmdShow.SESSIONS + '|' + CmdShow.USERS + ']',
     lang("c_show1"),
     lang("c_show21") + NL +
     LI + CmdShow.EVENTS + ": " + lang("c_show26") + NL +
+    LI + CmdShow.LOCKS + ": " + lang("c_show28") + NL +
+    LI + CmdShow.METRICS + ": " + lang("c_show27") + NL +
     LI + CmdShow.SESSIONS + ": " + lang("c_show23") + NL +
     LI + CmdShow.USERS + " (" + ON + " [database]): " + lang("c_show24") + NL +
     LI + CmdShow.BACKUPS + ": " + lang("c_show25")
@@ -494,6 +507,8 @@ public interface Text {
   String RES_NOT_FOUND_X = lang("res_not_found_%");
   /** Resource "%" not found. */
   String RES_NOT_FOUND = lang("res_not_found");
+  /** Resources added. */
+  String RES_ADDED_X_X = lang("res_added_%_%");
   /** Resource deleted. */
   String RES_DELETED_X_X = lang("res_deleted_%_%");
   /** Resource renamed. */
@@ -530,6 +545,10 @@ public interface Text {
   String DB_CLOSED_X = lang("db_closed_%");
   /** Database optimized. */
   String DB_OPTIMIZED_X = lang("db_optimized_%");
+  /** Database is already being optimized. */
+  String DB_OPTIMIZING_X = lang("db_optimizing_%");
+  /** Database could not be optimized. */
+  String DB_NOT_OPTIMIZED_X_X = lang("db_not_optimized_%_%");
   /** Database dropped. */
   String DB_DROPPED_X = lang("db_dropped_%");
   /** Database not dropped. */
@@ -566,6 +585,10 @@ public interface Text {
   String BACKUP_DROPPED_X = lang("backup_dropped_%");
   /** Backup was not found. */
   String BACKUP_NOT_FOUND_X = lang("backup_not_found_%");
+  /** Backup is being created in the background. */
+  String BACKUP_RUNNING_X = lang("backup_running_%");
+  /** Backup could not be created. */
+  String BACKUP_FAILED_X = lang("backup_failed_%");
   /** File not stored. */
   String FILE_NOT_STORED_X = lang("file_not_stored_%");
 
@@ -621,6 +644,8 @@ public interface Text {
   String EVALUATING_CC = lang("evaluating") + COLS;
   /** "Printing: ". */
   String PRINTING_CC = lang("printing") + COLS;
+  /** "Profiling: ". */
+  String PROFILING_CC = lang("profiling") + COLS;
   /** "Total time: ". */
   String TOTAL_TIME_CC = lang("total_time") + COLS;
   /** "Read locking: ". */
@@ -652,6 +677,8 @@ public interface Text {
 
   /** Show sessions. */
   String SESSIONS_X = lang("sessions_%");
+  /** Show locks. */
+  String LOCKS_X = lang("locks_%");
   /** Show events. */
   String EVENTS_X = lang("events_%");
   /** Show packages. */
@@ -58,18 +58,36 @@ public abstract class AQuery extends Command {
         final boolean serial = prop.is(Prop.SERIALIZE);
         qi.runs = Math.max(1, prop.num(Prop.RUNS));
         long hits = 0;
+        String key = null;
+        CacheOutput co = null;
         for(int r = 0; r < qi.runs; ++r) {
           // reuse existing processor instance
           if(r != 0) qp = null;
           qp = queryProcessor(query, context);
           qp.parse();
           qi.pars += p.time();
+
+          // return cached result
+          key = cacheKey(query);
+          if(key != null) {
+            final ResultCache.Entry ce = context.results.get(key);
+            if(ce != null) {
+              out.write(ce.result);
+              out.flush();
+              qi.srlz += p.time();
+              return info(qi.toString(qp, out, ce.hits, prop.is(Prop.QUERYINFO)));
+            }
+          }
           if(r == 0) plan(false);
           qp.compile();
           qi.cmpl += p.time();
           if(r == 0) plan(true);
 
-          final PrintOutput po = r == 0 && serial ? out : new NullOutput();
+          PrintOutput po = r == 0 && serial ? out : new NullOutput();
+          if(key != null) {
+            co = new CacheOutput(po, context.results.max());
+            po = co;
+          }
           final Serializer ser;
 
           if(prop.is(Prop.CACHEQUERY)) {
@@ -95,6 +113,13 @@ public abstract class AQuery extends Command {
           qp.close();
           qi.srlz += p.time();
         }
+        // show plan with profiling information
+        if(prop.is(Prop.PROFILE)) plan();
+        // cache result
+        if(key != null) {
+          final byte[] res = co.cached();
+          if(res != null && qp.cacheable()) context.results.put(key, qi.readLocked, res, hits);
+        }
         // dump some query info
         out.flush();
         // remove string list if global locking is used and if query is updating
@@ -107,7 +132,7 @@ public abstract class AQuery extends Command {
       } catch(final IOException ex) {
         err = Util.message(ex);
       } catch(final ProcException ex) {
-        err = INTERRUPTED;
+        err = ex.getMessage() != null ? ex.getMessage() : INTERRUPTED;
       } catch(final StackOverflowError ex) {
         Util.debug(ex);
         err = BASX_STACKOVERFLOW.desc;
@@ -170,6 +195,28 @@ public abstract class AQuery extends Command {
     return qp;
   }
 
+  /**
+   * Returns a key for caching the result of the current query.
+   * @param query query
+   * @return key, or {@code null} if the result will not be cached
+   */
+  private String cacheKey(final String query) {
+    if(context.results.max() == 0 || qp.updating || qi.runs != 1 || qi.readLocked == null ||
+      !prop.is(Prop.SERIALIZE) || prop.is(Prop.CACHEQUERY) || prop.is(Prop.XMLPLAN) ||
+      prop.is(Prop.DOTPLAN) || prop.is(Prop.PROFILE) ||
+      context.data() != null && !context.root()) return null;
+    // lock strings may also reference files, the changes of which cannot be tracked
+    for(final String db : qi.readLocked) {
+      if(!db.startsWith(DBLocking.PREFIX) && !db.startsWith(DBLocking.USER_PREFIX) &&
+        !mprop.dbexists(db)) return null;
+    }
+
+    // results depend on the query, the user, the opened database and the local options
+    final Data data = context.data();
+    return new StringBuilder(query).append('\0').append(context.user.name).append('\0').
+      append(data == null ? "" : data.meta.name).append('\0').append(prop).toString();
+  }
+
   /**
    * Returns an extended error message.
    * @param err error message
@@ -190,8 +237,14 @@ public abstract class AQuery extends Command {
    * @param c compiled flag
    */
   private void plan(final boolean c) {
-    if(c != prop.is(Prop.COMPPLAN)) return;
+    // plans with profiling information will be created after the evaluation
+    if(c == prop.is(Prop.COMPPLAN) && !prop.is(Prop.PROFILE)) plan();
+  }
 
+  /**
+   * Creates query plans.
+   */
+  private void plan() {
     // show dot plan
     BufferOutput bo = null;
     try {
@@ -6,6 +6,7 @@ import org.basex.core.*;
 import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.Cmd;
 import org.basex.core.parse.Commands.CmdAlter;
+import org.basex.io.random.*;
 
 /**
  * Evaluates the 'alter database' command and renames a database.
@@ -63,7 +64,9 @@ public final class AlterDB extends ACreate {
    */
   public static synchronized boolean alter(final String source, final String target,
       final Context ctx) {
-    return ctx.mprop.dbpath(source).rename(ctx.mprop.dbpath(target));
+    final boolean ok = ctx.mprop.dbpath(source).rename(ctx.mprop.dbpath(target));
+    if(ok) IOCounter.drop(source);
+    return ok;
   }
 
   @Override
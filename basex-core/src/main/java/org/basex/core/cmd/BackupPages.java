@@ -0,0 +1,293 @@
+package org.basex.core.cmd;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class stores the page checksums of all files of a database backup.
+ * It is used to find the pages that have changed since the last backup, and to
+ * apply incremental backups to a restored database.
+ *
+ * Backups contain the checksums as entry {@code [db].pages}. Incremental backups
+ * additionally contain the entry {@code [db].inc}, and the changed pages of each file
+ * are stored in entries {@code [db].inc/[file]}.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class BackupPages {
+  /** Suffix of the checksum entry. */
+  static final String PAGES = ".pages";
+  /** Suffix of the marker entry and the entries of an incremental backup. */
+  static final String INC = ".inc";
+
+  /** Relative file paths, mapped to their indexes. */
+  private final HashMap<String, Integer> index = new HashMap<String, Integer>();
+  /** Relative file paths. */
+  private final StringList files = new StringList();
+  /** File lengths. */
+  private final ArrayList<Long> lengths = new ArrayList<Long>();
+  /** Page checksums. */
+  private final ArrayList<int[]> sums = new ArrayList<int[]>();
+
+  /**
+   * Computes the checksums of all files in the specified directory.
+   * @param dir directory
+   * @throws IOException I/O exception
+   */
+  BackupPages(final IOFile dir) throws IOException {
+    final byte[] page = new byte[IO.BLOCKSIZE];
+    for(final String file : dir.descendants()) {
+      final IntList crcs = new IntList();
+      final FileInputStream in = new FileInputStream(new File(dir.file(), file));
+      long len = 0;
+      try {
+        for(int l; (l = fill(in, page)) > 0;) {
+          crcs.add(crc(page, l));
+          len += l;
+        }
+      } finally {
+        in.close();
+      }
+      index.put(file, files.size());
+      files.add(file);
+      lengths.add(len);
+      sums.add(crcs.toArray());
+    }
+  }
+
+  /**
+   * Reads checksums from the specified input.
+   * @param in input
+   * @throws IOException I/O exception
+   */
+  private BackupPages(final DataInput in) throws IOException {
+    final int fs = in.readNum();
+    for(int f = 0; f < fs; f++) {
+      final String file = Token.string(in.readToken());
+      index.put(file, files.size());
+      files.add(file);
+      final int[] crcs = in.readNums();
+      final int last = in.readNum();
+      lengths.add(crcs.length == 0 ? 0L : (long) (crcs.length - 1) * IO.BLOCKSIZE + last);
+      sums.add(crcs);
+    }
+  }
+
+  /**
+   * Returns the checksums stored in the specified backup.
+   * @param zip backup file
+   * @param db name of the database
+   * @return checksums, or {@code null} if the backup contains no checksums
+   */
+  static BackupPages read(final IOFile zip, final String db) {
+    try {
+      final ZipInputStream in = new ZipInputStream(zip.inputStream());
+      try {
+        final byte[] cont = Zip.getEntry(in, db + PAGES);
+        return cont == null ? null : new BackupPages(new DataInput(new IOContent(cont)));
+      } finally {
+        in.close();
+      }
+    } catch(final IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Checks if the specified backup is incremental.
+   * @param zip backup file
+   * @param db name of the database
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  static boolean incremental(final IOFile zip, final String db) throws IOException {
+    final ZipInputStream in = new ZipInputStream(zip.inputStream());
+    try {
+      for(ZipEntry ze; (ze = in.getNextEntry()) != null;) {
+        if(ze.getName().equals(db + INC)) return true;
+      }
+      return false;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Writes the checksums as zip entry.
+   * @param out zip output stream
+   * @param db name of the database
+   * @throws IOException I/O exception
+   */
+  void write(final ZipOutputStream out, final String db) throws IOException {
+    final ArrayOutput ao = new ArrayOutput();
+    final DataOutput dout = new DataOutput(ao);
+    final int fs = files.size();
+    dout.writeNum(fs);
+    for(int f = 0; f < fs; f++) {
+      final int[] crcs = sums.get(f);
+      dout.writeToken(Token.token(files.get(f)));
+      dout.writeNums(crcs);
+      dout.writeNum((int) (lengths.get(f) - (long) Math.max(0, crcs.length - 1) *
+          IO.BLOCKSIZE));
+    }
+    dout.close();
+    out.putNextEntry(new ZipEntry(db + PAGES));
+    out.write(ao.toArray());
+    out.closeEntry();
+  }
+
+  /**
+   * Writes the pages of the specified directory that differ from the specified
+   * checksums as zip entries. Each entry contains the indexes and contents of the
+   * changed pages of a file.
+   * @param out zip output stream
+   * @param dir directory
+   * @param db name of the database
+   * @param old checksums of the previous backup
+   * @throws IOException I/O exception
+   */
+  void writeChanges(final ZipOutputStream out, final IOFile dir, final String db,
+      final BackupPages old) throws IOException {
+
+    out.putNextEntry(new ZipEntry(db + INC));
+    out.closeEntry();
+
+    final byte[] page = new byte[IO.BLOCKSIZE];
+    final int fs = files.size();
+    for(int f = 0; f < fs; f++) {
+      final String file = files.get(f);
+      final Integer o = old.index.get(file);
+      final int[] crcs = sums.get(f), ocrcs = o == null ? new int[0] : old.sums.get(o);
+
+      final ArrayOutput ao = new ArrayOutput();
+      final DataOutput dout = new DataOutput(ao);
+      boolean changed = false;
+      final RandomAccessFile raf = new RandomAccessFile(new File(dir.file(), file), "r");
+      try {
+        for(int p = 0; p < crcs.length; p++) {
+          if(p < ocrcs.length && ocrcs[p] == crcs[p]) continue;
+          raf.seek((long) p * IO.BLOCKSIZE);
+          final int l = (int) Math.min(IO.BLOCKSIZE, raf.length() - raf.getFilePointer());
+          raf.readFully(page, 0, l);
+          dout.writeNum(p + 1);
+          dout.writeNum(l);
+          dout.writeBytes(Arrays.copyOf(page, l));
+          changed = true;
+        }
+      } finally {
+        raf.close();
+      }
+      if(!changed) continue;
+      dout.writeNum(0);
+      dout.close();
+      out.putNextEntry(new ZipEntry(db + INC + '/' + file));
+      out.write(ao.toArray());
+      out.closeEntry();
+    }
+  }
+
+  /**
+   * Applies an incremental backup to the specified directory.
+   * @param zip backup file
+   * @param dir database directory
+   * @param db name of the database
+   * @throws IOException I/O exception
+   */
+  static void apply(final IOFile zip, final IOFile dir, final String db)
+      throws IOException {
+
+    final String prefix = db + INC + '/';
+    final ZipInputStream in = new ZipInputStream(zip.inputStream());
+    BackupPages pages = null;
+    try {
+      for(ZipEntry ze; (ze = in.getNextEntry()) != null;) {
+        final String name = ze.getName();
+        if(name.equals(db + PAGES)) {
+          pages = new BackupPages(new DataInput(new IOContent(entry(in))));
+        } else if(name.startsWith(prefix)) {
+          final IOFile file = new IOFile(dir, name.substring(prefix.length()));
+          file.dir().md();
+          final DataInput din = new DataInput(new IOContent(entry(in)));
+          final RandomAccessFile raf = new RandomAccessFile(file.file(), "rw");
+          try {
+            for(int p; (p = din.readNum()) != 0;) {
+              final int l = din.readNum();
+              final byte[] page = new byte[l];
+              for(int i = 0; i < l; i++) page[i] = (byte) din.read();
+              raf.seek((long) (p - 1) * IO.BLOCKSIZE);
+              raf.write(page);
+            }
+          } finally {
+            raf.close();
+          }
+        }
+      }
+    } finally {
+      in.close();
+    }
+    if(pages == null) throw new FileNotFoundException(db + PAGES);
+
+    // remove obsolete files, adjust file lengths
+    for(final String file : dir.descendants()) {
+      if(!pages.index.containsKey(file)) new IOFile(dir, file).delete();
+    }
+    final int fs = pages.files.size();
+    for(int f = 0; f < fs; f++) {
+      final IOFile file = new IOFile(dir, pages.files.get(f));
+      file.dir().md();
+      final RandomAccessFile raf = new RandomAccessFile(file.file(), "rw");
+      try {
+        raf.setLength(pages.lengths.get(f));
+      } finally {
+        raf.close();
+      }
+    }
+  }
+
+  /**
+   * Reads the current zip entry.
+   * @param in zip input stream
+   * @return contents
+   * @throws IOException I/O exception
+   */
+  private static byte[] entry(final ZipInputStream in) throws IOException {
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    final ByteList bl = new ByteList();
+    for(int c; (c = in.read(data)) != -1;) bl.add(data, 0, c);
+    return bl.toArray();
+  }
+
+  /**
+   * Fills the specified array with bytes from the input stream.
+   * @param in input stream
+   * @param page array
+   * @return number of read bytes
+   * @throws IOException I/O exception
+   */
+  private static int fill(final InputStream in, final byte[] page) throws IOException {
+    int o = 0;
+    for(int c; o < page.length && (c = in.read(page, o, page.length - o)) != -1;) o += c;
+    return o;
+  }
+
+  /**
+   * Computes the checksum of a page.
+   * @param page page
+   * @param l length
+   * @return checksum
+   */
+  private static int crc(final byte[] page, final int l) {
+    final CRC32 crc = new CRC32();
+    crc.update(page, 0, l);
+    return (int) crc.getValue();
+  }
+}
@@ -0,0 +1,187 @@
+package org.basex.core.cmd;
+
+import static org.basex.core.Text.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.build.*;
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.data.atomic.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Evaluates a bulk update, which adds or replaces many documents in a single
+ * transaction. The inputs are requested one by one and parsed in parallel in chunks
+ * of limited size. Each chunk is merged into a single fragment, which is inserted
+ * in one step. This way, the database is only locked and flushed once, and the
+ * memory consumption does not depend on the total size of the inputs.
+ *
+ * If the update fails, all documents that have already been inserted are removed
+ * again. If documents are replaced, and if the same path is specified more than once,
+ * only the last input will be stored.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class BulkAdd extends ACreate {
+  /** Maximum number of bytes that are parsed and inserted in one step. */
+  private static final long CHUNK = 1 << 24;
+  /** Maximum number of inputs that are parsed and inserted in one step. */
+  private static final int INPUTS = 1 << 12;
+
+  /** Replace existing documents. */
+  private final boolean replace;
+  /** Parsers of the current chunk. */
+  private final ArrayList<Parser> parsers = new ArrayList<Parser>();
+  /** Source of the inputs. */
+  private Inputs inputs;
+  /** Number of added documents. */
+  private int docs;
+
+  /**
+   * Constructor.
+   * The inputs need to be specified via {@link #inputs(Inputs)}.
+   * @param rplc replace existing documents
+   */
+  public BulkAdd(final boolean rplc) {
+    super(Perm.WRITE, true);
+    replace = rplc;
+  }
+
+  /**
+   * Assigns the source of the inputs, which will be requested while the command
+   * is executed.
+   * @param in inputs
+   * @return self reference
+   */
+  public BulkAdd inputs(final Inputs in) {
+    inputs = in;
+    return this;
+  }
+
+  @Override
+  protected boolean run() {
+    final Data data = context.data();
+    if(!data.startUpdate()) return error(DB_PINNED_X, data.meta.name);
+
+    // documents with smaller pre values existed before the update
+    final int size = data.meta.size;
+    docs = 0;
+    boolean ok = false;
+    try {
+      // pre values of the existing documents that will be replaced
+      final IntList pres = new IntList();
+      // paths of the documents that will be replaced
+      final HashSet<String> paths = new HashSet<String>();
+      long bytes = 0;
+      for(String path; (path = inputs.next()) != null;) {
+        final IO io = inputs.input();
+        String name = MetaData.normPath(path);
+        if(name == null) return error(NAME_INVALID_X, path);
+        if(!io.exists()) return error(RES_NOT_FOUND_X, io);
+        if(replace && (name.isEmpty() || name.endsWith("/")))
+          return error(NO_DIR_ALLOWED_X, path);
+
+        if(!name.endsWith("/") && (io.isDir() || io.isArchive())) name += '/';
+        String target = "";
+        final int s = name.lastIndexOf('/');
+        if(s != -1) {
+          target = name.substring(0, s);
+          name = name.substring(s + 1);
+        }
+        if(!name.isEmpty()) io.name(name);
+        else name = io.name();
+        if(name.isEmpty()) return error(NAME_INVALID_X, name);
+
+        if(replace) {
+          final String doc = target.isEmpty() ? name : target + '/' + name;
+          if(paths.add(doc)) {
+            final IntList il = data.resources.docs(doc, true);
+            for(int d = 0; d < il.size(); d++) pres.add(il.get(d));
+          } else {
+            // path was specified before: replace the document that has just been added
+            insert(data);
+            bytes = 0;
+            final IntList il = data.resources.docs(doc, true);
+            for(int d = il.size() - 1; d >= 0; d--) {
+              if(il.get(d) >= size) {
+                data.delete(il.get(d));
+                docs--;
+              }
+            }
+          }
+        }
+
+        parsers.add(new DirParser(io, prop, data.meta.path).target(target));
+        bytes += Math.max(0, io.length());
+        if(parsers.size() >= INPUTS || bytes >= CHUNK) {
+          insert(data);
+          bytes = 0;
+        }
+      }
+      insert(data);
+
+      // delete replaced documents, starting with the highest pre value
+      final int[] pre = pres.sort().toArray();
+      for(int p = pre.length - 1; p >= 0; p--) {
+        if(p == 0 || pre[p] != pre[p - 1]) data.delete(pre[p]);
+      }
+      ok = true;
+    } catch(final IOException ex) {
+      return error(Util.message(ex));
+    } finally {
+      parsers.clear();
+      // remove documents that have already been inserted
+      if(!ok) while(data.meta.size > size) data.delete(size);
+      context.update();
+      data.finishUpdate();
+    }
+    return info(replace ? RES_REPLACED_X_X : RES_ADDED_X_X, docs, perf);
+  }
+
+  /**
+   * Parses the inputs of the current chunk in parallel, merges them into a single
+   * fragment and inserts it at the end of the database.
+   * @param data data reference
+   * @throws IOException I/O exception
+   */
+  private void insert(final Data data) throws IOException {
+    if(parsers.isEmpty()) return;
+    final MemData[] mds = MemBuilder.build(data.meta.name,
+        parsers.toArray(new Parser[parsers.size()]));
+    parsers.clear();
+
+    final MemData md = new MemData(prop);
+    for(int d = 0; d < mds.length; d++) {
+      md.insert(md.meta.size, -1, new DataClip(mds[d]));
+      docs += mds[d].meta.ndocs;
+      mds[d] = null;
+    }
+    if(md.meta.size > 0) data.insert(data.meta.size, -1, new DataClip(md));
+  }
+
+  /**
+   * Source of the inputs of a bulk update.
+   */
+  public interface Inputs {
+    /**
+     * Returns the target path of the next input.
+     * @return path, optionally terminated by a new file name,
+     * or {@code null} if all inputs have been returned
+     * @throws IOException I/O exception
+     */
+    String next() throws IOException;
+
+    /**
+     * Returns the input belonging to the last path that has been returned by
+     * {@link #next()}.
+     * @return input
+     * @throws IOException I/O exception
+     */
+    IO input() throws IOException;
+  }
+}
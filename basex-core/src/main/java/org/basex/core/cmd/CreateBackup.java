@@ -4,6 +4,8 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -20,6 +22,23 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class CreateBackup extends ABackup {
+  /** Suffix of snapshot directories. */
+  private static final String SNAPSHOT = ".snapshot";
+  /** Suffix of temporary backup files. */
+  private static final String TMP = ".tmp";
+  /** Executor for compressing backups in the background (in the order of creation). */
+  private static final ExecutorService BACKUPS = Executors.newSingleThreadExecutor(
+    new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable r) {
+        final Thread t = new Thread(r, Util.name(CreateBackup.class));
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  /** Backups that are running in the background or have failed, indexed by name. */
+  private static final Map<String, Future<Void>> JOBS =
+    new ConcurrentHashMap<String, Future<Void>>();
 
   /**
    * Default constructor.
@@ -42,9 +61,13 @@ public final class CreateBackup extends ABackup {
     boolean ok = true;
     for(final String db : dbs) {
       if(!mprop.dbpath(db).isDir()) continue;
-      if(backup(db)) {
+      final String backup = backup(db);
+      if(backup == null) {
         // backup was successful
         info(DB_BACKUP_X, db, perf);
+      } else if(!backup.isEmpty()) {
+        // backup is being compressed in the background
+        info(BACKUP_RUNNING_X, backup);
       } else {
         info(DB_NOT_BACKUP_X, db);
         ok = false;
@@ -54,24 +77,159 @@ public final class CreateBackup extends ABackup {
   }
 
   /**
-   * Backups the specified database.
+   * Backups the specified database. If {@link Prop#BACKUPASYNC} is enabled, a snapshot
+   * of the database directory is created, which will be compressed in the background
+   * after the database locks have been released. The state of this backup can be
+   * requested via {@link #job(String)}.
    * @param db name of the database
-   * @return success flag
+   * @return {@code null} if the backup was created, the name of the backup if it is
+   * compressed in the background, or an empty string if the backup failed
    */
-  private boolean backup(final String db) {
-    final String backup = db + '-' + DateTime.format(new Date(), DateTime.DATETIME) +
-        IO.ZIPSUFFIX;
-    final IOFile zf = mprop.dbpath(backup);
-    final Zip zip = proc(new Zip(zf));
+  private String backup(final String db) {
+    final String backup = db + '-' + DateTime.format(new Date(), DateTime.DATETIME);
+    final IOFile zf = mprop.dbpath(backup + IO.ZIPSUFFIX);
+    final int level = prop.num(Prop.BACKUPLEVEL);
+    final boolean incr = prop.is(Prop.BACKUPINCR);
 
+    final IOFile snapshot = mprop.dbpath(backup + IO.ZIPSUFFIX + SNAPSHOT);
     try {
       final IOFile path = mprop.dbpath(db);
-      zip.zip(path, path.descendants());
-      return true;
+      if(!prop.is(Prop.BACKUPASYNC)) {
+        write(path, zf, level, incr, proc(new Zip(zf)));
+        return null;
+      }
+
+      // create snapshot and compress it in the background
+      final IOFile root = new IOFile(snapshot, db);
+      for(final String file : path.descendants()) {
+        new IOFile(path, file).copyTo(new IOFile(root, file));
+      }
+      final FutureTask<Void> job = new FutureTask<Void>(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          try {
+            write(root, zf, level, incr, new Zip(zf));
+            JOBS.remove(backup);
+            return null;
+          } catch(final IOException ex) {
+            Util.errln(DB_NOT_BACKUP_X, db);
+            Util.debug(ex);
+            throw ex;
+          } finally {
+            snapshot.delete();
+          }
+        }
+      });
+      JOBS.put(backup, job);
+      BACKUPS.execute(job);
+      return backup;
     } catch(final IOException ex) {
       Util.debug(ex);
-      return false;
+      snapshot.delete();
+      return "";
+    }
+  }
+
+  /**
+   * Returns a handle for a backup that is created in the background. Backups that have
+   * been successfully created will not be returned. If a backup has failed,
+   * {@link Future#get()} will throw an exception.
+   * @param backup name of the backup (without suffix)
+   * @return handle, or {@code null} if no running or failed backup exists
+   */
+  public static Future<Void> job(final String backup) {
+    return JOBS.get(backup);
+  }
+
+  /**
+   * Returns the names of all backups that are running in the background or have failed.
+   * @return names of backups
+   */
+  static StringList jobs() {
+    return new StringList().add(JOBS.keySet().toArray(new String[JOBS.size()]));
+  }
+
+  /**
+   * Discards the handles of failed backups of the specified database, or the handle
+   * of the specified backup.
+   * @param name name of the database (optionally followed by a hyphen) or backup
+   */
+  static void discard(final String name) {
+    final String db = name.endsWith("-") ? name.substring(0, name.length() - 1) : name;
+    for(final Map.Entry<String, Future<Void>> job : JOBS.entrySet()) {
+      final String backup = job.getKey();
+      if((backup.equals(db) || backup.startsWith(db) &&
+          backup.substring(db.length()).matches(DateTime.PATTERN)) &&
+          job.getValue().isDone()) {
+        JOBS.remove(backup);
+      }
+    }
+  }
+
+  /**
+   * Writes a backup. The backup will be written to a temporary file, which will be
+   * renamed after completion.
+   * @param path database directory
+   * @param zf backup file
+   * @param level compression level
+   * @param incr create incremental backup
+   * @param zip zip instance
+   * @throws IOException I/O exception
+   */
+  static void write(final IOFile path, final IOFile zf, final int level,
+      final boolean incr, final Zip zip) throws IOException {
+
+    final String db = path.name();
+    final IOFile tmp = new IOFile(zf.path() + TMP);
+    // delete temporary file if backup fails
+    boolean ok = false;
+    try {
+      final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(
+          new FileOutputStream(tmp.file())));
+      try {
+        // compute page checksums and find checksums of the last backup
+        BackupPages pages = null, old = null;
+        if(incr) {
+          pages = new BackupPages(path);
+          final StringList backups = backups(zf, db);
+          if(!backups.isEmpty()) old = BackupPages.read(new IOFile(backups.get(0)), db);
+        }
+        try {
+          out.setLevel(level);
+        } catch(final IllegalArgumentException ex) {
+          throw new BaseXException(INVALID_VALUE_X_X, Prop.BACKUPLEVEL[0], level);
+        }
+        if(old != null) {
+          pages.writeChanges(out, path, db, old);
+        } else {
+          zip.zip(out, path, path.descendants());
+        }
+        if(pages != null) pages.write(out, db);
+      } finally {
+        out.close();
+      }
+      ok = tmp.rename(zf);
+      if(!ok) throw new IOException("Could not rename " + tmp);
+    } finally {
+      if(!ok) tmp.delete();
+    }
+  }
+
+  /**
+   * Returns the paths of all existing backups of a database, sorted in descending order,
+   * excluding the specified backup file.
+   * @param zf backup file
+   * @param db name of the database
+   * @return backup paths
+   */
+  private static StringList backups(final IOFile zf, final String db) {
+    final StringList list = new StringList();
+    final String regex = db.replaceAll("([" + Databases.REGEXCHARS + "])", "\\\\$1") +
+        DateTime.PATTERN + IO.ZIPSUFFIX;
+    for(final IOFile f : zf.dir().children()) {
+      if(f.name().matches(regex) && !f.eq(zf)) list.add(f.path());
     }
+    return list.sort(Prop.CASE, false);
   }
 
   @Override
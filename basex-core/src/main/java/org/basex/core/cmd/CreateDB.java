@@ -83,7 +83,7 @@ public final class CreateDB extends ACreate {
     try {
       if(prop.is(Prop.MAINMEM)) {
         // create main memory instance
-        final Data data = proc(new MemBuilder(name, parser)).build();
+        final Data data = proc(new MemBuilder(name, parser).compact()).build();
         context.openDB(data);
         context.dbs.add(data);
       } else {
@@ -143,7 +143,7 @@ public final class CreateDB extends ACreate {
 
     // create main memory database instance
     final Prop prop = ctx.prop;
-    if(prop.is(Prop.MAINMEM)) return MemBuilder.build(name, parser);
+    if(prop.is(Prop.MAINMEM)) return new MemBuilder(name, parser).compact().build();
 
     // database is currently locked by another process
     if(ctx.pinned(name)) throw new BaseXException(DB_PINNED_X, name);
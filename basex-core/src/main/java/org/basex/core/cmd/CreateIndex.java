@@ -49,6 +49,7 @@ public final class CreateIndex extends ACreate {
         data.meta.stemming = prop.is(Prop.STEMMING);
         data.meta.casesens = prop.is(Prop.CASESENS);
         data.meta.diacritics = prop.is(Prop.DIACRITICS);
+        data.meta.ftngrams = prop.is(Prop.FTNGRAMS);
         data.meta.language = Language.get(prop);
         data.meta.stopwords = prop.get(Prop.STOPWORDS);
         index = IndexType.FULLTEXT;
@@ -54,6 +54,7 @@ public class DropBackup extends ABackup {
       final String n = f.name();
       if(n.startsWith(db) && n.endsWith(IO.ZIPSUFFIX) && f.delete()) c++;
     }
+    CreateBackup.discard(db);
     return c;
   }
 
@@ -7,6 +7,7 @@ import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.Cmd;
 import org.basex.core.parse.Commands.CmdDrop;
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.util.list.*;
 
 /**
@@ -69,7 +70,9 @@ public final class DropDB extends ACreate {
    * @return success of operation
    */
   public static synchronized boolean drop(final IOFile path) {
-    return path.exists() && path.delete();
+    final boolean ok = path.exists() && path.delete();
+    if(ok) IOCounter.drop(path.name());
+    return ok;
   }
 
   /**
@@ -63,6 +63,8 @@ public final class Open extends Command {
     synchronized(ctx.dbs) {
       Data data = ctx.dbs.pin(name);
       if(data == null) {
+        // complete an interrupted replacement of the database files
+        OptimizeAll.recover(name, ctx);
         // check if database exists
         if(!ctx.mprop.dbexists(name)) throw new BaseXException(DB_NOT_FOUND_X, name);
         data = new DiskData(name, ctx);
@@ -141,7 +141,11 @@ public final class Optimize extends ACreate {
       final boolean old, final boolean rebuild, final Optimize cmd) throws IOException {
 
     // check if flags are nothing has changed
-    if(!rebuild && create == old) return;
+    if(!rebuild && create == old) {
+      // merge pending changes into the existing index
+      if(create && d instanceof DiskData) ((DiskData) d).merge(type);
+      return;
+    }
 
     // create or drop index
     if(create) create(type, d, cmd);
@@ -1,6 +1,8 @@
 package org.basex.core.cmd;
 
 import static org.basex.core.Text.*;
+import static org.basex.data.DataText.*;
+import static org.basex.util.Token.*;
 
 import java.io.*;
 
@@ -21,25 +23,52 @@ import org.basex.util.list.*;
  * the currently opened database. This effectively eliminates all fragmentation
  * and can lead to significant space savings after updates.
  *
+ * If the online mode is chosen, the database is rebuilt from a snapshot, and other
+ * processes will only be blocked while the snapshot is created and the database
+ * files are replaced. The command itself returns when the rebuilt database is in place.
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Leo Woerteler
  */
 public final class OptimizeAll extends ACreate {
+  /** Suffix of journal files, which are written before database files are replaced. */
+  private static final String JOURNAL = ".swap";
+
   /** Current pre value. */
   int pre;
   /** Data size. */
   private int size;
+  /** Online mode. */
+  private final boolean online;
 
   /**
    * Default constructor.
    */
   public OptimizeAll() {
+    this(false);
+  }
+
+  /**
+   * Constructor.
+   * @param onl online mode
+   */
+  public OptimizeAll(final boolean onl) {
     super(Perm.WRITE, true);
+    online = onl;
   }
 
   @Override
   protected boolean run() {
     final Data data = context.data();
+    if(online) {
+      try {
+        optimizeOnline(data);
+      } catch(final IOException ex) {
+        return error(Util.message(ex));
+      }
+      return info(DB_OPTIMIZED_X, data.meta.name, perf);
+    }
+
     try {
       optimizeAll(data, context, this);
     } catch(final IOException ex) {
@@ -80,7 +109,7 @@ public final class OptimizeAll extends ACreate {
 
   @Override
   public void build(final CmdBuilder cb) {
-    cb.init(Cmd.OPTIMIZE + " " + C_ALL);
+    cb.init(Cmd.OPTIMIZE + " " + (online ? CmdOptimize.ONLINE : C_ALL));
   }
 
   /**
@@ -99,7 +128,6 @@ public final class OptimizeAll extends ACreate {
 
     final DiskData old = (DiskData) data;
     final MetaData m = old.meta;
-    if(cmd != null) cmd.size = m.size;
 
     // check if database is also pinned by other users
     if(ctx.dbs.pins(m.name) > 1) throw new BaseXException(DB_PINNED_X, m.name);
@@ -107,6 +135,190 @@ public final class OptimizeAll extends ACreate {
     // find unique temporary database name
     final String tname = ctx.mprop.random(m.name);
 
+    // build database and index structures
+    final DiskData d = rebuild(old, tname, ctx, cmd);
+    try {
+      // move binary files
+      final IOFile bin = data.meta.binaries();
+      if(bin.exists()) bin.rename(d.meta.binaries());
+      final IOFile upd = old.updateFile();
+      if(upd.exists()) upd.copyTo(d.updateFile());
+    } finally {
+      d.close();
+    }
+    Close.close(data, ctx);
+
+    // drop old database and rename temporary to final name
+    if(!DropDB.drop(m.name, ctx))
+      throw new BaseXException(DB_NOT_DROPPED_X, m.name);
+    if(!AlterDB.alter(tname, m.name, ctx))
+      throw new BaseXException(DB_NOT_RENAMED_X, tname);
+  }
+
+  /**
+   * Optimizes all data structures while the database remains accessible. The database
+   * files are copied while other processes can still read the database, and the copy
+   * is rebuilt without holding any locks. All updates that are performed in the meantime are
+   * recorded and replayed on the rebuilt database, which finally replaces the
+   * original files. The database instance is reopened, so it can still be accessed
+   * by all processes that have opened the database.
+   * @param data disk data
+   * @throws IOException I/O Exception during index rebuild
+   * @throws BaseXException database exception
+   */
+  private void optimizeOnline(final Data data) throws IOException {
+    if(data.inMemory()) throw new BaseXException(NO_MAINMEM);
+
+    final DiskData old = (DiskData) data;
+    final MetaData m = old.meta;
+    // check if database is already being optimized
+    if(old.log != null) throw new BaseXException(DB_OPTIMIZING_X, m.name);
+
+    // write all changes to disk and record subsequent updates
+    old.flush();
+    final UpdateLog log = new UpdateLog();
+    old.log = log;
+
+    // locks will only be released if they have been acquired by this command
+    final boolean reg = registered();
+    final String sname = mprop.random(m.name);
+    String tname = null;
+    DiskData d = null;
+    boolean closed = false;
+    try {
+      // copy database files (other processes may read the database)
+      context.downgrade(this, new StringList());
+      final IOFile snap = mprop.dbpath(sname);
+      for(final IOFile f : mprop.dbpath(m.name).children()) {
+        if(!f.isDir()) f.copyTo(new IOFile(snap, f.name()));
+      }
+
+      // build database and index structures (no locks are held)
+      if(reg) context.unregister(this);
+      tname = mprop.random(m.name);
+      final DiskData s = new DiskData(sname, context);
+      try {
+        d = rebuild(s, tname, context, this);
+      } finally {
+        s.close();
+        DropDB.drop(sname, context);
+      }
+
+      // replay updates (all other processes are blocked from now on)
+      if(reg) {
+        try {
+          context.register(this);
+        } catch(final ProcException ex) {
+          // locks could not be acquired: rebuilt database cannot be applied
+          throw new BaseXException(DB_NOT_OPTIMIZED_X_X, m.name, ex.getMessage());
+        }
+      }
+      old.log = null;
+      if(log.indexes() || log.size() != 0 && d.meta.size != s.meta.size) {
+        // updates cannot be replayed: rebuild current database
+        d.close();
+        DropDB.drop(tname, context);
+        tname = mprop.random(m.name);
+        d = rebuild(old, tname, context, this);
+      } else {
+        log.replay(d);
+      }
+      d.meta.users = m.users;
+      d.meta.dirty = true;
+
+      // replace database files; the original files are kept until the rebuilt
+      // database has taken their place. If the process is interrupted, the journal
+      // will be used to complete or revert the replacement when the database is opened
+      d.close();
+      old.close();
+      closed = true;
+      final String bname = mprop.random(m.name);
+      journal(m.name, context).write(token(bname + '\n' + tname));
+      if(AlterDB.alter(m.name, bname, context)) AlterDB.alter(tname, m.name, context);
+      tname = null;
+      if(!recover(m.name, context)) throw new BaseXException(DB_NOT_RENAMED_X, m.name);
+    } finally {
+      old.log = null;
+      if(d != null) d.close();
+      DropDB.drop(sname, context);
+      // drop rebuilt database if it has not replaced the original database
+      if(tname != null && mprop.dbpath(m.name).exists()) DropDB.drop(tname, context);
+      // reopen the original or the rebuilt database files
+      if(closed) old.reopen(context);
+    }
+  }
+
+  /**
+   * Completes or reverts the replacement of database files that has been started by
+   * the online optimization. If the original files have been moved, but the rebuilt
+   * database has not taken their place, the rebuilt or original files are moved back.
+   * Afterwards, the obsolete files and the journal are deleted.
+   * @param db name of the database
+   * @param ctx database context
+   * @return {@code true} if the rebuilt database replaced the original files
+   * @throws IOException I/O exception
+   */
+  public static synchronized boolean recover(final String db, final Context ctx)
+      throws IOException {
+
+    final IOFile journal = journal(db, ctx);
+    if(!journal.exists()) return false;
+
+    final MainProp mp = ctx.mprop;
+    final String[] names = string(journal.read()).split("\n");
+    if(names.length != 2) {
+      // journal is incomplete: no files have been moved yet
+      journal.delete();
+      return false;
+    }
+    final String bname = names[0], tname = names[1];
+    if(!mp.dbexists(db) && !(mp.dbexists(tname) && AlterDB.alter(tname, db, ctx)) &&
+        !(mp.dbexists(bname) && AlterDB.alter(bname, db, ctx))) {
+      throw new BaseXException(DB_NOT_RENAMED_X, db);
+    }
+    // original files are still available: rebuilt database has replaced them
+    final boolean replaced = mp.dbexists(bname);
+    if(replaced) {
+      // move binary files
+      final IOFile bin = new IOFile(mp.dbpath(bname), M_RAW);
+      final IOFile target = new IOFile(mp.dbpath(db), M_RAW);
+      if(bin.exists() && !target.exists()) bin.rename(target);
+      DropDB.drop(bname, ctx);
+    }
+    DropDB.drop(tname, ctx);
+    journal.delete();
+    return replaced;
+  }
+
+  /**
+   * Returns the journal file of a database, which contains the names of the moved
+   * original files and the rebuilt database, separated by a newline.
+   * @param db name of the database
+   * @param ctx database context
+   * @return journal file
+   */
+  public static IOFile journal(final String db, final Context ctx) {
+    return ctx.mprop.dbpath(db + JOURNAL);
+  }
+
+  /**
+   * Rebuilds a database and its index structures with the original options.
+   * @param source database to be rebuilt
+   * @param name name of the new database
+   * @param ctx database context
+   * @param cmd command reference, or {@code null}
+   * @return new database
+   * @throws IOException I/O Exception during index rebuild
+   */
+  private static DiskData rebuild(final DiskData source, final String name,
+      final Context ctx, final OptimizeAll cmd) throws IOException {
+
+    final MetaData m = source.meta;
+    if(cmd != null) {
+      cmd.pre = 0;
+      cmd.size = m.size;
+    }
+
     // adopt original meta information
     ctx.prop.set(Prop.CHOP, m.chop);
     // adopt original index options
@@ -121,26 +333,10 @@ public final class OptimizeAll extends ACreate {
     ctx.prop.set(Prop.STOPWORDS,  m.stopwords);
 
     // build database and index structures
-    final DiskBuilder builder = new DiskBuilder(tname, new DBParser(old, cmd), ctx);
+    final DiskBuilder builder = new DiskBuilder(name, new DBParser(source, cmd), ctx);
+    final DiskData d;
     try {
-      final DiskData d = builder.build();
-      if(m.createtext) create(IndexType.TEXT, d, cmd);
-      if(m.createattr) create(IndexType.ATTRIBUTE, d, cmd);
-      if(m.createftxt) create(IndexType.FULLTEXT, d, cmd);
-      // adopt original meta data
-      d.meta.createtext = m.createtext;
-      d.meta.createattr = m.createattr;
-      d.meta.createftxt = m.createftxt;
-      d.meta.filesize   = m.filesize;
-      d.meta.users      = m.users;
-      d.meta.dirty      = true;
-
-      // move binary files
-      final IOFile bin = data.meta.binaries();
-      if(bin.exists()) bin.rename(d.meta.binaries());
-      final IOFile upd = old.updateFile();
-      if(upd.exists()) upd.copyTo(d.updateFile());
-      d.close();
+      d = builder.build();
     } finally {
       try {
         builder.close();
@@ -148,13 +344,17 @@ public final class OptimizeAll extends ACreate {
         Util.debug(ex);
       }
     }
-    Close.close(data, ctx);
-
-    // drop old database and rename temporary to final name
-    if(!DropDB.drop(m.name, ctx))
-      throw new BaseXException(DB_NOT_DROPPED_X, m.name);
-    if(!AlterDB.alter(tname, m.name, ctx))
-      throw new BaseXException(DB_NOT_RENAMED_X, tname);
+    if(m.createtext) create(IndexType.TEXT, d, cmd);
+    if(m.createattr) create(IndexType.ATTRIBUTE, d, cmd);
+    if(m.createftxt) create(IndexType.FULLTEXT, d, cmd);
+    // adopt original meta data
+    d.meta.createtext = m.createtext;
+    d.meta.createattr = m.createattr;
+    d.meta.createftxt = m.createftxt;
+    d.meta.filesize   = m.filesize;
+    d.meta.users      = m.users;
+    d.meta.dirty      = true;
+    return d;
   }
 
   /**
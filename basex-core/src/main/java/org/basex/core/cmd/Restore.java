@@ -50,7 +50,7 @@ public class Restore extends ABackup {
     if(context.pinned(db)) return error(DB_PINNED_X, db);
 
     // try to restore database
-    return restore(file) && (!closed || new Open(db).run(context)) ?
+    return restore(file, db) && (!closed || new Open(db).run(context)) ?
         info(DB_RESTORED_X, file.name(), perf) : error(DB_NOT_RESTORED_X, db);
   }
 
@@ -64,13 +64,35 @@ public class Restore extends ABackup {
   }
 
   /**
-   * Restores the specified database.
+   * Restores the specified database. If the backup is incremental, the last full
+   * backup and all subsequent incremental backups will be applied.
    * @param file file
+   * @param db name of the database
    * @return success flag
    */
-  private boolean restore(final IOFile file) {
+  private boolean restore(final IOFile file, final String db) {
     try {
-      proc(new Zip(file)).unzip(mprop.dbpath());
+      // find chain of backups
+      final StringList chain = new StringList().add(file.path());
+      if(BackupPages.incremental(file, db)) {
+        final StringList list = Databases.backupPaths(db, context).sort(Prop.CASE, false);
+        int i = 0;
+        while(i < list.size() && !new IOFile(list.get(i)).eq(file)) i++;
+        while(true) {
+          if(++i == list.size()) return false;
+          final IOFile bf = new IOFile(list.get(i));
+          chain.add(bf.path());
+          if(!BackupPages.incremental(bf, db)) break;
+        }
+      }
+
+      // restore full backup, apply incremental backups
+      final int cs = chain.size();
+      proc(new Zip(new IOFile(chain.get(cs - 1)))).unzip(mprop.dbpath());
+      mprop.dbpath(db + BackupPages.PAGES).delete();
+      for(int c = cs - 2; c >= 0; c--) {
+        BackupPages.apply(new IOFile(chain.get(c)), mprop.dbpath(db), db);
+      }
       return true;
     } catch(final IOException ex) {
       Util.debug(ex);
@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.concurrent.*;
+
 import org.basex.core.*;
 import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.*;
@@ -33,6 +35,22 @@ public final class ShowBackups extends ABackup {
       table.contents.add(tl);
     }
     out.println(table.sort().finish());
+
+    // list backups that are created in the background or have failed
+    for(final String name : CreateBackup.jobs().sort(Prop.CASE, true)) {
+      final Future<Void> job = CreateBackup.job(name);
+      if(job == null) continue;
+      if(!job.isDone()) {
+        out.println(Util.info(BACKUP_RUNNING_X, name));
+      } else {
+        try {
+          job.get();
+        } catch(final Exception ex) {
+          final Throwable th = ex instanceof ExecutionException ? ex.getCause() : ex;
+          out.println(Util.info(BACKUP_FAILED_X, name, th.getMessage()));
+        }
+      }
+    }
     return true;
   }
 
@@ -0,0 +1,38 @@
+package org.basex.core.cmd;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.parse.*;
+import org.basex.core.parse.Commands.*;
+
+/**
+ * Evaluates the 'show locks' command and shows granted and waiting locks.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ShowLocks extends Command {
+  /**
+   * Default constructor.
+   */
+  public ShowLocks() {
+    super(Perm.ADMIN);
+  }
+
+  @Override
+  protected boolean run() throws IOException {
+    out.println(context.locks().finish());
+    return true;
+  }
+
+  @Override
+  public void databases(final LockResult lr) {
+    // No locks needed
+  }
+
+  @Override
+  public void build(final CmdBuilder cb) {
+    cb.init(Cmd.SHOW + " " + CmdShow.LOCKS);
+  }
+}
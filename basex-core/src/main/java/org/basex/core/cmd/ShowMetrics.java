@@ -0,0 +1,38 @@
+package org.basex.core.cmd;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.parse.*;
+import org.basex.core.parse.Commands.*;
+
+/**
+ * Evaluates the 'show metrics' command and shows server-wide metrics.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ShowMetrics extends Command {
+  /**
+   * Default constructor.
+   */
+  public ShowMetrics() {
+    super(Perm.ADMIN);
+  }
+
+  @Override
+  protected boolean run() throws IOException {
+    out.print(context.metrics.info(context));
+    return true;
+  }
+
+  @Override
+  public void databases(final LockResult lr) {
+    // No locks needed
+  }
+
+  @Override
+  public void build(final CmdBuilder cb) {
+    cb.init(Cmd.SHOW + " " + CmdShow.METRICS);
+  }
+}
@@ -83,6 +83,8 @@ public interface Commands {
   String OPTIMIZE = "optimize";
   /** Command string: "optimize-all". */
   String OPTIMIZE_ALL = "optimize-all";
+  /** Command string: "optimize-online". */
+  String OPTIMIZE_ONLINE = "optimize-online";
   /** Command string: "password". */
   String PASSWORD = "password";
   /** Command string: "rename". */
@@ -109,6 +111,10 @@ public interface Commands {
   String SHOW_BACKUPS = "show-backups";
   /** Command string: "show-events". */
   String SHOW_EVENTS = "show-events";
+  /** Command string: "show-locks". */
+  String SHOW_LOCKS = "show-locks";
+  /** Command string: "show-metrics". */
+  String SHOW_METRICS = "show-metrics";
   /** Command string: "show-sessions". */
   String SHOW_SESSIONS = "show-sessions";
   /** Command string: "show-users". */
@@ -154,9 +160,9 @@ public interface Commands {
   /** Drop commands. */
   enum CmdDrop { DATABASE, DB, INDEX, USER, BACKUP, EVENT }
   /** Optimize commands. */
-  enum CmdOptimize { NULL, ALL }
+  enum CmdOptimize { NULL, ALL, ONLINE }
   /** Show commands. */
-  enum CmdShow { SESSIONS, USERS, BACKUPS, EVENTS }
+  enum CmdShow { SESSIONS, USERS, BACKUPS, EVENTS, METRICS, LOCKS }
   /** Permission commands. */
   enum CmdPerm { NONE, READ, WRITE, CREATE, ADMIN }
   /** Index types. */
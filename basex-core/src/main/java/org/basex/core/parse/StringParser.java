@@ -157,6 +157,8 @@ public final class StringParser extends CmdParser {
             return new Optimize();
           case ALL:
             return new OptimizeAll();
+          case ONLINE:
+            return new OptimizeAll(true);
         }
         break;
       case EXPORT:
@@ -197,6 +199,10 @@ public final class StringParser extends CmdParser {
             return new ShowBackups();
           case EVENTS:
             return new ShowEvents();
+          case METRICS:
+            return new ShowMetrics();
+          case LOCKS:
+            return new ShowLocks();
           default:
         }
         break;
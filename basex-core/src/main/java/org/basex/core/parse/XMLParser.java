@@ -132,6 +132,8 @@ final class XMLParser extends CmdParser {
       return new Optimize();
     if(e.equals(OPTIMIZE_ALL) && check(root))
       return new OptimizeAll();
+    if(e.equals(OPTIMIZE_ONLINE) && check(root))
+      return new OptimizeAll(true);
     if(e.equals(PASSWORD) && check(root, '#' + PASSWORD + '?'))
       return new Password(password(root));
     if(e.equals(RENAME) && check(root, PATH, NEWPATH))
@@ -160,6 +162,10 @@ final class XMLParser extends CmdParser {
       return new ShowBackups();
     if(e.equals(SHOW_EVENTS) && check(root))
       return new ShowEvents();
+    if(e.equals(SHOW_LOCKS) && check(root))
+      return new ShowLocks();
+    if(e.equals(SHOW_METRICS) && check(root))
+      return new ShowMetrics();
     if(e.equals(SHOW_SESSIONS) && check(root))
       return new ShowSessions();
     if(e.equals(SHOW_USERS) && check(root, DATABASE + '?'))
@@ -99,6 +99,9 @@ public abstract class Data {
   public Index ftxindex;
   /** Number of current database users. */
   public int pins = 1;
+  /** Log of updates, which is assigned while the database is optimized in the
+   * background (can be {@code null}). */
+  public UpdateLog log;
 
   /** Table access file. */
   TableAccess table;
@@ -465,6 +468,8 @@ public abstract class Data {
   public final void update(final int pre, final int kind, final byte[] name,
       final byte[] uri) {
 
+    final UpdateLog ul = log;
+    if(ul != null) ul.update(pre, kind, name, uri);
     meta.update();
 
     if(kind == PI) {
@@ -498,6 +503,8 @@ public abstract class Data {
     final byte[] v = kind == PI ? trim(concat(name(pre, kind), SPACE, value)) : value;
     if(eq(v, text(pre, kind != ATTR))) return;
 
+    final UpdateLog ul = log;
+    if(ul != null) ul.update(pre, kind, value);
     meta.update();
     updateText(pre, v, kind);
     if(kind == DOC) resources.rename(pre, value);
@@ -509,6 +516,8 @@ public abstract class Data {
    * @param source clip with source data
    */
   public final void replace(final int tpre, final DataClip source) {
+    final UpdateLog ul = log;
+    if(ul != null) ul.replace(tpre, source);
     meta.update();
 
     final int size = source.size();
@@ -613,6 +622,8 @@ public abstract class Data {
    * @param pre pre value of the node to delete
    */
   public final void delete(final int pre) {
+    final UpdateLog ul = log;
+    if(ul != null) ul.delete(pre);
     meta.update();
 
     // size of the subtree to delete
@@ -669,7 +680,9 @@ public abstract class Data {
    * @param source clip with source data
    */
   public final void insertAttr(final int pre, final int par, final DataClip source) {
-    insert(pre, par, source);
+    final UpdateLog ul = log;
+    if(ul != null) ul.insert(pre, par, source, true);
+    insertNodes(pre, par, source);
     attSize(par, ELEM, attSize(par, ELEM) + source.size());
   }
 
@@ -681,6 +694,18 @@ public abstract class Data {
    * @param source clip with source data
    */
   public final void insert(final int tpre, final int tpar, final DataClip source) {
+    final UpdateLog ul = log;
+    if(ul != null) ul.insert(tpre, tpar, source, false);
+    insertNodes(tpre, tpar, source);
+  }
+
+  /**
+   * Inserts a data instance at the specified pre value.
+   * @param tpre target pre value
+   * @param tpar target parent pre value of node ({@code -1} if document is added)
+   * @param source clip with source data
+   */
+  private void insertNodes(final int tpre, final int tpar, final DataClip source) {
     meta.update();
 
     // update value and document indexes
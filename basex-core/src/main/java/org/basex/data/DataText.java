@@ -56,6 +56,12 @@ public interface DataText {
   String DBFTCS = "FTCS";
   /** Full-text diacritics removal. */
   String DBFTDC = "FTDC";
+  /** Full-text n-gram index. */
+  String DBFTNG = "FTNGRAMS";
+  /** Number of text nodes in the full-text index. */
+  String DBFTNODES = "FTNODES";
+  /** Total length of the text nodes in the full-text index. */
+  String DBFTLEN = "FTLEN";
   /** Maximum token length. */
   String DBMAXLEN = "MAXLEN";
   /** Maximum number of categories. */
@@ -309,4 +315,6 @@ public interface DataText {
   byte[][] TABLEKINDS = tokens("DOC ", "ELEM", "TEXT", "ATTR", "COMM", "PI  ");
   /** Database - ID->PRE mapping. */
   String DATAIDP = "idp";
+  /** Database - Document paths. */
+  String DATADOC = "doc";
 }
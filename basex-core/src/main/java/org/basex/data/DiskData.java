@@ -43,6 +43,10 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Cached texts. */
+  private final TextCache textCache = new TextCache();
+  /** Cached attribute values. */
+  private final TextCache valueCache = new TextCache();
   /** Texts buffered for subsequent index updates. */
   private TokenObjMap<IntList> txts;
   /** Attribute values buffered for subsequent index updates. */
@@ -57,6 +61,38 @@ public final class DiskData extends Data {
    * @throws IOException I/O Exception
    */
   public DiskData(final String db, final Context ctx) throws IOException {
+    read(db, ctx);
+  }
+
+  /**
+   * Internal database constructor, called from {@link DiskBuilder#build}.
+   * @param md meta data
+   * @param nm tags
+   * @param at attributes
+   * @param ps path summary
+   * @param n namespaces
+   * @throws IOException I/O Exception
+   */
+  public DiskData(final MetaData md, final Names nm, final Names at,
+      final PathSummary ps, final Namespaces n) throws IOException {
+
+    meta = md;
+    tagindex = nm;
+    atnindex = at;
+    paths = ps;
+    paths.data(this);
+    nspaces = n;
+    if(meta.updindex) idmap = new IdPreMap(meta.lastid);
+    init();
+  }
+
+  /**
+   * Reads the meta data and opens the database files and indexes.
+   * @param db name of database
+   * @param ctx database context
+   * @throws IOException I/O Exception
+   */
+  private void read(final String db, final Context ctx) throws IOException {
     meta = new MetaData(db, ctx);
 
     // don't open databases marked as updating
@@ -88,30 +124,25 @@ public final class DiskData extends Data {
       if(meta.textindex) txtindex = new DiskValues(this, true);
       if(meta.attrindex) atvindex = new DiskValues(this, false);
     }
-    if(meta.ftxtindex) ftxindex = new FTIndex(this);
+    if(meta.ftxtindex) {
+      ftxindex = UpdatableFTIndex.updatable(meta) ? new UpdatableFTIndex(this) :
+        new FTIndex(this);
+    }
     init();
   }
 
   /**
-   * Internal database constructor, called from {@link DiskBuilder#build}.
-   * @param md meta data
-   * @param nm tags
-   * @param at attributes
-   * @param ps path summary
-   * @param n namespaces
+   * Reopens the database after it has been closed and its files have been replaced
+   * (see {@link OptimizeAll}). As the instance is preserved, it can still be
+   * accessed by all processes that have opened the database.
+   * @param ctx database context
    * @throws IOException I/O Exception
    */
-  public DiskData(final MetaData md, final Names nm, final Names at,
-      final PathSummary ps, final Namespaces n) throws IOException {
-
-    meta = md;
-    tagindex = nm;
-    atnindex = at;
-    paths = ps;
-    paths.data(this);
-    nspaces = n;
-    if(meta.updindex) idmap = new IdPreMap(meta.lastid);
-    init();
+  public synchronized void reopen(final Context ctx) throws IOException {
+    txts = null;
+    atvs = null;
+    read(meta.name, ctx);
+    closed = false;
   }
 
   /**
@@ -160,6 +191,8 @@ public final class DiskData extends Data {
       table.close();
       texts.close();
       values.close();
+      textCache.clear();
+      valueCache.clear();
       closeIndex(IndexType.TEXT);
       closeIndex(IndexType.ATTRIBUTE);
       closeIndex(IndexType.FULLTEXT);
@@ -174,6 +207,7 @@ public final class DiskData extends Data {
     final Index index = index(type);
     if(index == null) return;
     index.close();
+    if(log != null && !closed) log.index();
 
     // invalidate index reference
     meta.dirty = true;
@@ -187,6 +221,7 @@ public final class DiskData extends Data {
 
   @Override
   public void setIndex(final IndexType type, final Index index) {
+    if(log != null) log.index();
     meta.dirty = true;
     switch(type) {
       case TEXT:      txtindex = index; break;
@@ -208,12 +243,7 @@ public final class DiskData extends Data {
     if(!meta.prop.is(Prop.AUTOFLUSH) || closed) return;
 
     try {
-      write();
-      table.flush();
-      texts.flush();
-      values.flush();
-      if(txtindex != null) ((DiskValues) txtindex).flush();
-      if(atvindex != null) ((DiskValues) atvindex).flush();
+      flush();
     } catch(final IOException ex) {
       Util.stack(ex);
     } finally {
@@ -221,6 +251,29 @@ public final class DiskData extends Data {
     }
   }
 
+  /**
+   * Writes all buffered data and index updates to disk.
+   * @throws IOException I/O exception
+   */
+  public synchronized void flush() throws IOException {
+    write();
+    table.flush();
+    texts.flush();
+    values.flush();
+    if(txtindex != null) ((DiskValues) txtindex).flush();
+    if(atvindex != null) ((DiskValues) atvindex).flush();
+    if(ftxindex instanceof UpdatableFTIndex) ((UpdatableFTIndex) ftxindex).flush();
+  }
+
+  /**
+   * Merges pending changes of an updatable value index into the index files.
+   * @param type index type
+   */
+  public synchronized void merge(final IndexType type) {
+    final Index index = index(type);
+    if(index instanceof UpdatableDiskValues) ((UpdatableDiskValues) index).merge();
+  }
+
   /**
    * Returns a file that indicates ongoing updates.
    * @return updating file
@@ -244,7 +297,11 @@ public final class DiskData extends Data {
   @Override
   public double textDbl(final int pre, final boolean text) {
     final long o = textOff(pre);
-    return num(o) ? o & IO.OFFNUM - 1 : toDouble(txt(o, text));
+    if(num(o)) return o & IO.OFFNUM - 1;
+    final TextCache tc = text ? textCache : valueCache;
+    final TextCache.Entry e = tc.entry(o);
+    if(e != null && e.parsed) return e.dbl;
+    return tc.addDbl(o, e != null ? e.text : read(o, text));
   }
 
   @Override
@@ -259,11 +316,24 @@ public final class DiskData extends Data {
 
   /**
    * Returns a text (text, comment, pi) or attribute value.
+   * Decoded tokens are cached.
    * @param o text offset
    * @param text text or attribute flag
    * @return text
    */
   private byte[] txt(final long o, final boolean text) {
+    final TextCache tc = text ? textCache : valueCache;
+    final TextCache.Entry e = tc.entry(o);
+    return e != null ? e.text : tc.add(o, read(o, text));
+  }
+
+  /**
+   * Reads and decompresses a text (text, comment, pi) or attribute value.
+   * @param o text offset
+   * @param text text or attribute flag
+   * @return text
+   */
+  private byte[] read(final long o, final boolean text) {
     final byte[] txt = (text ? texts : values).readToken(o & IO.OFFCOMP - 1);
     return cpr(o) ? COMP.get().unpack(txt) : txt;
   }
@@ -293,7 +363,10 @@ public final class DiskData extends Data {
     // old entry (offset or value)
     final long old = textOff(pre);
     // fill unused space with zero-bytes
-    if(!num(old)) (text ? texts : values).free(old & IO.OFFCOMP - 1, 0);
+    if(!num(old)) {
+      (text ? texts : values).free(old & IO.OFFCOMP - 1, 0);
+      (text ? textCache : valueCache).delete(old);
+    }
   }
 
   @Override
@@ -307,6 +380,10 @@ public final class DiskData extends Data {
       final DiskValues index = (DiskValues) (text ? txtindex : atvindex);
       // don't index document names
       if(index != null && kind != DOC) index.replace(oldval, value, id);
+      if(kind == TEXT) {
+        final UpdatableFTIndex ft = updatableFT();
+        if(ft != null) ft.replace(id, oldval, value);
+      }
     }
 
     // reference to text store
@@ -314,6 +391,10 @@ public final class DiskData extends Data {
     // file length
     final long len = store.length();
 
+    // invalidate cached entry
+    final TextCache tc = text ? textCache : valueCache;
+    tc.delete(textOff(pre));
+
     // new entry (offset or value)
     final long v = toSimpleInt(value);
     // flag for inlining numeric value
@@ -379,6 +460,10 @@ public final class DiskData extends Data {
       }
       ids.add(id);
     }
+    if(meta.updindex && kind == TEXT) {
+      final UpdatableFTIndex ft = updatableFT();
+      if(ft != null) ft.add(id, value);
+    }
 
     // add text to text file
     // inline integer value...
@@ -394,7 +479,8 @@ public final class DiskData extends Data {
 
   @Override
   protected void indexDelete(final int pre, final int size) {
-    if(!(meta.textindex || meta.attrindex)) return;
+    final UpdatableFTIndex ft = updatableFT();
+    if(!(meta.textindex || meta.attrindex || ft != null)) return;
 
     // collect all keys and ids
     txts = new TokenObjMap<IntList>();
@@ -403,6 +489,7 @@ public final class DiskData extends Data {
     for(int p = pre; p < l; ++p) {
       final int k = kind(p);
       final boolean isAttr = k == ATTR;
+      if(ft != null && k == TEXT) ft.delete(id(p), text(p, true));
       // consider nodes which are attribute, text, comment, or proc. instruction
       if(meta.attrindex && isAttr ||
          meta.textindex && (k == TEXT || k == COMM || k == PI)) {
@@ -421,4 +508,14 @@ public final class DiskData extends Data {
     if(!txts.isEmpty()) ((DiskValues) txtindex).delete(txts);
     if(!atvs.isEmpty()) ((DiskValues) atvindex).delete(atvs);
   }
+
+  /**
+   * Returns the full-text index if it can be updated.
+   * Other full-text indexes are invalidated by {@link MetaData#update()}.
+   * @return index, or {@code null} if no updatable index exists
+   */
+  private UpdatableFTIndex updatableFT() {
+    return meta.ftxtindex && ftxindex instanceof UpdatableFTIndex ?
+      (UpdatableFTIndex) ftxindex : null;
+  }
 }
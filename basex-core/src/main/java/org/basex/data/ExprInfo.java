@@ -1,5 +1,6 @@
 package org.basex.data;
 
+import org.basex.query.util.*;
 import org.basex.query.value.node.*;
 import org.basex.util.*;
 
@@ -47,6 +48,7 @@ public abstract class ExprInfo {
     for(int a = 0; a < atts.length - 1; a += 2) {
       if(atts[a + 1] != null) el.add(planAttr(atts[a], atts[a + 1]));
     }
+    Profiler.plan(this, el);
     return el;
   }
 
@@ -1,5 +1,8 @@
 package org.basex.data;
 
+import java.io.*;
+
+import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.index.*;
 import org.basex.index.name.*;
@@ -17,14 +20,20 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public final class MemData extends Data {
+  /** Arena with the texts and attribute values (can be {@code null}). */
+  private final TokenArena arena;
+
   /**
-   * Constructor.
+   * Constructor, called by the {@link MemBuilder}.
    * @param ps path summary
    * @param ns namespaces
    * @param pr database properties
+   * @param compact store table and texts in a compact representation if
+   *   {@link Prop#COMPACTMEM} or {@link Prop#OFFHEAP} is enabled
    */
-  public MemData(final PathSummary ps, final Namespaces ns, final Prop pr) {
-    this(null, null, ps, ns, pr, null, null);
+  public MemData(final PathSummary ps, final Namespaces ns, final Prop pr,
+      final boolean compact) {
+    this(null, null, ps, ns, pr, null, null, compact);
   }
 
   /**
@@ -39,16 +48,35 @@ public final class MemData extends Data {
    */
   public MemData(final Names tag, final Names att, final PathSummary ps,
       final Namespaces ns, final Prop pr, final Index txt, final Index atv) {
+    this(tag, att, ps, ns, pr, txt, atv, false);
+  }
+
+  /**
+   * Constructor.
+   * @param tag tag index
+   * @param att attribute name index
+   * @param ps path summary
+   * @param ns namespaces
+   * @param pr database properties
+   * @param txt text index
+   * @param atv attribute value index
+   * @param compact consider options for compact storage
+   */
+  private MemData(final Names tag, final Names att, final PathSummary ps,
+      final Namespaces ns, final Prop pr, final Index txt, final Index atv,
+      final boolean compact) {
 
     meta = new MetaData(pr);
-    table = new TableMemAccess(meta);
+    final boolean direct = compact && pr.is(Prop.OFFHEAP);
+    arena = direct || compact && pr.is(Prop.COMPACTMEM) ? new TokenArena(direct) : null;
+    table = direct ? new TableOffHeapAccess(meta) : new TableMemAccess(meta);
     if(meta.updindex) {
       idmap = new IdPreMap(meta.lastid);
-      txtindex = txt == null ? new UpdatableMemValues(this) : txt;
-      atvindex = atv == null ? new UpdatableMemValues(this) : atv;
+      txtindex = txt == null ? new UpdatableMemValues(this, arena) : txt;
+      atvindex = atv == null ? new UpdatableMemValues(this, arena) : atv;
     } else {
-      txtindex = txt == null ? new MemValues(this) : txt;
-      atvindex = atv == null ? new MemValues(this) : atv;
+      txtindex = txt == null ? new MemValues(this, arena) : txt;
+      atvindex = atv == null ? new MemValues(this, arena) : atv;
     }
     tagindex = tag == null ? new Names(meta) : tag;
     atnindex = att == null ? new Names(meta) : att;
@@ -70,11 +98,18 @@ public final class MemData extends Data {
    * @param pr property reference
    */
   public MemData(final Prop pr) {
-    this(null, null, pr);
+    this(null, null, null, null, pr, null, null);
   }
 
   @Override
-  public void close() { }
+  public void close() {
+    try {
+      table.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    if(arena != null) arena.close();
+  }
 
   @Override
   public void closeIndex(final IndexType type) { }
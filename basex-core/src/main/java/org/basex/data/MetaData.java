@@ -9,6 +9,7 @@ import java.io.*;
 import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.index.ft.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
@@ -68,6 +69,12 @@ public final class MetaData {
   public volatile boolean diacritics;
   /** Full-text stopword file. */
   public volatile String stopwords = "";
+  /** Flag for full-text n-gram index. */
+  public volatile boolean ftngrams;
+  /** Number of text nodes in the full-text index (used for scoring). */
+  public volatile int ftnodes;
+  /** Total length of the text nodes in the full-text index (used for scoring). */
+  public volatile long ftlength;
 
   /** Maximum number of categories. */
   public volatile int maxcats;
@@ -131,6 +138,7 @@ public final class MetaData {
     diacritics = prop.is(Prop.DIACRITICS);
     stemming = prop.is(Prop.STEMMING);
     casesens = prop.is(Prop.CASESENS);
+    ftngrams = prop.is(Prop.FTNGRAMS);
     updindex = prop.is(Prop.UPDINDEX);
     maxlen = prop.num(Prop.MAXLEN);
     maxcats = prop.num(Prop.MAXCATS);
@@ -313,6 +321,9 @@ public final class MetaData {
         else if(k.equals(DBWCIDX))    wcindex    = toBool(v);
         else if(k.equals(DBFTST))     stemming   = toBool(v);
         else if(k.equals(DBFTCS))     casesens   = toBool(v);
+        else if(k.equals(DBFTNG))     ftngrams   = toBool(v);
+        else if(k.equals(DBFTNODES))  ftnodes    = toInt(v);
+        else if(k.equals(DBFTLEN))    ftlength   = toLong(v);
         else if(k.equals(DBUPTODATE)) uptodate   = toBool(v);
         // legacy: set up-to-date flag to false if path index does not exist
         else if(k.equals(DBPTHIDX) && !toBool(v)) uptodate = false;
@@ -355,6 +366,9 @@ public final class MetaData {
     writeInfo(out, DBFTST,     stemming);
     writeInfo(out, DBFTCS,     casesens);
     writeInfo(out, DBFTDC,     diacritics);
+    writeInfo(out, DBFTNG,     ftngrams);
+    writeInfo(out, DBFTNODES,  ftnodes);
+    writeInfo(out, DBFTLEN,    ftlength);
     writeInfo(out, DBFTSW,     stopwords);
     writeInfo(out, DBMAXLEN,   maxlen);
     writeInfo(out, DBMAXCATS,  maxcats);
@@ -378,7 +392,8 @@ public final class MetaData {
       textindex = false;
       attrindex = false;
     }
-    ftxtindex = false;
+    // full-text indexes of previous versions reference pre values
+    if(ftxtindex && !UpdatableFTIndex.updatable(this)) ftxtindex = false;
   }
 
   // PRIVATE METHODS ==========================================================
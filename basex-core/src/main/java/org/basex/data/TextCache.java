@@ -0,0 +1,119 @@
+package org.basex.data;
+
+import static org.basex.util.Token.*;
+
+/**
+ * This class caches decoded texts and attribute values of a database, addressed
+ * by their heap offsets. Numeric values, once parsed, are cached as well.
+ * The cache is direct-mapped: each offset is assigned to exactly one slot, and older
+ * entries are replaced by newer ones. Entries are immutable, so that the cache can be
+ * accessed by concurrent readers without locking.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class TextCache {
+  /** Number of slots (must be 1 << n). */
+  private static final int SLOTS = 1 << 12;
+  /** Maximum length of cached tokens. */
+  private static final int MAXLEN = 1 << 10;
+  /** Cache slots. */
+  private final Entry[] slots = new Entry[SLOTS];
+
+  /**
+   * Returns the cache entry for the specified offset.
+   * @param off heap offset
+   * @return entry, or {@code null} if the token has not been cached
+   */
+  Entry entry(final long off) {
+    final Entry e = slots[slot(off)];
+    return e != null && e.off == off ? e : null;
+  }
+
+  /**
+   * Caches a token.
+   * @param off heap offset
+   * @param text token
+   * @return token
+   */
+  byte[] add(final long off, final byte[] text) {
+    if(text.length <= MAXLEN) slots[slot(off)] = new Entry(off, text);
+    return text;
+  }
+
+  /**
+   * Caches a token together with its numeric value.
+   * @param off heap offset
+   * @param text token
+   * @return double value
+   */
+  double addDbl(final long off, final byte[] text) {
+    final Entry e = new Entry(off, text, toDouble(text));
+    if(text.length <= MAXLEN) slots[slot(off)] = e;
+    return e.dbl;
+  }
+
+  /**
+   * Invalidates the entry for the specified offset.
+   * @param off heap offset
+   */
+  void delete(final long off) {
+    final int s = slot(off);
+    final Entry e = slots[s];
+    if(e != null && e.off == off) slots[s] = null;
+  }
+
+  /**
+   * Invalidates all entries.
+   */
+  void clear() {
+    for(int s = 0; s < SLOTS; s++) slots[s] = null;
+  }
+
+  /**
+   * Returns the slot for the specified offset.
+   * @param off heap offset
+   * @return slot
+   */
+  private static int slot(final long off) {
+    final long h = off ^ off >>> 17;
+    return (int) (h ^ h >>> 32) & SLOTS - 1;
+  }
+
+  /** Cache entry. */
+  static final class Entry {
+    /** Heap offset. */
+    final long off;
+    /** Decoded token. */
+    final byte[] text;
+    /** Numeric value (only valid if {@link #parsed} is {@code true}). */
+    final double dbl;
+    /** Indicates if the numeric value has been parsed. */
+    final boolean parsed;
+
+    /**
+     * Constructor.
+     * @param o heap offset
+     * @param t decoded token
+     */
+    Entry(final long o, final byte[] t) {
+      off = o;
+      text = t;
+      dbl = 0;
+      parsed = false;
+    }
+
+    /**
+     * Constructor.
+     * @param o heap offset
+     * @param t decoded token
+     * @param d numeric value
+     */
+    Entry(final long o, final byte[] t, final double d) {
+      off = o;
+      text = t;
+      dbl = d;
+      parsed = true;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package org.basex.data;
+
+import java.util.*;
+
+import org.basex.core.cmd.*;
+import org.basex.data.atomic.*;
+
+/**
+ * This class records the updates of a database that is optimized in the background
+ * (see {@link OptimizeAll}). The updates are recorded in terms of pre values, and
+ * they can be replayed on a copy of the database that has the same node structure
+ * as the database at the time when recording was started.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class UpdateLog {
+  /** Recorded updates. */
+  private final ArrayList<Update> updates = new ArrayList<Update>();
+  /** Indicates if index structures have been created or dropped. */
+  private boolean indexes;
+
+  /**
+   * Returns the number of recorded updates.
+   * @return number of updates
+   */
+  public int size() {
+    return updates.size();
+  }
+
+  /**
+   * Indicates if index structures have been created or dropped. Such changes
+   * cannot be replayed.
+   * @return result of check
+   */
+  public boolean indexes() {
+    return indexes;
+  }
+
+  /**
+   * Replays all recorded updates on the specified database.
+   * @param data data reference
+   */
+  public void replay(final Data data) {
+    for(final Update u : updates) u.apply(data);
+  }
+
+  /**
+   * Records the creation or removal of an index structure.
+   */
+  void index() {
+    indexes = true;
+  }
+
+  /**
+   * Records the renaming of a node (see {@link Data#update(int, int, byte[], byte[])}).
+   * @param pre pre value
+   * @param kind node kind
+   * @param name new name
+   * @param uri uri
+   */
+  void update(final int pre, final int kind, final byte[] name, final byte[] uri) {
+    updates.add(new Update() {
+      @Override
+      void apply(final Data data) {
+        data.update(pre, kind, name, uri);
+      }
+    });
+  }
+
+  /**
+   * Records the update of a value (see {@link Data#update(int, int, byte[])}).
+   * @param pre pre value
+   * @param kind node kind
+   * @param value new value
+   */
+  void update(final int pre, final int kind, final byte[] value) {
+    updates.add(new Update() {
+      @Override
+      void apply(final Data data) {
+        data.update(pre, kind, value);
+      }
+    });
+  }
+
+  /**
+   * Records the replacement of a node (see {@link Data#replace}).
+   * @param pre pre value
+   * @param source clip with source data
+   */
+  void replace(final int pre, final DataClip source) {
+    final DataClip clip = copy(source);
+    updates.add(new Update() {
+      @Override
+      void apply(final Data data) {
+        data.replace(pre, clip);
+      }
+    });
+  }
+
+  /**
+   * Records the deletion of a node (see {@link Data#delete(int)}).
+   * @param pre pre value
+   */
+  void delete(final int pre) {
+    updates.add(new Update() {
+      @Override
+      void apply(final Data data) {
+        data.delete(pre);
+      }
+    });
+  }
+
+  /**
+   * Records the insertion of nodes (see {@link Data#insert(int, int, DataClip)} and
+   * {@link Data#insertAttr}).
+   * @param pre target pre value
+   * @param par target parent pre value
+   * @param source clip with source data
+   * @param attr attributes flag
+   */
+  void insert(final int pre, final int par, final DataClip source, final boolean attr) {
+    final DataClip clip = copy(source);
+    updates.add(new Update() {
+      @Override
+      void apply(final Data data) {
+        if(attr) data.insertAttr(pre, par, clip);
+        else data.insert(pre, par, clip);
+      }
+    });
+  }
+
+  /**
+   * Returns a clip whose data will remain accessible. Main memory instances are
+   * created for each update and can be referenced; other instances may be
+   * temporary databases, which will be dropped after the update.
+   * @param source clip with source data
+   * @return clip
+   */
+  private static DataClip copy(final DataClip source) {
+    if(source.data.inMemory()) return source;
+    final MemData md = new MemData(source.data.meta.prop);
+    md.insert(0, -1, source);
+    return new DataClip(md);
+  }
+
+  /** Recorded update. */
+  private abstract static class Update {
+    /**
+     * Applies the update to the specified database.
+     * @param data data reference
+     */
+    abstract void apply(Data data);
+  }
+}
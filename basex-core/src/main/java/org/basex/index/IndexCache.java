@@ -14,6 +14,11 @@ import org.basex.util.*;
  * @author Dimitar Popov
  */
 public final class IndexCache {
+  /** Number of cache hits (server-wide). */
+  private static final StripedCounter HITS = new StripedCounter();
+  /** Number of cache misses (server-wide). */
+  private static final StripedCounter MISSES = new StripedCounter();
+
   /** Queue used to collect unused keys. */
   private final ReferenceQueue<IndexEntry> queue = new ReferenceQueue<IndexEntry>();
   /** Read-write lock. */
@@ -37,16 +42,36 @@ public final class IndexCache {
       BucketEntry e = buckets[i];
       while(e != null) {
         final IndexEntry entry = e.get();
-        if(entry != null && e.hash == hash && eq(entry.key, key)) return entry;
+        if(entry != null && e.hash == hash && eq(entry.key, key)) {
+          HITS.inc();
+          return entry;
+        }
         e = e.next;
       }
     } finally {
       rwl.readLock().unlock();
     }
 
+    MISSES.inc();
     return null;
   }
 
+  /**
+   * Returns the number of cache hits of all index caches.
+   * @return number of hits
+   */
+  public static long hits() {
+    return HITS.get();
+  }
+
+  /**
+   * Returns the number of cache misses of all index caches.
+   * @return number of misses
+   */
+  public static long misses() {
+    return MISSES.get();
+  }
+
   /**
    * Adds a new cache entry. If an entry with the specified key already exists,
    * it will be updated.
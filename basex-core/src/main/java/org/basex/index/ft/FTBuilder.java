@@ -29,6 +29,10 @@ public final class FTBuilder extends IndexBuilder {
   int pos;
   /** Number of indexed tokens. */
   private long ntok;
+  /** Number of indexed text nodes. */
+  private int nodes;
+  /** Total length of indexed text nodes. */
+  private long length;
 
   /**
    * Constructor.
@@ -74,7 +78,11 @@ public final class FTBuilder extends IndexBuilder {
 
       pos = -1;
       final StopWords sw = lex.ftOpt().sw;
-      lex.init(data.text(pre, true));
+      final byte[] text = data.text(pre, true);
+      // updatable indexes reference ids instead of pre values
+      final int id = data.meta.updindex ? data.id(pre) : pre;
+      lex.init(text);
+      final long c = count;
       while(lex.hasNext()) {
         final byte[] tok = lex.nextToken();
         ++pos;
@@ -85,23 +93,34 @@ public final class FTBuilder extends IndexBuilder {
             writeIndex(true);
             finishSplit();
           }
-          tree.index(tok, pre, pos, splits);
+          tree.index(tok, id, pos, splits);
           count++;
         }
       }
+      // collect statistics for scoring
+      if(count != c) {
+        nodes++;
+        length += text.length;
+      }
     }
 
     // finalize partial or all index structures
     write(splits > 0);
+    if(data.meta.ftngrams) FTNGrams.build(data);
 
     data.meta.ftxtindex = true;
+    data.meta.ftnodes = nodes;
+    data.meta.ftlength = length;
     finishIndex(perf);
   }
 
   @Override
   public FTIndex build() throws IOException {
     index();
-    return new FTIndex(data);
+    if(!data.meta.updindex) return new FTIndex(data);
+    final UpdatableFTIndex index = new UpdatableFTIndex(data);
+    index.flush();
+    return index;
   }
 
   /**
@@ -169,7 +188,7 @@ public final class FTBuilder extends IndexBuilder {
    * @param lp last offset
    * @throws IOException I/O exception
    */
-  private static void writeInd(final DataOutput outX, final IntList il,
+  static void writeInd(final DataOutput outX, final IntList il,
       final int ls, final int lp) throws IOException {
 
     final int is = il.size();
@@ -303,6 +322,8 @@ public final class FTBuilder extends IndexBuilder {
   public void abort() {
     data.meta.drop(DATAFTX + ".*");
     data.meta.ftxtindex = false;
+    data.meta.ftnodes = 0;
+    data.meta.ftlength = 0;
   }
 
   @Override
@@ -6,6 +6,7 @@ import static org.basex.util.Token.*;
 import static org.basex.util.ft.FTFlag.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -40,35 +41,39 @@ import org.basex.util.list.*;
  * </li>
  * <li>File <b>z</b> contains the {@code id/pos} references.
  *   The values are ordered, but not distinct:<br/>
- *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
+ *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]<br/>
+ *   If the database is updatable, the ids of the text nodes are stored instead,
+ *   which may be unordered (see {@link UpdatableFTIndex}).</li>
  * </ul>
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-public final class FTIndex implements Index {
+public class FTIndex implements Index {
   /** Entry size. */
-  private static final int ENTRY = 9;
+  static final int ENTRY = 9;
 
-  /** Cached texts. Increases used memory, but speeds up repeated queries. */
-  private final IntObjMap<byte[]> ctext = new IntObjMap<byte[]>();
   /** Levenshtein reference. */
-  private final Levenshtein ls = new Levenshtein();
+  final Levenshtein ls = new Levenshtein();
   /** Data reference. */
-  private final Data data;
+  final Data data;
+  /** Cached texts. Increases used memory, but speeds up repeated queries. */
+  private IntObjMap<byte[]> ctext;
 
   /** Index storing each unique token length and pointer
    * on the first token with this length. */
-  private final DataAccess inX;
+  private DataAccess inX;
   /** Index storing each token, its data size and pointer on the data. */
-  final DataAccess inY;
+  DataAccess inY;
   /** Storing pre and pos values for each token. */
-  final DataAccess inZ;
+  DataAccess inZ;
+  /** N-gram index (can be {@code null}). */
+  private FTNGrams grams;
 
   /** Cache for number of hits and data reference per token. */
-  final IndexCache cache = new IndexCache();
+  IndexCache cache;
   /** Token positions. */
-  final int[] tp;
+  int[] tp;
 
   /**
    * Constructor, initializing the index structure.
@@ -77,6 +82,17 @@ public final class FTIndex implements Index {
    */
   public FTIndex(final Data d) throws IOException {
     data = d;
+    open();
+  }
+
+  /**
+   * Opens the index files and initializes the caches.
+   * @throws IOException I/O Exception
+   */
+  final void open() throws IOException {
+    final Data d = data;
+    ctext = new IntObjMap<byte[]>();
+    cache = new IndexCache();
 
     // cache token length index
     inY = new DataAccess(d.meta.dbfile(DATAFTX + 'y'));
@@ -99,6 +115,20 @@ public final class FTIndex implements Index {
       tp[p] = r;
     }
     tp[tp.length - 1] = (int) inY.length();
+    grams = d.meta.dbfile(DATAFTX + 'g').exists() ? new FTNGrams(d) : null;
+  }
+
+  /**
+   * Checks if the n-gram index can be used to find candidates for the specified
+   * wildcard expression.
+   * @param token wildcard expression
+   * @return result of check
+   */
+  public static boolean ngrams(final byte[] token) {
+    final FTWildcard wc = new FTWildcard(token);
+    if(!wc.parse()) return false;
+    for(final byte[] lit : wc.literals()) if(lit.length >= FTNGrams.N) return true;
+    return false;
   }
 
   @Override
@@ -118,21 +148,57 @@ public final class FTIndex implements Index {
 
   @Override
   public synchronized IndexIterator iter(final IndexToken it) {
-    final byte[] tok = it.get();
+    final IntList pr = new IntList(), ps = new IntList();
+    read(it, pr, ps);
+    return pr.isEmpty() ? FTIndexIterator.FTEMPTY : iter(new FTCache(pr, ps));
+  }
 
-    // wildcard search
+  /**
+   * Adds the pre values and positions of all index entries that match the
+   * specified token.
+   * @param it index token
+   * @param pr pre values
+   * @param ps positions
+   */
+  void read(final IndexToken it, final IntList pr, final IntList ps) {
+    final byte[] tok = it.get();
     final FTOpt opt = ((FTLexer) it).ftOpt();
-    if(opt.is(WC)) return wc(tok);
+    if(opt.is(WC)) {
+      // wildcard search
+      wc(tok, pr, ps);
+    } else if(opt.is(FZ)) {
+      // fuzzy search
+      fuzzy(tok, errors(tok), pr, ps);
+    } else {
+      // cached or new result
+      final IndexEntry e = entry(tok);
+      if(e.size > 0) read(e.pointer, e.size, pr, ps);
+    }
+  }
 
-    // fuzzy search
-    if(opt.is(FZ)) {
-      final int k = data.meta.prop.num(Prop.LSERROR);
-      return fuzzy(tok, k == 0 ? tok.length >> 2 : k);
+  /**
+   * Adds the pre values and positions of a single index entry.
+   * @param off offset on entries
+   * @param size number of pre/pos entries
+   * @param pr pre values
+   * @param ps positions
+   */
+  void read(final long off, final int size, final IntList pr, final IntList ps) {
+    inZ.cursor(off);
+    for(int c = 0; c < size; c++) {
+      pr.add(inZ.readNum());
+      ps.add(inZ.readNum());
     }
+  }
 
-    // return cached or new result
-    final IndexEntry e = entry(tok);
-    return e.size > 0 ? iter(e.pointer, e.size, inZ) : FTIndexIterator.FTEMPTY;
+  /**
+   * Returns the number of errors allowed for a fuzzy search.
+   * @param token token to look for
+   * @return number of errors
+   */
+  final int errors(final byte[] token) {
+    final int k = data.meta.prop.num(Prop.LSERROR);
+    return k == 0 ? token.length >> 2 : k;
   }
 
   /**
@@ -140,7 +206,7 @@ public final class FTIndex implements Index {
    * @param token token to be found or cached
    * @return cache entry
    */
-  private IndexEntry entry(final byte[] token) {
+  final IndexEntry entry(final byte[] token) {
     final IndexEntry e = cache.get(token);
     if(e != null) return e;
 
@@ -244,6 +310,7 @@ public final class FTIndex implements Index {
     inX.close();
     inY.close();
     inZ.close();
+    if(grams != null) grams.close();
   }
 
   /**
@@ -303,7 +370,7 @@ public final class FTIndex implements Index {
    * @param lt length of the token
    * @return int pointer on ftdata
    */
-  private long pointer(final long pt, final int lt) {
+  final long pointer(final long pt, final int lt) {
     return inY.read5(pt + lt);
   }
 
@@ -313,18 +380,21 @@ public final class FTIndex implements Index {
    * @param lt length of the token
    * @return size of the ftdata
    */
-  private int size(final long pt, final int lt) {
+  final int size(final long pt, final int lt) {
     return inY.read4(pt + lt + 5);
   }
 
   /**
    * Performs a fuzzy search for the specified token with a maximum number of errors.
+   * As the tokens of each length are sorted, all tokens starting with a prefix
+   * that exceeds the number of errors are skipped.
    * @param token token to look for
    * @param k number of errors allowed
-   * @return iterator
+   * @param pr pre values
+   * @param ps positions
    */
-  private synchronized IndexIterator fuzzy(final byte[] token, final int k) {
-    FTIndexIterator it = FTIndexIterator.FTEMPTY;
+  private void fuzzy(final byte[] token, final int k, final IntList pr,
+      final IntList ps) {
     final int tl = token.length;
     final int e = Math.min(tp.length - 1, tl + k);
     int s = Math.max(1, tl - k) - 1;
@@ -336,29 +406,74 @@ public final class FTIndex implements Index {
       int r = -1;
       while(i < tp.length && r == -1) r = tp[i++];
       while(p < r) {
-        if(ls.similar(inY.readBytes(p, s), token, k)) {
-          it = FTIndexIterator.union(iter(pointer(p, s), size(p, s), inZ), it);
+        final byte[] t = inY.readBytes(p, s);
+        final int l = ls.prefix(t, token, k);
+        if(l == -1) {
+          read(pointer(p, s), size(p, s), pr, ps);
+        } else if(l < s) {
+          p = skip(Arrays.copyOf(t, l), p, r, s);
+          continue;
         }
         p += s + ENTRY;
       }
     }
-    return it;
+  }
+
+  /**
+   * Returns the position of the first token that is located after the current token
+   * and does not start with the specified prefix.
+   * @param prefix prefix
+   * @param i position of the current token
+   * @param e end position
+   * @param ti entry length
+   * @return position
+   */
+  private int skip(final byte[] prefix, final int i, final int e, final int ti) {
+    final int tl = ti + ENTRY, n = (e - i) / tl;
+    // exponential search: find upper bound, starting with the next entry
+    int l = 1, h = 1;
+    while(h < n && diff(inY.readBytes(i + h * tl, prefix.length), prefix) <= 0) {
+      l = h + 1;
+      h <<= 1;
+    }
+    // binary search
+    h = Math.min(h, n);
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(diff(inY.readBytes(i + m * tl, prefix.length), prefix) <= 0) l = m + 1;
+      else h = m;
+    }
+    return i + l * tl;
   }
 
   /**
    * Performs a wildcard search for the specified token.
    * @param token token to look for
-   * @return iterator
+   * @param pr pre values
+   * @param ps positions
    */
-  private synchronized IndexIterator wc(final byte[] token) {
-    final FTIndexIterator it = FTIndexIterator.FTEMPTY;
+  private void wc(final byte[] token, final IntList pr, final IntList ps) {
     final FTWildcard wc = new FTWildcard(token);
-    if(!wc.parse()) return it;
+    if(!wc.parse()) return;
 
-    final IntList pr = new IntList();
-    final IntList ps = new IntList();
     final byte[] pref = wc.prefix();
     final int l = Math.min(tp.length - 1, wc.max());
+
+    // use n-gram index to find candidates
+    final int[] offs = grams != null ? grams.offsets(wc.literals()) : null;
+    if(offs != null) {
+      // offsets are sorted, so the token lengths can be determined incrementally
+      int ti = 0, c = 0;
+      for(final int i : offs) {
+        for(; c < tp.length - 1 && (tp[c] == -1 || tp[c] <= i); c++) {
+          if(tp[c] != -1) ti = c;
+        }
+        if(ti < pref.length || ti > l) continue;
+        if(wc.match(inY.readBytes(i, ti))) read(pointer(i, ti), size(i, ti), pr, ps);
+      }
+      return;
+    }
+
     for(int ti = pref.length; ti <= l; ti++) {
       int i = tp[ti];
       if(i == -1) continue;
@@ -370,36 +485,10 @@ public final class FTIndex implements Index {
       while(i < e) {
         final byte[] t = inY.readBytes(i, ti);
         if(!startsWith(t, pref)) break;
-        if(wc.match(t)) {
-          inZ.cursor(pointer(i, ti));
-          final int s = size(i, ti);
-          for(int d = 0; d < s; d++) {
-            pr.add(inZ.readNum());
-            ps.add(inZ.readNum());
-          }
-        }
+        if(wc.match(t)) read(pointer(i, ti), size(i, ti), pr, ps);
         i += ti + ENTRY;
       }
     }
-    return iter(new FTCache(pr, ps));
-  }
-
-  /**
-   * Returns an iterator for an index entry.
-   * @param off offset on entries
-   * @param size number of id/pos entries
-   * @param da data source
-   * @return iterator
-   */
-  private FTIndexIterator iter(final long off, final int size, final DataAccess da) {
-    da.cursor(off);
-    final IntList pr = new IntList(size);
-    final IntList ps = new IntList(size);
-    for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
-    }
-    return iter(new FTCache(pr, ps));
   }
 
   /**
@@ -407,7 +496,7 @@ public final class FTIndex implements Index {
    * @param ftc id cache
    * @return iterator
    */
-  private synchronized FTIndexIterator iter(final FTCache ftc) {
+  private static FTIndexIterator iter(final FTCache ftc) {
     final int size = ftc.pre.size();
 
     return new FTIndexIterator() {
@@ -441,6 +530,11 @@ public final class FTIndex implements Index {
         return size;
       }
 
+      @Override
+      public synchronized int docs() {
+        return ftc.docs;
+      }
+
       @Override
       public String toString() {
         return Integer.toString(size);
@@ -458,6 +552,8 @@ public final class FTIndex implements Index {
     final IntList pre;
     /** Pos values. */
     final IntList pos;
+    /** Number of distinct pre values. */
+    final int docs;
 
     /**
      * Constructor.
@@ -471,6 +567,11 @@ public final class FTIndex implements Index {
       order = Array.createOrder(v, true);
       pre = pr;
       pos = ps;
+      int d = 0;
+      for(int i = 0; i < s; i++) {
+        if(i == 0 || pr.get(order[i]) != pr.get(order[i - 1])) d++;
+      }
+      docs = d;
     }
   }
 }
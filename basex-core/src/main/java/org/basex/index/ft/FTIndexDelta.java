@@ -0,0 +1,210 @@
+package org.basex.index.ft;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class contains the changes of an updatable full-text index that have not been
+ * merged into the index files yet. It consists of a small segment with the ids and
+ * positions of all added tokens, and a bitmap with the ids of all deleted text nodes.
+ * Deleted ids only refer to entries in the index files, while added entries are
+ * removed from the segment as soon as their text node is deleted.</p>
+ *
+ * <p>On disk, the bitmap is stored as array of longs, followed by the number of
+ * tokens and the token, the number of entries and the id/pos pairs of each token.
+ * All numbers are stored in the {@link Num} format.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class FTIndexDelta {
+  /** Ids and positions of added entries, indexed by tokens. */
+  private final TokenObjMap<IntList> adds = new TokenObjMap<IntList>();
+  /** Ids of deleted text nodes. */
+  private final BitArray dels;
+  /** Number of added entries. */
+  private int size;
+  /** Number of deleted ids. */
+  private int deleted;
+
+  /**
+   * Constructor.
+   */
+  FTIndexDelta() {
+    dels = new BitArray();
+  }
+
+  /**
+   * Constructor, reading the changes from disk.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  FTIndexDelta(final DataInput in) throws IOException {
+    final long[] words = in.readLongs(in.readNum());
+    dels = new BitArray(Arrays.copyOf(words, Math.max(1, words.length)),
+        words.length << 6);
+    deleted = dels.cardinality();
+    for(int t = in.readNum(); t > 0; --t) {
+      final byte[] tok = in.readToken();
+      final int s = in.readNum() << 1;
+      final IntList il = new IntList(s);
+      for(int i = 0; i < s; i++) il.add(in.readNum());
+      adds.put(tok, il);
+      size += s >> 1;
+    }
+  }
+
+  /**
+   * Writes the changes to disk.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  void write(final DataOutput out) throws IOException {
+    out.writeLongs(dels.toArray());
+    final TokenList tokens = tokens(false);
+    out.writeNum(tokens.size());
+    for(final byte[] tok : tokens) {
+      final IntList il = adds.get(tok);
+      final int s = il.size();
+      out.writeToken(tok);
+      out.writeNum(s >> 1);
+      for(int i = 0; i < s; i++) out.writeNum(il.get(i));
+    }
+  }
+
+  /**
+   * Returns the number of added entries and deleted ids.
+   * @return size
+   */
+  int size() {
+    return size + deleted;
+  }
+
+  /**
+   * Checks if entries of the index files have been deleted.
+   * @return result of check
+   */
+  boolean deletions() {
+    return deleted != 0;
+  }
+
+  /**
+   * Adds an entry.
+   * @param tok token
+   * @param id id of the text node
+   * @param pos position of the token
+   */
+  void add(final byte[] tok, final int id, final int pos) {
+    IntList il = adds.get(tok);
+    if(il == null) {
+      il = new IntList(2);
+      adds.put(tok, il);
+    }
+    il.add(id);
+    il.add(pos);
+    size++;
+  }
+
+  /**
+   * Removes all added entries of a text node with the specified token.
+   * @param tok token
+   * @param id id of the text node
+   */
+  void remove(final byte[] tok, final int id) {
+    final IntList il = adds.get(tok);
+    if(il == null) return;
+    final int s = il.size();
+    int n = 0;
+    for(int i = 0; i < s; i += 2) {
+      if(il.get(i) == id) continue;
+      il.set(n++, il.get(i));
+      il.set(n++, il.get(i + 1));
+    }
+    size -= s - n >> 1;
+    il.size(n);
+  }
+
+  /**
+   * Marks the entries of a text node in the index files as deleted.
+   * @param id id of the text node
+   */
+  void delete(final int id) {
+    if(dels.get(id)) return;
+    dels.set(id);
+    deleted++;
+  }
+
+  /**
+   * Checks if the entries of a text node in the index files have been deleted.
+   * @param id id of the text node
+   * @return result of check
+   */
+  boolean deleted(final int id) {
+    return deleted != 0 && dels.get(id);
+  }
+
+  /**
+   * Returns the number of added entries with the specified token.
+   * @param tok token
+   * @return number of entries
+   */
+  int count(final byte[] tok) {
+    final IntList il = adds.get(tok);
+    return il != null ? il.size() >> 1 : 0;
+  }
+
+  /**
+   * Adds the ids and positions of all added entries with the specified token.
+   * @param tok token
+   * @param pr ids
+   * @param ps positions
+   */
+  void read(final byte[] tok, final IntList pr, final IntList ps) {
+    final IntList il = adds.get(tok);
+    if(il == null) return;
+    final int s = il.size();
+    for(int i = 0; i < s; i += 2) {
+      pr.add(il.get(i));
+      ps.add(il.get(i + 1));
+    }
+  }
+
+  /**
+   * Returns all tokens with added entries.
+   * @param sort sort tokens by their lengths and bytes (i.e., in the order of the
+   *   index files)
+   * @return tokens
+   */
+  TokenList tokens(final boolean sort) {
+    final TokenList tl = new TokenList();
+    for(final byte[] tok : adds) if(!adds.get(tok).isEmpty()) tl.add(tok);
+    if(!sort) return tl;
+    final byte[][] toks = tl.toArray();
+    Arrays.sort(toks, new Comparator<byte[]>() {
+      @Override
+      public int compare(final byte[] a, final byte[] b) {
+        return compareTokens(a, b);
+      }
+    });
+    return new TokenList(toks);
+  }
+
+  /**
+   * Compares two tokens in the order of the index files.
+   * @param a first token
+   * @param b second token
+   * @return difference
+   */
+  static int compareTokens(final byte[] a, final byte[] b) {
+    final int d = a.length - b.length;
+    return d != 0 ? d : diff(a, b);
+  }
+}
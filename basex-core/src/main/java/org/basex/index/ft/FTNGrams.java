@@ -0,0 +1,213 @@
+package org.basex.index.ft;
+
+import static org.basex.data.DataText.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class provides an optional n-gram index for the tokens of the full-text
+ * index. It is used to find candidates for wildcard queries that have no or short
+ * literal prefixes. The start and end of each token are marked with {@code 0} bytes,
+ * which are included in the n-grams. The two index files start with the prefix
+ * {@link DataText#DATAFTX} and have the following format:</p>
+ *
+ * <ul>
+ * <li>File <b>g</b> contains all n-grams:<br/>
+ * Structure: {@code n, [g, p, s] ...}<br/>
+ * {@code n} is the number of n-grams [{@link Num}].<br/>
+ * {@code g} is the n-gram [token].<br/>
+ * {@code p} is the pointer on the token references in file <b>h</b> [long].<br/>
+ * {@code s} is the number of token references [{@link Num}].
+ * </li>
+ * <li>File <b>h</b> contains the ordered, distance-encoded offsets of the tokens
+ *   in file <b>y</b> of the full-text index [{@link Num}].</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class FTNGrams {
+  /** Length of n-grams. */
+  static final int N = 3;
+
+  /** N-grams. */
+  private final TokenSet grams;
+  /** Pointers on token references. */
+  private final long[] offsets;
+  /** Number of token references. */
+  private final int[] sizes;
+  /** Token references. */
+  private final DataAccess inH;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @throws IOException I/O exception
+   */
+  FTNGrams(final Data data) throws IOException {
+    final DataAccess inG = new DataAccess(data.meta.dbfile(DATAFTX + 'g'));
+    try {
+      final int n = inG.readNum();
+      grams = new TokenSet();
+      offsets = new long[n + 1];
+      sizes = new int[n + 1];
+      for(int g = 0; g < n; g++) {
+        final int id = grams.put(inG.readToken());
+        offsets[id] = inG.read5();
+        sizes[id] = inG.readNum();
+      }
+    } finally {
+      inG.close();
+    }
+    inH = new DataAccess(data.meta.dbfile(DATAFTX + 'h'));
+  }
+
+  /**
+   * Returns the sorted offsets of all tokens that contain the specified substrings.
+   * @param literals substrings
+   * @return offsets, or {@code null} if the substrings contain no n-grams
+   */
+  synchronized int[] offsets(final TokenList literals) {
+    // collect ids of all n-grams, starting with the smallest lists
+    final IntList ids = new IntList();
+    for(final byte[] lit : literals) {
+      for(int l = 0; l + N <= lit.length; l++) {
+        final int id = grams.id(substring(lit, l, l + N));
+        if(id == 0) return new int[0];
+        ids.add(id);
+      }
+    }
+    if(ids.isEmpty()) return null;
+    final int[] order = ids.toArray();
+    final double[] s = new double[order.length];
+    for(int i = 0; i < s.length; i++) s[i] = sizes[order[i]];
+    final int[] o = Array.createOrder(s, true);
+
+    // intersect sorted offsets
+    int[] offs = read(order[o[0]]);
+    for(int i = 1; i < o.length && offs.length != 0; i++) {
+      final int id = order[o[i]];
+      if(id == order[o[i - 1]]) continue;
+      offs = intersect(offs, read(id));
+    }
+    return offs;
+  }
+
+  /**
+   * Closes the index.
+   */
+  synchronized void close() {
+    inH.close();
+  }
+
+  /**
+   * Reads the token references of the specified n-gram.
+   * @param id id of n-gram
+   * @return token references
+   */
+  private int[] read(final int id) {
+    final int s = sizes[id];
+    final int[] offs = new int[s];
+    inH.cursor(offsets[id]);
+    for(int i = 0, o = 0; i < s; i++) {
+      o += inH.readNum();
+      offs[i] = o;
+    }
+    return offs;
+  }
+
+  /**
+   * Intersects two sorted arrays.
+   * @param a first array
+   * @param b second array
+   * @return resulting array
+   */
+  private static int[] intersect(final int[] a, final int[] b) {
+    final IntList il = new IntList(Math.min(a.length, b.length));
+    for(int i = 0, j = 0; i < a.length && j < b.length;) {
+      final int d = a[i] - b[j];
+      if(d == 0) {
+        il.add(a[i]);
+        i++;
+        j++;
+      } else if(d < 0) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return il.toArray();
+  }
+
+  /**
+   * Builds the n-gram index for the tokens of the full-text index.
+   * @param data data reference
+   * @throws IOException I/O exception
+   */
+  static void build(final Data data) throws IOException {
+    final DataAccess inX = new DataAccess(data.meta.dbfile(DATAFTX + 'x'));
+    final DataAccess inY = new DataAccess(data.meta.dbfile(DATAFTX + 'y'));
+    final TokenSet grams = new TokenSet();
+    final ArrayList<IntList> refs = new ArrayList<IntList>();
+    refs.add(null);
+    try {
+      // read token lengths and offsets of the first tokens
+      final int is = inX.readNum();
+      final int[] lens = new int[is], offs = new int[is + 1];
+      for(int i = 0; i < is; i++) {
+        lens[i] = inX.readNum();
+        offs[i] = inX.read4();
+      }
+      offs[is] = (int) inY.length();
+
+      // assign offsets of all tokens to their n-grams
+      for(int i = 0; i < is; i++) {
+        final int tl = lens[i];
+        for(int p = offs[i]; p < offs[i + 1]; p += tl + FTIndex.ENTRY) {
+          final byte[] tok = new byte[tl + 2];
+          System.arraycopy(inY.readBytes(p, tl), 0, tok, 1, tl);
+          for(int t = 0; t + N <= tok.length; t++) {
+            final int id = grams.put(substring(tok, t, t + N));
+            if(id == refs.size()) refs.add(new IntList());
+            final IntList il = refs.get(id);
+            if(il.isEmpty() || il.get(il.size() - 1) != p) il.add(p);
+          }
+        }
+      }
+    } finally {
+      inX.close();
+      inY.close();
+    }
+
+    // write index files
+    final DataOutput outG = new DataOutput(data.meta.dbfile(DATAFTX + 'g'));
+    final DataOutput outH = new DataOutput(data.meta.dbfile(DATAFTX + 'h'));
+    try {
+      final int gs = grams.size();
+      outG.writeNum(gs);
+      for(int id = 1; id <= gs; id++) {
+        final IntList il = refs.get(id);
+        outG.writeToken(grams.key(id));
+        outG.write5(outH.size());
+        outG.writeNum(il.size());
+        for(int i = 0, o = 0; i < il.size(); i++) {
+          outH.writeNum(il.get(i) - o);
+          o = il.get(i);
+        }
+        refs.set(id, null);
+      }
+    } finally {
+      outG.close();
+      outH.close();
+    }
+  }
+}
@@ -0,0 +1,417 @@
+package org.basex.index.ft;
+
+import static org.basex.data.DataText.*;
+import static org.basex.util.Token.*;
+import static org.basex.util.ft.FTFlag.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.ft.*;
+import org.basex.util.*;
+import org.basex.util.ft.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class provides access to an updatable full-text index. The index files are
+ * described in the {@link FTIndex} class; they reference the ids of the text nodes,
+ * which are mapped to pre values whenever the index is accessed.</p>
+ *
+ * <p>Updates are collected in a {@link FTIndexDelta}, which is stored on disk whenever
+ * the index is flushed. Lookups merge the entries of the index files, skipping entries
+ * of deleted text nodes, with the added entries of the delta. If the delta exceeds a
+ * certain size, it is merged with the index files, which are rewritten in a single
+ * pass.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class UpdatableFTIndex extends FTIndex {
+  /** Minimum number of changes that will be merged into the index files. */
+  private static final int MERGE = 1 << 16;
+  /** Prefix of the temporary files, which are created when the delta is merged. */
+  private static final String MERGED = DATAFTX + 'm';
+
+  /** Delta file. */
+  private final IOFile file;
+  /** Lexer, using the options of the index. */
+  private final FTLexer lex;
+  /** Changes that have not been merged into the index files yet. */
+  private FTIndexDelta delta;
+  /** Indicates if the delta has been changed. */
+  private boolean dirty;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param d data reference
+   * @throws IOException I/O Exception
+   */
+  public UpdatableFTIndex(final Data d) throws IOException {
+    super(d);
+    file = d.meta.dbfile(DATAFTX + 'd');
+    if(file.exists()) {
+      final DataInput in = new DataInput(file);
+      try {
+        delta = new FTIndexDelta(in);
+      } finally {
+        in.close();
+      }
+    } else {
+      delta = new FTIndexDelta();
+      dirty = true;
+    }
+
+    final FTOpt fto = new FTOpt().copy(d.meta);
+    fto.sw = new StopWords();
+    fto.sw.comp(d);
+    lex = new FTLexer(fto);
+  }
+
+  /**
+   * Checks if the full-text index of the specified database can be updated.
+   * Indexes of previous versions reference pre values and will be rebuilt.
+   * @param md meta data
+   * @return result of check
+   */
+  public static boolean updatable(final MetaData md) {
+    return md.updindex && md.dbfile(DATAFTX + 'd').exists();
+  }
+
+  @Override
+  public synchronized int count(final IndexToken it) {
+    final int c = super.count(it);
+    final FTOpt opt = ((FTLexer) it).ftOpt();
+    return c == Integer.MAX_VALUE || opt.is(FZ) || opt.is(WC) ? c :
+      c + delta.count(it.get());
+  }
+
+  @Override
+  void read(final IndexToken it, final IntList pr, final IntList ps) {
+    // entries of the index files
+    super.read(it, pr, ps);
+
+    // added entries
+    final byte[] tok = it.get();
+    final FTOpt opt = ((FTLexer) it).ftOpt();
+    if(opt.is(WC)) {
+      final FTWildcard wc = new FTWildcard(tok);
+      if(wc.parse()) {
+        for(final byte[] t : delta.tokens(false)) {
+          if(wc.match(t)) delta.read(t, pr, ps);
+        }
+      }
+    } else if(opt.is(FZ)) {
+      final int k = errors(tok);
+      for(final byte[] t : delta.tokens(true)) {
+        if(Math.abs(t.length - tok.length) <= k && ls.prefix(t, tok, k) == -1) {
+          delta.read(t, pr, ps);
+        }
+      }
+    } else {
+      delta.read(tok, pr, ps);
+    }
+
+    // map ids to pre values
+    final int s = pr.size();
+    for(int i = 0; i < s; i++) pr.set(i, data.pre(pr.get(i)));
+  }
+
+  @Override
+  void read(final long off, final int size, final IntList pr, final IntList ps) {
+    if(!delta.deletions()) {
+      super.read(off, size, pr, ps);
+      return;
+    }
+    // skip entries of deleted text nodes
+    inZ.cursor(off);
+    for(int c = 0; c < size; c++) {
+      final int id = inZ.readNum(), pos = inZ.readNum();
+      if(delta.deleted(id)) continue;
+      pr.add(id);
+      ps.add(pos);
+    }
+  }
+
+  @Override
+  public EntryIterator entries(final IndexEntries input) {
+    final EntryIterator ei = super.entries(input);
+    final byte[] prefix = input.get();
+
+    // collect added tokens with the requested prefix
+    final TokenList toks = new TokenList();
+    synchronized(this) {
+      if(delta.size() == 0) return ei;
+      for(final byte[] t : delta.tokens(true)) if(startsWith(t, prefix)) toks.add(t);
+    }
+
+    // merge entries of the index files with added tokens
+    return new EntryIterator() {
+      byte[] entry = ei.next();
+      int ec = ei.count();
+      int t;
+      int count = -1;
+
+      @Override
+      public byte[] next() {
+        while(true) {
+          final byte[] k = t < toks.size() ? toks.get(t) : null;
+          if(entry == null && k == null) break;
+          final int c = entry == null ? 1 : k == null ? -1 :
+            FTIndexDelta.compareTokens(entry, k);
+
+          final byte[] next;
+          int n = 0;
+          if(c <= 0) {
+            next = entry;
+            n = remaining(entry, ec);
+            entry = ei.next();
+            ec = ei.count();
+          } else {
+            next = k;
+          }
+          if(c >= 0) t++;
+          synchronized(UpdatableFTIndex.this) {
+            n += delta.count(next);
+          }
+          if(n > 0) {
+            count = n;
+            return next;
+          }
+        }
+        count = -1;
+        return null;
+      }
+
+      @Override
+      public int count() {
+        return count;
+      }
+    };
+  }
+
+  /**
+   * Returns the number of entries of a token in the index files that have not
+   * been deleted.
+   * @param tok token
+   * @param c number of entries
+   * @return number of remaining entries
+   */
+  synchronized int remaining(final byte[] tok, final int c) {
+    if(!delta.deletions()) return c;
+    final IntList pr = new IntList(c), ps = new IntList(c);
+    final IndexEntry e = entry(tok);
+    read(e.pointer, e.size, pr, ps);
+    return pr.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    flush();
+    super.close();
+  }
+
+  /**
+   * Writes the delta to disk.
+   */
+  public synchronized void flush() {
+    if(!dirty) return;
+    try {
+      final DataOutput out = new DataOutput(file);
+      try {
+        delta.write(out);
+      } finally {
+        out.close();
+      }
+      dirty = false;
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Indexes the tokens of a new text node.
+   * @param id id of the text node
+   * @param text text
+   */
+  public synchronized void add(final int id, final byte[] text) {
+    final StopWords sw = lex.ftOpt().sw;
+    final int maxlen = data.meta.maxlen;
+    boolean found = false;
+    lex.init(text);
+    for(int pos = 0; lex.hasNext(); pos++) {
+      final byte[] tok = lex.nextToken();
+      // skip too long and stopword tokens
+      if(tok.length <= maxlen && (sw.isEmpty() || !sw.contains(tok))) {
+        delta.add(tok, id, pos);
+        found = true;
+      }
+    }
+    // update statistics for scoring
+    if(found) {
+      data.meta.ftnodes++;
+      data.meta.ftlength += text.length;
+    }
+    dirty = true;
+    check();
+  }
+
+  /**
+   * Removes the tokens of a deleted text node.
+   * @param id id of the text node
+   * @param text text
+   */
+  public synchronized void delete(final int id, final byte[] text) {
+    final StopWords sw = lex.ftOpt().sw;
+    final int maxlen = data.meta.maxlen;
+    boolean found = false;
+    lex.init(text);
+    while(lex.hasNext()) {
+      final byte[] tok = lex.nextToken();
+      if(tok.length <= maxlen && (sw.isEmpty() || !sw.contains(tok))) {
+        delta.remove(tok, id);
+        found = true;
+      }
+    }
+    if(found) {
+      delta.delete(id);
+      data.meta.ftnodes--;
+      data.meta.ftlength -= text.length;
+    }
+    dirty = true;
+    check();
+  }
+
+  /**
+   * Replaces the tokens of a text node.
+   * @param id id of the text node
+   * @param old old text
+   * @param text new text
+   */
+  public synchronized void replace(final int id, final byte[] old, final byte[] text) {
+    delete(id, old);
+    add(id, text);
+  }
+
+  /**
+   * Merges the delta with the index files if its size exceeds the limit. The limit
+   * grows with the size of the index files, as all entries need to be rewritten.
+   */
+  private void check() {
+    if(delta.size() <= Math.max(MERGE, inZ.length() >> 3)) return;
+    try {
+      merge();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Merges the delta with the index files. The remaining entries of the index files
+   * and the added entries are written to new files in a single pass, which then
+   * replace the old files.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    final MetaData md = data.meta;
+    final DataOutput outX = new DataOutput(md.dbfile(MERGED + 'x'));
+    final DataOutput outY = new DataOutput(md.dbfile(MERGED + 'y'));
+    final DataOutput outZ = new DataOutput(md.dbfile(MERGED + 'z'));
+    try {
+      final IntList ind = new IntList(), pr = new IntList(), ps = new IntList();
+      final TokenList toks = delta.tokens(true);
+      final int ts = toks.size();
+      int t = 0;
+
+      // loop through all entries of the index files, sorted by token lengths
+      for(int tl = 0; tl < tp.length - 1; tl++) {
+        int p = tp[tl];
+        if(p == -1) continue;
+        int c = tl + 1, e;
+        do e = tp[c++]; while(e == -1);
+
+        for(; p < e; p += tl + ENTRY) {
+          final byte[] tok = inY.readBytes(p, tl);
+          // write added tokens that precede the current token
+          int d = 1;
+          for(; t < ts && (d = FTIndexDelta.compareTokens(toks.get(t), tok)) < 0; t++) {
+            write(toks.get(t), outY, outZ, ind);
+          }
+          pr.reset();
+          ps.reset();
+          read(pointer(p, tl), size(p, tl), pr, ps);
+          if(d == 0) delta.read(toks.get(t++), pr, ps);
+          write(tok, pr, ps, outY, outZ, ind);
+        }
+      }
+      // write remaining added tokens
+      for(; t < ts; t++) write(toks.get(t), outY, outZ, ind);
+      FTBuilder.writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1,
+          (int) outY.size());
+    } finally {
+      outX.close();
+      outY.close();
+      outZ.close();
+    }
+
+    // replace index files
+    super.close();
+    for(final char c : new char[] { 'x', 'y', 'z' }) {
+      final IOFile trg = md.dbfile(DATAFTX + c);
+      if(!trg.delete() || !md.dbfile(MERGED + c).rename(trg))
+        throw new IOException("Could not rename " + trg);
+    }
+    if(md.ftngrams) FTNGrams.build(data);
+    open();
+    delta = new FTIndexDelta();
+    dirty = true;
+  }
+
+  /**
+   * Writes the added entries of a token.
+   * @param tok token
+   * @param outY token output
+   * @param outZ entry output
+   * @param ind token lengths and offsets
+   * @throws IOException I/O exception
+   */
+  private void write(final byte[] tok, final DataOutput outY, final DataOutput outZ,
+      final IntList ind) throws IOException {
+    final IntList pr = new IntList(), ps = new IntList();
+    delta.read(tok, pr, ps);
+    write(tok, pr, ps, outY, outZ, ind);
+  }
+
+  /**
+   * Writes the entries of a token.
+   * @param tok token
+   * @param pr ids
+   * @param ps positions
+   * @param outY token output
+   * @param outZ entry output
+   * @param ind token lengths and offsets
+   * @throws IOException I/O exception
+   */
+  private static void write(final byte[] tok, final IntList pr, final IntList ps,
+      final DataOutput outY, final DataOutput outZ, final IntList ind)
+      throws IOException {
+
+    final int s = pr.size();
+    if(s == 0) return;
+    if(ind.isEmpty() || ind.get(ind.size() - 2) < tok.length) {
+      ind.add(tok.length);
+      ind.add((int) outY.size());
+    }
+    outY.writeBytes(tok);
+    outY.write5(outZ.size());
+    outY.write4(s);
+    for(int i = 0; i < s; i++) {
+      outZ.writeNum(pr.get(i));
+      outZ.writeNum(ps.get(i));
+    }
+  }
+}
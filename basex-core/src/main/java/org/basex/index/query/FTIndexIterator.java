@@ -30,6 +30,15 @@ public abstract class FTIndexIterator extends IndexIterator {
    */
   public abstract FTMatches matches();
 
+  /**
+   * Returns the number of distinct nodes that will be returned by this iterator.
+   * The result may be an upper bound, and it is used for calculating scores.
+   * @return number of nodes
+   */
+  public int docs() {
+    return size();
+  }
+
   /**
    * Sets the unique token number. Used for visualization.
    * @param tn number of tokens
@@ -83,6 +92,11 @@ public abstract class FTIndexIterator extends IndexIterator {
         return i1.size() + i2.size();
       }
 
+      @Override
+      public synchronized int docs() {
+        return i1.docs() + i2.docs();
+      }
+
       @Override
       public String toString() {
         return "(" + i1 + " | " + i2 + ')';
@@ -137,6 +151,11 @@ public abstract class FTIndexIterator extends IndexIterator {
         return Math.min(i1.size(), i2.size());
       }
 
+      @Override
+      public synchronized int docs() {
+        return Math.min(i1.docs(), i2.docs());
+      }
+
       @Override
       public String toString() {
         return "(" + i1 + " & " + i2 + ')';
@@ -39,11 +39,24 @@ final class Binaries {
     final String np = MetaData.normPath(path);
     if(np == null || data.inMemory()) return tl;
 
-    final String exct = Prop.CASE ? np : np.toLowerCase(Locale.ENGLISH);
-    final String pref = exct.endsWith("/") ? exct : exct + '/';
-    for(final String f : data.meta.binaries().descendants()) {
-      final String lc = Prop.CASE ? f : f.toLowerCase(Locale.ENGLISH);
-      if(exct.isEmpty() || lc.equals(exct) || lc.startsWith(pref)) tl.add(f);
+    if(Prop.CASE) {
+      // only traverse the addressed file or directory
+      final IOFile bin = data.meta.binary(np);
+      if(bin == null) return tl;
+      if(bin.isDir()) {
+        final String pref = np.isEmpty() || np.endsWith("/") ? np : np + '/';
+        for(final String f : bin.descendants()) tl.add(pref + f);
+      } else if(!np.endsWith("/") && bin.exists()) {
+        tl.add(np);
+      }
+    } else {
+      // case-insensitive file systems: compare paths of all files
+      final String exct = np.toLowerCase(Locale.ENGLISH);
+      final String pref = exct.endsWith("/") ? exct : exct + '/';
+      for(final String f : data.meta.binaries().descendants()) {
+        final String lc = f.toLowerCase(Locale.ENGLISH);
+        if(exct.isEmpty() || lc.equals(exct) || lc.startsWith(pref)) tl.add(f);
+      }
     }
     return tl.sort(Prop.CASE);
   }
@@ -0,0 +1,349 @@
+package org.basex.index.resource;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This data structure contains the normalized paths of all documents in a database
+ * and the pre values of the document nodes. The entries are sorted by their paths and
+ * pre values and are updated incrementally. As all paths with a common prefix are
+ * adjacent, exact and prefix lookups can be performed via binary search.</p>
+ *
+ * <p>On disk, the paths are front-coded: for each path, the length of the prefix
+ * shared with the preceding path and the remaining bytes are stored. Subsequent
+ * changes are appended to a log file. Both files are stamped with the timestamp of
+ * the database, which is stored in the meta data, and ignored if the timestamp
+ * does not match. The log is merged into the main file once it gets too large.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class DocPaths {
+  /** Log entry: added path. */
+  private static final int ADD = 1;
+  /** Log entry: deleted path. */
+  private static final int DELETE = 2;
+  /** Log entry: shifted pre values. */
+  private static final int SHIFT = 3;
+  /** Log entry: end of changes, followed by the database timestamp. */
+  private static final int STAMP = 4;
+
+  /** Sorted paths. */
+  private byte[][] paths;
+  /** Pre values. */
+  private int[] pres;
+  /** Number of entries. */
+  private int size;
+  /** Database timestamp of the last stored, read or built entries. */
+  private long stamp;
+  /** Indicates if entries have been changed since they were stored, read or built. */
+  private boolean changed;
+  /** Changes since the entries were stored or read ({@code null} if not stored yet). */
+  private IntList log;
+  /** Paths of the logged changes. */
+  private TokenList logPaths;
+
+  /**
+   * Constructor.
+   * @param pths paths
+   * @param docs pre values of the documents
+   * @param time database timestamp
+   */
+  DocPaths(final byte[][] pths, final IntList docs, final long time) {
+    final int s = pths.length;
+    final int[] order = Array.createOrder(pths.clone(), false, true);
+    paths = new byte[s][];
+    pres = new int[s];
+    for(int i = 0; i < s; i++) {
+      paths[i] = pths[order[i]];
+      pres[i] = docs.get(order[i]);
+    }
+    // sort pre values of identical paths
+    for(int i = 0; i < s;) {
+      int j = i;
+      while(++j < s && eq(paths[i], paths[j]));
+      if(j - i > 1) Arrays.sort(pres, i, j);
+      i = j;
+    }
+    size = s;
+    stamp = time;
+  }
+
+  /**
+   * Constructor, reading the entries from disk.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  private DocPaths(final DataInput in) throws IOException {
+    stamp = toLong(in.readToken());
+    size = in.readNum();
+    paths = new byte[size][];
+    pres = new int[size];
+    byte[] prev = EMPTY;
+    for(int i = 0; i < size; i++) {
+      final int l = in.readNum();
+      final byte[] suffix = in.readToken();
+      final byte[] path = new byte[l + suffix.length];
+      System.arraycopy(prev, 0, path, 0, l);
+      System.arraycopy(suffix, 0, path, l, suffix.length);
+      paths[i] = path;
+      pres[i] = in.readNum();
+      prev = path;
+    }
+  }
+
+  /**
+   * Reads the entries and the logged changes from disk.
+   * @param file file with the entries
+   * @param lg file with the logged changes
+   * @param time current database timestamp
+   * @param docs number of document nodes
+   * @return entries, or {@code null} if the files refer to another database state
+   * @throws IOException I/O exception
+   */
+  static DocPaths read(final IOFile file, final IOFile lg, final long time,
+      final int docs) throws IOException {
+
+    DataInput in = new DataInput(file);
+    final DocPaths dp;
+    try {
+      dp = new DocPaths(in);
+    } finally {
+      in.close();
+    }
+    if(lg.exists()) {
+      in = new DataInput(lg);
+      try {
+        dp.replay(in);
+      } finally {
+        in.close();
+      }
+    }
+    if(dp.stamp != time || dp.size != docs) return null;
+    dp.changed = false;
+    dp.log = new IntList();
+    dp.logPaths = new TokenList();
+    return dp;
+  }
+
+  /**
+   * Writes the entries to disk if the database has been updated. If the entries have
+   * been stored before, only the changes will be appended to the log file.
+   * @param file file with the entries
+   * @param lg file with the logged changes
+   * @param time current database timestamp
+   * @throws IOException I/O exception
+   */
+  void write(final IOFile file, final IOFile lg, final long time) throws IOException {
+    if(!changed && stamp == time) return;
+
+    if(log != null && file.exists() && lg.length() < file.length()) {
+      final DataOutput out = new DataOutput(new BufferOutput(
+          new FileOutputStream(lg.file(), true)));
+      try {
+        writeLog(out, time);
+      } finally {
+        out.close();
+      }
+    } else {
+      lg.delete();
+      final DataOutput out = new DataOutput(file);
+      try {
+        write(out, time);
+      } finally {
+        out.close();
+      }
+    }
+    stamp = time;
+    changed = false;
+    log = new IntList();
+    logPaths = new TokenList();
+  }
+
+  /**
+   * Writes all entries.
+   * @param out output stream
+   * @param time database timestamp
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out, final long time) throws IOException {
+    out.writeToken(token(time));
+    out.writeNum(size);
+    byte[] prev = EMPTY;
+    for(int i = 0; i < size; i++) {
+      final byte[] path = paths[i];
+      final int m = Math.min(prev.length, path.length);
+      int l = 0;
+      while(l < m && prev[l] == path[l]) l++;
+      out.writeNum(l);
+      out.writeToken(substring(path, l, path.length));
+      out.writeNum(pres[i]);
+      prev = path;
+    }
+  }
+
+  /**
+   * Writes the logged changes.
+   * @param out output stream
+   * @param time database timestamp
+   * @throws IOException I/O exception
+   */
+  private void writeLog(final DataOutput out, final long time) throws IOException {
+    final int ls = log.size();
+    for(int l = 0, p = 0; l < ls;) {
+      final int k = log.get(l++);
+      out.writeNum(k);
+      if(k == ADD) out.writeToken(logPaths.get(p++));
+      out.writeNum(log.get(l++));
+      if(k == SHIFT) out.writeNum(log.get(l++));
+    }
+    out.writeNum(STAMP);
+    out.writeToken(token(time));
+  }
+
+  /**
+   * Replays logged changes. Changes that are not terminated by a timestamp will be
+   * ignored, as they may have been interrupted.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  private void replay(final DataInput in) throws IOException {
+    for(int k; (k = in.read()) != -1;) {
+      if(k == ADD) {
+        final byte[] path = in.readToken();
+        add(path, in.readNum());
+      } else if(k == DELETE) {
+        delete(in.readNum());
+      } else if(k == SHIFT) {
+        final int pre = in.readNum();
+        shift(pre, in.readNum());
+      } else {
+        stamp = toLong(in.readToken());
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries.
+   * @return number of entries
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the path at the specified position.
+   * @param i position
+   * @return path
+   */
+  byte[] path(final int i) {
+    return paths[i];
+  }
+
+  /**
+   * Returns the pre value at the specified position.
+   * @param i position
+   * @return pre value
+   */
+  int pre(final int i) {
+    return pres[i];
+  }
+
+  /**
+   * Returns the position of the first entry that is equal to or greater than the
+   * specified path (might equal the number of entries).
+   * @param path path
+   * @return position
+   */
+  int find(final byte[] path) {
+    return index(path, -1);
+  }
+
+  /**
+   * Adds an entry.
+   * @param path path
+   * @param pre pre value
+   */
+  void add(final byte[] path, final int pre) {
+    if(size == paths.length) {
+      final int s = Array.newSize(size);
+      paths = Arrays.copyOf(paths, s);
+      pres = Arrays.copyOf(pres, s);
+    }
+    final int i = index(path, pre);
+    System.arraycopy(paths, i, paths, i + 1, size - i);
+    System.arraycopy(pres, i, pres, i + 1, size - i);
+    paths[i] = path;
+    pres[i] = pre;
+    size++;
+    if(log != null) {
+      log.add(ADD);
+      log.add(pre);
+      logPaths.add(path);
+    }
+    changed = true;
+  }
+
+  /**
+   * Deletes the entry with the specified pre value.
+   * @param pre pre value
+   */
+  void delete(final int pre) {
+    int i = -1;
+    while(++i < size && pres[i] != pre);
+    if(i == size) return;
+    System.arraycopy(paths, i + 1, paths, i, --size - i);
+    System.arraycopy(pres, i + 1, pres, i, size - i);
+    paths[size] = null;
+    if(log != null) {
+      log.add(DELETE);
+      log.add(pre);
+    }
+    changed = true;
+  }
+
+  /**
+   * Adds the specified distance to all pre values that are equal to or greater than
+   * the specified value.
+   * @param pre pre value
+   * @param diff distance
+   */
+  void shift(final int pre, final int diff) {
+    for(int i = 0; i < size; i++) {
+      if(pres[i] >= pre) pres[i] += diff;
+    }
+    if(log != null) {
+      log.add(SHIFT);
+      log.add(pre);
+      log.add(diff);
+    }
+    changed = true;
+  }
+
+  /**
+   * Returns the insertion position for the specified entry.
+   * @param path path
+   * @param pre pre value
+   * @return position
+   */
+  private int index(final byte[] path, final int pre) {
+    int l = 0, h = size - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      int c = diff(paths[m], path);
+      if(c == 0) c = pres[m] < pre ? -1 : pres[m] > pre ? 1 : 0;
+      if(c < 0) l = m + 1;
+      else h = m - 1;
+    }
+    return l;
+  }
+}
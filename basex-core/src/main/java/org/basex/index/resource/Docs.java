@@ -1,5 +1,6 @@
 package org.basex.index.resource;
 
+import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
@@ -7,6 +8,7 @@ import java.io.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.data.atomic.*;
+import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
@@ -17,10 +19,9 @@ import org.basex.util.list.*;
  * <p>This data structure contains references to all document nodes in a
  * database. The document nodes are incrementally updated.</p>
  *
- * <p>If updates are performed, the path order is discarded, as its continuous
- * update would be more expensive in some cases (e.g. when bulk insertions of
- * new documents are performed). A tree structure could be introduced to
- * offer better general performance.</p>
+ * <p>The sorted document paths are incrementally updated as well. If they have
+ * been requested before, they are kept in main memory, and they are stored on disk
+ * after the database has been updated.</p>
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
@@ -32,12 +33,12 @@ final class Docs {
   /** Pre values of document nodes (can be {@code null}).
    * This variable should always be requested via {@link #docs()}. */
   private IntList docList;
+  /** Immutable copy of the pre values of all document nodes (can be {@code null}).
+   * This variable should always be requested via {@link #pres()}. */
+  private int[] docPres;
   /** Sorted document paths (can be {@code null}).
    * This variable should always be requested via {@link #paths()}. */
-  private TokenList pathList;
-  /** Ordered path indexes (can be {@code null}).
-   * This variable should always be requested via {@link #order()}. */
-  private int[] pathOrder;
+  private DocPaths docPaths;
 
   /**
    * Constructor.
@@ -54,6 +55,8 @@ final class Docs {
    */
   synchronized void read(final DataInput in) throws IOException {
     docList = in.readDiffs();
+    docPres = null;
+    docPaths = null;
   }
 
   /**
@@ -63,6 +66,13 @@ final class Docs {
    */
   void write(final DataOutput out) throws IOException {
     out.writeDiffs(docs());
+
+    // write sorted paths (outdated paths will be ignored when being read)
+    final DocPaths dp = docPaths;
+    if(dp != null) {
+      dp.write(data.meta.dbfile(DATADOC), data.meta.dbfile(DATADOC + 'l'),
+          data.meta.time);
+    }
   }
 
   /**
@@ -71,7 +81,8 @@ final class Docs {
    */
   synchronized void init() {
     docList = null;
-    pathList = null;
+    docPaths = null;
+    docPres = null;
     docs();
   }
 
@@ -95,31 +106,51 @@ final class Docs {
   }
 
   /**
-   * Returns the document paths, and initializes them if necessary.
+   * Returns the {@code pre} values of all document nodes. The array is shared by
+   * all callers until the next update and must not be modified.
+   * @return document nodes
+   */
+  synchronized int[] pres() {
+    if(docPres == null) docPres = docs().toArray();
+    return docPres;
+  }
+
+  /**
+   * Returns the sorted document paths, and initializes them if necessary.
    * @return document paths
    */
-  private synchronized TokenList paths() {
-    if(pathList == null) {
+  private synchronized DocPaths paths() {
+    if(docPaths == null) {
       final IntList docs = docs();
-      final int ds = docs.size();
-      final TokenList paths = new TokenList(ds);
-      for(int d = 0; d < ds; d++) {
-        paths.add(normalize(data.text(docs.get(d), true)));
+      DocPaths dp = read(docs);
+      if(dp == null) {
+        final int ds = docs.size();
+        final byte[][] paths = new byte[ds][];
+        for(int d = 0; d < ds; d++) paths[d] = normalize(data.text(docs.get(d), true));
+        dp = new DocPaths(paths, docs, data.meta.time);
       }
-      pathList = paths;
+      docPaths = dp;
     }
-    return pathList;
+    return docPaths;
   }
 
   /**
-   * Returns the document path order, and initialize the array if necessary.
-   * @return path order
+   * Reads the sorted document paths from disk.
+   * @param docs pre values of all document nodes
+   * @return document paths, or {@code null} if no valid paths were found
    */
-  private synchronized int[] order() {
-    if(pathOrder == null) {
-      pathOrder = Array.createOrder(paths().toArray(), false, true);
+  private DocPaths read(final IntList docs) {
+    if(data.inMemory()) return null;
+    final IOFile file = data.meta.dbfile(DATADOC);
+    if(!file.exists()) return null;
+    try {
+      // ignore paths that have been written for another state of the database
+      return DocPaths.read(file, data.meta.dbfile(DATADOC + 'l'), data.meta.time,
+          docs.size());
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return null;
     }
-    return pathOrder;
   }
 
   /**
@@ -139,20 +170,21 @@ final class Docs {
     // insert DOC nodes and move pre values of following DOC nodes
     final int[] presA = pres.toArray();
     final IntList docs = docs();
-    final TokenList paths = paths();
 
     int i = docs.sortedIndexOf(pre);
     if(i < 0) i = -i - 1;
     docs.insert(i, presA);
     docs.move(clip.size(), i + pres.size());
-
-    final byte[][] t = new byte[presA.length][];
-    for(int j = 0; j < t.length; j++) {
-      // subtract pre to retrieve paths from given data instance
-      t[j] = normalize(clip.data.text(presA[j] - pre, true));
+    docPres = null;
+
+    final DocPaths dp = docPaths;
+    if(dp != null) {
+      dp.shift(pre, clip.size());
+      for(final int p : presA) {
+        // subtract pre to retrieve paths from given data instance
+        dp.add(normalize(clip.data.text(p - pre, true)), p);
+      }
     }
-    paths.insert(i, t);
-    pathOrder = null;
   }
 
   /**
@@ -162,17 +194,18 @@ final class Docs {
    */
   void delete(final int pre, final int size) {
     final IntList docs = docs();
-    final TokenList paths = paths();
-
     int i = docs.sortedIndexOf(pre);
     final boolean found = i >= 0;
     if(i < 0) i = -i - 1;
     else docs.deleteAt(i);
     docs.move(-size, i);
+    docPres = null;
 
-    if(!found) return;
-    paths.deleteAt(i);
-    pathOrder = null;
+    final DocPaths dp = docPaths;
+    if(dp != null) {
+      if(found) dp.delete(pre);
+      dp.shift(pre, -size);
+    }
   }
 
   /**
@@ -181,10 +214,11 @@ final class Docs {
    * @param value new name
    */
   void rename(final int pre, final byte[] value) {
-    final IntList docs = docs();
-    final TokenList paths = paths();
-    paths.set(docs.sortedIndexOf(pre), normalize(value));
-    pathOrder = null;
+    final DocPaths dp = docPaths;
+    if(dp != null) {
+      dp.delete(pre);
+      dp.add(normalize(value), pre);
+    }
   }
 
   /**
@@ -222,49 +256,38 @@ final class Docs {
       pref = concat(exct, SLASH);
     }
 
-    // relevant paths: exact hits and prefixes
+    // relevant paths: exact hits and prefixes. all matching paths are adjacent
+    // in the sorted paths and can be found via binary search
     final IntList il = new IntList();
-    /* could be optimized for future access by sorting the paths first
-     * and then accessing only the relevant paths. Sorting might slow down
-     * bulk operations like insert/delete/replace though. */
-    final TokenList paths = paths();
-    for(int p = 0; p < paths.size(); p++) {
-      final byte[] b = paths.get(p);
-      if(eq(b, exct) || !exact && startsWith(b, pref)) il.add(docs.get(p));
+    final DocPaths dp = paths();
+    final int ps = dp.size();
+    if(exct.length != 0) {
+      for(int p = dp.find(exct); p < ps && eq(dp.path(p), exct); p++) il.add(dp.pre(p));
+    }
+    if(!exact) {
+      for(int p = dp.find(pref); p < ps && startsWith(dp.path(p), pref); p++) {
+        il.add(dp.pre(p));
+      }
     }
     return il.sort();
   }
 
   /**
    * Returns the pre value of the document node matching the specified path.
-   * Exact match! Document paths can be sorted for faster future access or
-   * sorting can be disabled as it slows down bulk inserts/deletes/replaces.
+   * Exact match!
    * @param path input path
-   * @param sort sort paths before access
-   * @return root nodes
+   * @return pre value, or {@code -1}
    */
-  synchronized int doc(final String path, final boolean sort) {
+  synchronized int doc(final String path) {
     // invalid or empty path, or no documents: return -1
     final String pth = MetaData.normPath(path);
     if(pth == null || pth.isEmpty()) return -1;
 
-    // normalize paths
-    final byte[] exct = normalize(token(pth));
-
     // relevant paths: exact match
-    final IntList docs = docs();
-    final TokenList paths = paths();
-    final int ts = paths.size();
-
-    if(sort) {
-      final int[] order = order();
-      final int p = find(exct);
-      return p > -1 && p < ts && eq(paths.get(order[p]), exct) ? docs.get(order[p]) : -1;
-    }
-    for(int t = 0; t < ts; t++) {
-      if(eq(paths.get(t), exct)) return docs.get(t);
-    }
-    return -1;
+    final byte[] exct = normalize(token(pth));
+    final DocPaths dp = paths();
+    final int p = dp.find(exct);
+    return p < dp.size() && eq(dp.path(p), exct) ? dp.pre(p) : -1;
   }
 
   /**
@@ -273,9 +296,10 @@ final class Docs {
    * @return path to a directory or not
    */
   synchronized boolean isDir(final byte[] path) {
-    final byte[] pa = concat(path, SLASH);
-    for(final byte[] b : paths()) if(startsWith(b, pa)) return true;
-    return false;
+    final byte[] pa = concat(Prop.CASE ? path : lc(path), SLASH);
+    final DocPaths dp = paths();
+    final int p = dp.find(pa);
+    return p < dp.size() && startsWith(dp.path(p), pa);
   }
 
   /**
@@ -294,10 +318,12 @@ final class Docs {
     byte[] root = token(pth);
     if(root.length != 0) root = concat(root, SLASH);
 
-    final IntList docs = docs();
-    final int ds = docs.size();
-    for(int d = 0; d < ds; d++) {
-      byte[] np = data.text(docs.get(d), true);
+    // only consider documents with matching normalized paths
+    final byte[] pref = normalize(root);
+    final DocPaths dp = paths();
+    final int ps = dp.size();
+    for(int p = dp.find(pref); p < ps && startsWith(dp.path(p), pref); p++) {
+      byte[] np = data.text(dp.pre(p), true);
       if(startsWith(np, root)) {
         np = substring(np, root.length, np.length);
         final int i = indexOf(np, SLASH);
@@ -308,31 +334,6 @@ final class Docs {
     }
   }
 
-  /**
-   * Returns the first position matching the specified path
-   * (might equal the array size).
-   * @param v value to be found
-   * @return position
-   */
-  private int find(final byte[] v) {
-    // binary search
-    final TokenList paths = paths();
-    final int[] po = pathOrder;
-    int l = 0, h = po.length - 1;
-    while(l <= h) {
-      int m = l + h >>> 1;
-      final int c = diff(paths.get(po[m]), v);
-      if(c == 0) {
-        // find first entry
-        while(m > 0 && eq(paths.get(po[m - 1]), v)) --m;
-        return m;
-      }
-      if(c < 0) l = m + 1;
-      else h = m - 1;
-    }
-    return l;
-  }
-
   /**
    * Returns the normalized index path representation for the specified path.
    * @param path input path (without leading slash)
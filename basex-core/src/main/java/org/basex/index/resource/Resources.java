@@ -110,6 +110,16 @@ public final class Resources implements Index {
     return docs.docs(path, false);
   }
 
+  /**
+   * Returns the pre values of all document nodes matching the specified path.
+   * If the path is empty, a shared array is returned, which must not be modified.
+   * @param path input path
+   * @return root nodes
+   */
+  public synchronized int[] pres(final String path) {
+    return path.isEmpty() ? docs.pres() : docs.docs(path, false).toArray();
+  }
+
   /**
    * Returns the pre values of all document nodes matching the specified path.
    * @param path input path
@@ -126,7 +136,7 @@ public final class Resources implements Index {
    * @return pre value
    */
   public int doc(final String path) {
-    return docs.doc(path, true);
+    return docs.doc(path);
   }
 
   /**
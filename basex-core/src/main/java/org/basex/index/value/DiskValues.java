@@ -95,18 +95,30 @@ public class DiskValues implements Index {
 
   @Override
   public int count(final IndexToken it) {
-    if(it instanceof StringRange) return idRange((StringRange) it).size();
-    if(it instanceof NumericRange) return idRange((NumericRange) it).size();
+    if(it instanceof StringRange || it instanceof NumericRange) return ids(it).size();
     final byte[] key = it.get();
     return key.length <= data.meta.maxlen ? entry(key).size : Integer.MAX_VALUE;
   }
 
   @Override
   public IndexIterator iter(final IndexToken it) {
+    final IntList ids = ids(it);
+    final int s = ids.size();
+    for(int i = 0; i < s; i++) ids.set(i, pre(ids.get(i)));
+    return iter(ids.sort());
+  }
+
+  /**
+   * Returns the ids of all index entries that match the specified token.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param it index token
+   * @return ids
+   */
+  protected IntList ids(final IndexToken it) {
     if(it instanceof StringRange) return idRange((StringRange) it);
     if(it instanceof NumericRange) return idRange((NumericRange) it);
     final IndexEntry e = entry(it.get());
-    return iter(e.size, e.pointer);
+    return ids(e.size, e.pointer);
   }
 
   /**
@@ -289,34 +301,33 @@ public class DiskValues implements Index {
   }
 
   /**
-   * Iterator method.
+   * Returns the ids of an index entry.
    * <p><em>Important:</em> This method is thread-safe.</p>
    * @param s number of values
    * @param ps offset
-   * @return iterator
+   * @return ids
    */
-  private IndexIterator iter(final int s, final long ps) {
-    final IntList pres = new IntList(s);
+  private IntList ids(final int s, final long ps) {
+    final IntList ids = new IntList(s);
     long p = ps;
     synchronized(monitor) {
       for(int i = 0, id = 0; i < s; i++) {
         id += idxl.readNum(p);
         p = idxl.cursor();
-        pres.add(pre(id));
+        ids.add(id);
       }
     }
-    return iter(pres.sort());
+    return ids;
   }
 
   /**
    * Performs a string-based range query.
    * <p><em>Important:</em> This method is thread-safe.</p>
    * @param tok index term
-   * @return results
+   * @return ids
    */
-  private IndexIterator idRange(final StringRange tok) {
-    // check if min and max are positive integers with the same number of digits
-    final IntList pres = new IntList();
+  private IntList idRange(final StringRange tok) {
+    final IntList ids = new IntList();
     synchronized(monitor) {
       final int i = get(tok.min);
       final int s = size.get();
@@ -328,23 +339,23 @@ public class DiskValues implements Index {
         // value is too large: skip traversal
         final int d = diff(data.text(pre, text), tok.max);
         if(d > 0 || !tok.mxi && d == 0) break;
-        // add pre values
+        // add ids
         for(int p = 0; p < ps; ++p) {
-          pres.add(pre(id));
+          ids.add(id);
           id += idxl.readNum();
         }
       }
     }
-    return iter(pres.sort());
+    return ids;
   }
 
   /**
    * Performs a range query. All index values must be numeric.
    * <p><em>Important:</em> This method is thread-safe.</p>
    * @param tok index term
-   * @return results
+   * @return ids
    */
-  protected final IndexIterator idRange(final NumericRange tok) {
+  private IntList idRange(final NumericRange tok) {
     final double min = tok.min;
     final double max = tok.max;
 
@@ -353,7 +364,7 @@ public class DiskValues implements Index {
     final boolean simple = len != 0 && min > 0 && (long) min == min &&
         token(min).length == len;
 
-    final IntList pres = new IntList();
+    final IntList ids = new IntList();
     synchronized(monitor) {
       final int s = size.get();
       for(int l = 0; l < s; ++l) {
@@ -365,7 +376,7 @@ public class DiskValues implements Index {
         if(v >= min && v <= max) {
           // value is in range
           for(int d = 0; d < ds; ++d) {
-            pres.add(pre(id));
+            ids.add(id);
             id += idxl.readNum();
           }
         } else if(simple && v > max && data.textLen(pre, text) == len) {
@@ -376,17 +387,17 @@ public class DiskValues implements Index {
         }
       }
     }
-    return iter(pres.sort());
+    return ids;
   }
 
   /**
-   * Returns an iterator for the specified id list.
-   * @param ids id list
+   * Returns an iterator for the specified pre values.
+   * @param pres sorted pre values
    * @return iterator
    */
-  protected static IndexIterator iter(final IntList ids) {
+  private static IndexIterator iter(final IntList pres) {
     return new IndexIterator() {
-      final int s = ids.size();
+      final int s = pres.size();
       int p = -1;
 
       @Override
@@ -396,7 +407,7 @@ public class DiskValues implements Index {
 
       @Override
       public int next() {
-        return ids.get(p);
+        return pres.get(p);
       }
 
       @Override
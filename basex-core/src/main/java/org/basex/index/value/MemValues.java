@@ -15,12 +15,21 @@ import org.basex.util.hash.*;
 
 /**
  * This class provides a main memory access to attribute values and
- * text contents.
+ * text contents. If a {@link TokenArena} is specified, the keys will be packed
+ * into this arena.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-public class MemValues extends TokenSet implements Index {
+public class MemValues extends ASet implements Index {
+  /** Hashed keys (only assigned if no arena is used). */
+  private byte[][] keys;
+  /** Arena with packed keys (may be {@code null}). */
+  private final TokenArena arena;
+  /** Arena offsets of the keys (only assigned if an arena is used). */
+  private long[] offs;
+  /** Hash values of the keys (only assigned if an arena is used). */
+  private int[] hashes;
   /** IDs. */
   int[][] ids = new int[Array.CAPACITY][];
   /** ID array lengths. */
@@ -33,7 +42,24 @@ public class MemValues extends TokenSet implements Index {
    * @param d data instance
    */
   public MemValues(final Data d) {
+    this(d, null);
+  }
+
+  /**
+   * Constructor.
+   * @param d data instance
+   * @param a arena for storing keys (may be {@code null})
+   */
+  public MemValues(final Data d, final TokenArena a) {
+    super(Array.CAPACITY);
     data = d;
+    arena = a;
+    if(a != null) {
+      offs = new long[Array.CAPACITY];
+      hashes = new int[Array.CAPACITY];
+    } else {
+      keys = new byte[Array.CAPACITY][];
+    }
   }
 
   @Override
@@ -76,7 +102,8 @@ public class MemValues extends TokenSet implements Index {
       @Override
       public byte[] next() {
         while(++c < size) {
-          if(startsWith(keys[c], prefix)) return keys[c];
+          if(arena == null ? startsWith(keys[c], prefix) :
+            arena.startsWith(offs[c], prefix)) return key(c);
         }
         return null;
       }
@@ -102,12 +129,44 @@ public class MemValues extends TokenSet implements Index {
   public void close() { }
 
   @Override
-  public void rehash(final int s) {
-    super.rehash(s);
+  protected final int hash(final int id) {
+    return arena == null ? Token.hash(keys[id]) : hashes[id];
+  }
+
+  @Override
+  protected void rehash(final int s) {
+    if(arena == null) {
+      keys = Array.copyOf(keys, s);
+    } else {
+      offs = Arrays.copyOf(offs, s);
+      hashes = Arrays.copyOf(hashes, s);
+    }
     ids = Array.copyOf(ids, s);
     len = Arrays.copyOf(len, s);
   }
 
+  /**
+   * Returns the id of the specified key, or {@code 0} if the key does not exist.
+   * @param key key to be looked up
+   * @return id, or {@code 0} if key does not exist
+   */
+  public final int id(final byte[] key) {
+    final int h = Token.hash(key);
+    for(int i = bucket[h & bucket.length - 1]; i != 0; i = next[i]) {
+      if(eq(i, h, key)) return i;
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the key with the specified id.
+   * @param id id of the key to return
+   * @return key
+   */
+  public final byte[] key(final int id) {
+    return arena == null ? keys[id] : arena.get(offs[id]);
+  }
+
   /**
    * Stores the specified key and id.
    * @param key key
@@ -115,7 +174,7 @@ public class MemValues extends TokenSet implements Index {
    * @return index id
    */
   public final int put(final byte[] key, final int id) {
-    final int i = put(key);
+    final int i = index(key);
     int[] tmp = ids[i];
     if(tmp == null) {
       tmp = new int[] { id };
@@ -129,6 +188,39 @@ public class MemValues extends TokenSet implements Index {
     return i;
   }
 
+  /**
+   * Stores the specified key if it has not been stored before, and returns its id.
+   * @param key key
+   * @return id
+   */
+  private int index(final byte[] key) {
+    checkSize();
+    final int h = Token.hash(key);
+    final int b = h & bucket.length - 1;
+    for(int r = bucket[b]; r != 0; r = next[r]) if(eq(r, h, key)) return r;
+    next[size] = bucket[b];
+    if(arena == null) {
+      keys[size] = key;
+    } else {
+      offs[size] = arena.add(key);
+      hashes[size] = h;
+    }
+    bucket[b] = size;
+    return size++;
+  }
+
+  /**
+   * Compares the key with the specified id with the specified token.
+   * @param id id of the key
+   * @param h hash value of the token
+   * @param key token
+   * @return result of check
+   */
+  private boolean eq(final int id, final int h, final byte[] key) {
+    return arena == null ? Token.eq(keys[id], key) :
+      hashes[id] == h && arena.eq(offs[id], key);
+  }
+
   /**
    * Removes a record from the index.
    * @param key record key
@@ -6,18 +6,37 @@ import static org.basex.util.Token.*;
 import java.io.*;
 
 import org.basex.data.*;
+import org.basex.index.query.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
 /**
- * This class provides access to attribute values and text contents stored on
- * disk. The data structure is described in the {@link ValueIndexBuilder} class.
+ * <p>This class provides access to attribute values and text contents stored on
+ * disk. The data structure is described in the {@link ValueIndexBuilder} class.</p>
+ *
+ * <p>Updates are collected in a {@link ValueIndexDelta}, which is stored on disk
+ * whenever the index is flushed. The delta is considered by all lookups. If it exceeds
+ * a certain size, it is merged into the index files in a single pass. As the key of an
+ * index entry is resolved via its first id, entries whose first id is deleted are
+ * updated at once.</p>
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public final class UpdatableDiskValues extends DiskValues {
+  /** Minimum number of changes that will be merged into the index files. */
+  private static final int MERGE = 1 << 12;
+  /** Delta file. */
+  private final IOFile file;
+  /** Changes that have not been merged into the index files yet. */
+  private final ValueIndexDelta delta;
+  /** Indicates if the delta has been changed. */
+  private boolean dirty;
+
   /**
    * Constructor, initializing the index structure.
    * @param d data reference
@@ -38,6 +57,17 @@ public final class UpdatableDiskValues extends DiskValues {
   private UpdatableDiskValues(final Data d, final boolean txt, final String pref)
       throws IOException {
     super(d, txt, pref);
+    file = d.meta.dbfile(pref + 'd');
+    if(file.exists()) {
+      final DataInput in = new DataInput(file);
+      try {
+        delta = new ValueIndexDelta(in);
+      } finally {
+        in.close();
+      }
+    } else {
+      delta = new ValueIndexDelta();
+    }
   }
 
   @Override
@@ -45,30 +75,203 @@ public final class UpdatableDiskValues extends DiskValues {
     return data.pre(id);
   }
 
+  @Override
+  public int count(final IndexToken it) {
+    final int c = super.count(it);
+    if(c == Integer.MAX_VALUE || it instanceof StringRange ||
+        it instanceof NumericRange) return c;
+    synchronized(monitor) {
+      return c + delta.count(it.get());
+    }
+  }
+
+  @Override
+  protected IntList ids(final IndexToken it) {
+    final IntList ids = super.ids(it);
+    synchronized(monitor) {
+      return delta.apply(it, ids);
+    }
+  }
+
+  @Override
+  public EntryIterator entries(final IndexEntries input) {
+    final EntryIterator ei = super.entries(input);
+    final byte[] key = input.get();
+    final boolean prefix = key.length != 0 && input.prefix;
+    final boolean desc = input.descending && !prefix;
+
+    // collect changed keys in the requested range
+    final TokenList keys = new TokenList();
+    synchronized(monitor) {
+      if(delta.size() == 0) return ei;
+      for(final byte[] k : delta.keys()) {
+        if(key.length == 0 || (prefix ? startsWith(k, key) :
+          desc ? diff(k, key) < 0 : diff(k, key) >= 0)) keys.add(k);
+      }
+    }
+
+    // merge entries of the index files with changed keys
+    return new EntryIterator() {
+      byte[] entry = ei.next();
+      int ec = ei.count();
+      int kp = desc ? keys.size() - 1 : 0;
+      int count = -1;
+
+      @Override
+      public byte[] next() {
+        while(true) {
+          final byte[] k = kp >= 0 && kp < keys.size() ? keys.get(kp) : null;
+          if(entry == null && k == null) break;
+          final int c = entry == null ? 1 : k == null ? -1 :
+            desc ? diff(k, entry) : diff(entry, k);
+
+          final byte[] next;
+          int n = 0;
+          if(c <= 0) {
+            next = entry;
+            n = ec;
+            entry = ei.next();
+            ec = ei.count();
+          } else {
+            next = k;
+          }
+          if(c >= 0) kp += desc ? -1 : 1;
+          synchronized(monitor) {
+            n += delta.count(next);
+          }
+          if(n > 0) {
+            count = n;
+            return next;
+          }
+        }
+        count = -1;
+        return null;
+      }
+
+      @Override
+      public int count() {
+        return count;
+      }
+    };
+  }
+
   @Override
   public synchronized void flush() {
+    if(dirty) {
+      try {
+        if(delta.size() == 0) {
+          file.delete();
+        } else {
+          final DataOutput out = new DataOutput(file);
+          try {
+            delta.write(out);
+          } finally {
+            out.close();
+          }
+        }
+        dirty = false;
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+    }
     idxl.write4(0, size.get());
     super.flush();
   }
 
   @Override
   public synchronized void index(final TokenObjMap<IntList> m) {
-    final int s = size.get();
-    final int last = s - 1;
+    for(final byte[] key : m) delta.add(key, m.get(key).sort());
+    dirty = true;
+    check();
+  }
+
+  @Override
+  public synchronized void delete(final TokenObjMap<IntList> m) {
+    final TokenObjMap<IntList> entries = new TokenObjMap<IntList>();
+    for(final byte[] key : m) delete(key, m.get(key).sort(), entries);
+    if(!entries.isEmpty()) deleteEntries(entries);
+    dirty = true;
+    check();
+  }
 
+  @Override
+  public synchronized void replace(final byte[] o, final byte[] n, final int id) {
+    // delete the id from the old key
+    final TokenObjMap<IntList> entries = new TokenObjMap<IntList>();
+    delete(o, new IntList(new int[] { id}), entries);
+    if(!entries.isEmpty()) deleteEntries(entries);
+    // add the id to the new key
+    delta.add(n, new IntList(new int[] { id}));
+    dirty = true;
+    check();
+  }
+
+  /**
+   * Merges all pending changes into the index files.
+   */
+  public synchronized void merge() {
+    if(delta.size() == 0) return;
+    deleteEntries(delta.removeDeleted());
+    addEntries(delta.removeAdded());
+    dirty = true;
+  }
+
+  /**
+   * Deletes the ids of entries with the specified key. If the first id of an entry in
+   * the index files is affected, all ids to be deleted from this entry are added to the
+   * specified map, as the key could not be resolved anymore.
+   * @param key key
+   * @param ids sorted ids
+   * @param entries ids to be deleted at once
+   */
+  private void delete(final byte[] key, final IntList ids,
+      final TokenObjMap<IntList> entries) {
+
+    final IntList ds = delta.removeAdded(key, ids);
+    if(ds == null || ds.isEmpty()) return;
+    final int p = get(key);
+    if(p < 0) return;
+
+    final int first;
+    synchronized(monitor) {
+      idxl.readNum(idxr.read5(p * 5L));
+      first = idxl.readNum();
+    }
+    if(ds.sortedIndexOf(first) < 0) delta.delete(key, ds);
+    else entries.put(key, ValueIndexDelta.merge(ds, delta.removeDeleted(key)));
+  }
+
+  /**
+   * Merges the delta into the index files if its size exceeds the limit. The limit
+   * grows with the number of index keys, as all references may need to be moved.
+   */
+  private void check() {
+    if(delta.size() > Math.max(MERGE, size.get() >> 4)) merge();
+  }
+
+  /**
+   * Adds ids to the index files.
+   * @param m sorted ids, indexed by keys
+   */
+  private void addEntries(final TokenObjMap<IntList> m) {
     // create a sorted list of all keys: allows faster binary search
-    final TokenList allkeys = new TokenList(m).sort(true);
+    final TokenList allkeys = new TokenList(m.size());
+    for(final byte[] key : m) if(!m.get(key).isEmpty()) allkeys.add(key);
+    allkeys.sort(true);
+
+    final int s = size.get();
+    final int last = s - 1;
 
     // create a sorted list of the new keys and update the old keys
     final TokenList nkeys = new TokenList(m.size());
     int p = 0;
     for(final byte[] key : allkeys) {
-      p = get(key, p, s);
+      p = get(key, p, last);
       if(p < 0) {
         p = -(p + 1);
         nkeys.add(key);
       } else {
-        appendIds(p++, key, diffs(m.get(key)));
+        addIds(p++, key, m.get(key));
       }
     }
 
@@ -95,36 +298,35 @@ public final class UpdatableDiskValues extends DiskValues {
   }
 
   /**
-   * Add record ids to an index entry.
+   * Adds ids to an index entry.
    * @param ix index of the key
    * @param key key
-   * @param nids sorted list of record ids to add: the first value is the
-   * smallest id and all others are only difference to the previous one
+   * @param nids sorted ids to be added
    */
-  private void appendIds(final int ix, final byte[] key, final int[] nids) {
+  private void addIds(final int ix, final byte[] key, final IntList nids) {
     final long oldpos = idxr.read5(ix * 5L);
     final int numold = idxl.readNum(oldpos);
-    final int[] ids = new int[numold + nids.length];
+    final IntList ids = new IntList(numold + nids.size());
 
-    // read the old ids
-    for(int i = 0; i < numold; ++i) {
-      final int v = idxl.readNum();
-      nids[0] -= v; // adjust the first new id
-      ids[i] = v;
+    // read the old ids and merge them with the new ones
+    for(int i = 0, id = 0; i < numold; ++i) {
+      id += idxl.readNum();
+      ids.add(id);
     }
+    final int[] nums = diffs(ValueIndexDelta.merge(ids, nids));
 
-    // append the new ids - they are bigger than the old ones
-    System.arraycopy(nids, 0, ids, numold, nids.length);
-
-    final long newpos = idxl.appendNums(ids);
+    final long newpos = idxl.appendNums(nums);
     idxr.write5(ix * 5L, newpos);
 
     // update the cache entry
-    cache.add(key, ids.length, newpos + Num.length(ids.length));
+    cache.add(key, nums.length, newpos + Num.length(nums.length));
   }
 
-  @Override
-  public synchronized void delete(final TokenObjMap<IntList> m) {
+  /**
+   * Deletes ids from the index files.
+   * @param m sorted ids, indexed by keys
+   */
+  private void deleteEntries(final TokenObjMap<IntList> m) {
     // create a sorted list of all keys: allows faster binary search
     final TokenList allkeys = new TokenList(m).sort(true);
 
@@ -133,9 +335,11 @@ public final class UpdatableDiskValues extends DiskValues {
     int p = 0;
     final int s = size.get() - 1;
     for(final byte[] key : allkeys) {
+      final IntList ids = m.get(key);
+      if(ids.isEmpty()) continue;
       p = get(key, p, s);
       if(p < 0) p = -(p + 1); // should not occur, but anyway
-      else if(deleteIds(p, key, m.get(key).sort().toArray()) == 0) empty.add(p);
+      else if(deleteIds(p, key, ids.toArray()) == 0) empty.add(p);
     }
 
     // empty should contain sorted keys, since allkeys was sorted, too
@@ -198,78 +402,6 @@ public final class UpdatableDiskValues extends DiskValues {
     size.set(s - j);
   }
 
-  @Override
-  public synchronized void replace(final byte[] o, final byte[] n, final int id) {
-    // delete the id from the old key
-    final int p = get(o);
-    if(p >= 0) {
-      final int[] tmp = new int[] { id};
-      if(deleteIds(p, o, tmp) == 0) {
-        // the old key remains empty: delete it
-        cache.delete(o);
-        tmp[0] = p;
-        deleteKeys(tmp);
-      }
-    }
-    // add the id to the new key
-    insertId(n, id);
-  }
-
-  /**
-   * Add a text entry to the index.
-   * @param key text to index
-   * @param id id value
-   */
-  private void insertId(final byte[] key, final int id) {
-    int ix = get(key);
-    if(ix < 0) {
-      ix = -(ix + 1);
-
-      // shift all entries with bigger keys to the right
-      final int s = size.get();
-      for(int i = s; i > ix; --i)
-        idxr.write5(i * 5L, idxr.read5((i - 1) * 5L));
-
-      // add the key and the id
-      idxr.write5(ix * 5L, idxl.appendNums(new int[] { id}));
-      ctext.put(ix, key);
-      // [DP] should the entry be added to the cache?
-
-      size.set(s + 1);
-    } else {
-      // add id to the list of ids in the index node
-      final long pos = idxr.read5(ix * 5L);
-      final int num = idxl.readNum(pos);
-
-      final int[] ids = new int[num + 1];
-      boolean notadded = true;
-      int cid = 0;
-      for(int i = 0, j = -1; i < num; ++i) {
-        int v = idxl.readNum();
-
-        if(notadded && id < cid + v) {
-          // add the new id
-          ids[++j] = id - cid;
-          notadded = false;
-          // decrement the difference to the next id
-          v -= id - cid;
-          cid = id;
-        }
-
-        ids[++j] = v;
-        cid += v;
-      }
-
-      if(notadded) ids[ids.length - 1] = id - cid;
-
-      final long newpos = idxl.appendNums(ids);
-      idxr.write5(ix * 5L, newpos);
-
-      // update the cache entry
-      cache.add(key, ids.length, newpos + Num.length(ids.length));
-    }
-  }
-
   /**
    * Sort and calculate the differences between a list of ids.
    * @param ids id list
@@ -25,6 +25,15 @@ public final class UpdatableMemValues extends MemValues {
     super(d);
   }
 
+  /**
+   * Constructor.
+   * @param d data instance
+   * @param a arena for storing keys (may be {@code null})
+   */
+  public UpdatableMemValues(final MemData d, final TokenArena a) {
+    super(d, a);
+  }
+
   @Override
   public IndexIterator iter(final IndexToken tok) {
     final byte k = tok.type() == IndexType.TEXT ? Data.TEXT : Data.ATTR;
@@ -0,0 +1,323 @@
+package org.basex.index.value;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.index.query.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class contains the changes of an updatable value index that have not been
+ * merged into the index files yet. For each key, the sorted ids of added and deleted
+ * entries are stored. Deleted ids always refer to entries in the index files, while
+ * added ids never do.</p>
+ *
+ * <p>On disk, the number of keys is stored, followed by the key, the added and the
+ * deleted ids of each key. The ids are stored in the {@link Num} format as
+ * differences to their predecessors.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class ValueIndexDelta {
+  /** Ids of added entries. */
+  private TokenObjMap<IntList> adds = new TokenObjMap<IntList>();
+  /** Ids of deleted entries. */
+  private TokenObjMap<IntList> dels = new TokenObjMap<IntList>();
+  /** Number of added and deleted ids. */
+  private int size;
+
+  /**
+   * Constructor.
+   */
+  ValueIndexDelta() { }
+
+  /**
+   * Constructor, reading the changes from disk.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  ValueIndexDelta(final DataInput in) throws IOException {
+    for(int k = in.readNum(); k > 0; --k) {
+      final byte[] key = in.readToken();
+      set(adds, key, read(in));
+      set(dels, key, read(in));
+    }
+  }
+
+  /**
+   * Writes the changes to disk.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  void write(final DataOutput out) throws IOException {
+    final TokenList keys = keys();
+    out.writeNum(keys.size());
+    for(final byte[] key : keys) {
+      out.writeToken(key);
+      write(out, adds.get(key));
+      write(out, dels.get(key));
+    }
+  }
+
+  /**
+   * Returns the number of added and deleted ids.
+   * @return number of ids
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds ids of new entries.
+   * @param key key
+   * @param ids sorted ids
+   */
+  void add(final byte[] key, final IntList ids) {
+    // ids that have been deleted before are only removed from the deletions
+    final IntList[] r = remove(ids, dels.get(key));
+    set(dels, key, r[1]);
+    set(adds, key, merge(adds.get(key), r[0]));
+  }
+
+  /**
+   * Removes ids of entries that have been added before.
+   * @param key key
+   * @param ids sorted ids
+   * @return ids of entries that are stored in the index files
+   */
+  IntList removeAdded(final byte[] key, final IntList ids) {
+    final IntList[] r = remove(adds.get(key), ids);
+    set(adds, key, r[0]);
+    return r[1];
+  }
+
+  /**
+   * Deletes ids of entries that are stored in the index files.
+   * @param key key
+   * @param ids sorted ids
+   */
+  void delete(final byte[] key, final IntList ids) {
+    set(dels, key, merge(dels.get(key), ids));
+  }
+
+  /**
+   * Removes and returns the ids of all deleted entries with the specified key.
+   * @param key key
+   * @return sorted ids
+   */
+  IntList removeDeleted(final byte[] key) {
+    final IntList ids = dels.get(key);
+    set(dels, key, null);
+    return ids != null ? ids : new IntList(0);
+  }
+
+  /**
+   * Returns the difference between the number of added and deleted entries.
+   * @param key key
+   * @return difference
+   */
+  int count(final byte[] key) {
+    if(size == 0) return 0;
+    final IntList a = adds.get(key), d = dels.get(key);
+    return (a != null ? a.size() : 0) - (d != null ? d.size() : 0);
+  }
+
+  /**
+   * Returns all keys with changed entries in ascending order.
+   * @return keys
+   */
+  TokenList keys() {
+    final TokenList keys = new TokenList();
+    for(final byte[] key : adds) {
+      if(!adds.get(key).isEmpty()) keys.add(key);
+    }
+    for(final byte[] key : dels) {
+      final IntList a = adds.get(key);
+      if(!dels.get(key).isEmpty() && (a == null || a.isEmpty())) keys.add(key);
+    }
+    return keys.sort(true);
+  }
+
+  /**
+   * Applies the changes to the ids of all entries that match the specified token.
+   * @param it index token
+   * @param ids ids of the entries in the index files
+   * @return resulting ids
+   */
+  IntList apply(final IndexToken it, final IntList ids) {
+    if(size == 0) return ids;
+
+    final IntList add = new IntList(), del = new IntList();
+    if(it instanceof StringRange || it instanceof NumericRange) {
+      for(final byte[] key : adds) {
+        if(matches(it, key)) add(add, adds.get(key));
+      }
+      for(final byte[] key : dels) {
+        if(matches(it, key)) add(del, dels.get(key));
+      }
+    } else {
+      add(add, adds.get(it.get()));
+      add(del, dels.get(it.get()));
+    }
+    if(add.isEmpty() && del.isEmpty()) return ids;
+
+    final IntList res = new IntList(ids.size() + add.size());
+    del.sort();
+    final int is = ids.size();
+    for(int i = 0; i < is; i++) {
+      final int id = ids.get(i);
+      if(del.sortedIndexOf(id) < 0) res.add(id);
+    }
+    add(res, add);
+    return res;
+  }
+
+  /**
+   * Returns the ids of all added entries and resets the added ids.
+   * @return ids, indexed by keys
+   */
+  TokenObjMap<IntList> removeAdded() {
+    final TokenObjMap<IntList> m = adds;
+    for(final IntList ids : m.values()) if(ids != null) size -= ids.size();
+    adds = new TokenObjMap<IntList>();
+    return m;
+  }
+
+  /**
+   * Returns the ids of all deleted entries and resets the deleted ids.
+   * @return ids, indexed by keys
+   */
+  TokenObjMap<IntList> removeDeleted() {
+    final TokenObjMap<IntList> m = dels;
+    for(final IntList ids : m.values()) if(ids != null) size -= ids.size();
+    dels = new TokenObjMap<IntList>();
+    return m;
+  }
+
+  /**
+   * Assigns an id list to a key and updates the number of ids.
+   * @param map map
+   * @param key key
+   * @param ids ids (can be {@code null})
+   */
+  private void set(final TokenObjMap<IntList> map, final byte[] key, final IntList ids) {
+    final IntList old = map.get(key);
+    if(old == null && (ids == null || ids.isEmpty())) return;
+    if(old != null) size -= old.size();
+    if(ids != null) size += ids.size();
+    map.put(key, ids != null ? ids : new IntList(0));
+  }
+
+  /**
+   * Checks if a key matches the specified range token.
+   * @param it index token
+   * @param key key
+   * @return result of check
+   */
+  private static boolean matches(final IndexToken it, final byte[] key) {
+    if(it instanceof NumericRange) {
+      final NumericRange nr = (NumericRange) it;
+      final double d = toDouble(key);
+      return d >= nr.min && d <= nr.max;
+    }
+    final StringRange sr = (StringRange) it;
+    final int mn = diff(key, sr.min), mx = diff(key, sr.max);
+    return (mn > 0 || sr.mni && mn == 0) && (mx < 0 || sr.mxi && mx == 0);
+  }
+
+  /**
+   * Removes ids that occur in both lists.
+   * @param a first sorted list (can be {@code null})
+   * @param b second sorted list (can be {@code null})
+   * @return remaining ids of the first and the second list
+   */
+  private static IntList[] remove(final IntList a, final IntList b) {
+    if(a == null || b == null) return new IntList[] { a, b };
+    final int as = a.size(), bs = b.size();
+    final IntList ra = new IntList(as), rb = new IntList(bs);
+    int i = 0, j = 0;
+    while(i < as && j < bs) {
+      final int x = a.get(i), y = b.get(j);
+      if(x < y) {
+        ra.add(x);
+        i++;
+      } else if(x > y) {
+        rb.add(y);
+        j++;
+      } else {
+        i++;
+        j++;
+      }
+    }
+    while(i < as) ra.add(a.get(i++));
+    while(j < bs) rb.add(b.get(j++));
+    return new IntList[] { ra, rb };
+  }
+
+  /**
+   * Merges two sorted id lists.
+   * @param a first list (can be {@code null})
+   * @param b second list (can be {@code null})
+   * @return merged list (can be {@code null})
+   */
+  static IntList merge(final IntList a, final IntList b) {
+    if(a == null || a.isEmpty()) return b;
+    if(b == null || b.isEmpty()) return a;
+    final int as = a.size(), bs = b.size();
+    final IntList r = new IntList(as + bs);
+    int i = 0, j = 0;
+    while(i < as && j < bs) r.add(a.get(i) <= b.get(j) ? a.get(i++) : b.get(j++));
+    while(i < as) r.add(a.get(i++));
+    while(j < bs) r.add(b.get(j++));
+    return r;
+  }
+
+  /**
+   * Adds all ids of a list to another list.
+   * @param target target list
+   * @param ids ids to be added (can be {@code null})
+   */
+  private static void add(final IntList target, final IntList ids) {
+    if(ids == null) return;
+    final int s = ids.size();
+    for(int i = 0; i < s; i++) target.add(ids.get(i));
+  }
+
+  /**
+   * Reads an id list.
+   * @param in input stream
+   * @return ids
+   * @throws IOException I/O exception
+   */
+  private static IntList read(final DataInput in) throws IOException {
+    final int s = in.readNum();
+    final IntList ids = new IntList(s);
+    for(int i = 0, id = 0; i < s; i++) {
+      id += in.readNum();
+      ids.add(id);
+    }
+    return ids;
+  }
+
+  /**
+   * Writes an id list.
+   * @param out output stream
+   * @param ids ids (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  private static void write(final DataOutput out, final IntList ids) throws IOException {
+    final int s = ids != null ? ids.size() : 0;
+    out.writeNum(s);
+    for(int i = 0, o = 0; i < s; i++) {
+      final int id = ids.get(i);
+      out.writeNum(id - o);
+      o = id;
+    }
+  }
+}
@@ -101,33 +101,45 @@ public final class Zip extends Proc {
   public void zip(final IOFile root, final StringList files) throws IOException {
     if(!(archive instanceof IOFile)) throw new FileNotFoundException(archive.path());
 
-    final byte[] data = new byte[IO.BLOCKSIZE];
     final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(
         new FileOutputStream(archive.path())));
-    curr = 0;
-
     try {
       // use simple, fast compression
       out.setLevel(1);
-      // loop through all files
-      total = files.size();
-      for(final String file : files) {
-        curr++;
-        final FileInputStream in = new FileInputStream(new File(root.file(), file));
-        try {
-          final String fl = Prop.WIN ? file.replace('\\', '/') : file;
-          out.putNextEntry(new ZipEntry(root.name() + '/' + fl));
-          for(int c; (c = in.read(data)) != -1;) out.write(data, 0, c);
-          out.closeEntry();
-        } finally {
-          in.close();
-        }
-      }
+      zip(out, root, files);
     } finally {
       out.close();
     }
   }
 
+  /**
+   * Adds the specified files to a zip output stream.
+   * @param out output stream
+   * @param root root directory
+   * @param files files to add
+   * @throws IOException I/O exception
+   */
+  public void zip(final ZipOutputStream out, final IOFile root, final StringList files)
+      throws IOException {
+
+    final byte[] data = new byte[IO.BLOCKSIZE];
+    curr = 0;
+    // loop through all files
+    total = files.size();
+    for(final String file : files) {
+      curr++;
+      final FileInputStream in = new FileInputStream(new File(root.file(), file));
+      try {
+        final String fl = Prop.WIN ? file.replace('\\', '/') : file;
+        out.putNextEntry(new ZipEntry(root.name() + '/' + fl));
+        for(int c; (c = in.read(data)) != -1;) out.write(data, 0, c);
+        out.closeEntry();
+      } finally {
+        in.close();
+      }
+    }
+  }
+
   @Override
   protected double prog() {
     return (double) curr / total;
@@ -56,6 +56,11 @@ public final class NewlineInput extends TextInput {
     return '\n';
   }
 
+  @Override
+  public int copy(final TokenBuilder tb, final byte[] map) {
+    return next == -2 ? super.copy(tb, map) : 0;
+  }
+
   /**
    * Reads and returns a single line.
    * @return line, or {@code null}
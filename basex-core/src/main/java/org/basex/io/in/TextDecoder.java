@@ -21,6 +21,8 @@ abstract class TextDecoder {
   String encoding;
   /** Indicates if input must be valid. */
   boolean valid;
+  /** Indicates if bytes below {@code 0x80} represent ASCII characters. */
+  boolean ascii;
 
   /**
    * Returns the next character.
@@ -63,6 +65,11 @@ abstract class TextDecoder {
     /** UTF8 cache. */
     private final byte[] cache = new byte[4];
 
+    /** Constructor. */
+    UTF8() {
+      ascii = true;
+    }
+
     @Override
     int read(final TextInput ti) throws IOException {
       int ch = ti.readByte();
@@ -137,7 +144,9 @@ abstract class TextDecoder {
      */
     Generic(final String enc) throws IOException {
       try {
-        csd = Charset.forName(enc).newDecoder();
+        final Charset cs = Charset.forName(enc);
+        csd = cs.newDecoder();
+        ascii = cs.name().equals("US-ASCII") || cs.name().equals("ISO-8859-1");
       } catch(final Exception ex) {
         throw new EncodingException(ex);
       }
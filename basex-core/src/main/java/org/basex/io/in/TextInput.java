@@ -123,6 +123,55 @@ public class TextInput extends BufferInput {
     return ch;
   }
 
+  /**
+   * Copies a run of characters from the input buffer to the specified token builder.
+   * Characters are only copied if the input is UTF-8 encoded or ASCII compatible.
+   * Copying stops at the end of the buffer, before the first ASCII character that
+   * is not mapped, and before multi-byte characters that are invalid, not encoded in
+   * their shortest form, or not completely contained in the buffer. The remaining
+   * characters can then be processed via {@link #read()}.
+   * @param tb token builder
+   * @param map mapping for ASCII characters ({@code 0}: stop copying)
+   * @return number of copied newline characters
+   */
+  public int copy(final TokenBuilder tb, final byte[] map) {
+    final TextDecoder dec = decoder;
+    if(!dec.ascii) return 0;
+    final boolean utf8 = dec instanceof TextDecoder.UTF8;
+    final byte[] buf = buffer;
+    final int bs = bsize;
+    int p = bpos, s = p, nl = 0;
+    while(p < bs) {
+      final int b = buf[p];
+      if(b >= 0) {
+        // ASCII character
+        final byte m = map[b];
+        if(m == 0) break;
+        if(m != b) {
+          tb.add(buf, s, p).addByte(m);
+          s = p + 1;
+        }
+        if(b == '\n') nl++;
+        p++;
+      } else {
+        // multi-byte character
+        if(!utf8 || (b & 0xFF) < 0xC2 || (b & 0xFF) > 0xF4) break;
+        final int cl = cl((byte) b);
+        if(p + cl > bs) break;
+        int c = 0;
+        while(++c < cl && (buf[p + c] & 0xC0) == 0x80);
+        if(c < cl) break;
+        final int cp = cp(buf, p);
+        if(cl != (cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4) ||
+            valid && !XMLToken.valid(cp)) break;
+        p += cl;
+      }
+    }
+    tb.add(buf, s, p);
+    bpos = p;
+    return nl;
+  }
+
   @Override
   public final byte[] content() throws IOException {
     return cache().finish();
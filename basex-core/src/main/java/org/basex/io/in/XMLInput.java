@@ -72,6 +72,18 @@ public class XMLInput extends InputStream {
     return ch;
   }
 
+  /**
+   * Copies a run of characters from the input buffer to the specified token builder
+   * (see {@link TextInput#copy}). Characters are only copied if no entity is being
+   * processed and no characters have been pushed back. Copied characters cannot be
+   * revisited via {@link #prev(int)}.
+   * @param tb token builder
+   * @param map mapping for ASCII characters ({@code 0}: stop copying)
+   */
+  public void copy(final TokenBuilder tb, final byte[] map) {
+    if(pp == 0 && ip == 0) line += inputs[0].copy(tb, map);
+  }
+
   /**
    * Inserts some bytes in the input stream.
    * @param val values to insert
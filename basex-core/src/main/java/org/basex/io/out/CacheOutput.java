@@ -0,0 +1,49 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+/**
+ * This class passes on all bytes to the specified output stream and caches
+ * them, as long as the specified maximum is not exceeded.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class CacheOutput extends PrintOutput {
+  /** Output stream reference. */
+  private final PrintOutput out;
+  /** Cached bytes ({@code null} if the maximum has been exceeded). */
+  private ArrayOutput cache = new ArrayOutput();
+
+  /**
+   * Constructor.
+   * @param po output stream reference
+   * @param mx maximum number of bytes to be cached
+   */
+  public CacheOutput(final PrintOutput po, final long mx) {
+    out = po;
+    max = mx;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    out.write(b);
+    if(cache != null) {
+      if(size++ < max) cache.write(b);
+      else cache = null;
+    }
+  }
+
+  @Override
+  public boolean finished() {
+    return out.finished();
+  }
+
+  /**
+   * Returns the cached bytes.
+   * @return bytes, or {@code null} if the maximum size has been exceeded
+   */
+  public byte[] cached() {
+    return cache == null ? null : cache.toArray();
+  }
+}
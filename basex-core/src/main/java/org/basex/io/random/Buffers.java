@@ -13,6 +13,8 @@ final class Buffers {
   private final Buffer[] buf = new Buffer[BUFFERS];
   /** Current buffer offset. */
   private int off;
+  /** Number of buffer hits that have not been registered yet. */
+  private long hits;
 
   /**
    * Constructor.
@@ -45,9 +47,15 @@ final class Buffers {
   boolean cursor(final long p) {
     final int o = off;
     do {
-      if(buf[off].pos == p) return false;
+      if(buf[off].pos == p) {
+        hits++;
+        return false;
+      }
     } while((off = off + 1 & BUFFERS - 1) != o);
     off = o + 1 & BUFFERS - 1;
+    // hits are registered together with misses to keep the costs of lookups low
+    IOCounter.miss(hits);
+    hits = 0;
     return true;
   }
 }
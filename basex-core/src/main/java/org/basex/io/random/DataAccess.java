@@ -16,6 +16,8 @@ public final class DataAccess {
   private final Buffers bm = new Buffers();
   /** Reference to the data input stream. */
   private final RandomAccessFile file;
+  /** Counters for read and written bytes. */
+  private final StripedCounter[] bytes;
   /** File length. */
   private long len;
   /** Changed flag. */
@@ -30,6 +32,7 @@ public final class DataAccess {
    */
   public DataAccess(final IOFile f) throws IOException {
     file = new RandomAccessFile(f.file(), "rw");
+    bytes = IOCounter.bytes(f);
     len = file.length();
     cursor(0);
   }
@@ -227,8 +230,11 @@ public final class DataAccess {
       if(bf.dirty) writeBlock(bf);
       bf.pos = b;
       file.seek(bf.pos);
-      if(bf.pos < file.length())
-        file.readFully(bf.data, 0, (int) Math.min(len - bf.pos, IO.BLOCKSIZE));
+      if(bf.pos < file.length()) {
+        final int l = (int) Math.min(len - bf.pos, IO.BLOCKSIZE);
+        file.readFully(bf.data, 0, l);
+        IOCounter.read(bytes, l);
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -421,6 +427,7 @@ public final class DataAccess {
   private void writeBlock(final Buffer bf) throws IOException {
     file.seek(bf.pos);
     file.write(bf.data);
+    IOCounter.write(bytes, bf.data.length);
     bf.dirty = false;
   }
 
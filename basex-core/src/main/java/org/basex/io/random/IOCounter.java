@@ -0,0 +1,144 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class counts the number of blocks that have been read from disk
+ * by the current thread. Next, it records server-wide statistics on buffer hits
+ * and the number of bytes read and written per database. The I/O of temporary
+ * databases is attributed to the databases they have been created for.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class IOCounter {
+  /** Number of read blocks. */
+  private static final ThreadLocal<long[]> READS = new ThreadLocal<long[]>() {
+    @Override
+    protected long[] initialValue() {
+      return new long[1];
+    }
+  };
+  /** Buffer hits. */
+  private static final StripedCounter HITS = new StripedCounter();
+  /** Buffer misses. */
+  private static final StripedCounter MISSES = new StripedCounter();
+  /** Read and written bytes, indexed by database names. */
+  private static final ConcurrentHashMap<String, StripedCounter[]> BYTES =
+      new ConcurrentHashMap<String, StripedCounter[]>();
+  /** Names of temporary databases, mapped to the names of their databases. */
+  private static final ConcurrentHashMap<String, String> ALIASES =
+      new ConcurrentHashMap<String, String>();
+
+  /** Private constructor. */
+  private IOCounter() { }
+
+  /**
+   * Registers a block that has been read from disk.
+   * @param bytes counters of the database
+   * @param length number of read bytes
+   */
+  static void read(final StripedCounter[] bytes, final int length) {
+    READS.get()[0]++;
+    bytes[0].add(length);
+  }
+
+  /**
+   * Registers a block that has been written to disk.
+   * @param bytes counters of the database
+   * @param length number of written bytes
+   */
+  static void write(final StripedCounter[] bytes, final int length) {
+    bytes[1].add(length);
+  }
+
+  /**
+   * Registers a buffer miss and the buffer hits that preceded it.
+   * @param hits number of buffer hits
+   */
+  static void miss(final long hits) {
+    if(hits != 0) HITS.add(hits);
+    MISSES.inc();
+  }
+
+  /**
+   * Returns the counters for the database of the specified file.
+   * @param file database file
+   * @return counters for read and written bytes
+   */
+  static StripedCounter[] bytes(final IOFile file) {
+    final File dir = file.file().getAbsoluteFile().getParentFile();
+    String db = dir == null ? "" : dir.getName();
+    final String alias = ALIASES.get(db);
+    if(alias != null) db = alias;
+    StripedCounter[] bytes = BYTES.get(db);
+    if(bytes == null) {
+      bytes = new StripedCounter[] { new StripedCounter(), new StripedCounter() };
+      final StripedCounter[] old = BYTES.putIfAbsent(db, bytes);
+      if(old != null) bytes = old;
+    }
+    return bytes;
+  }
+
+  /**
+   * Attributes the I/O of a temporary database to the specified database.
+   * @param name name of the temporary database
+   * @param db name of the database
+   */
+  public static void alias(final String name, final String db) {
+    ALIASES.put(name, db);
+  }
+
+  /**
+   * Discards the counters of a database that has been dropped or renamed.
+   * If the name belongs to a temporary database, only its alias is discarded.
+   * The counters of a database are kept as long as temporary databases exist for it.
+   * @param db name of the database
+   */
+  public static void drop(final String db) {
+    if(ALIASES.remove(db) == null && !ALIASES.containsValue(db)) BYTES.remove(db);
+  }
+
+  /**
+   * Returns the number of blocks that have been read by the current thread.
+   * @return number of blocks
+   */
+  public static long reads() {
+    return READS.get()[0];
+  }
+
+  /**
+   * Returns the number of buffer hits. As hits are only published when a buffer misses,
+   * the returned value may be slightly lower than the actual number.
+   * @return number of hits
+   */
+  public static long hits() {
+    return HITS.get();
+  }
+
+  /**
+   * Returns the number of buffer misses.
+   * @return number of misses
+   */
+  public static long misses() {
+    return MISSES.get();
+  }
+
+  /**
+   * Returns the number of read and written bytes per database.
+   * @return map with database names and byte counts
+   */
+  public static TreeMap<String, long[]> bytes() {
+    final TreeMap<String, long[]> map = new TreeMap<String, long[]>();
+    for(final Map.Entry<String, StripedCounter[]> e : BYTES.entrySet()) {
+      final StripedCounter[] sc = e.getValue();
+      map.put(e.getKey(), new long[] { sc[0].get(), sc[1].get() });
+    }
+    return map;
+  }
+}
@@ -27,6 +27,8 @@ public final class TableDiskAccess extends TableAccess {
   private final Buffers bm = new Buffers();
   /** File storing all blocks. */
   private final RandomAccessFile file;
+  /** Counters for read and written bytes. */
+  private final StripedCounter[] bytes;
   /** Bitmap storing free (=0) and occupied (=1) pages. */
   private final BitArray freePages;
   /** File lock. */
@@ -78,7 +80,9 @@ public final class TableDiskAccess extends TableAccess {
     in.close();
 
     // initialize data file
-    file = new RandomAccessFile(meta.dbfile(DATATBL).file(), "rw");
+    final IOFile tbl = meta.dbfile(DATATBL);
+    file = new RandomAccessFile(tbl.file(), "rw");
+    bytes = IOCounter.bytes(tbl);
     if(lock) exclusiveLock();
     else sharedLock();
     if(fl == null) throw new BaseXException(Text.DB_PINNED_X, md.name);
@@ -531,6 +535,7 @@ public final class TableDiskAccess extends TableAccess {
       } else {
         file.seek(bf.pos * IO.BLOCKSIZE);
         file.readFully(bf.data);
+        IOCounter.read(bytes, bf.data.length);
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -556,6 +561,7 @@ public final class TableDiskAccess extends TableAccess {
   private void writeBlock(final Buffer bf) throws IOException {
     file.seek(bf.pos * IO.BLOCKSIZE);
     file.write(bf.data);
+    IOCounter.write(bytes, bf.data.length);
     bf.dirty = false;
   }
 
@@ -0,0 +1,180 @@
+package org.basex.io.random;
+
+import java.nio.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class allows main memory access to the database table representation.
+ * The entries are stored in blocks outside the Java heap, which are neither
+ * scanned nor moved by the garbage collector.
+ *
+ * NOTE: this class is not thread-safe.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class TableOffHeapAccess extends TableAccess {
+  /** Number of entries per block (power of two). */
+  private static final int BLOCKPOWER = 16;
+  /** Block mask. */
+  private static final int BLOCKMASK = (1 << BLOCKPOWER) - 1;
+  /** Blocks. */
+  private ByteBuffer[] blocks = new ByteBuffer[Array.CAPACITY];
+  /** Number of allocated blocks. */
+  private int nblocks;
+
+  /**
+   * Stores the table in off-heap blocks.
+   * @param md meta data
+   */
+  public TableOffHeapAccess(final MetaData md) {
+    super(md);
+  }
+
+  @Override
+  public void flush() { }
+
+  @Override
+  public void close() {
+    for(int b = 0; b < nblocks; b++) Util.free(blocks[b]);
+    blocks = new ByteBuffer[0];
+    nblocks = 0;
+  }
+
+  @Override
+  public boolean lock(final boolean lock) {
+    return true;
+  }
+
+  @Override
+  public int read1(final int p, final int o) {
+    return block(p).get(pos(p, o)) & 0xFF;
+  }
+
+  @Override
+  public int read2(final int p, final int o) {
+    return block(p).getShort(pos(p, o)) & 0xFFFF;
+  }
+
+  @Override
+  public int read4(final int p, final int o) {
+    return block(p).getInt(pos(p, o));
+  }
+
+  @Override
+  public long read5(final int p, final int o) {
+    final ByteBuffer bb = block(p);
+    final int i = pos(p, o);
+    return (bb.get(i) & 0xFFL) << 32 | bb.getInt(i + 1) & 0xFFFFFFFFL;
+  }
+
+  @Override
+  public void write1(final int p, final int o, final int v) {
+    dirty = true;
+    block(p).put(pos(p, o), (byte) v);
+  }
+
+  @Override
+  public void write2(final int p, final int o, final int v) {
+    dirty = true;
+    block(p).putShort(pos(p, o), (short) v);
+  }
+
+  @Override
+  public void write4(final int p, final int o, final int v) {
+    dirty = true;
+    block(p).putInt(pos(p, o), v);
+  }
+
+  @Override
+  public void write5(final int p, final int o, final long v) {
+    dirty = true;
+    final ByteBuffer bb = block(p);
+    final int i = pos(p, o);
+    bb.put(i, (byte) (v >>> 32));
+    bb.putInt(i + 1, (int) v);
+  }
+
+  @Override
+  protected void copy(final byte[] entries, final int pre, final int last) {
+    for(int o = 0, i = pre; i < last; ++i) {
+      final ByteBuffer bb = block(i);
+      final int bp = pos(i, 0);
+      for(int n = 0; n < IO.NODESIZE; n++) bb.put(bp + n, entries[o++]);
+    }
+    dirty = true;
+  }
+
+  @Override
+  public void delete(final int pre, final int nr) {
+    if(nr == 0) return;
+    move(pre + nr, pre);
+  }
+
+  @Override
+  public void insert(final int pre, final byte[] entries) {
+    if(entries.length == 0) return;
+    move(pre, pre + (entries.length >>> IO.NODEPOWER));
+    set(pre, entries);
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Returns the block of the specified entry.
+   * @param p pre value
+   * @return block
+   */
+  private ByteBuffer block(final int p) {
+    return blocks[p >>> BLOCKPOWER];
+  }
+
+  /**
+   * Returns the position of an entry in its block.
+   * @param p pre value
+   * @param o offset
+   * @return position
+   */
+  private static int pos(final int p, final int o) {
+    return (p & BLOCKMASK) << IO.NODEPOWER | o;
+  }
+
+  /**
+   * Moves entries inside the blocks.
+   * @param op source position
+   * @param np destination position
+   */
+  private void move(final int op, final int np) {
+    dirty = true;
+    final int l = meta.size - op;
+    // allocate new blocks
+    final int nb = (l + np >>> BLOCKPOWER) + 1;
+    if(nb > blocks.length) blocks = Arrays.copyOf(blocks, Math.max(nb, Array.newSize(nb)));
+    while(nblocks < nb) {
+      blocks[nblocks++] = ByteBuffer.allocateDirect(1 << BLOCKPOWER + IO.NODEPOWER);
+    }
+    // copy entries, starting from the end if entries are moved forward
+    if(np > op) {
+      for(int i = l - 1; i >= 0; i--) moveEntry(op + i, np + i);
+    } else {
+      for(int i = 0; i < l; i++) moveEntry(op + i, np + i);
+    }
+    meta.size += np - op;
+  }
+
+  /**
+   * Moves a single entry.
+   * @param s source pre value
+   * @param t target pre value
+   */
+  private void moveEntry(final int s, final int t) {
+    final ByteBuffer sb = block(s), tb = block(t);
+    final int sp = pos(s, 0), tp = pos(t, 0);
+    tb.putLong(tp, sb.getLong(sp));
+    tb.putLong(tp + 8, sb.getLong(sp + 8));
+  }
+}
@@ -4,6 +4,7 @@ import java.util.*;
 
 import org.basex.core.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.Expr.Flag;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
@@ -90,7 +91,7 @@ public class MainModule extends StaticScope {
     if(declType != null) return value(ctx).iter();
 
     scope.enter(ctx);
-    final Iter iter = expr.iter(ctx);
+    final Iter iter = ctx.iter(expr);
     return new Iter() {
       @Override
       public Item next() throws QueryException {
@@ -142,6 +143,39 @@ public class MainModule extends StaticScope {
     return expr.accept(new LockVisitor(lr, ctx));
   }
 
+  /**
+   * Checks if the result of this module can be cached. This is not the case if
+   * non-deterministic expressions or function items are found, as the latter may
+   * reference non-deterministic functions.
+   * @return result of check
+   */
+  boolean cacheable() {
+    if(expr.has(Flag.NDT)) return false;
+    final IdentityHashMap<Scope, Object> funcs = new IdentityHashMap<Scope, Object>();
+    return expr.accept(new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        return funcs.put(var, var) != null || var.visit(this);
+      }
+
+      @Override
+      public boolean funcCall(final StaticFuncCall call) {
+        final Scope scp = call.func();
+        return funcs.put(scp, scp) != null || scp.visit(this);
+      }
+
+      @Override
+      public boolean inlineFunc(final Scope sub) {
+        return false;
+      }
+
+      @Override
+      public boolean funcItem(final FuncItem func) {
+        return false;
+      }
+    });
+  }
+
   /**
    * Lock visitor.
    * @author Leo Woerteler
@@ -154,6 +154,8 @@ public final class QueryContext extends Proc {
 
   /** The evaluation stack. */
   public final QueryStack stack = new QueryStack();
+  /** Profiler (only assigned if profiling is enabled). */
+  public Profiler profiler;
 
   /**
    * Constructor.
@@ -166,6 +168,7 @@ public final class QueryContext extends Proc {
     sc = new StaticContext(ctx.prop.is(Prop.XQUERY3));
     maxCalls = ctx.prop.num(Prop.TAILCALLS);
     modules = new ModuleLoader(ctx);
+    profiler = ctx.prop.is(Prop.PROFILE) ? new Profiler() : null;
   }
 
   /**
@@ -325,7 +328,7 @@ public final class QueryContext extends Proc {
    */
   public Iter iter(final Expr e) throws QueryException {
     checkStop();
-    return e.iter(this);
+    return profiler != null ? profiler.iter(e, this) : e.iter(this);
   }
 
   /**
@@ -336,7 +339,7 @@ public final class QueryContext extends Proc {
    */
   public Value value(final Expr expr) throws QueryException {
     checkStop();
-    return expr.value(this);
+    return profiler != null ? profiler.value(expr, this) : expr.value(this);
   }
 
   /**
@@ -347,6 +350,15 @@ public final class QueryContext extends Proc {
     return value != null ? value.data() : null;
   }
 
+  /**
+   * Checks if the result of the evaluated query can be cached.
+   * @return result of check
+   */
+  boolean cacheable() {
+    // results depending on the current time will not be cached
+    return !updating && dtm == null && root != null && root.cacheable();
+  }
+
   @Override
   public void databases(final LockResult lr) {
     lr.read.add(readLocks);
@@ -578,9 +590,14 @@ public final class QueryContext extends Proc {
   void plan(final FDoc doc) {
     // only show root node if functions or variables exist
     final FElem e = new FElem(QueryText.PLAN);
-    funcs.plan(e);
-    vars.plan(e);
-    root.plan(e);
+    Profiler.plan(profiler);
+    try {
+      funcs.plan(e);
+      vars.plan(e);
+      root.plan(e);
+    } finally {
+      Profiler.plan(null);
+    }
     doc.add(e);
   }
 
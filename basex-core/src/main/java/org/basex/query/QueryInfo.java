@@ -6,6 +6,7 @@ import java.util.*;
 
 import org.basex.io.*;
 import org.basex.io.out.*;
+import org.basex.query.util.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -64,6 +65,8 @@ public final class QueryInfo {
       else if(writeLocked.isEmpty()) tb.add("none");
       else tb.add("local ").add(Arrays.toString(writeLocked.toArray()));
       tb.add(NL);
+      final Profiler prof = qp.ctx.profiler;
+      if(prof != null) tb.add(NL).add(PROFILING_CC).add(NL).add(prof.info());
     }
     final IO io = qp.ctx.sc.baseIO();
     final String name = io == null ? "" : " \"" + io.name() + "\"";
@@ -240,6 +240,15 @@ public final class QueryProcessor extends Proc {
     ctx.databases(lr);
   }
 
+  /**
+   * Checks if the result of the evaluated query can be cached. This is not the case
+   * for updating and non-deterministic queries.
+   * @return result of check
+   */
+  public boolean cacheable() {
+    return ctx.cacheable();
+  }
+
   /**
    * Returns the number of performed updates after query execution, or {@code 0}.
    * @return number of updates
@@ -64,7 +64,7 @@ public final class QueryResources {
     // create default collection: use initial node set if it contains all
     // documents of the database. otherwise, create new node set
     addCollection(root ? ctx.value :
-      DBNodeSeq.get(d.resources.docs(), d, true, true), d.meta.name);
+      DBNodeSeq.get(d.resources.pres(""), d, NodeType.DOC, true), d.meta.name);
 
     addData(d);
     synchronized(ctx.context.dbs) { ctx.context.dbs.pin(d); }
@@ -182,7 +182,8 @@ public final class QueryResources {
     // open new database, or create new instance
     if(dt == null) dt = open(qi);
     if(dt == null) dt = create(qi, false, info);
-    return DBNodeSeq.get(dt.resources.docs(qi.path), dt, true, qi.path.isEmpty());
+    return DBNodeSeq.get(dt.resources.pres(qi.path), dt, NodeType.DOC,
+        qi.path.isEmpty());
   }
 
   /**
@@ -129,8 +129,21 @@ public final class List extends Arr {
 
   @Override
   public Value value(final QueryContext ctx) throws QueryException {
-    final ValueBuilder vb = new ValueBuilder();
-    for(final Expr e : expr) vb.add(ctx.value(e));
+    final int el = expr.length;
+    final Value[] vals = new Value[el];
+    long s = 0;
+    for(int e = 0; e < el; e++) {
+      vals[e] = ctx.value(expr[e]);
+      s += vals[e].size();
+    }
+    // large values are concatenated without copying their items
+    if(s > TreeSeq.CHUNK) {
+      Value val = Empty.SEQ;
+      for(final Value v : vals) val = TreeSeq.concat(val, v);
+      return val;
+    }
+    final ValueBuilder vb = new ValueBuilder((int) s);
+    for(final Value v : vals) vb.add(v);
     return vb.value();
   }
 
@@ -3,6 +3,7 @@ package org.basex.query.ft;
 import static org.basex.util.Token.*;
 
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Wildcard expression.
@@ -122,6 +123,29 @@ public final class FTWildcard {
     return tb.finish();
   }
 
+  /**
+   * Returns the literal substrings that occur in all matches. If the wildcard
+   * expression starts or ends with a literal, the start or end of a match is
+   * indicated by a {@code 0} byte.
+   * @return substrings
+   */
+  public TokenList literals() {
+    final TokenList tl = new TokenList();
+    final TokenBuilder tb = new TokenBuilder();
+    if(size != 0 && wc[0] != DOT) tb.addByte((byte) 0);
+    for(int s = 0; s < size; s++) {
+      if(wc[s] == DOT) {
+        if(!tb.isEmpty()) tl.add(tb.finish());
+        tb.reset();
+      } else {
+        tb.add(wc[s]);
+      }
+    }
+    if(size != 0 && wc[size - 1] != DOT) tb.addByte((byte) 0);
+    if(!tb.isEmpty()) tl.add(tb.finish());
+    return tl;
+  }
+
   /**
    * Checks if the wildcard can match a sub-string in a string.
    * @param t token to search for match
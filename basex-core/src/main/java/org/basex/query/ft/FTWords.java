@@ -5,6 +5,7 @@ import static org.basex.util.ft.FTFlag.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
+import org.basex.index.ft.*;
 import org.basex.index.query.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
@@ -176,7 +177,7 @@ public final class FTWords extends FTExpr {
         }
         // [CG] XQuery, Full-Text: check scoring in index-based model
         return iat == null || !iat.more() ? null : new FTNode(iat.matches(),
-            data, iat.next(), len, iat.size(), -1);
+            data, iat.next(), len, iat.size(), iat.docs(), -1);
       }
     };
   }
@@ -369,8 +370,13 @@ public final class FTWords extends FTExpr {
         if(fto.sw != null && fto.sw.contains(tok)) continue;
 
         if(fto.is(WC)) {
-          // don't use index if one of the terms starts with a wildcard
           t = ft.get();
+          // use index if n-grams can be used to find candidates
+          if(md.ftngrams && FTIndex.ngrams(t)) {
+            ic.addCosts(Math.max(1, dt.meta.size >> 10));
+            continue;
+          }
+          // don't use index if one of the terms starts with a wildcard
           if(t[0] == '.') return false;
           // don't use index if certain characters or more than 1 dot are found
           int d = 0;
@@ -14,6 +14,7 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
+import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.server.*;
 import org.basex.util.*;
@@ -71,6 +72,15 @@ public final class FNAdmin extends StandardFunc {
     }
   }
 
+  @Override
+  public Item item(final QueryContext ctx, final InputInfo ii) throws QueryException {
+    checkAdmin(ctx);
+    switch(sig) {
+      case _ADMIN_METRICS: return Str.get(ctx.context.metrics.info(ctx.context));
+      default:             return super.item(ctx, ii);
+    }
+  }
+
   /**
    * Lists all log files.
    * @param ctx query context
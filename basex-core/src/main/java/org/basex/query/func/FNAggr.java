@@ -3,12 +3,17 @@ package org.basex.query.func;
 import static org.basex.query.util.Err.*;
 import static org.basex.query.value.type.AtomType.*;
 
+import java.math.*;
+
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.CmpV.OpV;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
@@ -32,6 +37,13 @@ public final class FNAggr extends StandardFunc {
 
   @Override
   public Item item(final QueryContext ctx, final InputInfo ii) throws QueryException {
+    // aggregate primitive values without creating items
+    final Expr e = expr[0];
+    if(sig != Function.COUNT && (e.isValue() || e instanceof VarRef)) {
+      final Item it = aggr(ctx.value(e));
+      if(it != null) return it;
+    }
+
     final Iter iter = ctx.iter(expr[0]);
     switch(sig) {
       case COUNT:
@@ -90,21 +102,171 @@ public final class FNAggr extends StandardFunc {
     final boolean ymd = !n && !dtd && rs.type == AtomType.YMD;
     if(!n && (!(rs instanceof Dur) || rs.type == DUR)) SUMTYPE.thrw(info, this, rs.type);
 
-    int c = 1;
-    for(Item i; (i = iter.next()) != null;) {
-      if(i.type.isNumberOrUntyped()) {
-        if(!n) FUNDUR.thrw(info, this, i.type);
-      } else {
-        if(n) FUNNUM.thrw(info, this, i.type);
+    long c = 1;
+    if(n) {
+      // numbers: doubles and integers are added without creating intermediate items
+      for(Item i = iter.next(); i != null; i = iter.next(), ++c) {
+        if(rs.type == DBL) {
+          double d = rs.dbl(info);
+          for(; i != null && (i.type == DBL || i.type.isUntyped()); ++c) {
+            d += i.dbl(info);
+            i = iter.next();
+          }
+          rs = Dbl.get(d);
+        } else if(rs.type == ITR) {
+          long l = rs.itr(info);
+          for(; i instanceof Int; i = iter.next(), ++c) l = add(l, i.itr(info));
+          rs = Int.get(l);
+        }
+        if(i == null) break;
+        if(!i.type.isNumberOrUntyped()) FUNNUM.thrw(info, this, i.type);
+        rs = Calc.PLUS.ev(info, rs, i);
+      }
+    } else {
+      for(Item i; (i = iter.next()) != null;) {
+        if(i.type.isNumberOrUntyped()) FUNDUR.thrw(info, this, i.type);
         if(dtd && i.type != AtomType.DTD || ymd && i.type != AtomType.YMD)
           FUNCMP.thrw(info, this, it.type, i.type);
+        rs = Calc.PLUS.ev(info, rs, i);
+        ++c;
       }
-      rs = Calc.PLUS.ev(info, rs, i);
-      ++c;
     }
     return avg ? Calc.DIV.ev(info, rs, Int.get(c)) : rs;
   }
 
+  /**
+   * Adds two integers.
+   * @param l1 first integer
+   * @param l2 second integer
+   * @return sum
+   * @throws QueryException query exception
+   */
+  private long add(final long l1, final long l2) throws QueryException {
+    final double d = l1 + (double) l2;
+    if(d < Long.MIN_VALUE || d > Long.MAX_VALUE) RANGE.thrw(info, d);
+    return l1 + l2;
+  }
+
+  /**
+   * Aggregates integer ranges, sequences of primitive numbers and sequences of database
+   * text and attribute nodes. The values are processed as arrays; the results are
+   * identical to the ones of the item-based evaluation.
+   * @param v value
+   * @return resulting item, or {@code null} if the value cannot be aggregated this way
+   * @throws QueryException query exception
+   */
+  private Item aggr(final Value v) throws QueryException {
+    // skip custom collations
+    if(expr.length == 2 && (sig == Function.MIN || sig == Function.MAX)) return null;
+
+    if(v instanceof RangeSeq) {
+      final RangeSeq rs = (RangeSeq) v;
+      final long s = rs.size(), e = rs.start + (rs.asc ? s - 1 : 1 - s);
+      final long mn = Math.min(rs.start, e), mx = Math.max(rs.start, e);
+      switch(sig) {
+        case MIN: return Int.get(mn);
+        case MAX: return Int.get(mx);
+        default:
+          // closed form; arbitrary precision is used to detect overflows
+          final long lim = 1L << 31;
+          final long sum;
+          if(s < lim && mn > -lim && mx < lim) {
+            sum = (s & 1) == 0 ? (s >> 1) * (mn + mx) : (mn + mx >> 1) * s;
+          } else {
+            final BigInteger bi = BigInteger.valueOf(mn).add(BigInteger.valueOf(mx)).
+                multiply(BigInteger.valueOf(s)).shiftRight(1);
+            if(bi.bitLength() > 63) RANGE.thrw(info, bi.doubleValue());
+            sum = bi.longValue();
+          }
+          return result(Int.get(sum), s);
+      }
+    }
+    if(v instanceof IntSeq && v.type == ITR) {
+      final long[] vals = (long[]) v.toJava();
+      long r = vals[0];
+      final int s = vals.length;
+      switch(sig) {
+        case MIN:
+          for(int i = 1; i < s; i++) if(r > vals[i]) r = vals[i];
+          break;
+        case MAX:
+          for(int i = 1; i < s; i++) if(r < vals[i]) r = vals[i];
+          break;
+        default:
+          for(int i = 1; i < s; i++) r = add(r, vals[i]);
+      }
+      return result(Int.get(r), s);
+    }
+    if(v instanceof DblSeq) return aggr(((DblSeq) v).toJava());
+    if(v instanceof DecSeq) {
+      final BigDecimal[] vals = ((DecSeq) v).toJava();
+      BigDecimal r = vals[0];
+      final int s = vals.length;
+      switch(sig) {
+        case MIN:
+          for(int i = 1; i < s; i++) r = r.min(vals[i]);
+          break;
+        case MAX:
+          for(int i = 1; i < s; i++) r = r.max(vals[i]);
+          break;
+        default:
+          for(int i = 1; i < s; i++) r = r.add(vals[i]);
+      }
+      return result(Dec.get(r), s);
+    }
+    if(v instanceof DBNodeSeq) {
+      // column scan: parse numeric text and attribute values
+      final DBNodeSeq ns = (DBNodeSeq) v;
+      final Data data = ns.data();
+      final int[] pres = ns.pres;
+      final int s = pres.length;
+      final double[] vals = new double[s];
+      for(int i = 0; i < s; i++) {
+        final int k = data.kind(pres[i]);
+        if(k != Data.TEXT && k != Data.ATTR) return null;
+        final double d = data.textDbl(pres[i], k == Data.TEXT);
+        // invalid numbers: use standard evaluation, which raises an error
+        if(Double.isNaN(d)) return null;
+        vals[i] = d;
+      }
+      return aggr(vals);
+    }
+    return null;
+  }
+
+  /**
+   * Aggregates doubles.
+   * @param vals values
+   * @return resulting item
+   * @throws QueryException query exception
+   */
+  private Item aggr(final double[] vals) throws QueryException {
+    double r = vals[0];
+    final int s = vals.length;
+    switch(sig) {
+      case MIN:
+        for(int i = 1; i < s; i++) if(r > vals[i] || Double.isNaN(vals[i])) r = vals[i];
+        break;
+      case MAX:
+        for(int i = 1; i < s; i++) if(r < vals[i] || Double.isNaN(vals[i])) r = vals[i];
+        break;
+      default:
+        for(int i = 1; i < s; i++) r += vals[i];
+    }
+    return result(Dbl.get(r), s);
+  }
+
+  /**
+   * Returns the result of an aggregation.
+   * @param it minimum, maximum or sum
+   * @param c number of values
+   * @return resulting item
+   * @throws QueryException query exception
+   */
+  private Item result(final Item it, final long c) throws QueryException {
+    return sig == Function.AVG ? Calc.DIV.ev(info, it, Int.get(c)) : it;
+  }
+
   /**
    * Returns a minimum or maximum item.
    * @param iter values to be compared
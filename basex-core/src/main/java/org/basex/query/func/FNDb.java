@@ -140,7 +140,7 @@ public final class FNDb extends StandardFunc {
   private Value open(final QueryContext ctx) throws QueryException {
     final Data data = checkData(ctx);
     final String path = expr.length < 2 ? "" : path(1, ctx);
-    return DBNodeSeq.get(data.resources.docs(path), data, true, path.isEmpty());
+    return DBNodeSeq.get(data.resources.pres(path), data, NodeType.DOC, path.isEmpty());
   }
 
   /**
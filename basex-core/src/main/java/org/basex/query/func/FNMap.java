@@ -90,11 +90,11 @@ public final class FNMap extends StandardFunc {
     // collations are ignored here as they may disappear in a future version
     checkColl(expr.length == 2 ? expr[1] : null, ctx);
 
-    Map map = Map.EMPTY;
+    // bindings are collected in a transient builder
+    final MapBuilder mb = new MapBuilder();
     final Iter maps = expr[0].iter(ctx);
-    for(Item m; (m = maps.next()) != null;)
-      map = map.addAll(checkMap(m), ii);
-    return map;
+    for(Item m; (m = maps.next()) != null;) mb.add(checkMap(m), ii);
+    return mb.finish();
   }
 
   /**
@@ -9,13 +9,12 @@ import java.util.regex.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
-import org.basex.query.regex.parse.*;
+import org.basex.query.regex.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
-import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
 /**
@@ -25,9 +24,6 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class FNPat extends StandardFunc {
-  /** Pattern cache. */
-  private final TokenObjMap<Pattern> patterns = new TokenObjMap<Pattern>();
-
   /** Slash pattern. */
   private static final Pattern SLASH = Pattern.compile("\\$");
   /** Slash pattern. */
@@ -91,8 +87,9 @@ public final class FNPat extends StandardFunc {
    * @throws QueryException query exception
    */
   private Item matches(final byte[] val, final QueryContext ctx) throws QueryException {
-    final Pattern p = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
-    return Bln.get(p.matcher(string(val)).find());
+    final RegExPattern rp = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
+    if(rp.literal != null) return Bln.get(rp.find(val));
+    return Bln.get(rp.pattern(info).matcher(string(val)).find());
   }
 
   /**
@@ -105,7 +102,8 @@ public final class FNPat extends StandardFunc {
   private Item analyzeString(final byte[] val, final QueryContext ctx)
       throws QueryException {
 
-    final Pattern p = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
+    final Pattern p = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx).
+        pattern(info);
     if(p.matcher("").matches()) REGROUP.thrw(info);
     final String str = string(val);
     final Matcher m = p.matcher(str);
@@ -180,7 +178,12 @@ public final class FNPat extends StandardFunc {
         (i + 1 == rep.length || !digit(rep[i + 1]))) FUNREPDOL.thrw(info);
     }
 
-    final Pattern p = pattern(expr[1], expr.length == 4 ? expr[3] : null, ctx);
+    final RegExPattern rp = pattern(expr[1], expr.length == 4 ? expr[3] : null, ctx);
+    // literal search: replacement must not contain group references
+    if(rp.literal != null && (rp.quote || !contains(rep, '$') && !contains(rep, '\\')))
+      return Str.get(rp.replace(val, rep));
+
+    final Pattern p = rp.pattern(info);
     if(p.pattern().isEmpty()) REGROUP.thrw(info);
 
     String r = string(rep);
@@ -204,7 +207,10 @@ public final class FNPat extends StandardFunc {
    */
   private Value tokenize(final QueryContext ctx) throws QueryException {
     final byte[] val = checkEStr(expr[0], ctx);
-    final Pattern p = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
+    final RegExPattern rp = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
+    if(rp.literal != null) return StrSeq.get(rp.split(val));
+
+    final Pattern p = rp.pattern(info);
     if(p.matcher("").matches()) REGROUP.thrw(info);
 
     final TokenList tl = new TokenList();
@@ -222,26 +228,18 @@ public final class FNPat extends StandardFunc {
   }
 
   /**
-   * Returns a regular expression pattern.
+   * Returns a regular expression pattern. Compiled patterns are shared by all queries.
    * @param pattern input pattern
    * @param modifier modifier item
    * @param ctx query context
    * @return pattern modifier
    * @throws QueryException query exception
    */
-  private Pattern pattern(final Expr pattern, final Expr modifier,
+  private RegExPattern pattern(final Expr pattern, final Expr modifier,
       final QueryContext ctx) throws QueryException {
 
     final byte[] pat = checkStr(pattern, ctx);
     final byte[] mod = modifier != null ? checkStr(modifier, ctx) : null;
-    final TokenBuilder tb = new TokenBuilder(pat);
-    if(mod != null) tb.add(0).add(mod);
-    final byte[] key = tb.finish();
-    Pattern p = patterns.get(key);
-    if(p == null) {
-      p = RegExParser.parse(pat, mod, ctx.sc.xquery3(), info);
-      patterns.put(key, p);
-    }
-    return p;
+    return RegExPattern.get(pat, mod, ctx.sc.xquery3(), info);
   }
 }
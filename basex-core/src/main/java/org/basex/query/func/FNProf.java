@@ -2,9 +2,11 @@ package org.basex.query.func;
 
 import static org.basex.util.Token.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
@@ -29,9 +31,10 @@ public final class FNProf extends StandardFunc {
   @Override
   public Iter iter(final QueryContext ctx) throws QueryException {
     switch(sig) {
-      case _PROF_MEM:  return mem(ctx);
-      case _PROF_TIME: return time(ctx);
-      default:         return super.iter(ctx);
+      case _PROF_MEM:     return mem(ctx);
+      case _PROF_TIME:    return time(ctx);
+      case _PROF_PROFILE: return profile(ctx);
+      default:            return super.iter(ctx);
     }
   }
 
@@ -161,6 +164,30 @@ public final class FNProf extends StandardFunc {
     };
   }
 
+  /**
+   * Evaluates the specified expression with a profiler and dumps the expressions
+   * that consumed most of the evaluation time.
+   * @param ctx query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Iter profile(final QueryContext ctx) throws QueryException {
+    // optional message
+    final byte[] msg = expr.length > 1 ? checkStr(expr[1], ctx) : null;
+
+    final Profiler prof = ctx.profiler;
+    final Profiler p = new Profiler();
+    ctx.profiler = p;
+    final Value v;
+    try {
+      v = ctx.value(expr[0]).cache().value();
+    } finally {
+      ctx.profiler = prof;
+    }
+    FNInfo.dump(token(Prop.NL + p.info().trim()), msg, ctx);
+    return v.iter();
+  }
+
   /**
    * Sleeps for the specified number of milliseconds.
    * @param ctx query context
@@ -63,6 +63,9 @@ public final class FNSeq extends StandardFunc {
   @Override
   public Value value(final QueryContext ctx) throws QueryException {
     switch(sig) {
+      case INSERT_BEFORE:   return insertBeforeValue(ctx);
+      case REVERSE:         return reverseValue(ctx);
+      case REMOVE:          return removeValue(ctx);
       case SUBSEQUENCE:     return subseqValue(ctx);
       case TAIL:            final Value seq = ctx.value(expr[0]);
                             return SubSeq.get(seq, 1, seq.size() - 1);
@@ -315,6 +318,22 @@ public final class FNSeq extends StandardFunc {
     };
   }
 
+  /**
+   * Inserts items before a specified position in a sequence.
+   * Large sequences are split and concatenated without copying their items.
+   * @param ctx query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value insertBeforeValue(final QueryContext ctx) throws QueryException {
+    final long pos = Math.max(1, checkItr(expr[1], ctx));
+    final Value val = ctx.value(expr[0]);
+    final Value ins = ctx.value(expr[2]);
+    final long p = Math.min(pos - 1, val.size());
+    return TreeSeq.concat(TreeSeq.concat(SubSeq.get(val, 0, p), ins),
+        SubSeq.get(val, p, Long.MAX_VALUE));
+  }
+
   /**
    * Removes an item at a specified position in a sequence.
    * @param ctx query context
@@ -334,6 +353,21 @@ public final class FNSeq extends StandardFunc {
     };
   }
 
+  /**
+   * Removes an item at a specified position in a sequence.
+   * Large sequences are split and concatenated without copying their items.
+   * @param ctx query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value removeValue(final QueryContext ctx) throws QueryException {
+    final long pos = checkItr(expr[1], ctx);
+    final Value val = ctx.value(expr[0]);
+    if(pos < 1 || pos > val.size()) return val;
+    return TreeSeq.concat(SubSeq.get(val, 0, pos - 1),
+        SubSeq.get(val, pos, Long.MAX_VALUE));
+  }
+
   /**
    * Creates a subsequence out of a sequence, starting with start and
    * ending with end.
@@ -510,4 +544,15 @@ public final class FNSeq extends StandardFunc {
       }
     };
   }
+
+  /**
+   * Reverses a sequence. The structure of persistent sequences is preserved.
+   * @param ctx query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value reverseValue(final QueryContext ctx) throws QueryException {
+    final Value val = ctx.value(expr[0]);
+    return val instanceof Seq ? ((Seq) val).reverse() : val;
+  }
 }
@@ -203,13 +203,13 @@ public enum Function {
   PUT(FNGen.class, "put(node,uri)", arg(NOD, STR_ZO), EMP, flag(UPD, NDT)),
   /** XQuery function. */
   UNPARSED_TEXT(FNGen.class, "unparsed-text(uri[,encoding])",
-      arg(STR_ZO, STR), STR_ZO, flag(X30)),
+      arg(STR_ZO, STR), STR_ZO, flag(X30, NDT)),
   /** XQuery function. */
   UNPARSED_TEXT_LINES(FNGen.class, "unparsed-text-lines(uri[,encoding])",
-      arg(STR_ZO, STR), STR_ZM, flag(X30)),
+      arg(STR_ZO, STR), STR_ZM, flag(X30, NDT)),
   /** XQuery function. */
   UNPARSED_TEXT_AVAILABLE(FNGen.class, "unparsed-text-available(uri[,encoding])",
-      arg(STR_ZO, STR), BLN, flag(X30)),
+      arg(STR_ZO, STR), BLN, flag(X30, NDT)),
   /** XQuery function. */
   PARSE_XML(FNGen.class, "parse-xml(string)", arg(STR_ZO), DOC_O, flag(CNS, X30)),
   /** XQuery function. */
@@ -502,6 +502,8 @@ public enum Function {
   _ADMIN_SESSIONS(FNAdmin.class, "sessions()", arg(), ELM_ZM),
   /** XQuery function. */
   _ADMIN_LOGS(FNAdmin.class, "logs([date])", arg(STR), ELM_ZM),
+  /** XQuery function. */
+  _ADMIN_METRICS(FNAdmin.class, "metrics()", arg(), STR, flag(NDT)),
 
   /* FNArchive functions. */
 
@@ -923,6 +925,9 @@ public enum Function {
   _PROF_HUMAN(FNProf.class, "human(integer)", arg(ITR), STR, flag(NDT)),
   /** XQuery function. */
   _PROF_VOID(FNProf.class, "void(value)", arg(ITEM_ZM), EMP, flag(NDT)),
+  /** XQuery function. */
+  _PROF_PROFILE(FNProf.class, "profile(value[,label])",
+      arg(ITEM_ZM, STR), ITEM_ZM, flag(NDT)),
 
   /* FNRandom functions. */
 
@@ -71,6 +71,7 @@ public final class For extends GFLWOR.Clause {
           final Item it = iter == null ? null : iter.next();
           if(it != null) {
             // there's another item to serve
+            ctx.checkStop();
             ++p;
             ctx.set(var, it, info);
             if(pos != null) ctx.set(pos, Int.get(p), info);
@@ -89,7 +90,7 @@ public final class For extends GFLWOR.Clause {
           if(!sub.next(ctx)) return false;
 
           // next iteration, reset iterator and counter
-          iter = expr.iter(ctx);
+          iter = ctx.iter(expr);
           p = 0;
         }
       }
@@ -227,7 +228,8 @@ public final class For extends GFLWOR.Clause {
    */
   boolean toPred(final QueryContext ctx, final VarScope scp, final Expr p)
       throws QueryException {
-    if(empty || vars.length > 1 || !p.removable(var)) return false;
+    // predicates change the focus: skip expressions that depend on the context
+    if(empty || vars.length > 1 || !p.removable(var) || p.has(Flag.CTX)) return false;
     final Expr r = p.inline(ctx, scp, var, new Context(info)), e = r == null ? p : r;
 
     // attach predicates to axis path or filter, or create a new filter
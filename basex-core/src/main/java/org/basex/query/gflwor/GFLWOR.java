@@ -28,6 +28,8 @@ public final class GFLWOR extends ParseExpr {
   Expr ret;
   /** FLWOR clauses. */
   private final LinkedList<Clause> clauses;
+  /** Maximum number of results that will be requested by the caller. */
+  private long limit = Long.MAX_VALUE;
 
   /**
    * Constructor.
@@ -55,7 +57,12 @@ public final class GFLWOR extends ParseExpr {
       }
     };
 
-    for(final Clause cls : clauses) e = cls.eval(e);
+    // only compute the best results if a trailing order by yields at most the limit
+    final Clause last = clauses.peekLast();
+    for(final Clause cls : clauses) {
+      e = cls == last && limit != Long.MAX_VALUE && cls instanceof OrderBy &&
+          ret.type().one() ? ((OrderBy) cls).eval(e, limit) : cls.eval(e);
+    }
     final Eval ev = e;
 
     return new Iter() {
@@ -73,7 +80,7 @@ public final class GFLWOR extends ParseExpr {
             drained = true;
             return null;
           }
-          sub = ret.iter(ctx);
+          sub = ctx.iter(ret);
         }
       }
     };
@@ -267,9 +274,10 @@ public final class GFLWOR extends ParseExpr {
             // inline variable references without type checks
             || expr instanceof VarRef && !lt.var.checksType()
             // inline expressions that occur once, but don't...
-            // - access context (e.g. let $x:=. return <a/>[$x=1]), or
+            // - access context in another focus (e.g. let $x:=. return <a/>[$x=1]), or
             // - construct nodes (e.g. let $x:=<X/> return <X xmlns='xx'>{$x/self::X}</X>)
-            || use == VarUsage.ONCE && !expr.has(Flag.CTX) && !expr.has(Flag.CNS)
+            || use == VarUsage.ONCE && !expr.has(Flag.CNS) &&
+              (!expr.has(Flag.CTX) || inFocus(lt.var, next))
             // inline only cheap axis paths
             || expr instanceof AxisPath && ((AxisPath) expr).cheap()) {
             ctx.compInfo(QueryText.OPTINLINE, lt);
@@ -284,6 +292,40 @@ public final class GFLWOR extends ParseExpr {
     return change;
   }
 
+  /**
+   * Checks if all references to the given variable occur in the focus of this
+   * expression, i.e., not in a path or predicate.
+   * @param v variable
+   * @param p position of the first clause to be checked
+   * @return result of check
+   */
+  private boolean inFocus(final Var v, final int p) {
+    final ASTVisitor visitor = new ASTVisitor() {
+      /** Focus level. */
+      private int level;
+
+      @Override
+      public boolean used(final VarRef ref) {
+        return level == 0 || !ref.var.is(v);
+      }
+
+      @Override
+      public void enterFocus() {
+        level++;
+      }
+
+      @Override
+      public void exitFocus() {
+        level--;
+      }
+    };
+    final ListIterator<Clause> iter = clauses.listIterator(p);
+    while(iter.hasNext()) {
+      if(!iter.next().accept(visitor)) return false;
+    }
+    return ret.accept(visitor);
+  }
+
   /**
    * Flattens FLWR expressions in for or let clauses by including their clauses in this
    * expression.
@@ -612,7 +654,19 @@ public final class GFLWOR extends ParseExpr {
   public Expr copy(final QueryContext ctx, final VarScope scp, final IntObjMap<Var> vs) {
     final LinkedList<Clause> cls = new LinkedList<Clause>();
     for(final Clause cl : clauses) cls.add(cl.copy(ctx, scp, vs));
-    return copyType(new GFLWOR(info, cls, ret.copy(ctx, scp, vs)));
+    final GFLWOR fl = new GFLWOR(info, cls, ret.copy(ctx, scp, vs));
+    fl.limit = limit;
+    return copyType(fl);
+  }
+
+  /**
+   * Limits the number of results that will be requested by the caller.
+   * If the last clause is an {@code order by} clause, only the best tuples
+   * will be sorted and returned.
+   * @param max maximum number of results
+   */
+  public void limit(final long max) {
+    limit = max;
   }
 
   /**
@@ -3,7 +3,6 @@ package org.basex.query.gflwor;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
-import java.util.List;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
@@ -43,6 +42,18 @@ public final class OrderBy extends GFLWOR.Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an evaluator that returns the specified maximum number of tuples.
+   * If the limit is smaller than the number of incoming tuples, only the best tuples
+   * are kept in a bounded heap.
+   * @param sub wrapped evaluator
+   * @param limit maximum number of tuples to be returned
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final long limit) {
     return new Eval() {
       /** Sorted output tuples. */
       private Value[][] tpls;
@@ -68,58 +79,84 @@ public final class OrderBy extends GFLWOR.Clause {
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext ctx) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<Value[]>();
-        while(sub.next(ctx)) {
-          final Item[] key = new Item[keys.length];
-          for(int i = 0; i < keys.length; i++)
-            key[i] = keys[i].expr.item(ctx, keys[i].info);
-          tuples.add(key);
-
-          final Value[] vals = new Value[refs.length];
-          for(int i = 0; i < refs.length; i++) vals[i] = refs[i].value(ctx);
-          tuples.add(vals);
-        }
-
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
-        }
-        // be nice to the garbage collector
-        tuples = null;
+        final ArrayList<Item[]> ks = new ArrayList<Item[]>();
+        final ArrayList<Value[]> vs = new ArrayList<Value[]>();
+        final Comparator<Integer> cmp = comparator(ks);
+        // bounded heap, containing the worst of the best tuples at its head
+        final PriorityQueue<Integer> heap = limit < Integer.MAX_VALUE ?
+            new PriorityQueue<Integer>(11, Collections.reverseOrder(cmp)) : null;
         try {
-          Arrays.sort(perm, new Comparator<Integer>() {
-            @Override
-            public int compare(final Integer x, final Integer y) {
-              try {
-                final Item[] a = ks[x], b = ks[y];
-                for(int k = 0; k < keys.length; k++) {
-                  final Key or = keys[k];
-                  Item m = a[k], n = b[k];
-                  if(m == Dbl.NAN || m == Flt.NAN) m = null;
-                  if(n == Dbl.NAN || n == Flt.NAN) n = null;
-                  if(m != null && n != null && !m.comparable(n))
-                    Err.cast(or.info, m.type, n);
-
-                  final int c = m == null
-                      ? n == null ? 0                 : or.least ? -1 : 1
-                      : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
-                  if(c != 0) return or.desc ? -c : c;
+          while(sub.next(ctx)) {
+            final Item[] key = new Item[keys.length];
+            for(int i = 0; i < keys.length; i++)
+              key[i] = keys[i].expr.item(ctx, keys[i].info);
+            final int n = ks.size();
+            ks.add(key);
+            if(heap != null) {
+              // skip tuples that are not better than the current worst result
+              if(heap.size() == limit) {
+                final Integer w = heap.peek();
+                if(w == null || cmp.compare(n, w) >= 0) {
+                  ks.set(n, null);
+                  vs.add(null);
+                  continue;
                 }
-                return 0;
-              } catch(final QueryException ex) {
-                throw new QueryRTException(ex);
+                heap.poll();
+                ks.set(w, null);
+                vs.set(w, null);
               }
+              heap.add(n);
             }
-          });
+            final Value[] vals = new Value[refs.length];
+            for(int i = 0; i < refs.length; i++) vals[i] = refs[i].value(ctx);
+            vs.add(vals);
+          }
+
+          final int len = heap != null ? heap.size() : ks.size();
+          perm = new Integer[len];
+          if(heap != null) {
+            heap.toArray(perm);
+          } else {
+            for(int i = 0; i < len; i++) perm[i] = i;
+          }
+          Arrays.sort(perm, cmp);
         } catch(final QueryRTException ex) {
           throw ex.getCause();
         }
+        tpls = vs.toArray(new Value[vs.size()][]);
+      }
+    };
+  }
+
+  /**
+   * Returns a comparator for the tuples with the specified keys. Tuples with
+   * equal keys are ordered by their position to keep the order stable.
+   * @param ks keys
+   * @return comparator
+   */
+  private Comparator<Integer> comparator(final ArrayList<Item[]> ks) {
+    return new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer x, final Integer y) {
+        try {
+          final Item[] a = ks.get(x), b = ks.get(y);
+          for(int k = 0; k < keys.length; k++) {
+            final Key or = keys[k];
+            Item m = a[k], n = b[k];
+            if(m == Dbl.NAN || m == Flt.NAN) m = null;
+            if(n == Dbl.NAN || n == Flt.NAN) n = null;
+            if(m != null && n != null && !m.comparable(n))
+              Err.cast(or.info, m.type, n);
+
+            final int c = m == null
+                ? n == null ? 0                 : or.least ? -1 : 1
+                : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
+            if(c != 0) return or.desc ? -c : c;
+          }
+          return x.compareTo(y);
+        } catch(final QueryException ex) {
+          throw new QueryRTException(ex);
+        }
       }
     };
   }
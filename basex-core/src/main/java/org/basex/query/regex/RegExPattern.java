@@ -0,0 +1,182 @@
+package org.basex.query.regex;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.*;
+
+import org.basex.query.*;
+import org.basex.query.regex.parse.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Compiled XQuery regular expression. Instances are shared by all queries and cached in
+ * a bounded, concurrent map. Expressions without special characters, optionally
+ * preceded by a single {@code ^}, are represented as literals, which are matched on
+ * tokens without invoking the Java regex engine.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class RegExPattern {
+  /** Maximum number of cached expressions. */
+  private static final int MAX = 1 << 10;
+  /** Cached expressions. */
+  private static final ConcurrentHashMap<String, RegExPattern> CACHE =
+      new ConcurrentHashMap<String, RegExPattern>();
+  /** Special characters. */
+  private static final byte[] SPECIAL = token("\\^$.|?*+()[]{}");
+
+  /** Literal ({@code null} if the expression must be evaluated by the regex engine). */
+  public final byte[] literal;
+  /** Indicates if the literal must occur at the beginning of the input. */
+  public final boolean start;
+  /** Indicates if replacement strings are taken literally. */
+  public final boolean quote;
+
+  /** Regular expression. */
+  private final byte[] regex;
+  /** Modifiers (can be {@code null}). */
+  private final byte[] mod;
+  /** XQuery 3.0 syntax. */
+  private final boolean ext;
+  /** Compiled pattern (will be created on demand for literals). */
+  private volatile Pattern pattern;
+
+  /**
+   * Constructor.
+   * @param rx regular expression
+   * @param md modifiers (can be {@code null})
+   * @param xq3 XQuery 3.0 syntax
+   */
+  private RegExPattern(final byte[] rx, final byte[] md, final boolean xq3) {
+    regex = rx;
+    mod = md;
+    ext = xq3;
+
+    boolean q = false, m = false, i = false, x = false, valid = true;
+    if(md != null) {
+      for(final byte b : md) {
+        if(b == 'q' && ext) q = true;
+        else if(b == 'm') m = true;
+        else if(b == 'i') i = true;
+        else if(b == 'x') x = true;
+        else if(b != 's') valid = false;
+      }
+    }
+    quote = q;
+    // whitespaces are only stripped if the expression is not quoted
+    boolean lit = valid && !i && (q || !x);
+
+    final boolean st = !q && !m && startsWith(rx, '^');
+    if(lit && !q) {
+      for(int r = st ? 1 : 0; r < rx.length && lit; r++) lit = !contains(SPECIAL, rx[r]);
+    }
+    final byte[] l = st ? substring(rx, 1) : rx;
+    literal = lit && l.length != 0 ? l : null;
+    start = st;
+  }
+
+  /**
+   * Returns a compiled regular expression.
+   * @param regex regular expression
+   * @param mod modifiers (can be {@code null})
+   * @param ext XQuery 3.0 syntax
+   * @param ii input info
+   * @return expression
+   * @throws QueryException query exception
+   */
+  public static RegExPattern get(final byte[] regex, final byte[] mod, final boolean ext,
+      final InputInfo ii) throws QueryException {
+
+    final String key = (ext ? "3" : "1") + (mod != null ? string(mod) : "") + '\0' +
+        string(regex);
+    RegExPattern rp = CACHE.get(key);
+    if(rp == null) {
+      rp = new RegExPattern(regex, mod, ext);
+      // literals are compiled on demand; other expressions are checked at once
+      if(rp.literal == null) rp.pattern = RegExParser.parse(regex, mod, ext, ii);
+      if(CACHE.size() >= MAX) {
+        final Iterator<String> it = CACHE.keySet().iterator();
+        if(it.hasNext()) {
+          it.next();
+          it.remove();
+        }
+      }
+      CACHE.put(key, rp);
+    }
+    return rp;
+  }
+
+  /**
+   * Returns the compiled Java pattern.
+   * @param ii input info
+   * @return pattern
+   * @throws QueryException query exception
+   */
+  public Pattern pattern(final InputInfo ii) throws QueryException {
+    Pattern p = pattern;
+    if(p == null) {
+      p = RegExParser.parse(regex, mod, ext, ii);
+      pattern = p;
+    }
+    return p;
+  }
+
+  /**
+   * Checks if the literal occurs in the specified input.
+   * @param input input
+   * @return result of check
+   */
+  public boolean find(final byte[] input) {
+    return index(input, 0) != -1;
+  }
+
+  /**
+   * Replaces all occurrences of the literal with the specified replacement.
+   * @param input input
+   * @param rep replacement
+   * @return resulting token
+   */
+  public byte[] replace(final byte[] input, final byte[] rep) {
+    int i = index(input, 0);
+    if(i == -1) return input;
+    final TokenBuilder tb = new TokenBuilder(input.length);
+    int s = 0;
+    do {
+      tb.add(input, s, i).add(rep);
+      s = i + literal.length;
+    } while((i = index(input, s)) != -1);
+    return tb.add(input, s, input.length).finish();
+  }
+
+  /**
+   * Splits the input at all occurrences of the literal.
+   * @param input input
+   * @return tokens
+   */
+  public TokenList split(final byte[] input) {
+    final TokenList tl = new TokenList();
+    if(input.length != 0) {
+      int s = 0;
+      for(int i; (i = index(input, s)) != -1; s = i + literal.length) {
+        tl.add(substring(input, s, i));
+      }
+      tl.add(substring(input, s, input.length));
+    }
+    return tl;
+  }
+
+  /**
+   * Returns the position of the next occurrence of the literal.
+   * @param input input
+   * @param pos start position
+   * @return position or {@code -1}
+   */
+  private int index(final byte[] input, final int pos) {
+    if(start) return pos == 0 && startsWith(input, literal) ? 0 : -1;
+    return indexOf(input, literal, pos);
+  }
+}
@@ -74,6 +74,7 @@ public abstract class DBNew extends BasicOperation {
 
   /**
    * Inserts all documents to be added to a temporary database.
+   * Documents that need to be parsed are built in parallel.
    * @param dt target database
    * @param name name of database
    * @throws QueryException query exception
@@ -82,40 +83,41 @@ public abstract class DBNew extends BasicOperation {
       throws QueryException {
 
     md = dt;
-    final long ds = inputs.size();
-    for(int i = 0; i < ds; i++) {
-      md.insert(md.meta.size, -1, data(inputs.get(i), name));
-      // clear list to recover memory
-      inputs.set(i, null);
-    }
-    inputs = null;
-  }
-
-  /**
-   * Creates a {@link DataClip} instance for the specified document.
-   * @param ni new database input
-   * @param dbname name of database
-   * @return database clip
-   * @throws QueryException query exception
-   */
-  private DataClip data(final NewInput ni, final String dbname) throws QueryException {
-    // add document node
     final Context ctx = qc.context;
-    if(ni.node != null) {
-      final MemData mdata = (MemData) ni.node.dbCopy(ctx.prop).data;
-      mdata.update(0, Data.DOC, ni.path);
-      return new DataClip(mdata);
+    final int ds = inputs.size();
+
+    // parse all inputs
+    final ArrayList<Parser> parsers = new ArrayList<Parser>();
+    for(final NewInput ni : inputs) {
+      if(ni.node == null) {
+        final IOFile dbpath = ctx.mprop.dbpath(string(ni.dbname));
+        parsers.add(new DirParser(ni.io, ctx.prop, dbpath).target(string(ni.path)));
+      }
     }
-
-    // add input
-    final IOFile dbpath = ctx.mprop.dbpath(string(ni.dbname));
-    final Parser p = new DirParser(ni.io, ctx.prop, dbpath).target(string(ni.path));
-    final MemBuilder b = new MemBuilder(dbname, p);
+    final MemData[] parsed;
     try {
-      return new DataClip(b.build());
+      parsed = MemBuilder.build(name, parsers.toArray(new Parser[parsers.size()]));
     } catch(final IOException ex) {
       throw IOERR.thrw(info, ex);
     }
+
+    for(int i = 0, p = 0; i < ds; i++) {
+      final NewInput ni = inputs.get(i);
+      final MemData mdata;
+      if(ni.node != null) {
+        // add document node
+        mdata = (MemData) ni.node.dbCopy(ctx.prop).data;
+        mdata.update(0, Data.DOC, ni.path);
+      } else {
+        mdata = parsed[p];
+        // clear array to recover memory
+        parsed[p++] = null;
+      }
+      md.insert(md.meta.size, -1, new DataClip(mdata));
+      // clear list to recover memory
+      inputs.set(i, null);
+    }
+    inputs = null;
   }
 
   /**
@@ -0,0 +1,298 @@
+package org.basex.query.util;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.random.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.util.*;
+
+/**
+ * This class collects profiling information on the expressions that are evaluated
+ * via {@link QueryContext#iter(Expr)} and {@link QueryContext#value(Expr)}:
+ * the number of evaluations and returned items, the total and self time,
+ * the number of allocated bytes and the number of blocks read from disk.
+ * The information is attached to the nodes of the query plan.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class Profiler {
+  /** Profiler, which is used for creating the current query plan. */
+  private static final ThreadLocal<Profiler> PLAN = new ThreadLocal<Profiler>();
+  /** Indicates if allocated bytes can be measured. */
+  private static final boolean MEMORY = Performance.allocated() >= 0;
+  /** Maximum number of expressions listed in the query info. */
+  private static final int MAX = 5;
+  /** Number of measured values. */
+  private static final int M = 3;
+
+  /** Statistics of the evaluated expressions. */
+  private final IdentityHashMap<ExprInfo, Stats> stats =
+      new IdentityHashMap<ExprInfo, Stats>();
+  /** Statistics of the currently evaluated expressions. */
+  private Stats[] stack = new Stats[Array.CAPACITY];
+  /** Initial measurements (time, allocated bytes, read blocks). */
+  private long[] start = new long[Array.CAPACITY * M];
+  /** Measurements of the nested expressions. */
+  private long[] nested = new long[Array.CAPACITY * M];
+  /** Stack size. */
+  private int size;
+
+  /**
+   * Evaluates the specified expression and returns a profiling iterator.
+   * @param expr expression
+   * @param ctx query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public Iter iter(final Expr expr, final QueryContext ctx) throws QueryException {
+    final Stats s = stats(expr);
+    s.calls++;
+    start(s);
+    final Iter iter;
+    try {
+      iter = expr.iter(ctx);
+    } finally {
+      stop();
+    }
+
+    // node iterators are expected by some path expressions
+    if(iter instanceof NodeIter) {
+      final NodeIter ni = (NodeIter) iter;
+      return new NodeIter() {
+        @Override
+        public ANode next() throws QueryException {
+          start(s);
+          try {
+            final ANode n = ni.next();
+            if(n != null) s.items++;
+            return n;
+          } finally {
+            stop();
+          }
+        }
+        @Override
+        public ANode get(final long i) throws QueryException {
+          return (ANode) ni.get(i);
+        }
+        @Override
+        public long size() {
+          return ni.size();
+        }
+        @Override
+        public boolean reset() {
+          return ni.reset();
+        }
+      };
+    }
+    return new Iter() {
+      @Override
+      public Item next() throws QueryException {
+        start(s);
+        try {
+          final Item it = iter.next();
+          if(it != null) s.items++;
+          return it;
+        } finally {
+          stop();
+        }
+      }
+      @Override
+      public Item get(final long i) throws QueryException {
+        return iter.get(i);
+      }
+      @Override
+      public long size() {
+        return iter.size();
+      }
+      @Override
+      public boolean reset() {
+        return iter.reset();
+      }
+      @Override
+      public Value value() throws QueryException {
+        start(s);
+        try {
+          final Value v = iter.value();
+          s.items += v.size();
+          return v;
+        } finally {
+          stop();
+        }
+      }
+    };
+  }
+
+  /**
+   * Evaluates the specified expression and returns the resulting value.
+   * @param expr expression
+   * @param ctx query context
+   * @return value
+   * @throws QueryException query exception
+   */
+  public Value value(final Expr expr, final QueryContext ctx) throws QueryException {
+    final Stats s = stats(expr);
+    s.calls++;
+    start(s);
+    try {
+      final Value v = expr.value(ctx);
+      s.items += v.size();
+      return v;
+    } finally {
+      stop();
+    }
+  }
+
+  /**
+   * Returns a string with the expressions that consumed most of the evaluation time.
+   * @return info string
+   */
+  public String info() {
+    final ArrayList<Stats> list = new ArrayList<Stats>(stats.values());
+    Collections.sort(list, new Comparator<Stats>() {
+      @Override
+      public int compare(final Stats s1, final Stats s2) {
+        final long d = s2.self - s1.self;
+        return d < 0 ? -1 : d > 0 ? 1 : 0;
+      }
+    });
+    final TokenBuilder tb = new TokenBuilder();
+    final int l = Math.min(MAX, list.size());
+    for(int i = 0; i < l; i++) {
+      final Stats s = list.get(i);
+      tb.add("- ").add(Performance.getTime(s.self, 1)).add(" (self), ");
+      tb.add(Performance.getTime(s.time, 1)).add(" (total), ");
+      tb.addLong(s.calls).add(" calls, ").addLong(s.items).add(" items");
+      if(s.mem >= 0) tb.add(", ").add(Performance.format(s.mem));
+      tb.add(", ").addLong(s.reads).add(" reads: ");
+      tb.add(s.string).add(Prop.NL);
+    }
+    return tb.toString();
+  }
+
+  /**
+   * Assigns the profiler that will be used for creating a query plan.
+   * @param prof profiler (can be {@code null})
+   */
+  public static void plan(final Profiler prof) {
+    if(prof == null) PLAN.remove();
+    else PLAN.set(prof);
+  }
+
+  /**
+   * Attaches the profiling information of the specified expression to its plan node.
+   * @param expr expression
+   * @param el plan node
+   */
+  public static void plan(final ExprInfo expr, final FElem el) {
+    final Profiler prof = PLAN.get();
+    final Stats s = prof == null ? null : prof.stats.get(expr);
+    if(s == null) return;
+    el.add(new FAttr(token("calls"), token(s.calls)));
+    el.add(new FAttr(token("items"), token(s.items)));
+    el.add(new FAttr(token("time"), token(Performance.getTime(s.time, 1))));
+    el.add(new FAttr(token("self"), token(Performance.getTime(s.self, 1))));
+    if(s.mem >= 0) el.add(new FAttr(token("memory"), token(Performance.format(s.mem))));
+    el.add(new FAttr(token("reads"), token(s.reads)));
+  }
+
+  /**
+   * Returns the statistics of the specified expression.
+   * @param expr expression
+   * @return statistics
+   */
+  private Stats stats(final Expr expr) {
+    Stats s = stats.get(expr);
+    if(s == null) {
+      s = new Stats(expr);
+      stats.put(expr, s);
+    }
+    return s;
+  }
+
+  /**
+   * Starts the measurement of an expression.
+   * @param s statistics
+   */
+  private void start(final Stats s) {
+    if(size == stack.length) {
+      final int ns = Array.newSize(size);
+      stack = Arrays.copyOf(stack, ns);
+      start = Arrays.copyOf(start, ns * M);
+      nested = Arrays.copyOf(nested, ns * M);
+    }
+    stack[size] = s;
+    final int o = size++ * M;
+    start[o] = System.nanoTime();
+    start[o + 1] = Performance.allocated();
+    start[o + 2] = IOCounter.reads();
+    nested[o] = 0;
+    nested[o + 1] = 0;
+    nested[o + 2] = 0;
+    s.active++;
+  }
+
+  /**
+   * Stops the measurement of the current expression.
+   */
+  private void stop() {
+    final Stats s = stack[--size];
+    stack[size] = null;
+    final int o = size * M;
+    final long time = System.nanoTime() - start[o];
+    final long mem = MEMORY ? Performance.allocated() - start[o + 1] : 0;
+    final long reads = IOCounter.reads() - start[o + 2];
+    s.self += time - nested[o];
+    // recursive calls are already included in the total measurements
+    if(--s.active == 0) {
+      s.time += time;
+      if(s.mem >= 0) s.mem += mem;
+      s.reads += reads;
+    }
+    if(size > 0) {
+      final int p = o - M;
+      nested[p] += time;
+      nested[p + 1] += mem;
+      nested[p + 2] += reads;
+    }
+  }
+
+  /** Statistics of a single expression. */
+  private static final class Stats {
+    /** Chopped string representation of the expression. */
+    final byte[] string;
+    /** Number of evaluations. */
+    long calls;
+    /** Number of returned items. */
+    long items;
+    /** Total time. */
+    long time;
+    /** Self time. */
+    long self;
+    /** Allocated bytes ({@code -1} if not supported). */
+    long mem;
+    /** Number of read blocks. */
+    long reads;
+    /** Number of active evaluations. */
+    int active;
+
+    /**
+     * Constructor.
+     * @param expr expression
+     */
+    Stats(final ExprInfo expr) {
+      // string is created in advance, as the expression may reference closed databases
+      string = chop(token(expr.toString()), 80);
+      mem = MEMORY ? 0 : -1;
+    }
+  }
+}
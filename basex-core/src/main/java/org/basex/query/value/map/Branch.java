@@ -193,6 +193,11 @@ final class Branch extends TrieNode {
     return c == size;
   }
 
+  @Override
+  void cache(final MapBuilder mb, final InputInfo ii) throws QueryException {
+    for(final TrieNode nd : kids) if(nd != null) nd.cache(mb, ii);
+  }
+
   @Override
   void keys(final ValueBuilder ks) {
     for(final TrieNode nd : kids) if(nd != null) nd.keys(ks);
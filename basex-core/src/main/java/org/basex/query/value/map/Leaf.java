@@ -164,6 +164,11 @@ final class Leaf extends TrieNode {
     }
   }
 
+  @Override
+  void cache(final MapBuilder mb, final InputInfo ii) throws QueryException {
+    mb.put(hash, key, value, ii);
+  }
+
   @Override
   void keys(final ValueBuilder ks) {
     ks.add(key);
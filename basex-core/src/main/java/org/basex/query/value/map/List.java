@@ -218,6 +218,11 @@ final class List extends TrieNode {
     return true;
   }
 
+  @Override
+  void cache(final MapBuilder mb, final InputInfo ii) throws QueryException {
+    for(int i = 0; i < size; i++) mb.put(hash, keys[i], values[i], ii);
+  }
+
   @Override
   void keys(final ValueBuilder ks) {
     for(final Item k : keys) ks.add(k);
@@ -0,0 +1,233 @@
+package org.basex.query.value.map;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Transient builder for maps. Bindings are collected in a mutable hash table, and the
+ * immutable trie is created in a single pass when {@link #finish()} is called. In
+ * contrast to repeated insertions, each trie node is only created once.
+ * If a key is added more than once, the last binding wins.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class MapBuilder {
+  /** Initial capacity. */
+  private static final int CAP = 1 << 3;
+
+  /** Hash codes of the keys. */
+  private int[] hashes = new int[CAP];
+  /** Keys. */
+  private Item[] keys = new Item[CAP];
+  /** Values. */
+  private Value[] values = new Value[CAP];
+  /** Hash table, referencing the bindings (offset: 1). */
+  private int[] table = new int[CAP << 1];
+  /** Number of bindings. */
+  private int size;
+  /** Single map, which is returned as is if no other bindings are added. */
+  private Map map;
+
+  /**
+   * Adds a binding. The key is checked in the same way as in {@link Map#insert}.
+   * @param key key
+   * @param value value
+   * @param ii input info
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  public MapBuilder put(final Item key, final Value value, final InputInfo ii)
+      throws QueryException {
+    final Item k = Map.EMPTY.key(key, ii);
+    if(k != null) {
+      materialize(ii);
+      put(hash(k, ii), k, value, ii);
+    }
+    return this;
+  }
+
+  /**
+   * Adds all bindings of the specified map.
+   * @param mp map
+   * @param ii input info
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  public MapBuilder add(final Map mp, final InputInfo ii) throws QueryException {
+    if(mp.mapSize() == 0) return this;
+    if(size == 0 && map == null) {
+      // defer copying until a second map is added
+      map = mp;
+    } else {
+      materialize(ii);
+      mp.root.cache(this, ii);
+    }
+    return this;
+  }
+
+  /**
+   * Returns an immutable map with all bindings. The builder must not be used afterwards.
+   * @return map
+   */
+  public Map finish() {
+    if(map != null) return map;
+    if(size == 0) return Map.EMPTY;
+    final int[] idx = new int[size];
+    for(int i = 0; i < size; i++) idx[i] = i;
+    return new Map(node(idx, new int[size], 0, size, 0));
+  }
+
+  /**
+   * Adds a binding with the specified hash code. Called by {@link TrieNode#cache}.
+   * @param hash hash code of the key
+   * @param key key
+   * @param value value
+   * @param ii input info
+   * @throws QueryException query exception
+   */
+  void put(final int hash, final Item key, final Value value, final InputInfo ii)
+      throws QueryException {
+    final int mask = table.length - 1;
+    int b = spread(hash) & mask;
+    for(int i; (i = table[b]) != 0; b = b + 1 & mask) {
+      if(hashes[--i] == hash && eq(keys[i], key, ii)) {
+        // replace existing binding
+        keys[i] = key;
+        values[i] = value;
+        return;
+      }
+    }
+    if(size == hashes.length) {
+      final int s = Array.newSize(size);
+      hashes = Arrays.copyOf(hashes, s);
+      keys = Array.copy(keys, new Item[s]);
+      values = Array.copy(values, new Value[s]);
+    }
+    hashes[size] = hash;
+    keys[size] = key;
+    values[size] = value;
+    table[b] = ++size;
+    if(size << 1 > table.length) rehash();
+  }
+
+  /**
+   * Copies the bindings of a deferred map to the hash table.
+   * @param ii input info
+   * @throws QueryException query exception
+   */
+  private void materialize(final InputInfo ii) throws QueryException {
+    if(map == null) return;
+    final Map mp = map;
+    map = null;
+    mp.root.cache(this, ii);
+  }
+
+  /**
+   * Doubles the size of the hash table.
+   */
+  private void rehash() {
+    final int[] tbl = new int[table.length << 1];
+    final int mask = tbl.length - 1;
+    for(int i = 0; i < size; i++) {
+      int b = spread(hashes[i]) & mask;
+      while(tbl[b] != 0) b = b + 1 & mask;
+      tbl[b] = i + 1;
+    }
+    table = tbl;
+  }
+
+  /**
+   * Creates a trie node for the specified bindings.
+   * @param idx indexes of the bindings
+   * @param tmp temporary array
+   * @param from first index
+   * @param to index after the last binding
+   * @param lvl level
+   * @return trie node
+   */
+  private TrieNode node(final int[] idx, final int[] tmp, final int from, final int to,
+      final int lvl) {
+
+    final int n = to - from, f = idx[from];
+    if(n == 1) return new Leaf(hashes[f], keys[f], values[f]);
+
+    // identical hash codes: create collision list
+    final int h = hashes[f];
+    int c = from;
+    while(++c < to && hashes[idx[c]] == h);
+    if(c == to) {
+      final Item[] ks = new Item[n];
+      final Value[] vs = new Value[n];
+      for(int i = 0; i < n; i++) {
+        ks[i] = keys[idx[from + i]];
+        vs[i] = values[idx[from + i]];
+      }
+      return new List(h, ks, vs);
+    }
+
+    // distribute bindings to child nodes (counting sort)
+    final int[] starts = new int[TrieNode.KIDS + 1];
+    for(int i = from; i < to; i++) starts[TrieNode.key(hashes[idx[i]], lvl) + 1]++;
+    for(int k = 0; k < TrieNode.KIDS; k++) starts[k + 1] += starts[k];
+    final int[] pos = starts.clone();
+    for(int i = from; i < to; i++) {
+      tmp[from + pos[TrieNode.key(hashes[idx[i]], lvl)]++] = idx[i];
+    }
+    System.arraycopy(tmp, from, idx, from, n);
+
+    final TrieNode[] kids = new TrieNode[TrieNode.KIDS];
+    int used = 0;
+    for(int k = 0; k < TrieNode.KIDS; k++) {
+      final int s = from + starts[k], e = from + starts[k + 1];
+      if(s == e) continue;
+      kids[k] = node(idx, tmp, s, e, lvl + 1);
+      used |= 1 << k;
+    }
+    return new Branch(kids, used, n);
+  }
+
+  /**
+   * Returns the hash code of a key. String and integer keys are processed directly.
+   * @param key key
+   * @param ii input info
+   * @return hash code
+   * @throws QueryException query exception
+   */
+  private static int hash(final Item key, final InputInfo ii) throws QueryException {
+    return key instanceof Str ? Token.hash(((Str) key).string()) : key.hash(ii);
+  }
+
+  /**
+   * Compares two keys. String and integer keys are compared directly.
+   * @param a first key
+   * @param b second key
+   * @param ii input info
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private static boolean eq(final Item a, final Item b, final InputInfo ii)
+      throws QueryException {
+    if(a.type == b.type) {
+      if(a.type == AtomType.STR && a instanceof Str && b instanceof Str)
+        return Token.eq(((Str) a).string(), ((Str) b).string());
+      if(a.type == AtomType.ITR && a instanceof Int && b instanceof Int)
+        return ((Int) a).itr() == ((Int) b).itr();
+    }
+    return TrieNode.eq(a, b, ii);
+  }
+
+  /**
+   * Spreads the bits of a hash code, as the lower bits are used for addressing.
+   * @param hash hash code
+   * @return new hash code
+   */
+  private static int spread(final int hash) {
+    return hash ^ hash >>> 16;
+  }
+}
@@ -48,6 +48,8 @@ abstract class TrieNode {
     @Override
     void keys(final ValueBuilder ks) { }
     @Override
+    void cache(final MapBuilder mb, final InputInfo ii) { }
+    @Override
     boolean hasType(final AtomType kt, final SeqType vt) { return true; }
     @Override
     int hash(final InputInfo ii) throws QueryException { return 0; }
@@ -180,6 +182,14 @@ abstract class TrieNode {
    */
   abstract void keys(final ValueBuilder ks);
 
+  /**
+   * Adds all bindings in this subtree to the specified map builder.
+   * @param mb map builder
+   * @param ii input info
+   * @throws QueryException query exception
+   */
+  abstract void cache(final MapBuilder mb, final InputInfo ii) throws QueryException;
+
   /**
    * Calculates the hash key for the given level.
    * @param hash hash value
@@ -15,6 +15,8 @@ public final class FTNode extends DBNode {
   private final int tl;
   /** Total number of indexed results. */
   private final int is;
+  /** Number of text nodes with indexed results. */
+  private final int docs;
   /** Full-text matches. */
   public FTMatches all;
 
@@ -24,7 +26,7 @@ public final class FTNode extends DBNode {
    * @param s scoring
    */
   public FTNode(final FTMatches a, final double s) {
-    this(a, null, 0, 0, 0, s);
+    this(a, null, 0, 0, 0, 0, s);
   }
 
   /**
@@ -34,15 +36,17 @@ public final class FTNode extends DBNode {
    * @param p pre value
    * @param tol token length
    * @param tis total size indexed results
+   * @param nd number of text nodes with indexed results
    * @param s score value out of the index
    */
   public FTNode(final FTMatches a, final Data d, final int p, final int tol,
-      final int tis, final double s) {
+      final int tis, final int nd, final double s) {
 
     super(d, p, null, NodeType.TXT);
     all = a;
     tl = tol;
     is = tis;
+    docs = nd;
     if(s != -1) score = s;
   }
 
@@ -50,7 +54,11 @@ public final class FTNode extends DBNode {
   public double score() {
     if(score == null) {
       if(all == null) return 0;
-      score = Scoring.textNode(all.size(), is, tl, data.textLen(pre, true));
+      final MetaData md = data.meta;
+      final int len = data.textLen(pre, true);
+      // use BM25 if index statistics are available
+      score = md.ftnodes > 0 ? Scoring.bm25(all.size(), docs, md.ftnodes, len,
+          (double) md.ftlength / md.ftnodes) : Scoring.textNode(all.size(), is, tl, len);
     }
     return score;
   }
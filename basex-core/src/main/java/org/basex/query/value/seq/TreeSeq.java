@@ -0,0 +1,453 @@
+package org.basex.query.value.seq;
+
+import static org.basex.query.util.Err.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.query.value.type.SeqType.Occ;
+import org.basex.util.*;
+
+/**
+ * Persistent sequence, which is represented as a balanced tree of flat values.
+ * Sequences can be concatenated and split in logarithmic time, without copying
+ * their items. Items that are appended or prepended are collected in small arrays
+ * at both ends of the tree, which are only added to the tree when they are full.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class TreeSeq extends Seq {
+  /** Maximum size of buffers and of flat sequences created by concatenation. */
+  public static final int CHUNK = 64;
+  /** Empty buffer. */
+  private static final Item[] NONE = {};
+
+  /** Items at the start. */
+  private final Item[] front;
+  /** Tree with the remaining items (can be {@code null}). */
+  private final Node middle;
+  /** Items at the end. */
+  private final Item[] back;
+  /** Indicates if all items have the same type. */
+  private final boolean homo;
+
+  /**
+   * Constructor.
+   * @param f items at the start
+   * @param m tree (can be {@code null})
+   * @param b items at the end
+   * @param t type of all items (can be {@code null})
+   */
+  private TreeSeq(final Item[] f, final Node m, final Item[] b, final Type t) {
+    super(f.length + size(m) + b.length, t != null ? t : AtomType.ITEM);
+    front = f;
+    middle = m;
+    back = b;
+    homo = t != null;
+  }
+
+  /**
+   * Concatenates two values. Small results are returned as flat sequences;
+   * otherwise, the items of large values will not be copied.
+   * @param v1 first value
+   * @param v2 second value
+   * @return resulting value
+   */
+  public static Value concat(final Value v1, final Value v2) {
+    final long s1 = v1.size(), s2 = v2.size();
+    if(s1 == 0) return v2;
+    if(s2 == 0) return v1;
+    if(s1 + s2 <= CHUNK) return new ValueBuilder((int) (s1 + s2)).add(v1).add(v2).value();
+
+    final TreeSeq t1 = get(v1, true), t2 = get(v2, false);
+    final Type t = t1.homo && t2.homo && t1.type == t2.type ? t1.type : null;
+    final int b1 = t1.back.length, f2 = t2.front.length;
+    // append small sequence to the buffer at the end
+    if(t2.middle == null && b1 + f2 + t2.back.length <= CHUNK)
+      return new TreeSeq(t1.front, t1.middle, concat(t1.back, t2.front, t2.back), t);
+    // prepend small sequence to the buffer at the start
+    if(t1.middle == null && t1.front.length + b1 + f2 <= CHUNK)
+      return new TreeSeq(concat(t1.front, t1.back, t2.front), t2.middle, t2.back, t);
+
+    // add inner buffers to the tree
+    Node m = t1.middle;
+    if(b1 + f2 <= CHUNK) {
+      m = join(m, leaf(concat(t1.back, t2.front, NONE)));
+    } else {
+      m = join(join(m, leaf(t1.back)), leaf(t2.front));
+    }
+    return new TreeSeq(t1.front, join(m, t2.middle), t2.back, t);
+  }
+
+  /**
+   * Returns a subsequence. Called by {@link SubSeq#get}.
+   * @param from starting index
+   * @param len length of the subsequence (at least {@code 2})
+   * @return resulting value
+   */
+  Value sub(final long from, final long len) {
+    final long to = from + len, fl = front.length, ms = size(middle);
+    final Item[] f = copy(front, from, to);
+    final long mf = Math.max(0, Math.min(ms, from - fl));
+    final long mt = Math.max(0, Math.min(ms, to - fl));
+    final Node m = mt > mf ? middle.sub(mf, mt - mf) : null;
+    final Item[] b = copy(back, from - fl - ms, to - fl - ms);
+    final Type t = homo ? type : null;
+
+    // return flat sequence if result is small, or if it is a single leaf
+    if(len <= CHUNK) {
+      final Item[] items = new Item[(int) len];
+      System.arraycopy(f, 0, items, 0, f.length);
+      final int s = f.length + (m != null ? m.writeTo(items, f.length) : 0);
+      System.arraycopy(b, 0, items, s, b.length);
+      return Seq.get(items, items.length, t);
+    }
+    if(f.length == 0 && b.length == 0 && m instanceof Leaf) return ((Leaf) m).value;
+    return new TreeSeq(f, m, b, t);
+  }
+
+  @Override
+  public Item itemAt(final long pos) {
+    final int fl = front.length;
+    if(pos < fl) return front[(int) pos];
+    final long p = pos - fl, ms = size(middle);
+    return p < ms ? middle.get(p) : back[(int) (p - ms)];
+  }
+
+  @Override
+  public ValueIter iter() {
+    return new ValueIter() {
+      /** Size of the tree. */
+      final long ms = TreeSeq.size(middle);
+      /** Current position. */
+      long c;
+      /** Current leaf. */
+      Value leaf;
+      /** Start and end position of the current leaf. */
+      long ls, le;
+
+      @Override
+      public Item get(final long i) {
+        final long p = i - front.length;
+        if(p < 0 || p >= ms) return itemAt(i);
+        if(p < ls || p >= le) {
+          // find leaf with the requested item
+          Node n = middle;
+          long o = 0;
+          while(n instanceof Branch) {
+            final Branch br = (Branch) n;
+            if(p - o < br.left.size) {
+              n = br.left;
+            } else {
+              o += br.left.size;
+              n = br.right;
+            }
+          }
+          leaf = ((Leaf) n).value;
+          ls = o;
+          le = o + n.size;
+        }
+        return leaf.itemAt(p - ls);
+      }
+      @Override
+      public Item next() { return c < size ? get(c++) : null; }
+      @Override
+      public boolean reset() { c = 0; return true; }
+      @Override
+      public long size() { return size; }
+      @Override
+      public Value value() { return TreeSeq.this; }
+    };
+  }
+
+  @Override
+  public int writeTo(final Item[] arr, final int start) {
+    int s = start;
+    System.arraycopy(front, 0, arr, s, front.length);
+    s += front.length;
+    if(middle != null) s += middle.writeTo(arr, s);
+    System.arraycopy(back, 0, arr, s, back.length);
+    return s + back.length - start;
+  }
+
+  @Override
+  public Value reverse() {
+    return new TreeSeq(reverse(back), middle != null ? middle.reverse() : null,
+        reverse(front), homo ? type : null);
+  }
+
+  @Override
+  public boolean homogeneous() {
+    return homo;
+  }
+
+  @Override
+  public SeqType type() {
+    return SeqType.get(type, Occ.ONE_MORE);
+  }
+
+  @Override
+  public Item ebv(final QueryContext ctx, final InputInfo ii) throws QueryException {
+    final Item fst = itemAt(0);
+    if(fst instanceof ANode) return fst;
+    throw CONDTYPE.thrw(ii, this);
+  }
+
+  // STATIC METHODS =====================================================================
+
+  /**
+   * Returns a tree representation of the specified value.
+   * @param val value
+   * @param first add small values to the start or to the end
+   * @return tree
+   */
+  private static TreeSeq get(final Value val, final boolean first) {
+    if(val instanceof TreeSeq) return (TreeSeq) val;
+    final long s = val.size();
+    final Type t = val.homogeneous() ? val.itemAt(0).type : null;
+    if(s > CHUNK) return new TreeSeq(NONE, new Leaf(val), NONE, t);
+    final Item[] items = new Item[(int) s];
+    val.writeTo(items, 0);
+    return first ? new TreeSeq(items, null, NONE, t) : new TreeSeq(NONE, null, items, t);
+  }
+
+  /**
+   * Returns the size of the specified tree.
+   * @param node tree (can be {@code null})
+   * @return size
+   */
+  private static long size(final Node node) {
+    return node != null ? node.size : 0;
+  }
+
+  /**
+   * Concatenates the specified arrays.
+   * @param a1 first array
+   * @param a2 second array
+   * @param a3 third array
+   * @return new array
+   */
+  private static Item[] concat(final Item[] a1, final Item[] a2, final Item[] a3) {
+    final Item[] items = new Item[a1.length + a2.length + a3.length];
+    System.arraycopy(a1, 0, items, 0, a1.length);
+    System.arraycopy(a2, 0, items, a1.length, a2.length);
+    System.arraycopy(a3, 0, items, a1.length + a2.length, a3.length);
+    return items;
+  }
+
+  /**
+   * Copies the specified range of an array. Positions outside the array are ignored.
+   * @param items array
+   * @param from first position
+   * @param to position after the last item
+   * @return new array
+   */
+  private static Item[] copy(final Item[] items, final long from, final long to) {
+    final int f = (int) Math.max(0, Math.min(items.length, from));
+    final int t = (int) Math.max(0, Math.min(items.length, to));
+    return t > f ? Arrays.copyOfRange(items, f, t) : NONE;
+  }
+
+  /**
+   * Returns the items of an array in reverse order.
+   * @param items array
+   * @return new array
+   */
+  private static Item[] reverse(final Item[] items) {
+    final int s = items.length;
+    final Item[] tmp = new Item[s];
+    for(int i = 0; i < s; i++) tmp[i] = items[s - i - 1];
+    return tmp;
+  }
+
+  /**
+   * Creates a leaf with the specified items.
+   * @param items items
+   * @return leaf, or {@code null} if the array is empty
+   */
+  private static Node leaf(final Item[] items) {
+    return items.length == 0 ? null : new Leaf(Seq.get(items, items.length));
+  }
+
+  /**
+   * Concatenates two trees and rebalances the result.
+   * @param n1 first tree (can be {@code null})
+   * @param n2 second tree (can be {@code null})
+   * @return resulting tree
+   */
+  static Node join(final Node n1, final Node n2) {
+    if(n1 == null) return n2;
+    if(n2 == null) return n1;
+    final int d = n1.height - n2.height;
+    if(d > 1) {
+      final Branch b = (Branch) n1;
+      return balance(b.left, join(b.right, n2));
+    }
+    if(d < -1) {
+      final Branch b = (Branch) n2;
+      return balance(join(n1, b.left), b.right);
+    }
+    return new Branch(n1, n2);
+  }
+
+  /**
+   * Creates a new branch and performs a single or double rotation if the heights
+   * of the subtrees differ by more than one.
+   * @param l left subtree
+   * @param r right subtree
+   * @return balanced tree
+   */
+  private static Node balance(final Node l, final Node r) {
+    final int d = l.height - r.height;
+    if(d > 1) {
+      final Branch b = (Branch) l;
+      if(b.left.height >= b.right.height) {
+        return new Branch(b.left, new Branch(b.right, r));
+      }
+      final Branch c = (Branch) b.right;
+      return new Branch(new Branch(b.left, c.left), new Branch(c.right, r));
+    }
+    if(d < -1) {
+      final Branch b = (Branch) r;
+      if(b.right.height >= b.left.height) {
+        return new Branch(new Branch(l, b.left), b.right);
+      }
+      final Branch c = (Branch) b.left;
+      return new Branch(new Branch(l, c.left), new Branch(c.right, b.right));
+    }
+    return new Branch(l, r);
+  }
+
+  /** Tree node. */
+  abstract static class Node {
+    /** Number of items. */
+    final long size;
+    /** Height of the tree. */
+    final int height;
+
+    /**
+     * Constructor.
+     * @param s number of items
+     * @param h height
+     */
+    Node(final long s, final int h) {
+      size = s;
+      height = h;
+    }
+
+    /**
+     * Returns the item at the specified position.
+     * @param pos position
+     * @return item
+     */
+    abstract Item get(final long pos);
+
+    /**
+     * Returns a tree with the specified range of items.
+     * @param from starting index
+     * @param len number of items (at least {@code 1})
+     * @return tree
+     */
+    abstract Node sub(final long from, final long len);
+
+    /**
+     * Returns a tree with the items in reverse order.
+     * @return tree
+     */
+    abstract Node reverse();
+
+    /**
+     * Writes all items to the specified array.
+     * @param arr array to write to
+     * @param start start position
+     * @return number of written items
+     */
+    abstract int writeTo(final Item[] arr, final int start);
+  }
+
+  /** Leaf, containing a flat value. */
+  static final class Leaf extends Node {
+    /** Value. */
+    final Value value;
+
+    /**
+     * Constructor.
+     * @param v value
+     */
+    Leaf(final Value v) {
+      super(v.size(), 1);
+      value = v;
+    }
+
+    @Override
+    Item get(final long pos) {
+      return value.itemAt(pos);
+    }
+
+    @Override
+    Node sub(final long from, final long len) {
+      return len == size ? this : new Leaf(SubSeq.get(value, from, len));
+    }
+
+    @Override
+    Node reverse() {
+      return value instanceof Seq ? new Leaf(((Seq) value).reverse()) : this;
+    }
+
+    @Override
+    int writeTo(final Item[] arr, final int start) {
+      return value.writeTo(arr, start);
+    }
+  }
+
+  /** Branch with two subtrees. */
+  static final class Branch extends Node {
+    /** Left subtree. */
+    final Node left;
+    /** Right subtree. */
+    final Node right;
+
+    /**
+     * Constructor.
+     * @param l left subtree
+     * @param r right subtree
+     */
+    Branch(final Node l, final Node r) {
+      super(l.size + r.size, Math.max(l.height, r.height) + 1);
+      left = l;
+      right = r;
+    }
+
+    @Override
+    Item get(final long pos) {
+      final long ls = left.size;
+      return pos < ls ? left.get(pos) : right.get(pos - ls);
+    }
+
+    @Override
+    Node sub(final long from, final long len) {
+      if(len == size) return this;
+      final long ls = left.size;
+      if(from + len <= ls) return left.sub(from, len);
+      if(from >= ls) return right.sub(from - ls, len);
+      return join(left.sub(from, ls - from), right.sub(0, from + len - ls));
+    }
+
+    @Override
+    Node reverse() {
+      return new Branch(right.reverse(), left.reverse());
+    }
+
+    @Override
+    int writeTo(final Item[] arr, final int start) {
+      final int l = left.writeTo(arr, start);
+      return l + right.writeTo(arr, start + l);
+    }
+  }
+}
@@ -11,6 +11,7 @@ import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.parse.*;
+import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.query.*;
@@ -106,6 +107,10 @@ public final class ClientListener extends Thread {
             replace();
           } else if(sc == ServerCmd.STORE) {
             store();
+          } else if(sc == ServerCmd.BULKADD) {
+            bulk(false);
+          } else if(sc == ServerCmd.BULKREPLACE) {
+            bulk(true);
           } else if(sc != ServerCmd.COMMAND) {
             query(sc);
           } else {
@@ -373,6 +378,54 @@ public final class ClientListener extends Thread {
     execute(new Store(in.readString()));
   }
 
+  /**
+   * Adds or replaces many documents in a single transaction.
+   * @param replace replace existing documents
+   * @throws IOException I/O exception
+   */
+  private void bulk(final boolean replace) throws IOException {
+    final BulkInputs inputs = new BulkInputs();
+    final BulkAdd cmd = new BulkAdd(replace).inputs(inputs);
+    log(cmd + " [...]", null);
+    try {
+      cmd.execute(context);
+      success(cmd.info());
+    } catch(final BaseXException ex) {
+      // skip remaining inputs
+      while(inputs.next() != null);
+      error(ex.getMessage());
+    }
+  }
+
+  /**
+   * Inputs of a bulk update, which are read from the input stream one by one.
+   */
+  private final class BulkInputs implements BulkAdd.Inputs {
+    /** Current path ({@code null} if all inputs have been read). */
+    private String path = "";
+    /** Indicates if the contents of the current input have been read. */
+    private boolean read = true;
+
+    @Override
+    public String next() throws IOException {
+      if(path == null) return null;
+      if(!read) new DecodingInput(in).flush();
+      path = in.readString();
+      if(path.isEmpty()) path = null;
+      read = path == null;
+      return path;
+    }
+
+    @Override
+    public IO input() throws IOException {
+      final DecodingInput di = new DecodingInput(in);
+      final ByteList bl = new ByteList();
+      for(int b; (b = di.read()) != -1;) bl.add(b);
+      read = true;
+      return new IOContent(bl.toArray(), path);
+    }
+  }
+
   /**
    * Executes the specified command.
    * @param cmd command to be executed
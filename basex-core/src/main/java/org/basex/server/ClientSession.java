@@ -139,6 +139,16 @@ public class ClientSession extends Session {
     send(ServerCmd.REPLACE, input, path);
   }
 
+  @Override
+  public void add(final Map<String, InputStream> inputs) throws IOException {
+    send(ServerCmd.BULKADD, inputs);
+  }
+
+  @Override
+  public void replace(final Map<String, InputStream> inputs) throws IOException {
+    send(ServerCmd.BULKREPLACE, inputs);
+  }
+
   @Override
   public void store(final String path, final InputStream input) throws IOException {
     send(ServerCmd.STORE, input, path);
@@ -284,6 +294,30 @@ public class ClientSession extends Session {
     send(input);
   }
 
+  /**
+   * Sends a bulk update command and several inputs to the server.
+   * @param cmd server command
+   * @param inputs inputs, mapped to their target paths
+   * @throws IOException I/O exception
+   */
+  private void send(final ServerCmd cmd, final Map<String, InputStream> inputs)
+      throws IOException {
+
+    sout.write(cmd.code);
+    for(final Map.Entry<String, InputStream> input : inputs.entrySet()) {
+      // empty strings terminate the list of inputs, so the root path is sent instead
+      final String path = input.getKey();
+      send(path.isEmpty() ? "/" : path);
+      final EncodingOutput eo = new EncodingOutput(sout);
+      final InputStream is = input.getValue();
+      for(int b; (b = is.read()) != -1;) eo.write(b);
+      sout.write(0);
+    }
+    sout.write(0);
+    sout.flush();
+    receive(null);
+  }
+
   /**
    * Retrieves data from the server.
    * @param bi buffered server input
@@ -1,10 +1,13 @@
 package org.basex.server;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.parse.*;
+import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.util.*;
 
@@ -81,6 +84,16 @@ public class LocalSession extends Session {
     execute(new Replace(path), input);
   }
 
+  @Override
+  public void add(final Map<String, InputStream> inputs) throws IOException {
+    execute(new BulkAdd(false), inputs);
+  }
+
+  @Override
+  public void replace(final Map<String, InputStream> inputs) throws IOException {
+    execute(new BulkAdd(true), inputs);
+  }
+
   @Override
   public void store(final String path, final InputStream input) throws IOException {
     execute(new Store(path), input);
@@ -98,6 +111,34 @@ public class LocalSession extends Session {
     info = cmd.info();
   }
 
+  /**
+   * Executes a bulk update command.
+   * @param cmd command to be executed
+   * @param inputs inputs, mapped to their target paths
+   * @throws IOException I/O exception
+   */
+  private void execute(final BulkAdd cmd, final Map<String, InputStream> inputs)
+      throws IOException {
+    final Iterator<Map.Entry<String, InputStream>> iter = inputs.entrySet().iterator();
+    cmd.inputs(new BulkAdd.Inputs() {
+      /** Current input. */
+      private Map.Entry<String, InputStream> input;
+
+      @Override
+      public String next() {
+        input = iter.hasNext() ? iter.next() : null;
+        return input != null ? input.getKey() : null;
+      }
+
+      @Override
+      public IO input() throws IOException {
+        return new IOContent(new BufferInput(input.getValue()).content(), input.getKey());
+      }
+    });
+    cmd.execute(ctx);
+    info = cmd.info();
+  }
+
   @Override
   public LocalQuery query(final String query) {
     return new LocalQuery(query, ctx, out);
@@ -5,6 +5,9 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.regex.*;
 
 import org.basex.core.*;
 import org.basex.io.*;
@@ -21,6 +24,13 @@ import org.basex.util.*;
  *   <li><b>Info</b>: Logging message</li>
  *   <li><b>Performance</b>: Measured time in milliseconds</li>
  * </ul>
+ * If {@link MainProp#LOGFORMAT} is set to {@code json}, each entry is written as
+ * JSON object in a single line.
+ *
+ * Entries are added to a lock-free ring buffer and written by a background thread,
+ * which flushes the file after each batch. If the buffer is full, the calling thread
+ * will be blocked, or entries will be dropped or sampled, depending on the value of
+ * {@link MainProp#LOGOVERFLOW}.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
@@ -33,11 +43,42 @@ public final class Log {
   /** REQUEST string. */
   public static final String REQUEST = "REQUEST";
 
+  /** Capacity of the ring buffer. */
+  private static final int CAPACITY = 1 << 13;
+  /** Number of bytes, after which a batch will be written. */
+  private static final int BATCH = 1 << 16;
+  /** Maximum time the writer waits for new entries (nanoseconds). */
+  private static final long WAIT = 100000000L;
+  /** Sampling rate if the buffer is more than half full. */
+  private static final int SAMPLE = 10;
+  /** JSON keys. */
+  private static final String[] KEYS = { "address", "user", "type", "info" };
+  /** Measured time, written as last column. */
+  private static final Pattern MS = Pattern.compile("^\\d+(\\.\\d+)?(E-?\\d+)? ms$");
+  /** Allowed values of {@link MainProp#LOGFORMAT} (the first one is the default). */
+  private static final String[] FORMATS = { "text", "json" };
+  /** Allowed values of {@link MainProp#LOGOVERFLOW} (the first one is the default). */
+  private static final String[] OVERFLOWS = { "block", "drop", "sample" };
+
   /** Main properties. */
   private final MainProp mprop;
-  /** Start date of log. */
+  /** Buffered entries. */
+  private final RingBuffer<Entry> entries = new RingBuffer<Entry>(CAPACITY);
+  /** Number of dropped entries. */
+  private final AtomicLong dropped = new AtomicLong();
+  /** Number of sampled entries. */
+  private final AtomicLong sampled = new AtomicLong();
+  /** Last invalid option value that has been reported. */
+  private volatile String invalid;
+  /** Writer thread. */
+  private volatile Thread writer;
+  /** Indicates if the writer is idle. */
+  private volatile boolean idle;
+  /** Indicates if the writer is to be stopped. */
+  private volatile boolean stopped;
+  /** Start date of log (only accessed by the writer). */
   private String start;
-  /** Output stream. */
+  /** Output stream (only accessed by the writer). */
   private FileOutputStream fos;
 
   /**
@@ -52,7 +93,7 @@ public final class Log {
    * Writes an error to the log file.
    * @param th throwable
    */
-  public synchronized void writeError(final Throwable th) {
+  public void writeError(final Throwable th) {
     writeServer(ERROR, Util.message(th));
   }
 
@@ -60,7 +101,7 @@ public final class Log {
    * Writes a server entry to the log file.
    * @param str strings to be written
    */
-  public synchronized void writeServer(final Object... str) {
+  public void writeServer(final Object... str) {
     final Object[] tmp = new Object[str.length + 2];
     tmp[0] = SERVER;
     tmp[1] = Text.ADMIN;
@@ -72,67 +113,78 @@ public final class Log {
    * Writes an entry to the log file.
    * @param str strings to be written
    */
-  public synchronized void write(final Object... str) {
-    if(!mprop.is(MainProp.LOG)) {
-      close();
-      return;
-    }
+  public void write(final Object... str) {
+    if(!mprop.is(MainProp.LOG)) return;
 
-    // initializes the output stream and returns the current date
-    final Date date = new Date();
-    try {
-      // check if day has changed
-      final String nstart = DateTime.format(date, DateTime.DATE);
-      if(fos != null && !start.equals(nstart)) close();
-
-      // create new log file
-      if(fos == null) {
-        final IOFile dir = dir();
-        dir.md();
-        fos = new FileOutputStream(new IOFile(dir, nstart + IO.LOGSUFFIX).file(), true);
-        start = nstart;
+    // values are converted to strings immediately, as they may change
+    boolean error = false;
+    final String[] cols = new String[str.length];
+    for(int s = 0; s < str.length; s++) {
+      final Object o = str[s];
+      if(o == null) {
+        cols[s] = REQUEST;
+      } else if(o instanceof Boolean) {
+        error |= !(Boolean) o;
+        cols[s] = (Boolean) o ? OK : ERROR;
+      } else if(o instanceof Throwable) {
+        error = true;
+        cols[s] = Util.message((Throwable) o);
+      } else {
+        cols[s] = o.toString();
       }
+    }
+    final Entry entry = new Entry(System.currentTimeMillis(), cols);
 
-      // construct log text
-      final int ml = mprop.num(MainProp.LOGMSGMAXLEN);
-      final TokenBuilder tb = new TokenBuilder(DateTime.format(date, DateTime.TIME));
-      for(final Object s : str) {
-        tb.add('\t');
-        String st;
-        if(s == null) st = REQUEST;
-        else if(s instanceof Boolean) st = (Boolean) s ? OK : ERROR;
-        else if(s instanceof Throwable) st = Util.message((Throwable) s);
-        else st = s.toString();
-        tb.add(chop(token(st.replaceAll("\\s+", " ").trim()), ml));
+    if(writer == null) start();
+    final String overflow = option(MainProp.LOGOVERFLOW, OVERFLOWS);
+    if(overflow.equals("sample") && !error && entries.size() > CAPACITY / 2 &&
+        sampled.incrementAndGet() % SAMPLE != 0) {
+      dropped.incrementAndGet();
+    } else if(overflow.equals("block")) {
+      while(!entries.offer(entry)) {
+        LockSupport.unpark(writer);
+        LockSupport.parkNanos(WAIT / 1000);
       }
-      tb.add(Prop.NL);
+    } else if(!entries.offer(entry)) {
+      dropped.incrementAndGet();
+    }
+    if(idle) LockSupport.unpark(writer);
+  }
 
-      // write and flush text
-      fos.write(tb.finish());
-      fos.flush();
-    } catch(final IOException ex) {
-      Util.stack(ex);
+  /**
+   * Waits until all buffered entries have been written.
+   */
+  public void flush() {
+    final Thread w = writer;
+    if(w == null) return;
+    while(w.isAlive() && (entries.size() != 0 || !idle)) {
+      LockSupport.unpark(w);
+      Performance.sleep(1);
     }
   }
 
   /**
-   * Closes the log file.
+   * Writes all buffered entries, stops the writer and closes the log file.
    */
   public synchronized void close() {
-    if(fos == null) return;
+    final Thread w = writer;
+    if(w == null) return;
+    stopped = true;
+    LockSupport.unpark(w);
     try {
-      fos.close();
-      fos = null;
-    } catch(final IOException ex) {
-      Util.stack(ex);
+      w.join();
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
     }
+    writer = null;
+    stopped = false;
   }
 
   /**
    * Returns a reference to the log directory.
    * @return log directory
    */
-  public synchronized IOFile dir() {
+  public IOFile dir() {
     // log suffix, plural
     return mprop.dbpath(IO.LOGSUFFIX + 's');
   }
@@ -141,7 +193,187 @@ public final class Log {
    * Returns all log files.
    * @return log directory
    */
-  public synchronized IOFile[] files() {
+  public IOFile[] files() {
+    flush();
     return dir().children(".*\\" + IO.LOGSUFFIX);
   }
+
+  // PRIVATE METHODS ====================================================================
+
+  /**
+   * Starts the writer thread.
+   */
+  private synchronized void start() {
+    if(writer != null) return;
+    final Thread w = new Thread() {
+      @Override
+      public void run() {
+        process();
+      }
+    };
+    w.setName(Prop.NAME + "Log");
+    w.setDaemon(true);
+    idle = false;
+    writer = w;
+    w.start();
+  }
+
+  /**
+   * Writes buffered entries in batches until the writer is stopped.
+   */
+  private void process() {
+    final TokenBuilder tb = new TokenBuilder();
+    while(true) {
+      for(Entry e; (e = entries.poll()) != null;) {
+        add(e, tb);
+        if(tb.size() >= BATCH) write(tb);
+      }
+      final long d = dropped.getAndSet(0);
+      if(d != 0) {
+        add(new Entry(System.currentTimeMillis(), new String[] {
+          SERVER, Text.ADMIN, ERROR, d + " log entries dropped" }), tb);
+      }
+      write(tb);
+      idle = true;
+      if(entries.size() == 0) {
+        if(stopped) break;
+        if(!mprop.is(MainProp.LOG)) close(null);
+        LockSupport.parkNanos(this, WAIT);
+      }
+      idle = false;
+    }
+    close(null);
+  }
+
+  /**
+   * Adds a formatted entry to the specified token builder.
+   * If the day has changed, the current log file is closed.
+   * @param entry entry
+   * @param tb token builder
+   */
+  private void add(final Entry entry, final TokenBuilder tb) {
+    final Date date = new Date(entry.time);
+    final String day = DateTime.format(date, DateTime.DATE);
+    if(!day.equals(start)) close(tb);
+    start = day;
+
+    final int ml = mprop.num(MainProp.LOGMSGMAXLEN);
+    final String time = DateTime.format(date, DateTime.TIME);
+    final boolean json = option(MainProp.LOGFORMAT, FORMATS).equals("json");
+    if(json) {
+      tb.add("{\"time\":");
+      json(time, tb);
+    } else {
+      tb.add(time);
+    }
+    final String[] cols = entry.cols;
+    final int cl = cols.length;
+    for(int c = 0; c < cl; c++) {
+      final byte[] value = chop(token(cols[c].replaceAll("\\s+", " ").trim()), ml);
+      if(json) {
+        tb.add(',');
+        final String string = string(value);
+        if(c >= KEYS.length && c == cl - 1 && MS.matcher(string).matches()) {
+          // measured time: numeric value
+          json("ms", tb);
+          tb.add(':').add(string.substring(0, string.length() - 3));
+        } else {
+          json(c < KEYS.length ? KEYS[c] : "col" + (c + 1), tb);
+          tb.add(':');
+          json(string, tb);
+        }
+      } else {
+        tb.add('\t').add(value);
+      }
+    }
+    tb.add(json ? "}" : "").add(Prop.NL);
+  }
+
+  /**
+   * Returns the value of the specified option. If the value is invalid, the default
+   * value is returned, and an error is reported once.
+   * @param option option
+   * @param allowed allowed values (the first one is the default)
+   * @return value
+   */
+  private String option(final Object[] option, final String[] allowed) {
+    final String value = mprop.get(option);
+    for(final String a : allowed) if(a.equals(value)) return value;
+    final String key = option[0] + "=" + value;
+    if(!key.equals(invalid)) {
+      invalid = key;
+      Util.errln(INVALID_VALUE_X_X, option[0], value);
+    }
+    return allowed[0];
+  }
+
+  /**
+   * Adds a JSON string to the specified token builder.
+   * @param string string
+   * @param tb token builder
+   */
+  private static void json(final String string, final TokenBuilder tb) {
+    tb.add('"');
+    final int sl = string.length();
+    for(int s = 0; s < sl; s++) {
+      final char ch = string.charAt(s);
+      if(ch == '"' || ch == '\\') tb.add('\\').add(ch);
+      else if(ch < ' ') tb.add(String.format("\\u%04x", (int) ch));
+      else tb.add(ch);
+    }
+    tb.add('"');
+  }
+
+  /**
+   * Writes and flushes the specified entries.
+   * @param tb token builder
+   */
+  private void write(final TokenBuilder tb) {
+    if(tb.size() == 0) return;
+    try {
+      if(fos == null) {
+        final IOFile dir = dir();
+        dir.md();
+        fos = new FileOutputStream(new IOFile(dir, start + IO.LOGSUFFIX).file(), true);
+      }
+      fos.write(tb.finish());
+      fos.flush();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    tb.reset();
+  }
+
+  /**
+   * Writes the pending entries and closes the log file.
+   * @param tb pending entries (may be {@code null})
+   */
+  private void close(final TokenBuilder tb) {
+    if(tb != null) write(tb);
+    if(fos == null) return;
+    try {
+      fos.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    fos = null;
+  }
+
+  /** Log entry. */
+  private static final class Entry {
+    /** Timestamp. */
+    final long time;
+    /** Columns. */
+    final String[] cols;
+
+    /**
+     * Constructor.
+     * @param t timestamp
+     * @param c columns
+     */
+    Entry(final long t, final String[] c) {
+      time = t;
+      cols = c;
+    }
+  }
 }
@@ -165,7 +165,8 @@ final class QueryListener extends Proc {
         Util.debug(ex);
         throw new BaseXException(BASX_STACKOVERFLOW.desc);
       } catch(final ProcException ex) {
-        throw new BaseXException(TIMEOUT_EXCEEDED);
+        final String msg = ex.getMessage();
+        throw new BaseXException(msg != null ? msg : TIMEOUT_EXCEEDED);
       }
     } finally {
       // close processor and unregisters the process
@@ -37,6 +37,10 @@ public enum ServerCmd {
   STORE(13),
   /** Code for binding a context item: {id}0{val}0{type}0. */
   CONTEXT(14),
+  /** Code for adding many documents in one transaction: {path}0{input}0...0. */
+  BULKADD(15),
+  /** Code for replacing many documents in one transaction: {path}0{input}0...0. */
+  BULKREPLACE(16),
   /** Code for returning the update flag: {id}0. */
   UPDATING(30),
   /** Code for executing a query and returning all information relevant for XQJ: {id}0. */
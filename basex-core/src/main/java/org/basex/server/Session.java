@@ -1,6 +1,7 @@
 package org.basex.server;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.io.out.*;
@@ -86,6 +87,21 @@ public abstract class Session {
   public abstract void replace(final String path, final InputStream input)
       throws IOException;
 
+  /**
+   * Adds many documents to the opened database in a single transaction.
+   * @param inputs xml inputs, mapped to their target paths
+   * @throws IOException I/O exception
+   */
+  public abstract void add(final Map<String, InputStream> inputs) throws IOException;
+
+  /**
+   * Replaces many documents in an open database in a single transaction.
+   * @param inputs new contents, mapped to the paths of the documents to replace
+   * @throws IOException I/O exception
+   */
+  public abstract void replace(final Map<String, InputStream> inputs)
+      throws IOException;
+
   /**
    * Stores raw data in an open database.
    * @param path target path
@@ -17,6 +17,19 @@ public final class Levenshtein {
   /** Matrix for calculating Levenshtein distance. */
   private int[][] matrix;
 
+  /** Sub token of the last incremental comparison. */
+  private byte[] psub;
+  /** Normalized characters of the sub token. */
+  private int[] schars;
+  /** Token of the last incremental comparison. */
+  private byte[] ptoken;
+  /** Normalized characters of the last token. */
+  private final int[] tchars = new int[MAX + 1];
+  /** Byte offsets of the characters of the last token. */
+  private final int[] toffs = new int[MAX + 2];
+  /** Number of valid matrix rows for the last token. */
+  private int prows;
+
   /**
    * Compares two character arrays for similarity.
    * @param token token to be compared
@@ -48,6 +61,72 @@ public final class Levenshtein {
     return Math.abs(sl - tl) <= k && ls(token, tl, sub, sl, k);
   }
 
+  /**
+   * Compares two character arrays for similarity. This function yields the same
+   * results as {@link #similar(byte[], byte[], int)}, but it is optimized for
+   * iterating sorted token lists: the matrix rows computed for the prefix that the
+   * token shares with the previously compared token are reused, and the returned
+   * value indicates how many subsequent tokens can be skipped.
+   * @param token token to be compared
+   * @param sub second token to be compared
+   * @param err number of allowed errors; dynamic calculation if value is 0
+   * @return {@code -1} if the arrays are similar; otherwise, the number of leading
+   *   bytes of the token that suffice to reject all tokens starting with these bytes
+   */
+  public int prefix(final byte[] token, final byte[] sub, final int err) {
+    if(psub == null || !eq(psub, sub)) {
+      psub = sub.clone();
+      ptoken = null;
+      int sl = 0;
+      for(int s = 0; s < sub.length; s += cl(sub, s)) ++sl;
+      schars = new int[sl];
+      for(int s = 0, c = 0; s < sub.length; s += cl(sub, s)) schars[c++] = norm(lc(cp(sub, s)));
+    }
+    // use default comparison for too short and too long values
+    final int[] sc = schars;
+    final int sl = sc.length;
+    if(sl < 4 || sl > MAX) return similar(token, sub, err) ? -1 : token.length;
+
+    final int k = err == 0 ? Math.max(1, sl >> 2) : err;
+    final int[][] m = matrix();
+
+    // skip rows of the common prefix
+    int tl = 0;
+    if(ptoken != null) {
+      final int pl = Math.min(ptoken.length, token.length);
+      int c = 0;
+      while(c < pl && ptoken[c] == token[c]) c++;
+      while(tl < prows && toffs[tl + 1] <= c) tl++;
+    }
+    ptoken = token;
+
+    for(int t = toffs[tl]; t < token.length; t += cl(token, t)) {
+      // too long values can only match exactly
+      if(tl == MAX) {
+        prows = tl;
+        return token.length;
+      }
+      final int e = norm(lc(cp(token, t)));
+      final int e2 = tl == 0 ? -1 : tchars[tl - 1];
+      int f2 = tl == 0 ? -1 : sc[sl - 1];
+      int d = Integer.MAX_VALUE;
+      for(int s = 0; s < sl; s++) {
+        final int f = sc[s];
+        int c = m(m[tl][s + 1] + 1, m[tl + 1][s] + 1, m[tl][s] + (e == f ? 0 : 1));
+        if(e == f2 && f == e2) c = m[tl][s];
+        m[tl + 1][s + 1] = c;
+        d = Math.min(d, c);
+        f2 = f;
+      }
+      tchars[tl++] = e;
+      toffs[tl] = t + cl(token, t);
+      prows = tl;
+      if(d > k) return toffs[tl];
+    }
+    prows = tl;
+    return tl != 0 && Math.abs(sl - tl) <= k && m[tl][sl] <= k ? -1 : token.length;
+  }
+
   /**
    * Calculates a Levenshtein distance.
    * @param tk token to be compared
@@ -60,25 +139,16 @@ public final class Levenshtein {
   private boolean ls(final byte[] tk, final int tl, final byte[] sb, final int sl,
       final int k) {
 
-    int[][] m = matrix;
-    if(m == null) {
-      m = new int[MAX + 2][MAX + 2];
-      for(int i = 0; i < m.length; ++i) {
-        m[0][i] = i;
-        m[i][0] = i;
-      }
-      matrix = m;
-    }
-
+    final int[][] m = matrix();
     int e2 = -1, f2 = -1;
-    for(int t = 0; t < tl; t += cl(tk, t)) {
+    for(int t = 0, ti = 0; ti < tl; t += cl(tk, t), ti++) {
       final int e = norm(lc(cp(tk, t)));
       int d = Integer.MAX_VALUE;
-      for(int s = 0; s < sl; s += cl(sb, s)) {
+      for(int s = 0, si = 0; si < sl; s += cl(sb, s), si++) {
         final int f = norm(lc(cp(sb, s)));
-        int c = m(m[t][s + 1] + 1, m[t + 1][s] + 1, m[t][s] + (e == f ? 0 : 1));
-        if(e == f2 && f == e2) c = m[t][s];
-        m[t + 1][s + 1] = c;
+        int c = m(m[ti][si + 1] + 1, m[ti + 1][si] + 1, m[ti][si] + (e == f ? 0 : 1));
+        if(e == f2 && f == e2) c = m[ti][si];
+        m[ti + 1][si + 1] = c;
         d = Math.min(d, c);
         f2 = f;
       }
@@ -88,6 +158,23 @@ public final class Levenshtein {
     return m[tl][sl] <= k;
   }
 
+  /**
+   * Returns the initialized matrix.
+   * @return matrix
+   */
+  private int[][] matrix() {
+    int[][] m = matrix;
+    if(m == null) {
+      m = new int[MAX + 2][MAX + 2];
+      for(int i = 0; i < m.length; ++i) {
+        m[0][i] = i;
+        m[i][0] = i;
+      }
+      matrix = m;
+    }
+    return m;
+  }
+
   /**
    * Gets the minimum of three values.
    * @param a 1st value
@@ -109,7 +196,7 @@ public final class Levenshtein {
   private static boolean same(final byte[] tk, final byte[] sb) {
     int t = 0, s = 0;
     for(; t < tk.length && s < sb.length; t += cl(tk, t), s += cl(sb, s)) {
-      if(lc(norm(cp(tk, t))) != lc(norm(cp(sb, t)))) return false;
+      if(lc(norm(cp(tk, t))) != lc(norm(cp(sb, s)))) return false;
     }
     return true;
   }
@@ -1,5 +1,8 @@
 package org.basex.util;
 
+import java.lang.management.*;
+import java.lang.reflect.*;
+
 /**
  * This class contains methods for performance measurements.
  *
@@ -7,6 +10,11 @@ package org.basex.util;
  * @author Christian Gruen
  */
 public final class Performance {
+  /** Thread bean for measuring allocated bytes. */
+  private static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+  /** Method for measuring allocated bytes ({@code null} if not supported). */
+  private static final Method ALLOCATED = allocatedMethod();
+
   /** Performance timer, using nano seconds. */
   private long time = System.nanoTime();
 
@@ -124,6 +132,39 @@ public final class Performance {
     return rt.totalMemory() - rt.freeMemory();
   }
 
+  /**
+   * Returns the number of bytes that have been allocated by the current thread.
+   * @return number of bytes, or {@code -1} if memory measurement is not supported
+   */
+  public static long allocated() {
+    if(ALLOCATED == null) return -1;
+    try {
+      return (Long) ALLOCATED.invoke(BEAN, Thread.currentThread().getId());
+    } catch(final Exception ex) {
+      Util.debug(ex);
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the method for measuring allocated bytes. The method is only available
+   * in JVMs that provide the {@code com.sun.management.ThreadMXBean} interface.
+   * @return method, or {@code null} if memory measurement is not supported
+   */
+  private static Method allocatedMethod() {
+    try {
+      final Class<?> c = Class.forName("com.sun.management.ThreadMXBean");
+      if(c.isInstance(BEAN) &&
+        (Boolean) c.getMethod("isThreadAllocatedMemorySupported").invoke(BEAN) &&
+        (Boolean) c.getMethod("isThreadAllocatedMemoryEnabled").invoke(BEAN)) {
+        return c.getMethod("getThreadAllocatedBytes", long.class);
+      }
+    } catch(final Throwable th) {
+      Util.debug(th);
+    }
+    return null;
+  }
+
   @Override
   public String toString() {
     return getTime();
@@ -0,0 +1,79 @@
+package org.basex.util;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class provides a bounded, lock-free ring buffer, which can be filled by
+ * multiple producer threads and drained by a single consumer thread.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ * @param <E> element type
+ */
+public final class RingBuffer<E> {
+  /** Slots. A slot is {@code null} if it is empty or has not been published yet. */
+  private final AtomicReferenceArray<E> slots;
+  /** Bit mask for computing slot indexes. */
+  private final int mask;
+  /** Number of claimed slots. */
+  private final AtomicLong tail = new AtomicLong();
+  /** Number of consumed slots. */
+  private volatile long head;
+
+  /**
+   * Constructor.
+   * @param capacity minimum capacity (will be rounded up to the next power of two)
+   */
+  public RingBuffer(final int capacity) {
+    int c = 1;
+    while(c < capacity) c <<= 1;
+    slots = new AtomicReferenceArray<E>(c);
+    mask = c - 1;
+  }
+
+  /**
+   * Adds an element if the buffer is not full.
+   * @param element element (must not be {@code null})
+   * @return {@code true} if the element was added
+   */
+  public boolean offer(final E element) {
+    while(true) {
+      final long t = tail.get();
+      if(t - head > mask) return false;
+      if(tail.compareAndSet(t, t + 1)) {
+        slots.lazySet((int) t & mask, element);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Removes the next element. Must only be called by the consumer thread.
+   * @return element, or {@code null} if no element has been published yet
+   */
+  public E poll() {
+    final long h = head;
+    final int i = (int) h & mask;
+    final E element = slots.get(i);
+    if(element == null) return null;
+    slots.lazySet(i, null);
+    head = h + 1;
+    return element;
+  }
+
+  /**
+   * Returns the number of claimed slots.
+   * @return size
+   */
+  public int size() {
+    return (int) (tail.get() - head);
+  }
+
+  /**
+   * Returns the capacity of the buffer.
+   * @return capacity
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+}
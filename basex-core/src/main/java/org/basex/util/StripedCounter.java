@@ -0,0 +1,45 @@
+package org.basex.util;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class provides a counter that can be cheaply updated by concurrent threads.
+ * Updates are distributed to several cells, which are summed up when the value
+ * is requested.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class StripedCounter {
+  /** Number of stripes (must be a power of two). */
+  private static final int STRIPES = 16;
+  /** Distance between two used cells (avoids false sharing of cache lines). */
+  private static final int PAD = 8;
+  /** Cells. */
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+  /**
+   * Increments the counter.
+   */
+  public void inc() {
+    add(1);
+  }
+
+  /**
+   * Adds the specified value.
+   * @param value value to be added
+   */
+  public void add(final long value) {
+    cells.addAndGet(((int) Thread.currentThread().getId() & STRIPES - 1) * PAD, value);
+  }
+
+  /**
+   * Returns the current value.
+   * @return sum of all cells
+   */
+  public long get() {
+    long sum = 0;
+    for(int s = 0; s < STRIPES; s++) sum += cells.get(s * PAD);
+    return sum;
+  }
+}
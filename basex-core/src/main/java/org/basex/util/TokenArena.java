@@ -0,0 +1,178 @@
+package org.basex.util;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * This class packs tokens into large, shared memory blocks, which can either be
+ * located on the Java heap or outside of it. Tokens are addressed by their offsets.
+ * Each token is preceded by its length, which takes one byte for tokens with less than
+ * 128 bytes and four bytes otherwise. Tokens never span two blocks.
+ * As tokens are never changed, recently requested tokens are cached and returned
+ * without being copied again. The returned arrays must not be modified.
+ *
+ * NOTE: this class is not thread-safe for concurrent writes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class TokenArena {
+  /** Block size (bytes). */
+  private static final int BLOCKSIZE = 1 << 20;
+  /** Number of cache slots (must be 1 << n). */
+  private static final int SLOTS = 1 << 12;
+  /** Maximum length of cached tokens. */
+  private static final int MAXLEN = 1 << 10;
+  /** Cached tokens. */
+  private final Entry[] cache = new Entry[SLOTS];
+  /** Off-heap flag. */
+  private final boolean direct;
+  /** Blocks. */
+  private ByteBuffer[] blocks = new ByteBuffer[Array.CAPACITY];
+  /** Number of used blocks. */
+  private int nblocks;
+  /** Write position in the current block. */
+  private int pos;
+
+  /**
+   * Constructor.
+   * @param dir store blocks outside the Java heap
+   */
+  public TokenArena(final boolean dir) {
+    direct = dir;
+  }
+
+  /**
+   * Adds a token and returns its offset.
+   * @param token token
+   * @return offset
+   */
+  public long add(final byte[] token) {
+    final int tl = token.length;
+    final int sl = tl < 0x80 ? 1 : 4;
+    final int l = sl + tl;
+    // choose block: current one, new one, or dedicated block for large tokens
+    if(nblocks == 0 || pos + l > blocks[nblocks - 1].capacity()) {
+      if(nblocks == blocks.length) blocks = Arrays.copyOf(blocks, Array.newSize(nblocks));
+      final int cap = Math.max(l, BLOCKSIZE);
+      blocks[nblocks++] = direct ? ByteBuffer.allocateDirect(cap) : ByteBuffer.allocate(cap);
+      pos = 0;
+    }
+    final ByteBuffer bb = blocks[nblocks - 1];
+    final long off = (long) (nblocks - 1) << 32 | pos;
+    if(sl == 1) {
+      bb.put(pos, (byte) tl);
+    } else {
+      bb.putInt(pos, tl | 0x80000000);
+    }
+    int p = pos + sl;
+    for(final byte t : token) bb.put(p++, t);
+    pos = p;
+    return off;
+  }
+
+  /**
+   * Returns the token at the specified offset.
+   * @param off offset
+   * @return token
+   */
+  public byte[] get(final long off) {
+    final int s = (int) (off ^ off >>> 32 ^ off >>> 12) & SLOTS - 1;
+    final Entry e = cache[s];
+    if(e != null && e.off == off) return e.token;
+
+    final ByteBuffer bb = blocks[(int) (off >>> 32)];
+    final int p = (int) off, tl = length(bb, p), ps = p + (tl < 0x80 ? 1 : 4);
+    final byte[] token = new byte[tl];
+    if(bb.hasArray()) {
+      System.arraycopy(bb.array(), bb.arrayOffset() + ps, token, 0, tl);
+    } else {
+      final ByteBuffer dup = bb.duplicate();
+      dup.position(ps);
+      dup.get(token);
+    }
+    if(tl <= MAXLEN) cache[s] = new Entry(off, token);
+    return token;
+  }
+
+  /**
+   * Compares the token at the specified offset with another token.
+   * @param off offset
+   * @param token token to be compared
+   * @return result of check
+   */
+  public boolean eq(final long off, final byte[] token) {
+    final ByteBuffer bb = blocks[(int) (off >>> 32)];
+    int p = (int) off;
+    final int tl = length(bb, p);
+    if(tl != token.length) return false;
+    p += tl < 0x80 ? 1 : 4;
+    for(int t = 0; t < tl; t++) if(token[t] != bb.get(p++)) return false;
+    return true;
+  }
+
+  /**
+   * Checks if the token at the specified offset starts with the specified prefix.
+   * @param off offset
+   * @param prefix prefix
+   * @return result of check
+   */
+  public boolean startsWith(final long off, final byte[] prefix) {
+    final ByteBuffer bb = blocks[(int) (off >>> 32)];
+    int p = (int) off;
+    final int tl = length(bb, p), pl = prefix.length;
+    if(pl > tl) return false;
+    p += tl < 0x80 ? 1 : 4;
+    for(int t = 0; t < pl; t++) if(prefix[t] != bb.get(p++)) return false;
+    return true;
+  }
+
+  /**
+   * Returns the number of bytes that have been allocated for the arena.
+   * @return number of bytes
+   */
+  public long allocated() {
+    long s = 0;
+    for(int b = 0; b < nblocks; b++) s += blocks[b].capacity();
+    return s;
+  }
+
+  /**
+   * Releases the memory of all blocks. The arena must not be accessed anymore.
+   */
+  public void close() {
+    for(int b = 0; b < nblocks; b++) Util.free(blocks[b]);
+    blocks = new ByteBuffer[0];
+    nblocks = 0;
+    Arrays.fill(cache, null);
+  }
+
+  /**
+   * Returns the length of the token at the specified position.
+   * @param bb block
+   * @param p position
+   * @return length
+   */
+  private static int length(final ByteBuffer bb, final int p) {
+    final byte b = bb.get(p);
+    return b >= 0 ? b : bb.getInt(p) & 0x7FFFFFFF;
+  }
+
+  /** Cached token. */
+  private static final class Entry {
+    /** Offset. */
+    final long off;
+    /** Token. */
+    final byte[] token;
+
+    /**
+     * Constructor.
+     * @param o offset
+     * @param t token
+     */
+    Entry(final long o, final byte[] t) {
+      off = o;
+      token = t;
+    }
+  }
+}
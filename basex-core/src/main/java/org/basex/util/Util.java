@@ -2,7 +2,9 @@ package org.basex.util;
 
 import static org.basex.core.Text.*;
 import java.io.*;
+import java.lang.reflect.*;
 import java.net.*;
+import java.nio.*;
 import java.util.*;
 
 import org.basex.core.*;
@@ -262,6 +264,33 @@ public final class Util {
     }
   }
 
+  /**
+   * Releases the memory of a direct buffer without waiting for the garbage collector.
+   * The buffer must not be accessed anymore after this call.
+   * @param buffer buffer
+   */
+  public static void free(final ByteBuffer buffer) {
+    if(!buffer.isDirect()) return;
+    try {
+      final Class<?> unsafe = Reflect.find("sun.misc.Unsafe");
+      final Method clean = Reflect.method(unsafe, "invokeCleaner", ByteBuffer.class);
+      if(clean != null) {
+        // Java 9 and later
+        final Field f = unsafe.getDeclaredField("theUnsafe");
+        f.setAccessible(true);
+        clean.invoke(f.get(null), buffer);
+      } else {
+        final Object cleaner = Reflect.invoke(Reflect.method(
+            Reflect.find("sun.nio.ch.DirectBuffer"), "cleaner"), buffer);
+        if(cleaner != null) Reflect.invoke(Reflect.method(cleaner.getClass(), "clean"),
+            cleaner);
+      }
+    } catch(final Exception ex) {
+      // memory will be released by the garbage collector
+      debug(ex);
+    }
+  }
+
   /**
    * Checks if the specified string is "yes", "true" or "on".
    * @param string string to be checked
@@ -13,6 +13,10 @@ public final class Scoring {
   private static final double LOG = Math.E - 1;
   /** Scoring step. */
   private static final double SCORESTEP = 0.8;
+  /** BM25: term frequency saturation. */
+  private static final double K1 = 1.2;
+  /** BM25: length normalization. */
+  private static final double B = 0.75;
 
   /** Private constructor. */
   private Scoring() { }
@@ -81,6 +85,23 @@ public final class Scoring {
     return max((double) npv / is, log(tokl * npv + 1) / log(tl + 1));
   }
 
+  /**
+   * Calculates the BM25 score for a text node, based on the statistics of the
+   * full-text index. The score is normalized to the range {@code [0, 1[}.
+   * @param tf number of matches in the text node
+   * @param df number of text nodes containing the query terms
+   * @param n total number of indexed text nodes
+   * @param tl text length
+   * @param avg average text length
+   * @return score value
+   */
+  public static double bm25(final int tf, final int df, final int n, final int tl,
+      final double avg) {
+    final double idf = log(1 + (n - df + 0.5) / (df + 0.5));
+    final double s = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * tl / avg));
+    return s / (s + 1);
+  }
+
   /**
    * Returns a score for a single step.
    * @param sc current score value
@@ -4,7 +4,9 @@ import static org.junit.Assert.*;
 
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.io.*;
 import org.basex.test.*;
+import org.basex.util.*;
 import org.junit.*;
 
 /**
@@ -118,4 +120,38 @@ public final class XMLParserTest extends SandboxTest {
       assertEquals("Internal parser: " + b, out, result);
     }
   }
+
+  /**
+   * Tests the bulk scanning of texts and attribute values, which spans several
+   * buffers and is interrupted by entities, line breaks and multi-byte characters.
+   * @throws Exception exceptions
+   */
+  @Test
+  public void bulk() throws Exception {
+    context.prop.set(Prop.CHOP, false);
+    context.prop.set(Prop.SERIALIZER, "indent=no");
+
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 1000; i++) {
+      sb.append("<a b='1\n2\r\n3 &amp; \"&#x41;\u00e4'>text \u20ac\ud83d\ude00 ");
+      sb.append(i).append(" &lt;]]&gt; ]]\r\n\r\t<![CDATA[<>]]>\u00fc</a>");
+    }
+    final IOFile file = new IOFile(sandbox(), NAME + IO.XMLSUFFIX);
+    file.write(Token.token(sb.append("</x>").toString()));
+
+    new CreateDB(NAME, file.path()).execute(context);
+    final String expected = new XQuery(".").execute(context);
+    context.prop.set(Prop.INTPARSE, false);
+    new CreateDB(NAME, file.path()).execute(context);
+    assertEquals(expected, new XQuery(".").execute(context));
+
+    // line numbers are counted in bulk mode
+    context.prop.set(Prop.INTPARSE, true);
+    try {
+      new CreateDB(NAME, "<x a='\n\n'>\n\n\n<</x>").execute(context);
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains(Util.info(Text.LINE_X, 6)));
+    }
+  }
 }
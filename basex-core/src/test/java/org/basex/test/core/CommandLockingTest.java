@@ -107,6 +107,8 @@ public class CommandLockingTest extends SandboxTest {
     ckDBs(new Set(NAME, NAME), false, NONE);
     ckDBs(new ShowBackups(), false, BACKUP_LIST);
     ckDBs(new ShowEvents(), false, EVENT_LIST);
+    ckDBs(new ShowLocks(), false, NONE);
+    ckDBs(new ShowMetrics(), false, NONE);
     ckDBs(new ShowSessions(), false, NONE);
     ckDBs(new ShowUsers(), false, ADMIN_LIST);
     ckDBs(new ShowUsers(NAME), false, ADMIN_NAME);
@@ -4,6 +4,7 @@ import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.cmd.*;
@@ -13,6 +14,7 @@ import org.basex.io.*;
 import org.basex.server.*;
 import org.basex.test.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 import org.junit.*;
 
 /**
@@ -370,10 +372,12 @@ public class CommandTest extends SandboxTest {
   public final void optimize() {
     no(new Optimize());
     no(new OptimizeAll());
+    no(new OptimizeAll(true));
     ok(new CreateDB(NAME, FILE));
     ok(new Optimize());
     ok(new Optimize());
     ok(new OptimizeAll());
+    ok(new OptimizeAll(true));
   }
 
   /** Command test. */
@@ -455,6 +459,78 @@ public class CommandTest extends SandboxTest {
     ok(new DropDB(Databases.DBCHARS));
   }
 
+  /** Command test. */
+  @Test
+  public final void restoreIncremental() {
+    ok(new Set(Prop.BACKUPINCR, true));
+    try {
+      ok(new CreateDB(NAME, "<a/>"));
+      ok(new CreateBackup(NAME));
+      // backup names have a resolution of seconds: assign distinct dates
+      stamp("2000-01-01-00-00-00");
+      ok(new XQuery("insert node <b/> into /a"));
+      ok(new CreateBackup(NAME));
+      stamp("2000-01-01-00-00-01");
+      ok(new XQuery("insert node <c/> into /a"));
+      ok(new Restore(NAME));
+      assertEquals("<a><b/></a>", ok(new XQuery("/")).replaceAll("\\s", ""));
+    } finally {
+      ok(new Set(Prop.BACKUPINCR, false));
+    }
+  }
+
+  /**
+   * Creates backups in the background.
+   * @throws Exception exception
+   */
+  @Test
+  public final void backupAsync() throws Exception {
+    ok(new Set(Prop.BACKUPASYNC, true));
+    try {
+      ok(new CreateDB(NAME, "<a/>"));
+      ok(new CreateBackup(NAME));
+      final String backup = backup();
+      final Future<Void> job = CreateBackup.job(backup);
+      if(job != null) assertNull(job.get());
+      assertNull(CreateBackup.job(backup));
+      final IOFile dbpath = dbpath();
+      assertTrue(new IOFile(dbpath, backup + IO.ZIPSUFFIX).exists());
+      assertFalse(ok(new ShowBackups()).contains("'" + backup + "'"));
+      ok(new Restore(NAME));
+      assertEquals("<a/>", ok(new XQuery("/")));
+      ok(new DropBackup(NAME));
+
+      // backups will fail in the background if the compression level is invalid
+      ok(new CreateDB(NAME2, "<a/>"));
+      ok(new Set(Prop.BACKUPLEVEL, 10));
+      try {
+        ok(new CreateBackup(NAME2));
+        final String failed = backup();
+        try {
+          CreateBackup.job(failed).get();
+          fail("Backup was expected to fail.");
+        } catch(final ExecutionException ex) {
+          assertTrue(ex.getCause() instanceof BaseXException);
+        }
+        assertTrue(ok(new ShowBackups()).contains("'" + failed + "'"));
+        // no temporary files or snapshots remain
+        for(final IOFile f : dbpath.children()) {
+          assertFalse(f.name(), f.name().startsWith(failed));
+        }
+        // backups of other databases are not discarded
+        ok(new DropDB(NAME));
+        ok(new DropBackup(NAME));
+        assertNotNull(CreateBackup.job(failed));
+        ok(new DropBackup(NAME2));
+        assertNull(CreateBackup.job(failed));
+      } finally {
+        ok(new Set(Prop.BACKUPLEVEL, 1));
+      }
+    } finally {
+      ok(new Set(Prop.BACKUPASYNC, false));
+    }
+  }
+
   /**
    * Dropping backups.
    */
@@ -475,6 +551,36 @@ public class CommandTest extends SandboxTest {
     ok(new DropBackup(NAME));
   }
 
+  /**
+   * Returns the name of the backup that has been created by the last command.
+   * @return name of backup
+   */
+  private static String backup() {
+    return session.info().replaceAll("(?s).*'(.*)'.*", "$1");
+  }
+
+  /**
+   * Assigns the specified date to the latest backup of the test database.
+   * @param date date
+   */
+  private static void stamp(final String date) {
+    final IOFile dbpath = dbpath();
+    final StringList list = new StringList();
+    for(final IOFile f : dbpath.children()) {
+      if(f.name().matches(NAME + DateTime.PATTERN + IO.ZIPSUFFIX)) list.add(f.name());
+    }
+    assertTrue(new IOFile(dbpath, list.sort(true, false).get(0)).rename(
+        new IOFile(dbpath, NAME + '-' + date + IO.ZIPSUFFIX)));
+  }
+
+  /**
+   * Returns the database directory of the session.
+   * @return database directory
+   */
+  private static IOFile dbpath() {
+    return new IOFile(ok(new Get(MainProp.DBPATH)).replaceAll("^.*?: ", "").trim());
+  }
+
   /** Retrieves raw data. */
   @Test
   public final void retrieve() {
@@ -0,0 +1,415 @@
+package org.basex.test.core;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * This class tests lock wait timeouts, scheduling policies and the lock introspection.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class LockSchedulingTest extends SandboxTest {
+  /** Timeout for lock requests that are expected to fail (milliseconds). */
+  private static final long TIMEOUT = 200;
+  /** Empty list. */
+  private static final String[] NONE = {};
+
+  /** Main properties. */
+  private final MainProp mprop = context.mprop;
+  /** Locking instance. */
+  private final DBLocking locks = new DBLocking(mprop);
+  /** Dummy process. */
+  private final Proc proc = new ShowLocks();
+
+  /** Resets the options. */
+  @After
+  public void after() {
+    mprop.set(MainProp.LOCKPOLICY, "fair");
+    mprop.set(MainProp.PARALLEL, 8);
+    mprop.set(MainProp.QUEUEWEIGHTS, "");
+    mprop.set(MainProp.QUEUELIMITS, "");
+    mprop.set(MainProp.QUEUELATENCY, 0);
+    context.prop.set(Prop.LOCKWAIT, 0);
+  }
+
+  /**
+   * Gives up waiting for a conflicting lock.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void timeout() throws InterruptedException {
+    final Holder h = new Holder(NONE, new String[] { "a" }).begin();
+    assertFalse(locks.acquire(proc, list(), list("a"), TIMEOUT));
+    // the failed request is removed from the queue
+    assertEquals(1, locks.info().contents.size());
+    // locks on other objects can still be acquired
+    assertTrue(locks.acquire(proc, list(), list("b"), TIMEOUT));
+    locks.release(proc);
+    h.end();
+    assertTrue(locks.acquire(proc, list(), list("a"), TIMEOUT));
+    locks.release(proc);
+  }
+
+  /**
+   * Tests the fair policy and the policy that prefers readers.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void readers() throws InterruptedException {
+    final Holder h = new Holder(new String[] { "a" }, NONE).begin();
+    final Holder w = new Holder(NONE, new String[] { "a" }).queue();
+    // fair: the reader must not overtake the waiting writer
+    assertFalse(locks.acquire(proc, list("a"), list(), TIMEOUT));
+    mprop.set(MainProp.LOCKPOLICY, "readers");
+    assertTrue(locks.acquire(proc, list("a"), list(), TIMEOUT));
+    locks.release(proc);
+    h.end();
+    w.end();
+  }
+
+  /**
+   * Tests the policy that prefers writers.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void writers() throws InterruptedException {
+    final Holder h = new Holder(NONE, new String[] { "b" }).begin();
+    final Holder r = new Holder(new String[] { "a", "b" }, NONE).queue();
+    // fair: the writer must not overtake the waiting reader
+    assertFalse(locks.acquire(proc, list(), list("a"), TIMEOUT));
+    mprop.set(MainProp.LOCKPOLICY, "writers");
+    assertTrue(locks.acquire(proc, list(), list("a"), TIMEOUT));
+    locks.release(proc);
+    h.end();
+    r.end();
+  }
+
+  /**
+   * Global read locks conflict with local write locks.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void intention() throws InterruptedException {
+    final Holder h = new Holder(NONE, new String[] { "a" }).begin();
+    assertFalse(locks.acquire(proc, null, list(), TIMEOUT));
+    assertTrue(locks.acquire(proc, list("b"), list("c"), TIMEOUT));
+    locks.release(proc);
+    h.end();
+    assertTrue(locks.acquire(proc, null, list(), TIMEOUT));
+    locks.release(proc);
+  }
+
+  /**
+   * Serves queues alternately if no weights are assigned.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void fairQueuing() throws InterruptedException {
+    assertArrayEquals(new String[] { "batch", "api", "batch", "api", "batch" }, order());
+  }
+
+  /**
+   * Orders transactions of different queues by their weights.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void weights() throws InterruptedException {
+    mprop.set(MainProp.QUEUEWEIGHTS, "api=2");
+    assertArrayEquals(new String[] { "batch", "api", "api", "batch", "batch" }, order());
+  }
+
+  /**
+   * Limits the number of running transactions per queue.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void limits() throws InterruptedException {
+    mprop.set(MainProp.QUEUELIMITS, "batch=1");
+    final Holder h = new Holder("batch", new String[] { "a" }, NONE).begin();
+    proc.queue = "batch";
+    assertFalse(locks.acquire(proc, list("b"), list(), TIMEOUT));
+    proc.queue = "api";
+    assertTrue(locks.acquire(proc, list("b"), list(), TIMEOUT));
+    locks.release(proc);
+    h.end();
+  }
+
+  /**
+   * Transactions that give up waiting do not delay later transactions of their queue.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void timeoutQueue() throws InterruptedException {
+    mprop.set(MainProp.PARALLEL, 1);
+    final Holder h = new Holder("", NONE, NONE).begin();
+    proc.queue = "batch";
+    assertFalse(locks.acquire(proc, list(), list(), TIMEOUT));
+    assertFalse(locks.acquire(proc, list(), list(), TIMEOUT));
+    final StringList order = new StringList();
+    final Holder b = new Holder("batch", NONE, NONE, order).queue();
+    final Holder a = new Holder("api", NONE, NONE, order).queue();
+    h.end();
+    b.join();
+    a.join();
+    assertArrayEquals(new String[] { "batch", "api" }, order.toArray());
+  }
+
+  /**
+   * Assigns transactions to the queue of the current user, unless an administrator
+   * chooses another queue.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void queue() throws BaseXException {
+    final Proc pr = new ShowLocks();
+    context.prop.set(Prop.QUEUE, "api");
+    context.register(pr);
+    context.unregister(pr);
+    assertEquals("api", pr.queue);
+
+    new CreateUser(NAME, Token.md5(NAME)).execute(context);
+    final Context ctx = new Context(context, null);
+    ctx.user = context.users.get(NAME);
+    ctx.prop.set(Prop.QUEUE, "api");
+    ctx.register(pr);
+    ctx.unregister(pr);
+    assertEquals(NAME, pr.queue);
+    ctx.close();
+    new DropUser(NAME).execute(context);
+    context.prop.set(Prop.QUEUE, "");
+  }
+
+  /**
+   * Rejects transactions if the latency target of a queue is exceeded.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void shedding() throws InterruptedException {
+    mprop.set(MainProp.QUEUELATENCY, 10);
+    final Holder h = new Holder("batch", NONE, new String[] { "a" }).begin();
+    final Holder w = new Holder("batch", NONE, new String[] { "a" }).queue();
+    Performance.sleep(50);
+    // rejected without waiting
+    proc.queue = "batch";
+    final Performance perf = new Performance();
+    try {
+      locks.acquire(proc, list("b"), list(), 0);
+      fail("Transaction should have been rejected.");
+    } catch(final ProcException ex) {
+      assertEquals(Util.info(Text.QUEUE_OVERLOADED_X, "batch"), ex.getMessage());
+    }
+    assertTrue(perf.time() < TIMEOUT * 1000000);
+    // other queues are not affected
+    proc.queue = "api";
+    assertTrue(locks.acquire(proc, list("b"), list(), TIMEOUT));
+    locks.release(proc);
+    h.end();
+    w.end();
+  }
+
+  /**
+   * Shows granted and waiting locks.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void info() throws InterruptedException {
+    final Holder h = new Holder(NONE, new String[] { "a" }).begin();
+    final Holder w = new Holder(new String[] { "a", "b" }, NONE).queue();
+    final Table table = locks.info();
+    assertEquals(2, table.contents.size());
+    assertEquals("granted", table.value(0, 1));
+    assertEquals("a", table.value(0, 5));
+    assertEquals("waiting", table.value(1, 1));
+    assertEquals("a, b", table.value(1, 4));
+    // the waiting transaction waits for the first one
+    assertEquals(table.value(0, 0), table.value(1, 6));
+    h.end();
+    w.end();
+  }
+
+  /**
+   * Runs commands with a lock wait timeout.
+   * @throws Exception exception
+   */
+  @Test
+  public void command() throws Exception {
+    final CountDownLatch acquired = new CountDownLatch(1), release = new CountDownLatch(1);
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        final Command cmd = new CreateDB(NAME);
+        context.register(cmd);
+        acquired.countDown();
+        try {
+          release.await();
+        } catch(final InterruptedException ex) {
+          Util.stack(ex);
+        }
+        context.unregister(cmd);
+      }
+    };
+    t.start();
+    acquired.await();
+
+    final String info = new ShowLocks().execute(context);
+    assertTrue(info, info.contains("CREATE DB " + NAME));
+    assertTrue(info, info.contains("SHOW LOCKS"));
+
+    context.prop.set(Prop.LOCKWAIT, 1);
+    try {
+      new Open(NAME).execute(context);
+      fail("Lock wait timeout expected.");
+    } catch(final BaseXException ex) {
+      assertEquals(Text.LOCK_TIMEOUT, ex.getMessage());
+    }
+    // processes that are registered by other callers get the same message
+    final Proc pr = new Open(NAME);
+    try {
+      context.register(pr);
+      fail("Lock wait timeout expected.");
+    } catch(final ProcException ex) {
+      assertEquals(Text.LOCK_TIMEOUT, ex.getMessage());
+    }
+    assertFalse(pr.registered());
+    release.countDown();
+    t.join();
+  }
+
+  /**
+   * Queues three transactions of a batch queue and two transactions of an api queue,
+   * and returns the order in which they are granted.
+   * @return queues of granted transactions
+   * @throws InterruptedException interrupted exception
+   */
+  private String[] order() throws InterruptedException {
+    mprop.set(MainProp.PARALLEL, 1);
+    final StringList order = new StringList();
+    final Holder h = new Holder("", NONE, NONE).begin();
+    final String[] queues = { "batch", "batch", "batch", "api", "api" };
+    final Holder[] hs = new Holder[queues.length];
+    for(int q = 0; q < queues.length; q++) {
+      hs[q] = new Holder(queues[q], NONE, NONE, order).queue();
+    }
+    h.end();
+    for(final Holder q : hs) q.join();
+    return order.toArray();
+  }
+
+  /**
+   * Returns a string list.
+   * @param strings strings
+   * @return list
+   */
+  static StringList list(final String... strings) {
+    return new StringList().add(strings);
+  }
+
+  /** Thread holding locks until it is ended. */
+  private final class Holder extends Thread {
+    /** Signals that the locks have been acquired. */
+    private final CountDownLatch acquired = new CountDownLatch(1);
+    /** Signals that the locks can be released. */
+    private final CountDownLatch release = new CountDownLatch(1);
+    /** Process. */
+    private final Proc pr = new ShowLocks();
+    /** Read locks. */
+    private final String[] read;
+    /** Write locks. */
+    private final String[] write;
+    /** Queues of granted transactions (can be {@code null}). */
+    private final StringList order;
+
+    /**
+     * Constructor.
+     * @param rd read locks
+     * @param wr write locks
+     */
+    Holder(final String[] rd, final String[] wr) {
+      this(null, rd, wr);
+    }
+
+    /**
+     * Constructor.
+     * @param queue admission queue
+     * @param rd read locks
+     * @param wr write locks
+     */
+    Holder(final String queue, final String[] rd, final String[] wr) {
+      this(queue, rd, wr, null);
+    }
+
+    /**
+     * Constructor. If a list is specified, the locks will be released immediately,
+     * and the queue of the transaction will be added to the list.
+     * @param queue admission queue
+     * @param rd read locks
+     * @param wr write locks
+     * @param ord queues of granted transactions
+     */
+    Holder(final String queue, final String[] rd, final String[] wr, final StringList ord) {
+      pr.queue = queue;
+      read = rd;
+      write = wr;
+      order = ord;
+      setDaemon(true);
+    }
+
+    /**
+     * Starts the thread and waits until the locks have been acquired.
+     * @return self reference
+     * @throws InterruptedException interrupted exception
+     */
+    Holder begin() throws InterruptedException {
+      start();
+      acquired.await();
+      return this;
+    }
+
+    /**
+     * Starts the thread and waits until its lock request has been queued.
+     * @return self reference
+     */
+    Holder queue() {
+      final int size = locks.info().contents.size();
+      start();
+      while(locks.info().contents.size() == size) Performance.sleep(1);
+      return this;
+    }
+
+    /**
+     * Releases the locks and waits until the thread has finished.
+     * @throws InterruptedException interrupted exception
+     */
+    void end() throws InterruptedException {
+      release.countDown();
+      join();
+    }
+
+    @Override
+    public void run() {
+      locks.acquire(pr, list(read), list(write));
+      acquired.countDown();
+      if(order != null) {
+        synchronized(order) {
+          order.add(pr.queue);
+        }
+      } else {
+        try {
+          release.await();
+        } catch(final InterruptedException ex) {
+          Util.stack(ex);
+        }
+      }
+      locks.release(pr);
+    }
+  }
+}
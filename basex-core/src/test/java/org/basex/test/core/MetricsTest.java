@@ -0,0 +1,95 @@
+package org.basex.test.core;
+
+import static org.junit.Assert.*;
+
+import java.util.regex.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the server-wide metrics.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class MetricsTest extends SandboxTest {
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void after() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Checks if commands and queries are counted.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void commands() throws BaseXException {
+    String info = new ShowMetrics().execute(context);
+    final long q = value(info, "commands_total{type=\"query\"}");
+    final long c = value(info, "commands_total{type=\"command\"}");
+    final long n = value(info, "command_duration_seconds_count");
+    new XQuery("1").execute(context);
+    new XQuery("2").execute(context);
+    new Set(Prop.CHOP, true).execute(context);
+    // the first metrics command is counted, too
+    info = new ShowMetrics().execute(context);
+    assertEquals(q + 2, value(info, "commands_total{type=\"query\"}"));
+    assertEquals(c + 2, value(info, "commands_total{type=\"command\"}"));
+    assertEquals(n + 4, value(info, "command_duration_seconds_count"));
+    assertEquals(n + 4, value(info, "command_duration_seconds_bucket{le=\"+Inf\"}"));
+  }
+
+  /**
+   * Checks if written and read bytes are counted per database, and if the counters
+   * are discarded when the database is dropped.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void bytes() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 0; i < 10000; i++) sb.append("<b>").append(i).append("</b>");
+    new CreateDB(NAME, sb.append("</a>").toString()).execute(context);
+    new Close().execute(context);
+    final String label = "{db=\"" + NAME + "\"}";
+    final long r = value(new ShowMetrics().execute(context), "read_bytes_total" + label);
+    assertTrue(value(new ShowMetrics().execute(context), "written_bytes_total" + label) > 0);
+    new XQuery("count(db:open('" + NAME + "')//b[text() = '9999'])").execute(context);
+    assertTrue(value(new ShowMetrics().execute(context), "read_bytes_total" + label) > r);
+    new DropDB(NAME).execute(context);
+    assertEquals(-1, value(new ShowMetrics().execute(context), "read_bytes_total" + label));
+  }
+
+  /**
+   * Checks if the bytes of temporary databases are attributed to the original database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void temporary() throws BaseXException {
+    new CreateDB(NAME, "<a/>").execute(context);
+    final String label = "{db=\"" + NAME + "\"}";
+    final long w = value(new ShowMetrics().execute(context), "written_bytes_total" + label);
+    new OptimizeAll().execute(context);
+    final String info = new ShowMetrics().execute(context);
+    assertTrue(value(info, "written_bytes_total" + label) > w);
+    assertFalse(info, info.contains("{db=\"" + NAME + '_'));
+  }
+
+  /**
+   * Returns the value of the specified metric.
+   * @param info metrics
+   * @param metric name and labels of the metric
+   * @return value
+   */
+  private static long value(final String info, final String metric) {
+    final Matcher m = Pattern.compile("(?m)^basex_" + Pattern.quote(metric) +
+        " (\\d+)").matcher(info);
+    return m.find() ? Long.parseLong(m.group(1)) : -1;
+  }
+}
@@ -0,0 +1,284 @@
+package org.basex.test.core;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.CmdIndex;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.test.query.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the online optimization of databases.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class OptimizeOnlineTest extends AdvancedQueryTest {
+  /** Name of the second database. */
+  private static final String NAME2 = NAME + '2';
+  /** Initial document. */
+  private static final String XML = "<x><a>1</a><a>2</a><b c='d'>3</b></x>";
+
+  /**
+   * Drops the test databases.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void after() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new DropDB(NAME2).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+    new Set(Prop.ADDCACHE, false).execute(context);
+    new Set(Prop.LOCKWAIT, 0).execute(context);
+  }
+
+  /**
+   * Replays recorded updates on a database with the same contents.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void replay() throws BaseXException {
+    for(final String db : new String[] { NAME2, NAME }) {
+      new CreateDB(db).execute(context);
+      new Add("x.xml", XML).execute(context);
+    }
+    final Data data = context.data();
+    final UpdateLog log = new UpdateLog();
+    data.log = log;
+    query("insert node <a>4</a> into /x");
+    query("delete node /x/a[1]");
+    query("rename node /x/b as 'e'");
+    query("replace value of node /x/e/@c with 'f'");
+    query("insert node attribute g { 'h' } into /x/e");
+    query("replace node /x/a[last()] with <i>5</i>");
+    new Set(Prop.ADDCACHE, true).execute(context);
+    new Add("doc.xml", "<doc>6</doc>").execute(context);
+    new Rename("doc.xml", "renamed.xml").execute(context);
+    data.log = null;
+    assertEquals(8, log.size());
+    assertFalse(log.indexes());
+
+    new Open(NAME2).execute(context);
+    final Data data2 = context.data();
+    data2.startUpdate();
+    log.replay(data2);
+    data2.finishUpdate();
+    for(final String q : new String[] { "db:open('%')", "db:list('%')" }) {
+      assertEquals(query(q.replace("%", NAME)), query(q.replace("%", NAME2)));
+    }
+  }
+
+  /**
+   * Optimizes a database while it is opened and updated by another process.
+   * @throws Exception exception
+   */
+  @Test
+  public void online() throws Exception {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    new CreateDB(NAME, "<x/>").execute(context);
+    query("for $i in 1 to 20000 return insert node <a>{ $i }</a> into /x");
+    query("delete nodes //a[. mod 2 = 0]");
+    query("db:store('" + NAME + "', 'bin', 'x')");
+    final Data data = context.data();
+
+    final Context ctx = new Context(context, null);
+    ctx.user = context.user;
+    new Open(NAME).execute(ctx);
+
+    final Exception[] error = { null };
+    final Thread optimizer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          new OptimizeAll(true).execute(context);
+        } catch(final BaseXException ex) {
+          error[0] = ex;
+        }
+      }
+    };
+    optimizer.start();
+    int inserts = 0;
+    while(optimizer.isAlive() || inserts == 0) {
+      new XQuery("insert node <a>new</a> into /x").execute(ctx);
+      inserts++;
+    }
+    optimizer.join();
+    if(error[0] != null) throw error[0];
+
+    // both processes access the same, optimized database instance
+    assertSame(data, context.data());
+    assertSame(data, ctx.data());
+    assertNull(data.log);
+    assertTrue(data.meta.textindex);
+    assertEquals(String.valueOf(10000 + inserts),
+        new XQuery("count(//a)").execute(ctx));
+    assertEquals(String.valueOf(inserts), query("count(db:text('" + NAME + "', 'new'))"));
+    assertEquals("19999", query("db:text('" + NAME + "', '19999')/string()"));
+    // binary files are moved to the rebuilt database
+    assertTrue(data.meta.binary("bin").exists());
+    new Close().execute(ctx);
+    ctx.close();
+  }
+
+  /**
+   * Rebuilds the current database if the recorded updates cannot be replayed.
+   * @throws Exception exception
+   */
+  @Test
+  public void fallback() throws Exception {
+    final Context ctx = create();
+    final Data data = ctx.data();
+    final OptimizeAll opt = new OptimizeAll(true);
+    final Thread optimizer = optimize(opt, null);
+    // create index while the snapshot is rebuilt
+    while(!(opt.prog() > 0) && optimizer.isAlive()) Thread.yield();
+    new CreateIndex(CmdIndex.FULLTEXT).execute(ctx);
+    new XQuery("insert node <a>new</a> into /x").execute(ctx);
+    optimizer.join();
+
+    assertSame(data, context.data());
+    assertTrue(data.meta.ftxtindex);
+    assertEquals("10001", new XQuery("count(//a)").execute(ctx));
+    assertEquals("1", query("count(ft:search('" + NAME + "', 'new'))"));
+    assertTrue(context.databases.listDBs(NAME + "_*").isEmpty());
+    new Close().execute(ctx);
+    ctx.close();
+  }
+
+  /**
+   * Reports an optimization whose locks could not be acquired again, and keeps
+   * the original database.
+   * @throws Exception exception
+   */
+  @Test
+  public void locked() throws Exception {
+    new Set(Prop.LOCKWAIT, 1).execute(context);
+    final Context ctx = create();
+    final OptimizeAll opt = new OptimizeAll(true);
+    final Exception[] error = { null };
+    final Thread optimizer = optimize(opt, error);
+    // block the database until the optimization has timed out
+    while(!(opt.prog() > 0) && optimizer.isAlive()) Thread.yield();
+    new XQuery("prof:sleep(2000), insert node <a>new</a> into /x").execute(ctx);
+    optimizer.join();
+
+    assertNotNull(error[0]);
+    assertEquals(Util.info(Text.DB_NOT_OPTIMIZED_X_X, NAME, Text.LOCK_TIMEOUT),
+        error[0].getMessage());
+    assertEquals("10001", new XQuery("count(//a)").execute(ctx));
+    assertEquals("1", query("count(db:text('" + NAME + "', 'new'))"));
+    assertTrue(context.databases.listDBs(NAME + "_*").isEmpty());
+    new Close().execute(ctx);
+    ctx.close();
+  }
+
+  /**
+   * Completes or reverts an interrupted replacement of the database files.
+   * @throws Exception exception
+   */
+  @Test
+  public void recover() throws Exception {
+    final String bname = NAME + "_1";
+    final MainProp mprop = context.mprop;
+    final IOFile journal = OptimizeAll.journal(NAME, context);
+
+    // original files have been moved: rebuilt database takes their place
+    crash(bname, true);
+    new Open(NAME).execute(context);
+    assertEquals("rebuilt", query("name(/*)"));
+    assertFalse(mprop.dbexists(bname));
+    assertFalse(mprop.dbexists(NAME2));
+    assertFalse(journal.exists());
+
+    // rebuilt database is not available: original files are moved back
+    crash(bname, true);
+    new DropDB(NAME2).execute(context);
+    new Open(NAME).execute(context);
+    assertEquals("original", query("name(/*)"));
+    assertFalse(mprop.dbexists(bname));
+    assertFalse(journal.exists());
+
+    // original files have not been moved yet: rebuilt database is dropped
+    crash(bname, false);
+    new Open(NAME).execute(context);
+    assertEquals("original", query("name(/*)"));
+    assertFalse(mprop.dbexists(NAME2));
+    assertFalse(journal.exists());
+  }
+
+  /**
+   * Rejects a database that is already being optimized.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void running() throws BaseXException {
+    new CreateDB(NAME, XML).execute(context);
+    final Data data = context.data();
+    data.log = new UpdateLog();
+    try {
+      new OptimizeAll(true).execute(context);
+      fail("Optimization should have been rejected.");
+    } catch(final BaseXException ex) {
+      assertEquals(Util.info(Text.DB_OPTIMIZING_X, NAME), ex.getMessage());
+    } finally {
+      data.log = null;
+    }
+    // database files are still accessible
+    assertEquals("3", query("count(//a) + count(//b)"));
+  }
+
+  /**
+   * Creates a database with 10000 elements, which is also opened by a second context.
+   * @return second context
+   * @throws BaseXException database exception
+   */
+  private static Context create() throws BaseXException {
+    new CreateDB(NAME, "<x/>").execute(context);
+    query("for $i in 1 to 10000 return insert node <a>{ $i }</a> into /x");
+    final Context ctx = new Context(context, null);
+    ctx.user = context.user;
+    new Open(NAME).execute(ctx);
+    return ctx;
+  }
+
+  /**
+   * Starts the online optimization of the current database.
+   * @param opt optimize command
+   * @param error array for storing an exception (if {@code null}, the exception
+   *   will be ignored)
+   * @return optimizer thread
+   */
+  private static Thread optimize(final OptimizeAll opt, final Exception[] error) {
+    final Thread optimizer = new Thread() {
+      @Override
+      public void run() {
+        try {
+          opt.execute(context);
+        } catch(final BaseXException ex) {
+          if(error != null) error[0] = ex;
+        }
+      }
+    };
+    optimizer.start();
+    return optimizer;
+  }
+
+  /**
+   * Simulates a process that has been interrupted while the database files were
+   * replaced with a rebuilt database ({@link #NAME2}).
+   * @param bname name of the moved original files
+   * @param moved indicates if the original files have already been moved
+   * @throws Exception exception
+   */
+  private static void crash(final String bname, final boolean moved) throws Exception {
+    new CreateDB(NAME2, "<rebuilt/>").execute(context);
+    new CreateDB(NAME, "<original/>").execute(context);
+    new Close().execute(context);
+    if(moved) new AlterDB(NAME, bname).execute(context);
+    OptimizeAll.journal(NAME, context).write(Token.token(bname + '\n' + NAME2));
+  }
+}
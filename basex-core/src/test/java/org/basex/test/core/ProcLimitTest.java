@@ -0,0 +1,95 @@
+package org.basex.test.core;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the cooperative enforcement of timeouts and memory limits.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ProcLimitTest extends SandboxTest {
+  /** Query with a large number of iterations. */
+  private static final String LOOP = "sum(for $a in 1 to 1000000000 return $a mod 7)";
+  /** Query allocating strings. */
+  private static final String STRINGS = "string-length(string-join(" +
+      "for $a in 1 to 1000000, $b in ('a', 'b') return $a || $b))";
+
+  /** Resets the options. */
+  @After
+  public void after() {
+    context.mprop.set(MainProp.MEMLIMIT, 0);
+  }
+
+  /**
+   * Stops a query after the timeout.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void timeout() throws QueryException {
+    final QueryProcessor qp = new QueryProcessor(LOOP, context);
+    final Performance perf = new Performance();
+    try {
+      qp.startTimeout(100);
+      qp.execute();
+      fail("Timeout expected.");
+    } catch(final ProcException ex) {
+      assertNull(ex.getMessage());
+      // the timeout is detected without noticeable delay
+      assertTrue(perf.time() < 5000000000L);
+    } finally {
+      qp.close();
+    }
+  }
+
+  /**
+   * Stops a query if it exceeds its memory limit.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void memory() throws QueryException {
+    // skip test if allocated memory cannot be measured
+    if(Performance.allocated() < 0) return;
+
+    final QueryProcessor qp = new QueryProcessor(STRINGS, context);
+    try {
+      qp.limitMemory(1 << 20);
+      qp.execute();
+      fail("Memory limit expected.");
+    } catch(final ProcException ex) {
+      assertEquals(Util.info(Text.MEMORY_EXCEEDED_X, Performance.format(1 << 20)),
+          ex.getMessage());
+    } finally {
+      qp.close();
+    }
+  }
+
+  /**
+   * Returns an error if a command exceeds the global memory limit.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void command() throws BaseXException {
+    if(Performance.allocated() < 0) return;
+
+    context.mprop.set(MainProp.MEMLIMIT, 1);
+    try {
+      new XQuery(STRINGS).execute(context);
+      fail("Memory limit expected.");
+    } catch(final BaseXException ex) {
+      assertEquals(Util.info(Text.MEMORY_EXCEEDED_X, Performance.format(1 << 20)),
+          ex.getMessage());
+    }
+    // queries below the limit are evaluated as usual
+    assertEquals("2", new XQuery("1 + 1").execute(context));
+    context.mprop.set(MainProp.MEMLIMIT, 0);
+    assertEquals("13777792", new XQuery(STRINGS).execute(context));
+  }
+}
@@ -0,0 +1,169 @@
+package org.basex.test.core;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the caching of query results.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ResultCacheTest extends SandboxTest {
+  /** Query that accesses the test database. */
+  private static final String QUERY = "count(db:open('" + NAME + "')//x)";
+
+  /**
+   * Creates the test database and enables the cache.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void before() throws BaseXException {
+    context.mprop.set(MainProp.RESULTCACHE, 1024);
+    new CreateDB(NAME, "<a><x/></a>").execute(context);
+    new Close().execute(context);
+  }
+
+  /**
+   * Drops the test database and disables the cache.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void after() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    context.results.invalidate(null);
+    context.mprop.set(MainProp.RESULTCACHE, 0);
+  }
+
+  /**
+   * Checks if results are cached and invalidated after updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void invalidate() throws BaseXException {
+    assertEquals("1", new XQuery(QUERY).execute(context));
+    assertEquals(1, context.results.size());
+    assertEquals("1", new XQuery(QUERY).execute(context));
+    assertEquals(1, context.results.size());
+
+    // updates on other databases will not invalidate the result
+    new XQuery("1 + 1").execute(context);
+    assertEquals(2, context.results.size());
+    new CreateDB(NAME + '2', "<a/>").execute(context);
+    new DropDB(NAME + '2').execute(context);
+    assertEquals(2, context.results.size());
+
+    new XQuery("insert node <x/> into db:open('" + NAME + "')/a").execute(context);
+    assertEquals(1, context.results.size());
+    assertEquals("2", new XQuery(QUERY).execute(context));
+  }
+
+  /**
+   * Checks if cached results are invalidated if permissions are revoked.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void revoked() throws BaseXException {
+    new CreateUser(NAME, md5(NAME)).execute(context);
+    new Grant("read", NAME).execute(context);
+    final Context ctx = new Context(context, null);
+    ctx.user = context.users.get(NAME);
+    try {
+      assertEquals("1", new XQuery(QUERY).execute(ctx));
+      assertEquals(1, context.results.size());
+      new Grant("none", NAME).execute(context);
+      assertEquals(0, context.results.size());
+      try {
+        new XQuery(QUERY).execute(ctx);
+        fail("Revoked permission was ignored.");
+      } catch(final BaseXException ex) {
+        assertEquals(0, context.results.size());
+      }
+    } finally {
+      ctx.close();
+      new DropUser(NAME).execute(context);
+    }
+  }
+
+  /**
+   * Checks if non-deterministic queries are not cached.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void nondeterministic() throws BaseXException {
+    new XQuery("random:double()").execute(context);
+    new XQuery("current-dateTime()").execute(context);
+    new XQuery("declare function local:f() { random:integer() }; local:f()").
+      execute(context);
+    new XQuery("let $f := random:double#0 return $f()").execute(context);
+    new XQuery("doc('src/test/resources/input.xml')").execute(context);
+    assertEquals(0, context.results.size());
+  }
+
+  /**
+   * Checks if queries that access external resources are not cached.
+   * @throws Exception exception
+   */
+  @Test
+  public void external() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "cache.xml");
+    final String path = file.path(), url = file.url();
+    final String base = "declare base-uri '" + url + "'; ";
+    final String[] queries = {
+      base + "unparsed-text('" + url + "')", base + "unparsed-text-lines('" + url + "')",
+      base + "unparsed-text-available('" + url + "')", "doc('" + path + "')",
+      "doc('" + url + "')", "collection('" + path + "')",
+      "doc-available('" + url + "')", "file:read-text('" + path + "')",
+      "fetch:text('" + url + "')"
+    };
+    for(final String query : queries) {
+      file.write(token("<a/>"));
+      new XQuery(query).execute(context);
+      file.write(token("<b/>"));
+      final String result = new XQuery(query).execute(context);
+      assertFalse(query + ": " + result, result.contains("<a/>"));
+      assertEquals(query, 0, context.results.size());
+    }
+    file.delete();
+  }
+
+  /**
+   * Checks if results for different options and bindings are cached separately.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void options() throws BaseXException {
+    final String query = "declare variable $a external; $a";
+    new Set(Prop.BINDINGS, "a=1").execute(context);
+    assertEquals("1", new XQuery(query).execute(context));
+    new Set(Prop.BINDINGS, "a=2").execute(context);
+    assertEquals("2", new XQuery(query).execute(context));
+    new Set(Prop.BINDINGS, "").execute(context);
+    new Set(Prop.SERIALIZER, "method=text").execute(context);
+    assertEquals("a", new XQuery("<x>a</x>").execute(context));
+    new Set(Prop.SERIALIZER, "").execute(context);
+    assertEquals("<x>a</x>", new XQuery("<x>a</x>").execute(context));
+    assertEquals(4, context.results.size());
+  }
+
+  /**
+   * Checks if the cache size is limited.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void evict() throws BaseXException {
+    context.mprop.set(MainProp.RESULTCACHE, 1);
+    new XQuery("string-join((1 to 200) ! 'x')").execute(context);
+    assertEquals(1, context.results.size());
+    new XQuery("string-join((1 to 900) ! 'y')").execute(context);
+    assertEquals(1, context.results.size());
+    new XQuery("string-join((1 to 2000) ! 'z')").execute(context);
+    assertEquals(1, context.results.size());
+  }
+}
@@ -99,6 +99,7 @@ public class XMLCommandTest extends SandboxTest {
     ok("<optimize/>");
 
     ok("<optimize-all/>");
+    ok("<optimize-online/>");
 
     ok("<password/>");
     ok("<password>X</password>");
@@ -108,6 +108,27 @@ public class MemDataTest extends SandboxTest {
     assertTrue("Node not deleted", r.isEmpty());
   }
 
+  /**
+   * Creates, updates and closes a main memory database that is stored off the heap.
+   * @throws BaseXException query exception
+   */
+  @Test
+  public void offHeap() throws BaseXException {
+    context.prop.set(Prop.MAINMEM, true);
+    context.prop.set(Prop.OFFHEAP, true);
+    try {
+      new CreateDB(NAME, XMLSTR).execute(context);
+      new XQuery("insert node <d>test2</d> as first into /a").execute(context);
+      assertEquals("test2", new XQuery("/a/d/text()").execute(context));
+      assertEquals("<d>test2</d>", new XQuery("copy $d := /a/d modify () return $d").
+          execute(context));
+      new Close().execute(context);
+    } finally {
+      context.prop.set(Prop.MAINMEM, false);
+      context.prop.set(Prop.OFFHEAP, false);
+    }
+  }
+
   /**
    * Try to find non-existing node.
    * @throws BaseXException query exception
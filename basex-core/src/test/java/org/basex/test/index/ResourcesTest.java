@@ -0,0 +1,172 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * This class tests the incremental maintenance of the resource index.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ResourcesTest extends AdvancedQueryTest {
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void before() throws BaseXException {
+    new CreateDB(NAME).execute(context);
+    query("for $i in 0 to 99 return db:add('" + NAME + "', <x>{ $i }</x>, " +
+        "'dir' || $i mod 5 || '/' || $i || '.xml')");
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void after() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Updates documents after the paths have been requested.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    assertEquals("20", count("dir1"));
+
+    new Add("dir1/new.xml", "<new/>").execute(context);
+    assertEquals("21", count("dir1"));
+    assertEquals("new", query("name(db:open('" + NAME + "', 'dir1/new.xml')/*)"));
+
+    new Delete("dir2").execute(context);
+    assertEquals("0", count("dir2"));
+    assertEquals("3", text("dir3/3.xml"));
+    assertEquals("99", text("dir4/99.xml"));
+
+    new Rename("dir3", "moved").execute(context);
+    assertEquals("0", count("dir3"));
+    assertEquals("20", count("moved"));
+    assertEquals("8", text("moved/8.xml"));
+
+    new Replace("dir0/0.xml", "<x>new</x>").execute(context);
+    assertEquals("new", text("dir0/0.xml"));
+    assertEquals("0", count("dir0/0.xml/"));
+    assertEquals("81", count(""));
+
+    // sorted paths are stored on disk and reused
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertTrue(context.data().meta.dbfile(DataText.DATADOC).exists());
+    assertEquals("21", count("dir1"));
+    assertEquals("8", text("moved/8.xml"));
+    new Delete("dir1/new.xml").execute(context);
+    assertEquals("20", count("dir1"));
+    assertEquals("9", text("dir4/9.xml"));
+  }
+
+  /**
+   * Stores the paths only after updates, and appends subsequent changes to a log.
+   * @throws Exception exception
+   */
+  @Test
+  public void store() throws Exception {
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    final MetaData meta = context.data().meta;
+    final IOFile file = meta.dbfile(DataText.DATADOC);
+    final IOFile log = meta.dbfile(DataText.DATADOC + 'l');
+    final IOFile inf = meta.dbfile(DataText.DATAINF);
+    new Close().execute(context);
+    file.delete();
+    log.delete();
+
+    // read-only access: paths are only kept in main memory
+    final byte[] info = inf.read();
+    new Open(NAME).execute(context);
+    assertEquals("20", count("dir1"));
+    new Close().execute(context);
+    assertFalse(file.exists());
+    assertArrayEquals(info, inf.read());
+
+    // paths are stored after an update
+    new Open(NAME).execute(context);
+    assertEquals("20", count("dir1"));
+    new Add("dir1/new.xml", "<new/>").execute(context);
+    assertTrue(file.exists());
+    final byte[] paths = file.read();
+
+    // changes are appended to the log
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertEquals("21", count("dir1"));
+    new Rename("dir1/new.xml", "dir2/new.xml").execute(context);
+    new Close().execute(context);
+    assertArrayEquals(paths, file.read());
+    assertTrue(log.exists());
+    new Open(NAME).execute(context);
+    assertEquals("20", count("dir1"));
+    assertEquals("21", count("dir2"));
+
+    // outdated paths are ignored, even if they refer to the same document nodes
+    new Close().execute(context);
+    final byte[] logged = log.read();
+    new Open(NAME).execute(context);
+    new Rename("dir2/new.xml", "dir3/new.xml").execute(context);
+    new Close().execute(context);
+    log.write(logged);
+    new Open(NAME).execute(context);
+    assertEquals("20", count("dir2"));
+    assertEquals("21", count("dir3"));
+  }
+
+  /** Lists binary resources. */
+  @Test
+  public void binaries() {
+    query("for $p in ('bin/a/b.txt', 'bin/c.txt', 'binx.txt') " +
+        "return db:store('" + NAME + "', $p, 'x')");
+    assertEquals("bin/a/b.txt bin/c.txt", list("bin"));
+    assertEquals("bin/a/b.txt bin/c.txt", list("bin/"));
+    assertEquals("bin/c.txt", list("bin/c.txt"));
+    assertEquals("", list("bin/c.txt/"));
+    assertEquals("bin/a/b.txt", list("bin/a"));
+    assertEquals("", list("bi"));
+  }
+
+  /**
+   * Returns the number of documents with the specified path.
+   * @param path path
+   * @return number of documents
+   */
+  private static String count(final String path) {
+    return query("count(db:open('" + NAME + "', '" + path + "'))");
+  }
+
+  /**
+   * Returns the string value of a document.
+   * @param path path
+   * @return string value
+   */
+  private static String text(final String path) {
+    return query("string(db:open('" + NAME + "', '" + path + "'))");
+  }
+
+  /**
+   * Returns the binary resources with the specified path.
+   * @param path path
+   * @return resources
+   */
+  private static String list(final String path) {
+    return query("string-join(for $r in db:list('" + NAME + "', '" + path + "') " +
+        "where ends-with($r, '.txt') return $r, ' ')");
+  }
+}
@@ -0,0 +1,138 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * This class tests the incremental maintenance of the full-text index.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class UpdatableFTIndexTest extends AdvancedQueryTest {
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void before() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    new Set(Prop.FTINDEX, true).execute(context);
+    new CreateDB(NAME, "<x><a>w1 initial</a></x>").execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void after() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+    new Set(Prop.FTINDEX, false).execute(context);
+    new Set(Prop.FTNGRAMS, false).execute(context);
+  }
+
+  /**
+   * Performs various updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    query("for $i in 1 to 50 return insert node <a>w{ $i mod 10 } v{ $i }</a> into /x");
+    check("w1", "w3", "v17", "initial");
+    query("delete nodes //a[starts-with(., 'w3 ')]");
+    check("w3", "v13", "v14");
+    query("for $a in //a[starts-with(., 'w4 ')] return " +
+        "replace value of node $a/text() with 'w5 replaced'");
+    check("w4", "w5", "replaced", "v24");
+    query("replace value of node //a[. = 'w1 initial']/text() with 'w1 changed'");
+    check("w1", "initial", "changed");
+    query("insert node <a>new w2</a> into /x");
+    check("w2", "new");
+    query("delete nodes //a[. = 'new w2']");
+    check("w2", "new");
+    assertTrue(context.data().meta.ftxtindex);
+
+    // changes are stored on disk
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertTrue(context.data().meta.ftxtindex);
+    check("w1", "w5", "replaced", "changed");
+    query("delete nodes //a[starts-with(., 'w5 ')]");
+    check("w5", "replaced", "v15");
+
+    // wildcards, tokens
+    assertEquals(query("count(//a[text() contains text 'v.*' using wildcards])"),
+        query("count(//a[starts-with(., 'w') and contains(., ' v')])"));
+    assertEquals("5", query("ft:tokens('" + NAME + "', 'w2')/@count/data()"));
+    assertEquals("", query("ft:tokens('" + NAME + "', 'w3')/@count/data()"));
+  }
+
+  /**
+   * Merges a large number of changes into the index files.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void merge() throws BaseXException {
+    new Set(Prop.FTNGRAMS, true).execute(context);
+    new CreateIndex("fulltext").execute(context);
+    query("for $i in 1 to 4000 return insert node <a>{ string-join(" +
+        "for $j in 1 to 20 return 'w' || ($i + $j) mod 100, ' ') }</a> into /x");
+    check("w1", "w50", "initial");
+    query("delete nodes //a[position() mod 3 = 0]");
+    check("w1", "w50", "initial");
+    query("for $a in //a[position() mod 5 = 0] return " +
+        "replace value of node $a/text() with 'w7 changed'");
+    check("w7", "w77", "changed");
+    assertEquals(query("count(//a[contains(., 'w7')])"),
+        query("count(//a[text() contains text '.*w7.*' using wildcards])"));
+    assertTrue(context.data().meta.dbfile(DataText.DATAFTX + 'g').exists());
+
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    check("w1", "w7", "changed");
+  }
+
+  /**
+   * Invalidates full-text indexes of previous versions, which reference pre values.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void legacy() throws BaseXException {
+    // indexes of previous versions have no delta file
+    final IOFile delta = context.data().meta.dbfile(DataText.DATAFTX + 'd');
+    new Close().execute(context);
+    assertTrue(delta.delete());
+    new Open(NAME).execute(context);
+    assertTrue(context.data().meta.ftxtindex);
+    check("w1", "initial");
+
+    // pre values are shifted by an update that does not change any text nodes
+    query("insert node <b/> as first into /x");
+    assertFalse(context.data().meta.ftxtindex);
+    assertEquals("w1 initial", query("//text()[. contains text 'initial']/string()"));
+  }
+
+  /**
+   * Compares the results of the full-text index with the string values of the
+   * database nodes.
+   * @param words words to be checked
+   */
+  private static void check(final String... words) {
+    for(final String w : words) {
+      final String scan = query("string-join(//text()[tokenize(., ' ') = '" + w +
+          "'], '|')");
+      assertEquals(w, scan, query("string-join(ft:search('" + NAME + "', '" + w +
+          "'), '|')"));
+      assertEquals(w, scan, query("string-join(//text()[. contains text '" + w +
+          "'], '|')"));
+    }
+  }
+}
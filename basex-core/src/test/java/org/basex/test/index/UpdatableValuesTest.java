@@ -0,0 +1,147 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * This class tests the incremental maintenance of the value indexes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class UpdatableValuesTest extends AdvancedQueryTest {
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void before() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    new CreateDB(NAME, "<x/>").execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void after() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Performs various updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    query("for $i in 1 to 50 return insert node <a v='{ $i mod 7 }'>{ $i mod 10 }</a> " +
+        "into /x");
+    check();
+    query("delete nodes //a[text() = '3']");
+    check();
+    query("for $a in //a[text() = '4'] return replace value of node $a with 'x'");
+    query("for $a in //a[@v = '2'] return replace value of node $a/@v with 'x'");
+    check();
+    query("insert node <a v='new'>new</a> into /x");
+    check();
+    query("delete nodes //a[text() = 'new']");
+    check();
+    query("for $a in //a[text() = '5'] return replace value of node $a with '5'");
+    check();
+
+    // changes are stored on disk
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    check();
+    query("delete nodes //a[text() = '1']");
+    check();
+  }
+
+  /**
+   * Merges a large number of changes into the index files.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void merge() throws BaseXException {
+    query("for $i in 1 to 100 return insert node <a v='{ $i }'>{ $i mod 10 }</a> " +
+        "into /x");
+    query("for $i in 1 to 5000 return insert node <a v='{ $i mod 500 }'>{ $i }</a> " +
+        "into /x");
+    check();
+    // replaced values are merged as well
+    query("for $a in //a[text() >= 2500] return replace value of node $a with $a + 10000");
+    query("for $a in //a return replace value of node $a/@v with $a/@v || 'r'");
+    check();
+    query("delete nodes //a[text() < 2500]");
+    check();
+    // numeric ranges
+    assertEquals(query("count(//a[number(text()) >= 2 and number(text()) <= 3000])"),
+        query("count(//a[text() >= 2 and text() <= 3000])"));
+    new Optimize().execute(context);
+    check();
+  }
+
+  /**
+   * Discards the delta when the indexes are rebuilt.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void optimize() throws BaseXException {
+    query("for $i in 1 to 50 return insert node <a v='{ $i mod 7 }'>{ $i mod 10 }</a> " +
+        "into /x");
+    query("delete nodes //a[text() = '3']");
+    new Flush().execute(context);
+    final MetaData meta = context.data().meta;
+    assertTrue(meta.dbfile(DataText.DATATXT + 'd').exists());
+
+    for(final Command cmd : new Command[] { new Optimize(), new OptimizeAll() }) {
+      cmd.execute(context);
+      check();
+      final MetaData md = context.data().meta;
+      assertFalse(md.dbfile(DataText.DATATXT + 'd').exists());
+      assertFalse(md.dbfile(DataText.DATAATV + 'd').exists());
+      new Close().execute(context);
+      new Open(NAME).execute(context);
+      check();
+      query("insert node <a v='1'>1</a> into /x");
+      new Flush().execute(context);
+    }
+  }
+
+  /**
+   * Compares the results of index requests with the results of sequential scans.
+   */
+  private static void check() {
+    for(final String t : new String[] { "text", "attribute" }) {
+      final String nodes = t.equals("text") ? "//text()" : "//@*";
+      final String func = t.equals("text") ? "texts" : "attributes";
+      // all entries
+      assertEquals(query("string-join(for $v in distinct-values(" + nodes + ") " +
+          "order by $v return $v || ':' || count(" + nodes + "[string() = $v]), ' ')"),
+          query("string-join(for $e in index:" + func + "('" + NAME + "') " +
+          "return $e || ':' || $e/@count, ' ')"));
+      // descending entries, starting from a key
+      assertEquals(query("string-join(reverse(for $v in distinct-values(" + nodes +
+          ") where $v < '5' order by $v return $v), ' ')"),
+          query("string-join(index:" + func + "('" + NAME + "', '5', false()), ' ')"));
+      // entries with a prefix
+      assertEquals(query("string-join(for $v in distinct-values(" + nodes + ") " +
+          "where starts-with($v, '1') order by $v return $v, ' ')"),
+          query("string-join(index:" + func + "('" + NAME + "', '1'), ' ')"));
+      // single values and string ranges
+      for(final String v : new String[] { "0", "1", "2", "3", "4", "5", "x", "new" }) {
+        assertEquals(query("count(" + nodes + "[string() = '" + v + "'])"),
+            query("count(db:" + t + "('" + NAME + "', '" + v + "'))"));
+      }
+      assertEquals(query("count(" + nodes + "[string() >= '2' and string() <= '5'])"),
+          query("count(db:" + t + "-range('" + NAME + "', '2', '5'))"));
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package org.basex.test.query;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.query.func.*;
+import org.basex.query.util.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * Tests for the {@link Profiler}.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ProfilerTest extends SandboxTest {
+  /**
+   * Enables profiling.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void before() throws BaseXException {
+    new Set(Prop.PROFILE, true).execute(context);
+    new Set(Prop.XMLPLAN, true).execute(context);
+    new Set(Prop.QUERYINFO, true).execute(context);
+  }
+
+  /**
+   * Disables profiling.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void after() throws BaseXException {
+    new Set(Prop.PROFILE, false).execute(context);
+    new Set(Prop.XMLPLAN, false).execute(context);
+    new Set(Prop.QUERYINFO, false).execute(context);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Checks if the number of calls and items is attached to the query plan.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void plan() throws BaseXException {
+    final XQuery xq = new XQuery("for $i in 1 to 10 where $i mod 2 = 0 return $i * 2");
+    assertEquals("4 8 12 16 20", xq.execute(context).replace('\n', ' '));
+    final String info = xq.info();
+    assertTrue(info, info.contains("<Arith op=\"*\" calls=\"5\" items=\"5\""));
+    assertTrue(info, info.contains(Text.PROFILING_CC));
+  }
+
+  /**
+   * Checks if the profiling information is dumped by the profiling function.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void function() throws BaseXException {
+    new Set(Prop.PROFILE, false).execute(context);
+    final ByteArrayOutputStream ao = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(ao));
+    try {
+      final XQuery xq = new XQuery(Function._PROF_PROFILE.args(
+          " for $i in 1 to 10 where $i mod 2 = 0 return $i * 2", "label"));
+      assertEquals("4 8 12 16 20", xq.execute(context).replace('\n', ' '));
+    } finally {
+      System.setErr(ERR);
+    }
+    final String info = ao.toString();
+    assertTrue(info, info.startsWith("label") && info.contains(" 5 items"));
+  }
+
+  /**
+   * Checks if blocks read from disk are counted.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void reads() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 0; i < 10000; i++) sb.append("<b/>");
+    new CreateDB(NAME, sb.append("</a>").toString()).execute(context);
+    new Close().execute(context);
+    final XQuery xq = new XQuery("db:open('" + NAME + "')//b[last()]/name()");
+    assertEquals("b", xq.execute(context));
+    final String info = xq.info();
+    assertTrue(info, info.matches("(?s).*reads=\"[1-9].*"));
+  }
+}
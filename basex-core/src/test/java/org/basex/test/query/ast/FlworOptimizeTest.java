@@ -267,4 +267,30 @@ public final class FlworOptimizeTest extends QueryPlanTest {
         "exists(//Let)"
     );
   }
+
+  /** Tests the inlining of context-dependent let clauses that are used once. */
+  @Test public void inlineCtxTest() {
+    check("<r><b/><b/></r>/(let $d := .//b return count($d))",
+        "2",
+        "empty(//Let)"
+    );
+    // reference in another focus
+    check("<r><b/><b/></r>/(let $d := b return (<a/>, <c/>)[count($d) = 2])",
+        "<a/>" + Prop.NL + "<c/>",
+        "exists(//Let)"
+    );
+    check("<r><b/></r>/(let $d := b return <x/>/$d)",
+        "<b/>",
+        "exists(//Let)"
+    );
+  }
+
+  /** Tests if context-dependent where clauses are not rewritten to predicates. */
+  @Test public void dontWhereToPredCtxTest() {
+    check("<r><a/></r>/(for $x in (<q/>, <a/>) where name($x) = 'q' or a " +
+        "return name($x))",
+        "q a",
+        "empty(//Filter)"
+    );
+  }
 }
@@ -29,6 +29,20 @@ public final class FLWORTest extends AdvancedQueryTest {
     query("let $i := 1 group by $i, $i return $i", "1");
   }
 
+  /** Tests the computation of the best results of an order by clause. */
+  @Test
+  public void orderLimitTest() {
+    final String flwor = "for $i in 1 to 100 order by $i mod 7 descending, -$i return $i";
+    query("(" + flwor + ")[position() <= 3]", "97 90 83");
+    query("(" + flwor + ")[position() = 2 to 4]", "90 83 76");
+    query("(" + flwor + ")[1]", "97");
+    query("deep-equal((" + flwor + ")[position() <= 20], subsequence(" + flwor + ", 1, 20))",
+        "true");
+    // stable order for equal keys
+    query("(for $i in 1 to 10 order by $i mod 2 return $i)[position() <= 4]", "2 4 6 8");
+    query("(for $i in 1 to 3 order by 1 return ($i, $i))[position() <= 3]", "1 1 2");
+  }
+
   /**
    * Runs an updating query and matches the result of the second query
    * against the expected output.
@@ -72,4 +72,13 @@ public final class FNAdminTest extends AdvancedQueryTest {
     query(_ADMIN_LOGS.args(), "");
     query(_ADMIN_LOGS.args("2001-01-01"), "");
   }
+
+  /**
+   * Test method.
+   */
+  @Test
+  public void metrics() {
+    query("contains(" + _ADMIN_METRICS.args() + ", 'basex_commands_total')", "true");
+    query("contains(" + _ADMIN_METRICS.args() + ", '# TYPE basex_sessions gauge')", "true");
+  }
 }
@@ -0,0 +1,73 @@
+package org.basex.test.query.func;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.func.*;
+import org.basex.query.util.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * This class tests XQuery functions placed in the {@link FNAggr} class.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class FNAggrTest extends AdvancedQueryTest {
+  /** Tests for integer ranges. */
+  @Test
+  public void range() {
+    query("sum(1 to 100000000)", "5000000050000000");
+    query("sum(-5 to 4)", "-5");
+    query("avg(1 to 10)", "5.5");
+    query("min(reverse(1 to 5))", "1");
+    query("max(reverse(1 to 5))", "5");
+    query("let $r := 2147483647 to 2147483650 return sum($r)", "8589934594");
+    error("sum(9223372036854775806 to 9223372036854775807)", Err.RANGE);
+    // large ranges
+    query("sum(1 to 3000000000)", "4500000001500000000");
+    query("sum(-3000000000 to 3000000000)", "0");
+    query("sum(reverse(-3000000001 to 3000000000))", "-3000000001");
+    error("sum(1 to 5000000000)", Err.RANGE);
+  }
+
+  /** Tests for sequences of primitive numbers. */
+  @Test
+  public void values() {
+    query("let $s := (1 to 4) ! (. * 2) return (sum($s), avg($s), min($s), max($s))",
+        "20 5 2 8");
+    query("let $s := (1.5, 2.25, 3) return (sum($s), avg($s), min($s), max($s))",
+        "6.75 2.25 1.5 3");
+    query("let $s := (2e0, 1e0, 3e0) return (sum($s), avg($s), min($s), max($s))",
+        "6 2 1 3");
+    query("let $s := (1e0, xs:double('NaN'), 3e0) return (sum($s), min($s), max($s))",
+        "NaN NaN NaN");
+    query("let $s := (1, 2.5, 3e0) return sum($s) instance of xs:double", "true");
+    query("let $s := (1, 2.5) return sum($s) instance of xs:decimal", "true");
+    query("sum((1, 2e0, <a>3</a>, 4, xs:float(5)))", "15");
+    query("sum((xs:byte(1), 2, <a>3</a>))", "6");
+    error("sum((1, 2, 'a'))", Err.FUNNUM);
+    error("sum((9223372036854775807, 9223372036854775807))", Err.RANGE);
+  }
+
+  /**
+   * Tests for database nodes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void nodes() throws BaseXException {
+    new CreateDB(NAME, "<x><n a='1'>1</n><n a='2.5'>2.5</n><n a='3'>3</n></x>").
+      execute(context);
+    try {
+      query("let $n := //n/text() return (sum($n), avg($n), min($n), max($n))",
+          "6.5 2.1666666666666665 1 3");
+      query("let $n := //@a return (sum($n), min($n), max($n))", "6.5 1 3");
+      query("sum(//n)", "6.5");
+      query("let $n := (//n/text(), text { 'x' }) return sum($n[. != 'x'])", "6.5");
+      error("let $n := (//n/@a, //n/text()) return sum(($n, <a>x</a>/text()))",
+          Err.FUNCAST);
+    } finally {
+      new DropDB(NAME).execute(context);
+    }
+  }
+}
@@ -75,6 +75,32 @@ public final class FNDbTest extends AdvancedQueryTest {
     error(_DB_OPEN.args(NAME), Err.BXDB_OPEN);
   }
 
+  /**
+   * Test method.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void openPath() throws BaseXException {
+    new CreateDB(NAME).execute(context);
+    for(final String path : new String[] { "a/1.xml", "a/2.xml", "a/b/3.xml", "ab/4.xml",
+        "a", "b/5.xml" }) {
+      new Add(path, "<x/>").execute(context);
+    }
+    query(COUNT.args(_DB_OPEN.args(NAME)), "6");
+    query(COUNT.args(_DB_OPEN.args(NAME, "a")), "4");
+    query(COUNT.args(_DB_OPEN.args(NAME, "a/")), "3");
+    query(COUNT.args(_DB_OPEN.args(NAME, "a/b")), "1");
+    query(COUNT.args(_DB_OPEN.args(NAME, "a/1.xml")), "1");
+    query(COUNT.args(_DB_OPEN.args(NAME, "a/1")), "0");
+    query("string-join(" + _DB_OPEN.args(NAME, "a") + " ! " + _DB_PATH.args(" .") +
+        ", ' ')", "a/1.xml a/2.xml a/b/3.xml a");
+
+    // paths are updated after deletions
+    new Delete("a/1.xml").execute(context);
+    query(COUNT.args(_DB_OPEN.args(NAME, "a")), "3");
+    query(COUNT.args(_DB_OPEN.args(NAME)), "5");
+  }
+
   /** Test method. */
   @Test
   public void openPre() {
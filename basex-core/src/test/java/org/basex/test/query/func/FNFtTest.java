@@ -71,6 +71,28 @@ public final class FNFtTest extends AdvancedQueryTest {
     error(_FT_SEARCH.args(NAME, "x", " 1"), Err.ELMMAPTYPE);
   }
 
+  /**
+   * Test method.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void searchNGrams() throws BaseXException {
+    new Set(Prop.FTNGRAMS, true).execute(context);
+    new CreateIndex(CmdIndex.FULLTEXT).execute(context);
+    new Set(Prop.FTNGRAMS, false).execute(context);
+
+    final String wc = " { 'wildcards':'' }";
+    query(_FT_SEARCH.args(NAME, ".*ignments", wc), "Assignments");
+    query(_FT_SEARCH.args(NAME, ".*xerc.*", wc), "Exercise 1Exercise 2");
+    query(_FT_SEARCH.args(NAME, ".*x.rc.s.*", wc), "Exercise 1Exercise 2");
+    query(_FT_SEARCH.args(NAME, "ex.*", wc), "Exercise 1Exercise 2");
+    query(_FT_SEARCH.args(NAME, ".*ercise", wc), "Exercise 1Exercise 2");
+    query(_FT_SEARCH.args(NAME, ".*erci", wc), "");
+    query(_FT_SEARCH.args(NAME, ".*zzz.*", wc), "");
+    query("//li[text() contains text '.*ercis.*' using wildcards]", "<li>Exercise 1</li>" +
+        "<li>Exercise 2</li>");
+  }
+
   /** Test method. */
   @Test
   public void count() {
@@ -127,8 +149,10 @@ public final class FNFtTest extends AdvancedQueryTest {
   /** Test method. */
   @Test
   public void score() {
-    query(_FT_SCORE.args(_FT_SEARCH.args(NAME, "2")), "1");
-    query(_FT_SCORE.args(_FT_SEARCH.args(NAME, "XML")), "1 0.5");
+    query(_FT_SCORE.args(_FT_SEARCH.args(NAME, "2")) + " < 1", "true");
+    // shorter texts are ranked higher
+    query("let $s := " + _FT_SCORE.args(_FT_SEARCH.args(NAME, "XML")) +
+        " return $s[1] > $s[2] and $s[2] > 0", "true");
   }
 
   /**
@@ -22,6 +22,16 @@ public final class FNMapTest extends AdvancedQueryTest {
     query(_MAP_SIZE.args(_MAP_NEW.args("()")), 0);
     query(COUNT.args(_MAP_NEW.args("()")), 1);
     query(_MAP_SIZE.args(_MAP_NEW.args(_MAP_NEW.args("()"))), 0);
+
+    // large maps; later bindings replace earlier ones
+    final String large = _MAP_NEW.args(" for $i in 1 to 100000 return " +
+        _MAP_ENTRY.args("$i mod 50000", "$i"));
+    query(_MAP_SIZE.args(large), 50000);
+    query("let $m := " + large + " return ($m(1), $m(0), $m(49999))",
+        "50001 100000 99999");
+    // numeric keys of different types are equal; strings are distinct
+    query("let $m := map:new((map:entry(1, 'a'), map:entry(1.0, 'b'), " +
+        "map:entry('1', 'c'))) return (map:size($m), $m(1), $m('1'))", "2 b c");
   }
 
   /** Test method. */
@@ -20,4 +20,32 @@ public final class FNPatTest extends AdvancedQueryTest {
     query("replace(' aaa AAA 123','(\\s+\\P{Ll}{3,280}?)','$1@')", " aaa AAA@ 123@");
     error("replace('asdf','a{12,3}','')", Err.REGPAT);
   }
+
+  /** Tests for patterns that are evaluated without the regex engine. */
+  @Test
+  public void literal() {
+    query("matches('abcabc', 'ca')", "true");
+    query("matches('abcabc', 'ac')", "false");
+    query("matches('abc', '^ab')", "true");
+    query("matches('cab', '^ab')", "false");
+    query("matches('a^b', 'a^b', 'q')", "true");
+    query("matches('A', 'a', 'iq')", "true");
+    query("matches('a b', 'ab', 'x')", "false");
+    query("matches('aäöb', 'äö')", "true");
+
+    query("replace('abcabc', 'b', 'xy')", "axycaxyc");
+    query("replace('abcabc', '^ab', 'x')", "xcabc");
+    query("replace('aaa', 'aa', 'b')", "ba");
+    query("replace('abc', 'b', '[$0]')", "a[b]c");
+    query("replace('a.c', '.', '-', 'q')", "a-c");
+    error("replace('abc', 'b', '$1')", Err.REGROUP);
+
+    query("string-join(tokenize('a, b, c', ', '), '|')", "a|b|c");
+    query("string-join(tokenize(',a,,b,', ','), '|')", "|a||b|");
+    query("string-join(tokenize('abab', '^ab'), '|')", "|ab");
+    query("count(tokenize('', ','))", "0");
+    error("tokenize('abc', '^')", Err.REGROUP);
+    error("matches('a', 'a', 'z')", Err.REGMOD);
+    error("matches('a', 'a', 'qz')", Err.REGMOD);
+  }
 }
@@ -40,6 +40,20 @@ public final class FNProfTest extends AdvancedQueryTest {
     }
   }
 
+  /** Test method. */
+  @Test
+  public void profile() {
+    try {
+      System.setErr(NULL);
+      query(_PROF_PROFILE.args("()"));
+      query(COUNT.args(_PROF_PROFILE.args(" 1 to 100 ")), "100");
+      query(COUNT.args(_PROF_PROFILE.args(" for $i in 1 to 100 return $i * 2", "label")),
+          "100");
+    } finally {
+      System.setErr(ERR);
+    }
+  }
+
   /** Test method. */
   @Test
   public void sleep() {
@@ -0,0 +1,118 @@
+package org.basex.test.query.value;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * Tests for persistent sequences.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class TreeSeqTest extends AdvancedQueryTest {
+  /** Random number generator. */
+  private final Random rnd = new Random(42);
+
+  /** Appends and prepends single items. */
+  @Test
+  public void appendPrepend() {
+    Value val = Empty.SEQ;
+    final LinkedList<Long> list = new LinkedList<Long>();
+    for(long i = 0; i < 10000; i++) {
+      if(rnd.nextBoolean()) {
+        val = TreeSeq.concat(val, Int.get(i));
+        list.addLast(i);
+      } else {
+        val = TreeSeq.concat(Int.get(i), val);
+        list.addFirst(i);
+      }
+    }
+    assertTrue(val instanceof TreeSeq);
+    check(list, val);
+  }
+
+  /** Concatenates, splits and reverses sequences. */
+  @Test
+  public void concatSplit() {
+    Value val = Empty.SEQ;
+    List<Long> list = new ArrayList<Long>();
+    for(int i = 0; i < 1000; i++) {
+      final long s = list.size();
+      final int op = rnd.nextInt(5);
+      if(op < 2 || s < 2) {
+        // concatenate sequence of random size
+        final int n = rnd.nextInt(200);
+        final ValueBuilder vb = new ValueBuilder();
+        final List<Long> l = new ArrayList<Long>();
+        for(int j = 0; j < n; j++) {
+          vb.add(Int.get(i * 1000 + j));
+          l.add((long) i * 1000 + j);
+        }
+        if(op == 0) {
+          val = TreeSeq.concat(val, vb.value());
+          list.addAll(l);
+        } else {
+          val = TreeSeq.concat(vb.value(), val);
+          list.addAll(0, l);
+        }
+      } else if(op < 4) {
+        // create subsequence
+        final int from = rnd.nextInt((int) s), len = rnd.nextInt((int) s - from) + 1;
+        val = SubSeq.get(val, from, len);
+        list = new ArrayList<Long>(list.subList(from, from + len));
+      } else {
+        val = ((Seq) val).reverse();
+        Collections.reverse(list);
+      }
+      check(list, val);
+    }
+  }
+
+  /** Evaluates recursive queries that build large sequences. */
+  @Test
+  public void query() {
+    query("count(fold-left(1 to 100000, (), function($a, $b) { ($a, $b) }))", 100000);
+    query("sum(fold-left(1 to 100000, (), function($a, $b) { ($b, $a) })" +
+        "[position() < 4])", 299997);
+    query("let $s := fold-left(1 to 1000, (), function($a, $b) { ($a, $b) }) " +
+        "return (insert-before($s, 3, 'x')[3], remove($s, 3)[3], reverse($s)[1], " +
+        "subsequence($s, 998)[1])", "x 4 1000 998");
+  }
+
+  /**
+   * Compares a sequence with the expected integers.
+   * @param list expected integers
+   * @param val sequence
+   */
+  private static void check(final List<Long> list, final Value val) {
+    final int s = list.size();
+    assertEquals(s, val.size());
+    // positional access
+    for(int i = 0; i < s; i++) check(list.get(i), val.itemAt(i));
+    // iteration
+    final ValueIter vi = val.iter();
+    for(int i = 0; i < s; i++) check(list.get(i), vi.next());
+    assertNull(vi.next());
+    // bulk copy
+    final Item[] items = new Item[s];
+    assertEquals(s, val.writeTo(items, 0));
+    for(int i = 0; i < s; i++) check(list.get(i), items[i]);
+  }
+
+  /**
+   * Compares an item with the expected integer.
+   * @param exp expected integer
+   * @param it item
+   */
+  private static void check(final long exp, final Item it) {
+    assertEquals(exp, ((Int) it).itr());
+  }
+}
@@ -0,0 +1,171 @@
+package org.basex.test.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.regex.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.server.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the asynchronous log.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class LogTest extends SandboxTest {
+  /** Long message, which delays the writer and forces the buffer to overflow. */
+  private static final String SLOW = new String(new char[20000]).replace('\0', 'x');
+  /** Log. */
+  private Log log;
+
+  /** Creates a new log. */
+  @Before
+  public void before() {
+    log = new Log(context);
+    for(final IOFile f : log.files()) f.delete();
+  }
+
+  /** Closes the log and resets the options. */
+  @After
+  public void after() {
+    log.close();
+    for(final IOFile f : log.files()) f.delete();
+    context.mprop.set(MainProp.LOGFORMAT, "text");
+    context.mprop.set(MainProp.LOGOVERFLOW, "block");
+  }
+
+  /**
+   * Writes text entries.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void text() throws IOException {
+    for(int i = 0; i < 1000; i++) log.write("127.0.0.1:" + i, "admin", null, "info  " + i);
+    log.writeServer(true, "done");
+    log.flush();
+    final String[] lines = lines();
+    assertEquals(1001, lines.length);
+    assertTrue(lines[0], lines[0].endsWith("\t127.0.0.1:0\tadmin\tREQUEST\tinfo 0"));
+    assertTrue(lines[1000], lines[1000].endsWith("\tSERVER\tadmin\tOK\tdone"));
+  }
+
+  /**
+   * Writes JSON entries.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void json() throws IOException {
+    context.mprop.set(MainProp.LOGFORMAT, "json");
+    log.write("127.0.0.1:1", "admin", false, "a \"b\"", "1.5 ms");
+    log.close();
+    final String[] lines = lines();
+    assertEquals(1, lines.length);
+    assertTrue(lines[0], lines[0].endsWith(",\"address\":\"127.0.0.1:1\",\"user\":\"admin\"," +
+        "\"type\":\"ERROR\",\"info\":\"a \\\"b\\\"\",\"ms\":1.5}"));
+  }
+
+  /**
+   * Only assigns the key of the measured time to a last column with a time value.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void jsonColumns() throws IOException {
+    context.mprop.set(MainProp.LOGFORMAT, "json");
+    log.write("127.0.0.1:1", "admin", true, "info", "a", "2 ms");
+    log.write("127.0.0.1:1", "admin", true, "info", "1 ms", "b");
+    log.writeServer(true, "3 ms");
+    log.close();
+    final String[] lines = lines();
+    assertEquals(3, lines.length);
+    assertTrue(lines[0], lines[0].endsWith(",\"info\":\"info\",\"col5\":\"a\",\"ms\":2}"));
+    assertTrue(lines[1], lines[1].endsWith(",\"info\":\"info\",\"col5\":\"1 ms\"," +
+        "\"col6\":\"b\"}"));
+    assertTrue(lines[2], lines[2].endsWith(",\"type\":\"OK\",\"info\":\"3 ms\"}"));
+  }
+
+  /**
+   * Falls back to the default values if options are invalid.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void invalid() throws IOException {
+    context.mprop.set(MainProp.LOGFORMAT, "xml");
+    context.mprop.set(MainProp.LOGOVERFLOW, "ignore");
+    for(int i = 0; i < 20000; i++) log.write("127.0.0.1:1", "admin", null, "info");
+    log.close();
+    final String[] lines = lines();
+    // all entries are written as text
+    assertEquals(20000, lines.length);
+    assertTrue(lines[0], lines[0].endsWith("\t127.0.0.1:1\tadmin\tREQUEST\tinfo"));
+  }
+
+  /**
+   * Drops entries if the buffer is full.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void drop() throws IOException {
+    context.mprop.set(MainProp.LOGOVERFLOW, "drop");
+    final int entries = 20000;
+    for(int i = 0; i < entries; i++) log.write("127.0.0.1:1", "admin", null, SLOW);
+    log.close();
+    final int[] counts = counts(lines());
+    // the number of dropped entries is logged
+    assertTrue(counts[1] > 0);
+    assertEquals(entries, counts[0] + counts[1]);
+  }
+
+  /**
+   * Samples entries if the buffer is more than half full.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void sample() throws IOException {
+    context.mprop.set(MainProp.LOGOVERFLOW, "sample");
+    final int entries = 20000, errors = entries / 100;
+    for(int i = 0; i < entries; i++) {
+      log.write("127.0.0.1:1", "admin", i % 100 == 0 ? false : null, SLOW);
+    }
+    log.close();
+    final String[] lines = lines();
+    final int[] counts = counts(lines);
+    assertTrue(counts[1] > 0);
+    assertEquals(entries, counts[0] + counts[1]);
+    // errors are never dropped
+    int e = 0;
+    for(final String line : lines) if(line.contains("\tERROR\tx")) e++;
+    assertEquals(errors, e);
+  }
+
+  /**
+   * Returns the number of written entries and the number of dropped entries.
+   * @param lines lines of the log
+   * @return counts
+   */
+  private static int[] counts(final String[] lines) {
+    final int[] counts = new int[2];
+    final Matcher m = Pattern.compile("\t(\\d+) log entries dropped$").matcher("");
+    for(final String line : lines) {
+      if(m.reset(line).find()) counts[1] += Integer.parseInt(m.group(1));
+      else counts[0]++;
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the lines of all log files.
+   * @return lines
+   * @throws IOException I/O exception
+   */
+  private String[] lines() throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    for(final IOFile f : log.files()) sb.append(Token.string(f.read()));
+    return sb.toString().split("\r?\n");
+  }
+}
@@ -5,6 +5,8 @@ import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.cmd.*;
@@ -168,6 +170,93 @@ public abstract class SessionTest extends SandboxTest {
     assertEqual("2", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
   }
 
+  /**
+   * Adds and replaces many documents in a single transaction.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public final void bulk() throws IOException {
+    session.execute("create db " + NAME);
+    final Map<String, InputStream> inputs = new LinkedHashMap<String, InputStream>();
+    for(int i = 0; i < 10; i++) inputs.put("doc" + i, new ArrayInput("<X>" + i + "</X>"));
+    session.add(inputs);
+    assertEqual("10", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+    assertEqual("0123456789", session.query("string-join(" +
+        _DB_OPEN.args(NAME) + ")").execute());
+
+    inputs.clear();
+    inputs.put("doc3", new ArrayInput("<Y/>"));
+    inputs.put("doc10", new ArrayInput("<Y/>"));
+    session.replace(inputs);
+    assertEqual("11", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+    assertEqual("2", session.query("count(" + _DB_OPEN.args(NAME) + "/Y)").execute());
+    assertEqual("", session.query(_DB_OPEN.args(NAME, "doc3") + "/X").execute());
+
+    // only the last input with the same path is stored
+    inputs.clear();
+    inputs.put("doc3", new ArrayInput("<Z/>"));
+    inputs.put("/doc3", new ArrayInput("<Z>last</Z>"));
+    session.replace(inputs);
+    assertTrue(session.info().startsWith("1 "));
+    assertEqual("last", session.query(_DB_OPEN.args(NAME, "doc3") + "/Z/text()").execute());
+    assertEqual("11", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+  }
+
+  /**
+   * Adds more documents than can be inserted in a single step, and counts the
+   * documents of archives.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public final void bulkChunks() throws IOException {
+    session.execute("create db " + NAME);
+    final ArrayOutput ao = new ArrayOutput();
+    final ZipOutputStream zos = new ZipOutputStream(ao);
+    for(int i = 0; i < 2; i++) {
+      zos.putNextEntry(new ZipEntry("zip" + i + ".xml"));
+      zos.write(token("<X/>"));
+      zos.closeEntry();
+    }
+    zos.close();
+
+    final Map<String, InputStream> inputs = new LinkedHashMap<String, InputStream>();
+    inputs.put("dir.zip", new ArrayInput(ao.toArray()));
+    for(int i = 0; i < 5000; i++) inputs.put("doc" + i, new ArrayInput("<X>" + i + "</X>"));
+    session.add(inputs);
+    assertTrue(session.info().startsWith("5002 "));
+    assertEqual("5002", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+
+    // invalid input in the last chunk: no document must have been added
+    inputs.clear();
+    for(int i = 0; i < 5000; i++) inputs.put("doc" + i, new ArrayInput("<X>" + i + "</X>"));
+    inputs.put("invalid", new ArrayInput("<"));
+    try {
+      session.add(inputs);
+      fail("Invalid input was accepted.");
+    } catch(final BaseXException ex) {
+      assertEqual("5002", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+    }
+  }
+
+  /**
+   * Stops a bulk update because of invalid input.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public final void bulkErr() throws IOException {
+    session.execute("create db " + NAME);
+    final Map<String, InputStream> inputs = new LinkedHashMap<String, InputStream>();
+    inputs.put("a", new ArrayInput("<X/>"));
+    inputs.put("b", new ArrayInput("<"));
+    try {
+      session.add(inputs);
+      fail("Invalid input was accepted.");
+    } catch(final BaseXException ex) {
+      // no document must have been added
+      assertEqual("0", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+    }
+  }
+
   /**
    * Replaces a file with an invalid file name.
    * @throws IOException I/O exception
@@ -0,0 +1,83 @@
+package org.basex.test.util;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * Levenshtein tests.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class LevenshteinTest {
+  /** Characters used for creating tokens. */
+  private static final String CHARS = "abcdeäö";
+
+  /** Compares single tokens. */
+  @Test
+  public void similar() {
+    final Levenshtein ls = new Levenshtein();
+    assertTrue(ls.similar(Token.token("database"), Token.token("databaze"), 1));
+    assertTrue(ls.similar(Token.token("database"), Token.token("dtaabase"), 1));
+    assertFalse(ls.similar(Token.token("database"), Token.token("dtaabaze"), 1));
+    assertTrue(ls.similar(Token.token("database"), Token.token("dtaabaze"), 2));
+    assertFalse(ls.similar(Token.token("abc"), Token.token("abd"), 1));
+  }
+
+  /**
+   * Checks that the incremental comparison of sorted tokens, including the skipped
+   * entries, yields the same results as the default comparison.
+   */
+  @Test
+  public void prefix() {
+    final Random rnd = new Random(0);
+    for(int r = 0; r < 20; r++) {
+      // create sorted, distinct tokens
+      final TreeSet<String> set = new TreeSet<String>();
+      for(int t = 0; t < 2000; t++) set.add(token(rnd, 3 + rnd.nextInt(8)));
+      final byte[][] tokens = new byte[set.size()][];
+      int c = 0;
+      for(final String s : set) tokens[c++] = Token.token(s);
+      Arrays.sort(tokens, new Comparator<byte[]>() {
+        @Override
+        public int compare(final byte[] a, final byte[] b) {
+          return Token.diff(a, b);
+        }
+      });
+
+      for(int q = 0; q < 10; q++) {
+        final byte[] sub = Token.token(token(rnd, 4 + rnd.nextInt(5)));
+        final int err = rnd.nextInt(3);
+        final Levenshtein exp = new Levenshtein(), inc = new Levenshtein();
+        for(int t = 0; t < tokens.length;) {
+          final int l = inc.prefix(tokens[t], sub, err);
+          final int e = t;
+          if(l == -1 || l == tokens[t].length) {
+            t++;
+          } else {
+            final byte[] pref = Arrays.copyOf(tokens[t], l);
+            while(t < tokens.length && Token.startsWith(tokens[t], pref)) t++;
+          }
+          assertEquals(exp.similar(tokens[e], sub, err), l == -1);
+          for(int s = e + 1; s < t; s++) assertFalse(exp.similar(tokens[s], sub, err));
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a random token.
+   * @param rnd random generator
+   * @param l length
+   * @return token
+   */
+  private static String token(final Random rnd, final int l) {
+    final StringBuilder sb = new StringBuilder();
+    for(int i = 0; i < l; i++) sb.append(CHARS.charAt(rnd.nextInt(CHARS.length())));
+    return sb.toString();
+  }
+}
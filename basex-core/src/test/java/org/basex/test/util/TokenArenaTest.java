@@ -0,0 +1,85 @@
+package org.basex.test.util;
+
+import static org.junit.Assert.*;
+
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * Token arena tests.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class TokenArenaTest {
+  /** Number of tests. */
+  private static final int SIZE = 100000;
+
+  /** Tests tokens stored on the heap. */
+  @Test
+  public void heap() {
+    run(new TokenArena(false));
+  }
+
+  /** Tests tokens stored off the heap. */
+  @Test
+  public void direct() {
+    run(new TokenArena(true));
+  }
+
+  /** Tests large tokens. */
+  @Test
+  public void large() {
+    final TokenArena arena = new TokenArena(false);
+    final byte[] small = Token.token("abc");
+    final byte[] large = new byte[(1 << 20) + 1];
+    final long o1 = arena.add(small), o2 = arena.add(large), o3 = arena.add(small);
+    assertArrayEquals(small, arena.get(o1));
+    assertArrayEquals(large, arena.get(o2));
+    assertArrayEquals(small, arena.get(o3));
+    assertTrue(arena.eq(o2, large));
+  }
+
+  /** Returns cached tokens and releases the memory. */
+  @Test
+  public void close() {
+    final TokenArena arena = new TokenArena(true);
+    final long off = arena.add(Token.token("abc"));
+    assertSame(arena.get(off), arena.get(off));
+    arena.close();
+    assertEquals(0, arena.allocated());
+    try {
+      arena.get(off);
+      fail("Closed arena should not be accessible.");
+    } catch(final ArrayIndexOutOfBoundsException ex) {
+      // expected
+    }
+  }
+
+  /**
+   * Adds and retrieves tokens.
+   * @param arena arena
+   */
+  private static void run(final TokenArena arena) {
+    final long[] offs = new long[SIZE];
+    for(int i = 0; i < SIZE; i++) offs[i] = arena.add(token(i));
+    for(int i = 0; i < SIZE; i++) {
+      final byte[] t = token(i);
+      assertArrayEquals(t, arena.get(offs[i]));
+      assertTrue(arena.eq(offs[i], t));
+      assertTrue(arena.startsWith(offs[i], Token.substring(t, 0, 3)));
+      assertFalse(arena.eq(offs[i], Token.concat(t, t)));
+    }
+  }
+
+  /**
+   * Creates a test token.
+   * @param i index
+   * @return token
+   */
+  private static byte[] token(final int i) {
+    final TokenBuilder tb = new TokenBuilder();
+    for(int c = 0; c < i % 200; c++) tb.add('a' + c % 26);
+    return tb.add(Token.token(i)).finish();
+  }
+}